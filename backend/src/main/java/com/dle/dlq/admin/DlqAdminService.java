@@ -2,21 +2,39 @@ package com.dle.dlq.admin;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
 import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.dle.dlq.dto.TopicOffsets;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 
 @Slf4j
 @Service
-public class DlqAdminService {
+public class DlqAdminService implements DisposableBean {
 
     private final String bootstrap;
     private final Pattern dlqPattern;
 
+    /** Long-lived client for offset lookups made on every read request; created on first use. */
+    private final ReentrantLock sharedLock = new ReentrantLock();
+    private AdminClient shared;
+
     public DlqAdminService(
             @Value("${spring.kafka.bootstrap-servers}") String bootstrap,
             @Value("${dle.dlqPattern:.*-DLQ$}") String pattern) {
@@ -28,7 +46,8 @@ public class DlqAdminService {
     public List<String> listDlqTopics() throws Exception {
         log.debug("Listing topics from Kafka bootstrap={}", bootstrap);
 
-        try (var admin = AdminClient.create(Map.of("bootstrap.servers", bootstrap))) {
+        var admin = shared();
+        try {
             var names = admin.listTopics(new ListTopicsOptions().listInternal(false)).names().get();
 
             log.info("Discovered {} topics in cluster", names.size());
@@ -49,5 +68,125 @@ public class DlqAdminService {
             throw e;
         }
     }
-}
 
+    /**
+     * Sum over the topic's partitions of (log end offset - committed offset) for the given consumer group,
+     * from the shared admin client since adaptive replays sample it every few seconds.
+     * Partitions the group has never committed on are ignored; a null topic sums over all of the group's topics.
+     */
+    public long consumerGroupLag(String groupId, String topic) throws Exception {
+        var admin = shared();
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get();
+
+        var forTopic = committed.entrySet().stream()
+                .filter(e -> (topic == null || e.getKey().topic().equals(topic)) && e.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().offset()));
+        if (forTopic.isEmpty()) {
+            log.debug("Consumer group '{}' has no committed offsets on topic='{}'", groupId, topic);
+            return 0;
+        }
+
+        var latest = admin.listOffsets(forTopic.keySet().stream()
+                .collect(Collectors.toMap(tp -> tp, tp -> OffsetSpec.latest()))).all().get();
+
+        long lag = forTopic.entrySet().stream()
+                .mapToLong(e -> Math.max(0, latest.get(e.getKey()).offset() - e.getValue()))
+                .sum();
+        log.debug("Consumer group '{}' lag on topic='{}' is {} across {} partitions", groupId, topic, lag, forTopic.size());
+        return lag;
+    }
+
+    /**
+     * Sum of the log end offsets of all partitions of a topic; its growth rate is the topic's arrival rate.
+     */
+    public long endOffsetTotal(String topic) throws Exception {
+        var admin = shared();
+        var description = admin.describeTopics(List.of(topic)).allTopicNames().get().get(topic);
+
+        var specs = new HashMap<TopicPartition, OffsetSpec>();
+        description.partitions().forEach(p -> specs.put(new TopicPartition(topic, p.partition()), OffsetSpec.latest()));
+
+        return admin.listOffsets(specs).all().get().values().stream()
+                .mapToLong(r -> r.offset())
+                .sum();
+    }
+
+    /**
+     * Begin and end offsets of every partition of a topic, from the shared admin client: a metadata
+     * lookup, far cheaper than reading records. Empty maps if the topic does not exist.
+     */
+    public TopicOffsets offsets(String topic) throws Exception {
+        var admin = shared();
+        Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        try {
+            admin.describeTopics(List.of(topic)).allTopicNames().get().get(topic).partitions().forEach(p -> {
+                var tp = new TopicPartition(topic, p.partition());
+                earliest.put(tp, OffsetSpec.earliest());
+                latest.put(tp, OffsetSpec.latest());
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+                log.debug("Topic '{}' does not exist; no offsets", topic);
+                return new TopicOffsets(topic, Map.of(), Map.of());
+            }
+            throw e;
+        }
+
+        var begin = admin.listOffsets(earliest).all().get();
+        var end = admin.listOffsets(latest).all().get();
+        return new TopicOffsets(topic,
+                begin.entrySet().stream().collect(Collectors.toUnmodifiableMap(e -> e.getKey().partition(), e -> e.getValue().offset())),
+                end.entrySet().stream().collect(Collectors.toUnmodifiableMap(e -> e.getKey().partition(), e -> e.getValue().offset())));
+    }
+
+    /**
+     * For each timestamp, the earliest offset of each partition whose record timestamp is at or
+     * after it, or the partition's end offset if there is none. All lookups are sent before any is
+     * awaited, so the broker round trips overlap instead of adding up.
+     */
+    public Map<Long, Map<Integer, Long>> offsetsForTimes(TopicOffsets offsets, Collection<Long> timestamps) throws Exception {
+        var admin = shared();
+        var pending = new LinkedHashMap<Long, ListOffsetsResult>();
+        for (long ts : timestamps) {
+            Map<TopicPartition, OffsetSpec> specs = new HashMap<>();
+            offsets.end().keySet().forEach(p -> specs.put(new TopicPartition(offsets.topic(), p), OffsetSpec.forTimestamp(ts)));
+            pending.put(ts, admin.listOffsets(specs));
+        }
+
+        var out = new HashMap<Long, Map<Integer, Long>>();
+        for (var e : pending.entrySet()) {
+            var byPartition = new HashMap<Integer, Long>();
+            e.getValue().all().get().forEach((tp, info) ->
+                    byPartition.put(tp.partition(), info.offset() < 0 ? offsets.end().get(tp.partition()) : info.offset()));
+            out.put(e.getKey(), byPartition);
+        }
+        return out;
+    }
+
+    private AdminClient shared() {
+        sharedLock.lock();
+        try {
+            if (shared == null) {
+                shared = AdminClient.create(Map.of("bootstrap.servers", bootstrap));
+            }
+            return shared;
+        } finally {
+            sharedLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        sharedLock.lock();
+        try {
+            if (shared != null) {
+                shared.close();
+                shared = null;
+            }
+        } finally {
+            sharedLock.unlock();
+        }
+    }
+}
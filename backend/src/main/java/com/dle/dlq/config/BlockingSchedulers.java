@@ -0,0 +1,154 @@
+package com.dle.dlq.config;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers for blocking Kafka work, kept off the Netty event loop. Short reads (topics,
+ * fetches), long-running replays, whole-topic scans and exports are isolated from each other so a
+ * burst of replays, scans or slow downloads cannot starve browsing or each other. All are metered
+ * as {@code executor.*} with {@code name=dle.io|dle.replay|dle.scan|dle.export}; once at their
+ * limit they reject work instead of queueing without bound.
+ * <p>
+ * {@link #platform} uses fixed thread pools with bounded queues; {@link #virtual} runs every task
+ * on its own virtual thread, admitted by a semaphore per scheduler.
+ */
+@Slf4j
+public class BlockingSchedulers implements DisposableBean {
+
+    private final List<ExecutorService> executors;
+    private final Scheduler io;
+    private final Scheduler replay;
+    private final Scheduler scan;
+    private final Scheduler export;
+
+    private BlockingSchedulers(List<ExecutorService> executors, Scheduler io, Scheduler replay, Scheduler scan,
+                               Scheduler export) {
+        this.executors = executors;
+        this.io = io;
+        this.replay = replay;
+        this.scan = scan;
+        this.export = export;
+    }
+
+    public static BlockingSchedulers platform(MeterRegistry registry, int ioThreads, int ioQueue,
+                                              int replayThreads, int replayQueue,
+                                              int scanThreads, int scanQueue,
+                                              int exportThreads, int exportQueue) {
+        var ioExecutor = ExecutorServiceMetrics.monitor(registry, pool("dle-io", ioThreads, ioQueue), "dle.io");
+        var replayExecutor = ExecutorServiceMetrics.monitor(registry, pool("dle-replay", replayThreads, replayQueue), "dle.replay");
+        var scanExecutor = ExecutorServiceMetrics.monitor(registry, pool("dle-scan", scanThreads, scanQueue), "dle.scan");
+        var exportExecutor = ExecutorServiceMetrics.monitor(registry, pool("dle-export", exportThreads, exportQueue), "dle.export");
+        log.info("BlockingSchedulers initialized on platform threads: io={} threads/{} queued, replay={} threads/{} queued, scan={} threads/{} queued, export={} threads/{} queued",
+                ioThreads, ioQueue, replayThreads, replayQueue, scanThreads, scanQueue, exportThreads, exportQueue);
+        return new BlockingSchedulers(List.of(ioExecutor, replayExecutor, scanExecutor, exportExecutor),
+                Schedulers.fromExecutorService(ioExecutor, "dle-io"),
+                Schedulers.fromExecutorService(replayExecutor, "dle-replay"),
+                Schedulers.fromExecutorService(scanExecutor, "dle-scan"),
+                Schedulers.fromExecutorService(exportExecutor, "dle-export"));
+    }
+
+    public static BlockingSchedulers virtual(MeterRegistry registry, int ioPermits, int replayPermits, int scanPermits,
+                                             int exportPermits) {
+        var ioThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dle-io-", 1).factory());
+        var replayThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dle-replay-", 1).factory());
+        var scanThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dle-scan-", 1).factory());
+        var exportThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dle-export-", 1).factory());
+        log.info("BlockingSchedulers initialized on virtual threads: io<={} concurrent, replay<={} concurrent, scan<={} concurrent, export<={} concurrent",
+                ioPermits, replayPermits, scanPermits, exportPermits);
+        return new BlockingSchedulers(List.of(ioThreads, replayThreads, scanThreads, exportThreads),
+                Schedulers.fromExecutor(admitting(registry, ioThreads, "dle.io", ioPermits)),
+                Schedulers.fromExecutor(admitting(registry, replayThreads, "dle.replay", replayPermits)),
+                Schedulers.fromExecutor(admitting(registry, scanThreads, "dle.scan", scanPermits)),
+                Schedulers.fromExecutor(admitting(registry, exportThreads, "dle.export", exportPermits)));
+    }
+
+    /** For short blocking Kafka calls: topic listing, message fetches. */
+    public Scheduler io() {
+        return io;
+    }
+
+    /** For replays, which may block for minutes. */
+    public Scheduler replay() {
+        return replay;
+    }
+
+    /** For reads that walk a whole topic partition by partition, e.g. clustering. */
+    public Scheduler scan() {
+        return scan;
+    }
+
+    /**
+     * For exports, which block while a download client takes no data and may run for as long as
+     * {@code dle.export.timeoutMs}.
+     */
+    public Scheduler export() {
+        return export;
+    }
+
+    private static ThreadPoolExecutor pool(String name, int threads, int queue) {
+        var counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queue)),
+                r -> {
+                    var t = new Thread(r, name + "-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Executor that starts at most {@code permits} tasks at once on the delegate and rejects the rest.
+     */
+    private static Executor admitting(MeterRegistry registry, ExecutorService delegate, String name, int permits) {
+        var admission = new Semaphore(Math.max(1, permits));
+        Gauge.builder("dle.execution.inflight", admission, s -> permits - s.availablePermits())
+                .tag("name", name)
+                .description("Tasks running on virtual threads")
+                .register(registry);
+
+        Executor admitted = task -> {
+            if (!admission.tryAcquire()) {
+                throw new RejectedExecutionException(name + " is at its limit of " + permits + " concurrent tasks");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        admission.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                admission.release();
+                throw e;
+            }
+        };
+        return ExecutorServiceMetrics.monitor(registry, admitted, name);
+    }
+
+    @Override
+    public void destroy() {
+        io.dispose();
+        replay.dispose();
+        scan.dispose();
+        export.dispose();
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+}
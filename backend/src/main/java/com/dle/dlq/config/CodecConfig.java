@@ -0,0 +1,61 @@
+package com.dle.dlq.config;
+
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Codecs WebFlux does not register by itself: Jackson's CBOR encoder, for clients that ask for
+ * {@code application/cbor} instead of JSON.
+ */
+@Configuration
+public class CodecConfig {
+
+    @Bean
+    public CodecCustomizer cborCodecCustomizer() {
+        CBORMapper mapper = CBORMapper.builder().findAndAddModules().build();
+        return configurer -> configurer.customCodecs().register(new ExplicitCborEncoder(mapper));
+    }
+
+    /**
+     * Custom codecs are consulted before the default JSON one, and Jackson's encoders accept any
+     * value when no content type has been chosen yet; this one waits to be asked for CBOR by name
+     * so that everything else keeps defaulting to JSON. It also writes a {@code Mono}'s single
+     * value, which the stock encoder refuses along with real streams.
+     */
+    static final class ExplicitCborEncoder extends Jackson2CborEncoder {
+
+        ExplicitCborEncoder(CBORMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+            return mimeType != null && mimeType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)
+                    && super.canEncode(elementType, mimeType);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+}
@@ -35,10 +35,10 @@ public class CorsConfig {
 
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of(
-                "Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With"
+                "Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With", "If-None-Match"
         ));
         config.setExposedHeaders(List.of(
-                "Location", "Content-Disposition", "X-Request-Id"
+                "Location", "Content-Disposition", "X-Request-Id", "ETag"
         ));
         config.setMaxAge(3600L); // seconds
 
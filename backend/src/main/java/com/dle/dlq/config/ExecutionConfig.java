@@ -0,0 +1,43 @@
+package com.dle.dlq.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+public class ExecutionConfig {
+
+    public static final String VIRTUAL_THREADS = "virtual-threads";
+
+    /**
+     * {@code dle.execution.mode=virtual-threads} runs each blocking fetch, admin, replay and scan
+     * call on its own virtual thread, limited by {@code dle.execution.virtual.*Permits}; any other
+     * value keeps the fixed platform pools sized by {@code dle.execution.io|replay|scan|export.*}.
+     */
+    @Bean
+    public BlockingSchedulers blockingSchedulers(
+            MeterRegistry registry,
+            @Value("${dle.execution.mode:platform}") String mode,
+            @Value("${dle.execution.io.threads:16}") int ioThreads,
+            @Value("${dle.execution.io.queue:256}") int ioQueue,
+            @Value("${dle.execution.replay.threads:4}") int replayThreads,
+            @Value("${dle.execution.replay.queue:32}") int replayQueue,
+            @Value("${dle.execution.scan.threads:4}") int scanThreads,
+            @Value("${dle.execution.scan.queue:64}") int scanQueue,
+            @Value("${dle.execution.export.threads:2}") int exportThreads,
+            @Value("${dle.execution.export.queue:4}") int exportQueue,
+            @Value("${dle.execution.virtual.ioPermits:2000}") int ioPermits,
+            @Value("${dle.execution.virtual.replayPermits:64}") int replayPermits,
+            @Value("${dle.execution.virtual.scanPermits:16}") int scanPermits,
+            @Value("${dle.execution.virtual.exportPermits:4}") int exportPermits) {
+        if (VIRTUAL_THREADS.equalsIgnoreCase(mode)) {
+            return BlockingSchedulers.virtual(registry, ioPermits, replayPermits, scanPermits, exportPermits);
+        }
+        return BlockingSchedulers.platform(registry, ioThreads, ioQueue, replayThreads, replayQueue, scanThreads, scanQueue,
+                exportThreads, exportQueue);
+    }
+}
@@ -1,15 +1,20 @@
 package com.dle.dlq.config;
 
 import java.util.HashMap;
+import java.util.UUID;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -29,6 +34,27 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     String bootstrap;
 
+    @Value("${dle.replay.ledger.topic:dle-replay-ledger}")
+    String ledgerTopic = "dle-replay-ledger";
+
+    @Value("${dle.replay.governor.topic:dle-replay-governor}")
+    String governorTopic = "dle-replay-governor";
+
+    @Value("${dle.stats.topic:dle-topic-stats}")
+    String statsTopic = "dle-topic-stats";
+
+    @Value("${dle.timeIndex.topic:dle-time-index}")
+    String timeIndexTopic = "dle-time-index";
+
+    @Value("${dle.replay.jobs.topic:dle-replay-jobs}")
+    String jobsTopic = "dle-replay-jobs";
+
+    @Value("${dle.replay.jobs.partitions:12}")
+    int jobsPartitions = 12;
+
+    @Value("${dle.replay.transactional.idPrefix:dle-replay-tx-}")
+    String transactionIdPrefix = "dle-replay-tx-";
+
     @Bean
     public ConsumerFactory<byte[], byte[]> consumerFactory() {
         var props = new HashMap<String, Object>();
@@ -45,23 +71,46 @@ public class KafkaConfig {
     }
 
     @Bean
+    @Primary
     public ProducerFactory<byte[], byte[]> producerFactory() {
-        var props = new HashMap<String, Object>();
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        var props = producerProps();
 
-        log.info("Kafka ProducerFactory initialized with bootstrapServers='{}'", bootstrap);
+        log.info("Kafka ProducerFactory initialized with bootstrapServers='{}', enableIdempotence={}, acks={}",
+                bootstrap, props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG), props.get(ProducerConfig.ACKS_CONFIG));
 
         return new DefaultKafkaProducerFactory<>(props);
     }
 
+    /**
+     * Transactional variant used by exactly-once replay. The transactional.id prefix gets a
+     * per-instance suffix so replicas sharing the same configuration never fence each other.
+     */
     @Bean
+    public ProducerFactory<byte[], byte[]> transactionalProducerFactory() {
+        var pf = new DefaultKafkaProducerFactory<byte[], byte[]>(producerProps());
+        String prefix = transactionIdPrefix + UUID.randomUUID().toString().substring(0, 8) + "-";
+        pf.setTransactionIdPrefix(prefix);
+
+        log.info("Kafka transactional ProducerFactory initialized with bootstrapServers='{}', transactionIdPrefix='{}'",
+                bootstrap, prefix);
+
+        return pf;
+    }
+
+    @Bean
+    @Primary
     public KafkaTemplate<byte[], byte[]> kafkaTemplate(ProducerFactory<byte[], byte[]> pf) {
         log.debug("KafkaTemplate bean created");
         return new KafkaTemplate<>(pf);
     }
 
+    @Bean
+    public KafkaTemplate<byte[], byte[]> transactionalKafkaTemplate(
+            @Qualifier("transactionalProducerFactory") ProducerFactory<byte[], byte[]> pf) {
+        log.debug("Transactional KafkaTemplate bean created");
+        return new KafkaTemplate<>(pf);
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<byte[], byte[]> kafkaListenerContainerFactory(
             ConsumerFactory<byte[], byte[]> cf, MdcRecordInterceptor interceptor) {
@@ -74,4 +123,68 @@ public class KafkaConfig {
         return f;
     }
 
+    private HashMap<String, Object> producerProps() {
+        var props = new HashMap<String, Object>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // Broker-side de-duplication of producer retries; requires acks=all
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        return props;
+    }
+
+    @Bean
+    public NewTopic replayLedgerTopic() {
+        log.info("Declaring compacted replay ledger topic '{}'", ledgerTopic);
+        return TopicBuilder.name(ledgerTopic)
+                .partitions(1)
+                .compact()
+                .build();
+    }
+
+    @Bean
+    public NewTopic replayGovernorTopic() {
+        log.info("Declaring compacted replay governor topic '{}'", governorTopic);
+        return TopicBuilder.name(governorTopic)
+                .partitions(1)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Per-partition statistics sketches, keyed by {@code topic/partition}; only the latest matters.
+     */
+    @Bean
+    public NewTopic topicStatsTopic() {
+        log.info("Declaring compacted topic stats topic '{}'", statsTopic);
+        return TopicBuilder.name(statsTopic)
+                .partitions(1)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Delta-encoded timestamp→offset indexes, keyed by {@code topic/partition}.
+     */
+    @Bean
+    public NewTopic timeIndexTopic() {
+        log.info("Declaring compacted time index topic '{}'", timeIndexTopic);
+        return TopicBuilder.name(timeIndexTopic)
+                .partitions(1)
+                .compact()
+                .build();
+    }
+
+    /**
+     * Work items of range replays; its partition count caps how many replicas share one job.
+     */
+    @Bean
+    public NewTopic replayJobsTopic() {
+        log.info("Declaring replay jobs topic '{}' with {} partitions", jobsTopic, jobsPartitions);
+        return TopicBuilder.name(jobsTopic)
+                .partitions(jobsPartitions)
+                .build();
+    }
+
 }
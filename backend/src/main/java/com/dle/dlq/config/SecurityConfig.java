@@ -35,7 +35,10 @@ public class SecurityConfig {
                 .authorizeExchange(auth -> auth
                         .pathMatchers(HttpMethod.GET, "/actuator/health").permitAll()
                         .pathMatchers(HttpMethod.GET, "/api/dlq/**").hasAnyRole("viewer", "triager", "replayer")
-                        .pathMatchers(HttpMethod.POST, "/api/dlq/replay").hasAnyRole("triager", "replayer")
+                        .pathMatchers(HttpMethod.POST, "/api/dlq/replay", "/api/dlq/replay/**").hasAnyRole("triager", "replayer")
+                        .pathMatchers(HttpMethod.POST, "/api/dlq/export/jobs").hasAnyRole("triager", "replayer")
+                        .pathMatchers(HttpMethod.POST, "/api/dlq/sessions").hasAnyRole("viewer", "triager", "replayer")
+                        .pathMatchers(HttpMethod.DELETE, "/api/dlq/sessions/**").hasAnyRole("viewer", "triager", "replayer")
                         .anyExchange().authenticated()
                 )
                 .oauth2ResourceServer(oauth -> oauth
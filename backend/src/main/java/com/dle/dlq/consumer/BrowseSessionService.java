@@ -0,0 +1,158 @@
+package com.dle.dlq.consumer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.dto.BrowsePage;
+import com.dle.dlq.dto.BrowseSession;
+import com.dle.dlq.exception.NotFoundException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Browse sessions that pin a topic's offsets when they open, so paging stays stable while the
+ * topic keeps growing: page 0 holds the newest {@code pageSize} records of each partition below
+ * the pinned end, page 1 the ones before them, and so on. Each page's seek positions are planned
+ * once and kept with the session. Sessions live in memory on the replica that opened them and
+ * expire {@code dle.browse.sessionTtlMs} after their last use.
+ */
+@Slf4j
+@Service
+public class BrowseSessionService {
+
+    private final DlqAdminService admin;
+    private final DlqConsumerService consumer;
+    private final LongSupplier clock;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Value("${dle.browse.sessionTtlMs:600000}")
+    long sessionTtlMs = 600_000;
+
+    @Value("${dle.browse.maxSessions:1000}")
+    int maxSessions = 1000;
+
+    @Autowired
+    public BrowseSessionService(DlqAdminService admin, DlqConsumerService consumer) {
+        this(admin, consumer, System::currentTimeMillis);
+    }
+
+    BrowseSessionService(DlqAdminService admin, DlqConsumerService consumer, LongSupplier clock) {
+        this.admin = admin;
+        this.consumer = consumer;
+        this.clock = clock;
+    }
+
+    /** A session's pinned snapshot and the seek positions planned so far, by page. */
+    private static final class Session {
+        final BrowseSession snapshot;
+        final Map<Integer, List<OffsetRange>> plans = new ConcurrentHashMap<>();
+        volatile long lastUsed;
+
+        Session(BrowseSession snapshot, long now) {
+            this.snapshot = snapshot;
+            this.lastUsed = now;
+        }
+    }
+
+    public BrowseSession open(String topic, Integer pageSize) throws Exception {
+        if (topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("topic must not be null/blank");
+        }
+        final int size = consumer.effectiveLimit(pageSize);
+        final var offsets = admin.offsets(topic);
+        final long now = clock.getAsLong();
+
+        long total = 0;
+        int pages = 0;
+        for (var e : offsets.end().entrySet()) {
+            long count = Math.max(0, e.getValue() - offsets.begin().getOrDefault(e.getKey(), 0L));
+            total += count;
+            pages = (int) Math.max(pages, (count + size - 1) / size);
+        }
+
+        evict(now);
+        var snapshot = new BrowseSession(UUID.randomUUID().toString(), topic, offsets.begin(), offsets.end(),
+                total, size, pages, sessionTtlMs);
+        sessions.put(snapshot.sessionId(), new Session(snapshot, now));
+        log.info("Opened browse session '{}' on topic='{}': records={}, pageSize={}, pages={}",
+                snapshot.sessionId(), topic, total, size, pages);
+        return snapshot;
+    }
+
+    public BrowseSession get(String sessionId) {
+        return touch(sessionId).snapshot;
+    }
+
+    public BrowsePage page(String sessionId, int page) {
+        var session = touch(sessionId);
+        var snapshot = session.snapshot;
+        if (page < 0 || page >= Math.max(1, snapshot.pages())) {
+            throw new IllegalArgumentException("page must be between 0 and " + Math.max(0, snapshot.pages() - 1));
+        }
+
+        var ranges = session.plans.computeIfAbsent(page, p -> plan(snapshot, p));
+        var read = consumer.fetchRanges(snapshot.topic(), ranges);
+        return new BrowsePage(sessionId, page, snapshot.pages(), read.messages(), read.complete());
+    }
+
+    public void close(String sessionId) {
+        if (sessions.remove(sessionId) != null) {
+            log.info("Closed browse session '{}'", sessionId);
+        }
+    }
+
+    /** Offsets of page {@code page}: per partition, the page-size slab that many slabs below the pinned end. */
+    static List<OffsetRange> plan(BrowseSession snapshot, int page) {
+        var out = new ArrayList<OffsetRange>();
+        new TreeMap<>(snapshot.end()).forEach((partition, end) -> {
+            long begin = snapshot.begin().getOrDefault(partition, 0L);
+            long to = end - (long) page * snapshot.pageSize();
+            long from = Math.max(begin, to - snapshot.pageSize());
+            if (from < to) {
+                out.add(new OffsetRange(partition, from, to));
+            }
+        });
+        return out;
+    }
+
+    private Session touch(String sessionId) {
+        long now = clock.getAsLong();
+        var session = sessions.get(sessionId);
+        if (session == null || now - session.lastUsed > sessionTtlMs) {
+            sessions.remove(sessionId);
+            throw new NotFoundException("Browse session '" + sessionId + "' does not exist or has expired");
+        }
+        session.lastUsed = now;
+        return session;
+    }
+
+    private void evict(long now) {
+        sessions.values().removeIf(s -> now - s.lastUsed > sessionTtlMs);
+        // Over the cap: drop the least recently used sessions
+        int excess = sessions.size() - maxSessions + 1;
+        if (excess > 0) {
+            sessions.values().stream()
+                    .sorted(Comparator.comparingLong(s -> s.lastUsed))
+                    .limit(excess)
+                    .toList()
+                    .forEach(s -> sessions.remove(s.snapshot.sessionId()));
+        }
+    }
+
+    int size() {
+        return sessions.size();
+    }
+}
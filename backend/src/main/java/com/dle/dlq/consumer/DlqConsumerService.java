@@ -1,43 +1,102 @@
 package com.dle.dlq.consumer;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.stereotype.Service;
 
+import com.dle.dlq.dto.MessageDelta;
 import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
 import com.dle.dlq.util.MessageMapper;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DlqConsumerService {
 
     private final ConsumerFactory<byte[], byte[]> cf;
+    private final TimeIndexRegistry timeIndex;
 
     @Value("${dle.fetchDefault:200}")
     int fetchDefault;
 
+    @Autowired
+    public DlqConsumerService(ConsumerFactory<byte[], byte[]> cf, TimeIndexRegistry timeIndex) {
+        this.cf = cf;
+        this.timeIndex = timeIndex;
+    }
+
+    DlqConsumerService(ConsumerFactory<byte[], byte[]> cf) {
+        this(cf, new TimeIndexRegistry());
+    }
+
+    /**
+     * Records per partition that {@link #fetchLastN} reads for the given limit: the default if
+     * absent or not positive, at most 5000.
+     */
+    public int effectiveLimit(Integer limit) {
+        final int requested = (limit == null ? fetchDefault : limit);
+        return (requested <= 0) ? fetchDefault : Math.min(5000, requested);
+    }
+
+    /**
+     * Records read by {@link #readLastN}, {@link #fetchRanges} or {@link #fetchOffsets};
+     * {@code complete} is false if the read ran out of time before every partition reached the
+     * offsets it was after, in which case the caller may retry.
+     */
+    public record Fetched<T>(List<T> messages, boolean complete) {
+    }
+
     /**
      * Fetch the last N records from each partition of the given topic (bounded to 5k).
      */
     public List<MessageDto> fetchLastN(String topic, Integer limit) {
+        return readLastN(topic, limit).messages();
+    }
+
+    /** As {@link #fetchLastN(String, Integer)}, telling whether the read finished before its deadline. */
+    public Fetched<MessageDto> readLastN(String topic, Integer limit) {
+        return fetchLastN(topic, limit, MessageMapper::toDto, MessageDto::offset);
+    }
+
+    /** As {@link #fetchLastN(String, Integer)}, with keys, values and headers left as raw bytes. */
+    public List<RawMessage> fetchLastNRaw(String topic, Integer limit) {
+        return readLastNRaw(topic, limit).messages();
+    }
+
+    /** As {@link #readLastN(String, Integer)}, with keys, values and headers left as raw bytes. */
+    public Fetched<RawMessage> readLastNRaw(String topic, Integer limit) {
+        return fetchLastN(topic, limit, MessageMapper::toRaw, RawMessage::offset);
+    }
+
+    private <T> Fetched<T> fetchLastN(String topic, Integer limit, Function<ConsumerRecord<byte[], byte[]>, T> mapper,
+                                      ToLongFunction<T> offsetOf) {
         if (topic == null || topic.isBlank()) {
             log.warn("fetchLastN called with empty topic");
             throw new IllegalArgumentException("topic must not be null/blank");
         }
 
         final int requested = (limit == null ? fetchDefault : limit);
-        final int n = (requested <= 0) ? fetchDefault : Math.min(5000, requested);
+        final int n = effectiveLimit(limit);
 
         final long startNanos = System.nanoTime();
         log.info("Fetching last N messages: topic='{}', requestedLimit={}, effectiveLimit={}", topic, requested, n);
@@ -46,7 +105,7 @@ public class DlqConsumerService {
             var partitionsInfo = consumer.partitionsFor(topic);
             if (partitionsInfo == null || partitionsInfo.isEmpty()) {
                 log.info("No partitions found for topic='{}' (does the topic exist?)", topic);
-                return List.of();
+                return new Fetched<>(List.of(), true);
             }
 
             var partitions = partitionsInfo.stream()
@@ -68,23 +127,30 @@ public class DlqConsumerService {
                 }
             });
 
-            var out = new ArrayList<MessageDto>();
+            var out = new ArrayList<T>();
             long deadline = System.currentTimeMillis() + 1500;
             int pollIters = 0;
+            boolean reachedEnd = false;
 
             while (System.currentTimeMillis() < deadline && out.size() < (long) n * partitions.size()) {
                 var records = consumer.poll(Duration.ofMillis(100));
                 pollIters++;
-                records.forEach(rec -> out.add(MessageMapper.toDto(rec)));
+                records.forEach(rec -> {
+                    timeIndex.observe(rec);
+                    out.add(mapper.apply(rec));
+                });
                 if (log.isDebugEnabled()) {
                     log.debug("Polled {} records (accumulated={})", records.count(), out.size());
                 }
+                reachedEnd = partitions.stream().allMatch(tp -> consumer.position(tp) >= end.get(tp));
+                if (reachedEnd) break;
             }
 
-            out.sort(Comparator.comparingLong(MessageDto::offset).reversed());
+            timeIndex.persistIfDue();
+            out.sort(Comparator.comparingLong(offsetOf).reversed());
 
             long tookMs = (System.nanoTime() - startNanos) / 1_000_000;
-            boolean hitDeadline = System.currentTimeMillis() >= deadline;
+            boolean hitDeadline = !reachedEnd && System.currentTimeMillis() >= deadline;
             log.info(
                     "Fetched {} messages from topic='{}' across {} partitions in {} ms (pollIters={}, hitDeadline={})",
                     out.size(), topic, partitions.size(), tookMs, pollIters, hitDeadline
@@ -93,15 +159,354 @@ public class DlqConsumerService {
             if (out.isEmpty()) {
                 log.debug("No messages returned for topic='{}' with limit={}", topic, n);
             } else if (log.isDebugEnabled()) {
-                var maxOffset = out.stream().mapToLong(MessageDto::offset).max().orElse(-1);
-                var minOffset = out.stream().mapToLong(MessageDto::offset).min().orElse(-1);
+                var maxOffset = out.stream().mapToLong(offsetOf).max().orElse(-1);
+                var minOffset = out.stream().mapToLong(offsetOf).min().orElse(-1);
                 log.debug("Result offsets range: minOffset={}, maxOffset={}", minOffset, maxOffset);
             }
 
-            return out;
+            return new Fetched<>(out, !hitDeadline);
         } catch (Exception e) {
             log.error("Failed to fetch last N messages for topic='{}' (requested={}, effective={})", topic, requested, n, e);
             throw e;
         }
     }
+
+    /**
+     * Fetch only the records after the given last-seen offset of each partition, at most the
+     * limit's worth per partition (the newest ones). Partitions missing from {@code since} are read
+     * like {@link #fetchLastN}. Stops at the end offsets taken when the read starts.
+     */
+    public MessageDelta fetchSince(String topic, Map<Integer, Long> since, Integer limit) {
+        if (topic == null || topic.isBlank()) {
+            log.warn("fetchSince called with empty topic");
+            throw new IllegalArgumentException("topic must not be null/blank");
+        }
+        final Map<Integer, Long> lastSeen = since == null ? Map.of() : since;
+        final int n = effectiveLimit(limit);
+        final long startNanos = System.nanoTime();
+
+        try (var consumer = cf.createConsumer("dle-reader-" + UUID.randomUUID(), null)) {
+            var partitionsInfo = consumer.partitionsFor(topic);
+            if (partitionsInfo == null || partitionsInfo.isEmpty()) {
+                log.info("No partitions found for topic='{}' (does the topic exist?)", topic);
+                return new MessageDelta(List.of(), Map.of(), false);
+            }
+
+            var partitions = partitionsInfo.stream()
+                    .map(i -> new TopicPartition(topic, i.partition()))
+                    .toList();
+            var end = consumer.endOffsets(partitions);
+            var begin = consumer.beginningOffsets(partitions);
+
+            // Read from just after the last-seen offset, but never more than the last n records
+            var positions = new HashMap<Integer, Long>();
+            var from = new HashMap<TopicPartition, Long>();
+            boolean truncated = false;
+            for (var tp : partitions) {
+                long endOffset = end.get(tp);
+                long windowStart = Math.max(begin.get(tp), endOffset - n);
+                Long seen = lastSeen.get(tp.partition());
+                truncated |= seen != null && seen + 1 < windowStart;
+                positions.put(tp.partition(), seen == null ? endOffset - 1 : Math.max(seen, endOffset - 1));
+                long start = seen == null ? windowStart : Math.max(windowStart, seen + 1);
+                if (start < endOffset) {
+                    from.put(tp, start);
+                }
+            }
+
+            var pending = List.copyOf(from.keySet());
+            var out = new ArrayList<MessageDto>();
+            if (!pending.isEmpty()) {
+                consumer.assign(pending);
+                from.forEach(consumer::seek);
+
+                long deadline = System.currentTimeMillis() + 1500;
+                var remaining = new HashSet<>(pending);
+                while (System.currentTimeMillis() < deadline && !remaining.isEmpty()) {
+                    var records = consumer.poll(Duration.ofMillis(100));
+                    records.forEach(rec -> {
+                        timeIndex.observe(rec);
+                        var tp = new TopicPartition(rec.topic(), rec.partition());
+                        if (rec.offset() < end.get(tp)) {
+                            out.add(MessageMapper.toDto(rec));
+                        }
+                    });
+                    remaining.removeIf(tp -> consumer.position(tp) >= end.get(tp));
+                }
+                if (!remaining.isEmpty()) {
+                    // Report only what was actually read, so the next delta picks up the rest
+                    remaining.forEach(tp -> positions.put(tp.partition(), consumer.position(tp) - 1));
+                    log.warn("Delta fetch for topic='{}' hit its deadline before reaching the end of partitions {}",
+                            topic, remaining.stream().map(TopicPartition::partition).toList());
+                }
+            }
+
+            timeIndex.persistIfDue();
+            out.sort(Comparator.comparingLong(MessageDto::offset).reversed());
+            log.info("Fetched {} new messages from topic='{}' across {} partitions in {} ms (truncated={})",
+                    out.size(), topic, pending.size(), (System.nanoTime() - startNanos) / 1_000_000, truncated);
+            return new MessageDelta(out, positions, truncated);
+        } catch (Exception e) {
+            log.error("Failed to fetch messages since {} for topic='{}'", lastSeen, topic, e);
+            throw e;
+        }
+    }
+
+    /** Offsets [from, to) of one partition. */
+    public record OffsetRange(int partition, long from, long to) {
+    }
+
+    /**
+     * Fetch exactly the given offset ranges of a topic, newest first. Used where the caller has
+     * already planned the positions, e.g. the pages of a browse session.
+     */
+    public Fetched<MessageDto> fetchRanges(String topic, List<OffsetRange> ranges) {
+        var wanted = new HashMap<TopicPartition, OffsetRange>();
+        ranges.stream()
+                .filter(r -> r.from() < r.to())
+                .forEach(r -> wanted.put(new TopicPartition(topic, r.partition()), r));
+        if (wanted.isEmpty()) return new Fetched<>(List.of(), true);
+
+        final long startNanos = System.nanoTime();
+        try (var consumer = cf.createConsumer("dle-reader-" + UUID.randomUUID(), null)) {
+            consumer.assign(wanted.keySet());
+            wanted.forEach((tp, r) -> consumer.seek(tp, r.from()));
+
+            var out = new ArrayList<MessageDto>();
+            var remaining = new HashSet<>(wanted.keySet());
+            long deadline = System.currentTimeMillis() + 1500;
+            while (System.currentTimeMillis() < deadline && !remaining.isEmpty()) {
+                var records = consumer.poll(Duration.ofMillis(100));
+                records.forEach(rec -> {
+                    timeIndex.observe(rec);
+                    var r = wanted.get(new TopicPartition(rec.topic(), rec.partition()));
+                    if (rec.offset() >= r.from() && rec.offset() < r.to()) {
+                        out.add(MessageMapper.toDto(rec));
+                    }
+                });
+                var done = remaining.stream().filter(tp -> consumer.position(tp) >= wanted.get(tp).to()).toList();
+                if (!done.isEmpty()) {
+                    // Stop fetching finished partitions so their later records are not pulled in
+                    remaining.removeAll(done);
+                    consumer.pause(done);
+                }
+            }
+
+            timeIndex.persistIfDue();
+            out.sort(Comparator.comparingLong(MessageDto::offset).reversed());
+            log.info("Fetched {} messages from topic='{}' in {} planned ranges in {} ms (incompletePartitions={})",
+                    out.size(), topic, wanted.size(), (System.nanoTime() - startNanos) / 1_000_000, remaining.size());
+            return new Fetched<>(out, remaining.isEmpty());
+        } catch (Exception e) {
+            log.error("Failed to fetch ranges {} for topic='{}'", ranges, topic, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Fetch single records at the given offsets of each partition with a direct seek per offset,
+     * newest first. Where an offset holds no record (compaction, transaction markers) the next
+     * record after it is returned instead, once.
+     */
+    public Fetched<MessageDto> fetchOffsets(String topic, Map<Integer, List<Long>> offsets) {
+        var wanted = new HashMap<TopicPartition, ArrayDeque<Long>>();
+        offsets.forEach((partition, list) -> {
+            if (!list.isEmpty()) {
+                wanted.put(new TopicPartition(topic, partition), new ArrayDeque<>(new TreeSet<>(list)));
+            }
+        });
+        if (wanted.isEmpty()) return new Fetched<>(List.of(), true);
+
+        final long startNanos = System.nanoTime();
+        try (var consumer = cf.createConsumer("dle-reader-" + UUID.randomUUID(), null)) {
+            consumer.assign(wanted.keySet());
+            var end = consumer.endOffsets(wanted.keySet());
+            wanted.forEach((tp, queue) -> consumer.seek(tp, queue.peekFirst()));
+
+            var out = new ArrayList<MessageDto>();
+            var remaining = new HashSet<>(wanted.keySet());
+            long deadline = System.currentTimeMillis() + 1500;
+            while (System.currentTimeMillis() < deadline && !remaining.isEmpty()) {
+                var records = consumer.poll(Duration.ofMillis(100));
+                for (var rec : records) {
+                    timeIndex.observe(rec);
+                    var queue = wanted.get(new TopicPartition(rec.topic(), rec.partition()));
+                    if (queue.isEmpty() || rec.offset() < queue.peekFirst()) continue;
+                    out.add(MessageMapper.toDto(rec));
+                    while (!queue.isEmpty() && queue.peekFirst() <= rec.offset()) {
+                        queue.pollFirst();
+                    }
+                }
+                var done = new ArrayList<TopicPartition>();
+                for (var tp : remaining) {
+                    var queue = wanted.get(tp);
+                    if (queue.isEmpty() || queue.peekFirst() >= end.get(tp)) {
+                        done.add(tp);
+                    } else if (queue.peekFirst() > consumer.position(tp)) {
+                        // Jump straight to the next wanted offset instead of reading the gap
+                        consumer.seek(tp, queue.peekFirst());
+                    }
+                }
+                if (!done.isEmpty()) {
+                    remaining.removeAll(done);
+                    consumer.pause(done);
+                }
+            }
+
+            timeIndex.persistIfDue();
+            out.sort(Comparator.comparingLong(MessageDto::offset).reversed());
+            log.info("Fetched {} messages from topic='{}' by direct seek across {} partitions in {} ms (incompletePartitions={})",
+                    out.size(), topic, wanted.size(), (System.nanoTime() - startNanos) / 1_000_000, remaining.size());
+            return new Fetched<>(out, remaining.isEmpty());
+        } catch (Exception e) {
+            log.error("Failed to fetch single offsets for topic='{}'", topic, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Fetch the records with timestamps in {@code [fromTs, toTs)}, at most the limit's worth per
+     * partition counted from the start of the window, newest first. Each partition's start is taken
+     * from the {@link TimeIndexRegistry} where it is known closely enough, and from the broker's
+     * {@code offsetsForTimes} otherwise. A partition is read until its first record at or after
+     * {@code toTs}, so records whose timestamps run far out of offset order may be missed.
+     */
+    public List<MessageDto> fetchWindow(String topic, long fromTs, long toTs, Integer limit) {
+        if (topic == null || topic.isBlank()) {
+            log.warn("fetchWindow called with empty topic");
+            throw new IllegalArgumentException("topic must not be null/blank");
+        }
+        if (fromTs >= toTs) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        final int n = effectiveLimit(limit);
+        final long startNanos = System.nanoTime();
+
+        try (var consumer = cf.createConsumer("dle-reader-" + UUID.randomUUID(), null)) {
+            var partitionsInfo = consumer.partitionsFor(topic);
+            if (partitionsInfo == null || partitionsInfo.isEmpty()) {
+                log.info("No partitions found for topic='{}' (does the topic exist?)", topic);
+                return List.of();
+            }
+
+            var partitions = partitionsInfo.stream()
+                    .map(i -> new TopicPartition(topic, i.partition()))
+                    .toList();
+            var end = consumer.endOffsets(partitions);
+            var begin = consumer.beginningOffsets(partitions);
+
+            var start = new HashMap<TopicPartition, Long>();
+            var unresolved = new HashMap<TopicPartition, Long>();
+            for (var tp : partitions) {
+                if (begin.get(tp) >= end.get(tp)) continue;
+                timeIndex.truncateBefore(tp, begin.get(tp));
+                long local = timeIndex.startOffset(tp, fromTs);
+                if (local >= begin.get(tp)) {
+                    start.put(tp, local);
+                } else {
+                    unresolved.put(tp, fromTs);
+                }
+            }
+            int resolvedLocally = start.size();
+            if (!unresolved.isEmpty()) {
+                consumer.offsetsForTimes(unresolved).forEach((tp, found) -> {
+                    if (found != null) {
+                        start.put(tp, found.offset());
+                        timeIndex.observe(tp, found.timestamp(), found.offset());
+                    }
+                });
+            }
+
+            var out = new ArrayList<MessageDto>();
+            if (!start.isEmpty()) {
+                consumer.assign(start.keySet());
+                start.forEach(consumer::seek);
+
+                var counts = new HashMap<TopicPartition, Integer>();
+                var remaining = new HashSet<>(start.keySet());
+                long deadline = System.currentTimeMillis() + 1500;
+                while (System.currentTimeMillis() < deadline && !remaining.isEmpty()) {
+                    var done = new HashSet<TopicPartition>();
+                    for (var rec : consumer.poll(Duration.ofMillis(100))) {
+                        timeIndex.observe(rec);
+                        var tp = new TopicPartition(rec.topic(), rec.partition());
+                        if (!remaining.contains(tp) || done.contains(tp)) continue;
+                        if (rec.timestamp() >= toTs) {
+                            done.add(tp);
+                        } else if (rec.timestamp() >= fromTs) {
+                            out.add(MessageMapper.toDto(rec));
+                            if (counts.merge(tp, 1, Integer::sum) >= n) done.add(tp);
+                        }
+                    }
+                    remaining.stream().filter(tp -> consumer.position(tp) >= end.get(tp)).forEach(done::add);
+                    if (!done.isEmpty()) {
+                        remaining.removeAll(done);
+                        consumer.pause(done);
+                    }
+                }
+            }
+
+            timeIndex.persistIfDue();
+            out.sort(Comparator.comparingLong(MessageDto::offset).reversed());
+            log.info("Fetched {} messages in [{}, {}) from topic='{}' in {} ms (partitions={}, resolvedLocally={})",
+                    out.size(), fromTs, toTs, topic, (System.nanoTime() - startNanos) / 1_000_000,
+                    start.size(), resolvedLocally);
+            return out;
+        } catch (Exception e) {
+            log.error("Failed to fetch messages in [{}, {}) for topic='{}'", fromTs, toTs, topic, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Hand every raw record of one partition in {@code [from, to)} to {@code sink}, in offset order,
+     * until {@code to} or {@code deadlineMillis} is reached. Records are not mapped to DTOs, so a
+     * scan costs little more than the fetch itself. Returns the offset the scan stopped at.
+     */
+    public long scan(String topic, int partition, long from, long to, long deadlineMillis,
+                     Consumer<ConsumerRecord<byte[], byte[]>> sink) {
+        return scanWhile(topic, partition, from, to, deadlineMillis, rec -> {
+            sink.accept(rec);
+            return true;
+        });
+    }
+
+    /**
+     * As {@link #scan}, but also stops as soon as {@code sink} returns false, e.g. when a budget is
+     * spent or the caller has gone away. The refused record counts as not scanned.
+     */
+    public long scanWhile(String topic, int partition, long from, long to, long deadlineMillis,
+                          Predicate<ConsumerRecord<byte[], byte[]>> sink) {
+        if (from >= to) return to;
+        var tp = new TopicPartition(topic, partition);
+        final long startNanos = System.nanoTime();
+        try (var consumer = cf.createConsumer("dle-scanner-" + UUID.randomUUID(), null)) {
+            consumer.assign(List.of(tp));
+            consumer.seek(tp, from);
+
+            long position = from;
+            long count = 0;
+            boolean stopped = false;
+            while (!stopped && position < to && System.currentTimeMillis() < deadlineMillis) {
+                for (var rec : consumer.poll(Duration.ofMillis(200))) {
+                    if (rec.offset() >= to) break;
+                    timeIndex.observe(rec);
+                    if (!sink.test(rec)) {
+                        stopped = true;
+                        position = rec.offset();
+                        break;
+                    }
+                    count++;
+                }
+                if (!stopped) position = Math.min(to, consumer.position(tp));
+            }
+            timeIndex.persistIfDue();
+            log.info("Scanned {} records of topic='{}' partition {} in [{}, {}) in {} ms (stoppedAt={}, stoppedBySink={})",
+                    count, topic, partition, from, to, (System.nanoTime() - startNanos) / 1_000_000, position, stopped);
+            return position;
+        } catch (Exception e) {
+            log.error("Failed to scan topic='{}' partition {} from offset {}", topic, partition, from, e);
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,216 @@
+package com.dle.dlq.consumer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.util.MessageMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Searches every DLQ topic at once. Each partition is scanned newest first, in slabs of
+ * {@code dle.search.chunkRecords}, and at most {@code dle.search.parallelism} partitions are
+ * scanned at a time across all topics. The records a topic's scans read, matching or not, count
+ * against its {@code dle.search.topicBudgetBytes}; a topic whose budget is spent stops there, so
+ * one huge DLQ cannot starve the others. Hits are emitted as each slab finishes, newest first
+ * within the slab. Cancelling the returned flux, e.g. by the client disconnecting or the hit limit
+ * being reached, stops every scan at its next record.
+ */
+@Slf4j
+@Service
+public class DlqSearchService {
+
+    private final DlqAdminService admin;
+    private final DlqConsumerService consumer;
+    private final TimeIndexRegistry timeIndex;
+    private final BlockingSchedulers schedulers;
+
+    @Value("${dle.search.parallelism:8}")
+    int parallelism = 8;
+
+    @Value("${dle.search.topicBudgetBytes:67108864}")
+    long topicBudgetBytes = 64L << 20;
+
+    @Value("${dle.search.chunkRecords:10000}")
+    int chunkRecords = 10_000;
+
+    @Value("${dle.search.timeoutMs:60000}")
+    long timeoutMs = 60_000;
+
+    @Value("${dle.search.defaultLimit:500}")
+    int defaultLimit = 500;
+
+    @Value("${dle.search.maxLimit:10000}")
+    int maxLimit = 10_000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    public DlqSearchService(DlqAdminService admin, DlqConsumerService consumer, TimeIndexRegistry timeIndex,
+                            BlockingSchedulers schedulers) {
+        this.admin = admin;
+        this.consumer = consumer;
+        this.timeIndex = timeIndex;
+        this.schedulers = schedulers;
+    }
+
+    /**
+     * What to look for; null fields match everything. {@code header} must be present, and its value
+     * contain {@code headerValue} if given; {@code key} and {@code contains} are substrings of the
+     * UTF-8 key and value; the timestamp must lie in {@code [fromTs, toTs)}.
+     */
+    public record Query(String header, String headerValue, String key, String contains, Long fromTs, Long toTs) {
+
+        boolean isEmpty() {
+            return blank(header) && blank(key) && blank(contains) && fromTs == null && toTs == null;
+        }
+
+        boolean matches(ConsumerRecord<byte[], byte[]> rec) {
+            if (fromTs != null && rec.timestamp() < fromTs) return false;
+            if (toTs != null && rec.timestamp() >= toTs) return false;
+            if (!blank(key) && (rec.key() == null || !new String(rec.key(), StandardCharsets.UTF_8).contains(key))) {
+                return false;
+            }
+            if (!blank(contains) && (rec.value() == null
+                    || indexOf(rec.value(), contains.getBytes(StandardCharsets.UTF_8)) < 0)) {
+                return false;
+            }
+            if (blank(header)) return true;
+            for (var h : rec.headers().headers(header)) {
+                if (blank(headerValue)
+                        || (h.value() != null && new String(h.value(), StandardCharsets.UTF_8).contains(headerValue))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean blank(String s) {
+            return s == null || s.isEmpty();
+        }
+
+        /** First index of {@code needle} in {@code haystack}, compared as bytes so values are never decoded. */
+        static int indexOf(byte[] haystack, byte[] needle) {
+            outer:
+            for (int i = 0; i + needle.length <= haystack.length; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (haystack[i + j] != needle[j]) continue outer;
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    /** One partition's offsets to search, and the budget of its topic. */
+    record Slice(String topic, int partition, long from, long to, AtomicLong budget) {
+    }
+
+    public Flux<MessageDto> search(Query query, Integer limit) {
+        if (query == null || query.isEmpty()) {
+            return Flux.error(new IllegalArgumentException("search needs at least one of header, key, contains, from, to"));
+        }
+        if (query.fromTs() != null && query.toTs() != null && query.fromTs() >= query.toTs()) {
+            return Flux.error(new IllegalArgumentException("from must be before to"));
+        }
+        final int max = limit == null || limit <= 0 ? defaultLimit : Math.min(maxLimit, limit);
+        final long deadline = clock.getAsLong() + timeoutMs;
+        final long startNanos = System.nanoTime();
+        final var cancelled = new AtomicBoolean();
+        final var hits = new AtomicLong();
+
+        return Mono.fromCallable(admin::listDlqTopics)
+                .subscribeOn(schedulers.io())
+                .flatMapMany(Flux::fromIterable)
+                .flatMap(topic -> Mono.fromCallable(() -> plan(topic, query)).subscribeOn(schedulers.io()),
+                        Math.max(1, parallelism))
+                .flatMapIterable(slices -> slices)
+                .flatMap(slice -> scan(slice, query, cancelled, deadline), Math.max(1, parallelism))
+                .doOnCancel(() -> cancelled.set(true))
+                .take(max)
+                .doOnNext(m -> hits.incrementAndGet())
+                .doFinally(signal -> log.info("Search {} ended with {} after {} hits in {} ms",
+                        query, signal, hits.get(), (System.nanoTime() - startNanos) / 1_000_000));
+    }
+
+    /**
+     * The slices of one topic, narrowed to the query's time window where it has one. The window's
+     * start comes from the local time index where it can; the broker is asked for the rest, in one
+     * lookup together with the window's end.
+     */
+    List<Slice> plan(String topic, Query query) throws Exception {
+        var offsets = admin.offsets(topic);
+        var from = new TreeMap<>(offsets.begin());
+        var to = new TreeMap<>(offsets.end());
+
+        var unresolved = new HashSet<Integer>();
+        if (query.fromTs() != null) {
+            for (var p : to.keySet()) {
+                long local = timeIndex.startOffset(new TopicPartition(topic, p), query.fromTs());
+                if (local >= from.getOrDefault(p, 0L)) from.put(p, local);
+                else unresolved.add(p);
+            }
+        }
+        var lookups = new ArrayList<Long>();
+        if (!unresolved.isEmpty()) lookups.add(query.fromTs());
+        if (query.toTs() != null) lookups.add(query.toTs());
+        if (!lookups.isEmpty()) {
+            var found = admin.offsetsForTimes(offsets, lookups);
+            if (!unresolved.isEmpty()) {
+                found.get(query.fromTs()).forEach((p, o) -> {
+                    if (unresolved.contains(p)) from.merge(p, o, Math::max);
+                });
+            }
+            if (query.toTs() != null) {
+                found.get(query.toTs()).forEach((p, o) -> to.merge(p, o, Math::min));
+            }
+        }
+
+        var budget = new AtomicLong(topicBudgetBytes);
+        var slices = new ArrayList<Slice>();
+        to.forEach((p, end) -> {
+            long start = from.getOrDefault(p, 0L);
+            if (start < end) slices.add(new Slice(topic, p, start, end, budget));
+        });
+        return slices;
+    }
+
+    private Flux<MessageDto> scan(Slice slice, Query query, AtomicBoolean cancelled, long deadline) {
+        return Flux.<List<MessageDto>>create(sink -> {
+                    long hi = slice.to();
+                    while (hi > slice.from() && !cancelled.get() && slice.budget().get() > 0 && clock.getAsLong() < deadline) {
+                        long lo = Math.max(slice.from(), hi - chunkRecords);
+                        var found = new ArrayList<MessageDto>();
+                        consumer.scanWhile(slice.topic(), slice.partition(), lo, hi, deadline, rec -> {
+                            if (cancelled.get()) return false;
+                            long size = Math.max(0, rec.serializedKeySize()) + Math.max(0, rec.serializedValueSize());
+                            if (slice.budget().addAndGet(-size) < 0) return false;
+                            if (query.matches(rec)) found.add(MessageMapper.toDto(rec));
+                            return true;
+                        });
+                        found.sort(Comparator.comparingLong(MessageDto::timestamp).reversed());
+                        if (!found.isEmpty()) sink.next(found);
+                        hi = lo;
+                    }
+                    sink.complete();
+                })
+                .subscribeOn(schedulers.scan())
+                .flatMapIterable(found -> found);
+    }
+}
@@ -0,0 +1,153 @@
+package com.dle.dlq.consumer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
+import com.dle.dlq.dto.TopicOffsets;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-flight front for {@link DlqConsumerService#fetchLastN}: identical requests share one
+ * Kafka read. Requests are identical when they ask for the same topic and effective limit while
+ * the topic has the same end offsets, so a new record always causes a fresh read. Callers arriving
+ * while the read runs wait for it; callers arriving up to {@code dle.fetch.coalesce.reuseMs} after
+ * it finished get its result directly. A read cut short by its deadline is handed to those already
+ * waiting but never reused. Each request still costs one end-offsets lookup.
+ */
+@Slf4j
+@Component
+public class FetchCoalescer {
+
+    private final DlqConsumerService consumer;
+    private final DlqAdminService admin;
+    private final Counter reads;
+    private final Counter shared;
+    private final LongSupplier clock;
+
+    private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    @Value("${dle.fetch.coalesce.enabled:true}")
+    boolean enabled = true;
+
+    @Value("${dle.fetch.coalesce.reuseMs:2000}")
+    long reuseMs = 2000;
+
+    @Autowired
+    public FetchCoalescer(DlqConsumerService consumer, DlqAdminService admin, MeterRegistry registry) {
+        this(consumer, admin, registry, System::currentTimeMillis);
+    }
+
+    FetchCoalescer(DlqConsumerService consumer, DlqAdminService admin, MeterRegistry registry, LongSupplier clock) {
+        this.consumer = consumer;
+        this.admin = admin;
+        this.clock = clock;
+        this.reads = Counter.builder("dle.fetch.requests").tag("outcome", "read")
+                .description("Message fetches that read from Kafka").register(registry);
+        this.shared = Counter.builder("dle.fetch.requests").tag("outcome", "shared")
+                .description("Message fetches answered by another request's read").register(registry);
+    }
+
+    /** {@code type} tells the representations apart; the same records as DTOs and as raw bytes are two reads. */
+    private record Key(Class<?> type, String topic, int limit, Map<Integer, Long> endOffsets) {
+    }
+
+    /** One read and everyone waiting for it. */
+    private static final class Flight {
+        final CompletableFuture<Fetched<?>> result = new CompletableFuture<>();
+        volatile long completedAt = Long.MAX_VALUE;
+
+        boolean expired(long now, long reuseMs) {
+            return completedAt != Long.MAX_VALUE && now - completedAt > reuseMs;
+        }
+    }
+
+    /** Same contract as {@link DlqConsumerService#fetchLastN}; the returned list is shared and unmodifiable. */
+    public List<MessageDto> fetchLastN(String topic, Integer limit) throws Exception {
+        if (!enabled || topic == null || topic.isBlank()) {
+            return consumer.fetchLastN(topic, limit);
+        }
+        return readLastN(topic, limit, admin.offsets(topic)).messages();
+    }
+
+    /**
+     * Same contract as {@link DlqConsumerService#readLastN}, for callers that already looked up the
+     * topic's offsets.
+     */
+    public Fetched<MessageDto> readLastN(String topic, Integer limit, TopicOffsets offsets) throws Exception {
+        if (!enabled) {
+            return consumer.readLastN(topic, limit);
+        }
+        return coalesce(MessageDto.class, topic, limit, offsets, () -> consumer.readLastN(topic, limit));
+    }
+
+    /** Same contract as {@link DlqConsumerService#readLastNRaw}, coalesced like {@link #readLastN}. */
+    public Fetched<RawMessage> readLastNRaw(String topic, Integer limit, TopicOffsets offsets) throws Exception {
+        if (!enabled) {
+            return consumer.readLastNRaw(topic, limit);
+        }
+        return coalesce(RawMessage.class, topic, limit, offsets, () -> consumer.readLastNRaw(topic, limit));
+    }
+
+    private <T> Fetched<T> coalesce(Class<T> type, String topic, Integer limit, TopicOffsets offsets,
+                                    Callable<Fetched<T>> read) throws Exception {
+        var key = new Key(type, topic, consumer.effectiveLimit(limit), offsets.end());
+        long now = clock.getAsLong();
+        flights.values().removeIf(f -> f.expired(now, reuseMs));
+
+        var mine = new Flight();
+        var flight = flights.compute(key, (k, f) -> f == null || f.expired(now, reuseMs) ? mine : f);
+        if (flight != mine) {
+            shared.increment();
+            log.debug("Sharing in-flight or recent read for topic='{}', limit={}", topic, key.limit());
+            return await(flight);
+        }
+
+        reads.increment();
+        try {
+            var fetched = read.call();
+            var out = new Fetched<>(List.copyOf(fetched.messages()), fetched.complete());
+            if (out.complete()) {
+                mine.completedAt = clock.getAsLong();
+            } else {
+                flights.remove(key, mine);
+            }
+            mine.result.complete(out);
+            return out;
+        } catch (Throwable t) {
+            // Do not hand a failure to later callers; they retry with a read of their own
+            flights.remove(key, mine);
+            mine.result.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Fetched<T> await(Flight flight) throws Exception {
+        try {
+            return (Fetched<T>) flight.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    int inFlightOrCached() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,120 @@
+package com.dle.dlq.consumer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.util.MessageMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/**
+ * reactor-kafka counterpart of {@link DlqConsumerService#fetchLastN}: streams the last N records
+ * of each partition as they are polled, instead of collecting them first. Records arrive in
+ * offset order per partition; the stream completes once every partition reached its end offset
+ * (or after {@code dle.reactive.fetchTimeoutMs}). Enabled with {@code dle.reactive.enabled=true}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "dle.reactive.enabled", havingValue = "true")
+public class ReactiveDlqConsumerService {
+
+    private final ConsumerFactory<byte[], byte[]> cf;
+
+    @Value("${dle.fetchDefault:200}")
+    int fetchDefault = 200;
+
+    @Value("${dle.reactive.fetchTimeoutMs:5000}")
+    long fetchTimeoutMs = 5000;
+
+    public ReactiveDlqConsumerService(ConsumerFactory<byte[], byte[]> cf) {
+        this.cf = cf;
+        log.info("ReactiveDlqConsumerService initialized (reactor-kafka)");
+    }
+
+    /** Offsets [from, end) to read from one partition. */
+    record Range(TopicPartition tp, long from, long end) {
+    }
+
+    public Flux<MessageDto> streamLastN(String topic, Integer limit) {
+        if (topic == null || topic.isBlank()) {
+            return Flux.error(new IllegalArgumentException("topic must not be null/blank"));
+        }
+        final int requested = (limit == null ? fetchDefault : limit);
+        final int n = (requested <= 0) ? fetchDefault : Math.min(5000, requested);
+
+        log.info("Streaming last N messages: topic='{}', effectiveLimit={}", topic, n);
+        return Mono.fromCallable(() -> plan(topic, n))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(this::receive);
+    }
+
+    /** Looks up partitions and offsets with a short-lived consumer; the receiver only reads. */
+    List<Range> plan(String topic, int n) {
+        try (var consumer = cf.createConsumer("dle-stream-plan-" + UUID.randomUUID(), null)) {
+            var partitionsInfo = consumer.partitionsFor(topic);
+            if (partitionsInfo == null || partitionsInfo.isEmpty()) {
+                log.info("No partitions found for topic='{}' (does the topic exist?)", topic);
+                return List.of();
+            }
+            var partitions = partitionsInfo.stream()
+                    .map(i -> new TopicPartition(topic, i.partition()))
+                    .toList();
+            var end = consumer.endOffsets(partitions);
+            var begin = consumer.beginningOffsets(partitions);
+            return partitions.stream()
+                    .map(tp -> new Range(tp, Math.max(begin.get(tp), end.get(tp) - n), end.get(tp)))
+                    .filter(r -> r.from() < r.end())
+                    .toList();
+        }
+    }
+
+    Flux<MessageDto> receive(List<Range> ranges) {
+        if (ranges.isEmpty()) return Flux.empty();
+
+        Map<TopicPartition, Range> byTp = new HashMap<>();
+        ranges.forEach(r -> byTp.put(r.tp(), r));
+        Set<TopicPartition> remaining = ConcurrentHashMap.newKeySet();
+        remaining.addAll(byTp.keySet());
+
+        var props = new HashMap<>(cf.getConfigurationProperties());
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, "dle-stream-" + UUID.randomUUID());
+        ReceiverOptions<byte[], byte[]> options = ReceiverOptions.<byte[], byte[]>create(props)
+                .assignment(byTp.keySet())
+                .addAssignListener(parts -> parts.forEach(p -> p.seek(byTp.get(p.topicPartition()).from())));
+
+        final long startNanos = System.nanoTime();
+        // Records are never acknowledged, so nothing is committed
+        return KafkaReceiver.create(options).receive()
+                .<MessageDto>handle((rec, sink) -> {
+                    var tp = new TopicPartition(rec.topic(), rec.partition());
+                    long end = byTp.get(tp).end();
+                    if (rec.offset() < end) {
+                        sink.next(MessageMapper.toDto(rec));
+                    }
+                    if (rec.offset() >= end - 1 && remaining.remove(tp) && remaining.isEmpty()) {
+                        sink.complete();
+                    }
+                })
+                .take(Duration.ofMillis(fetchTimeoutMs))
+                .doOnComplete(() -> log.info("Streamed {} partitions in {} ms (incomplete partitions={})",
+                        byTp.size(), (System.nanoTime() - startNanos) / 1_000_000, remaining.size()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.dle.dlq.consumer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.dto.MessageSample;
+import com.dle.dlq.dto.TopicOffsets;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Uniform random samples over a topic's whole retained range, for a representative view of a DLQ
+ * that last-N would show as the same recent error over and over. Every retained record is equally
+ * likely to be picked, so partitions contribute in proportion to their depth; each picked offset
+ * is then read with a direct seek rather than a scan.
+ */
+@Slf4j
+@Service
+public class SamplingService {
+
+    private final DlqAdminService admin;
+    private final DlqConsumerService consumer;
+    /** Generator for one request; never shared between threads, as random generators are not thread-safe. */
+    private final Supplier<RandomGenerator> random;
+
+    @Value("${dle.sample.defaultSize:100}")
+    int defaultSize = 100;
+
+    @Value("${dle.sample.maxSize:1000}")
+    int maxSize = 1000;
+
+    @Autowired
+    public SamplingService(DlqAdminService admin, DlqConsumerService consumer) {
+        this(admin, consumer, ThreadLocalRandom::current);
+    }
+
+    /** Draws every sample from the given generator; for single-threaded tests with a fixed seed. */
+    SamplingService(DlqAdminService admin, DlqConsumerService consumer, RandomGenerator random) {
+        this(admin, consumer, () -> random);
+    }
+
+    private SamplingService(DlqAdminService admin, DlqConsumerService consumer, Supplier<RandomGenerator> random) {
+        this.admin = admin;
+        this.consumer = consumer;
+        this.random = random;
+    }
+
+    public MessageSample sample(String topic, Integer size) throws Exception {
+        if (topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("topic must not be null/blank");
+        }
+        final int k = (size == null || size <= 0) ? defaultSize : Math.min(maxSize, size);
+        final var offsets = admin.offsets(topic);
+        final var depths = new TreeMap<Integer, Long>();
+        offsets.end().forEach((p, end) -> depths.put(p, Math.max(0, end - offsets.begin().getOrDefault(p, 0L))));
+        final long retained = depths.values().stream().mapToLong(Long::longValue).sum();
+
+        if (retained <= k) {
+            // Small enough to return everything
+            var ranges = new ArrayList<OffsetRange>();
+            depths.forEach((p, depth) -> ranges.add(new OffsetRange(p, offsets.begin().getOrDefault(p, 0L), offsets.end().get(p))));
+            var all = consumer.fetchRanges(topic, ranges);
+            return new MessageSample(topic, retained, k, all.messages(), all.complete());
+        }
+
+        var picks = locate(offsets, depths, pick(retained, k));
+        var read = consumer.fetchOffsets(topic, picks);
+        log.info("Sampled {} of {} retained records from topic='{}' across {} partitions (complete={})",
+                read.messages().size(), retained, topic, picks.size(), read.complete());
+        return new MessageSample(topic, retained, k, read.messages(), read.complete());
+    }
+
+    /** {@code k} distinct positions in {@code [0, n)}, uniformly at random (Floyd's algorithm). */
+    Set<Long> pick(long n, int k) {
+        var out = new HashSet<Long>(k * 2);
+        var rng = random.get();
+        for (long j = n - k; j < n; j++) {
+            long t = rng.nextLong(j + 1);
+            out.add(out.contains(t) ? j : t);
+        }
+        return out;
+    }
+
+    /** Maps positions in the topic's retained records, partitions laid end to end, to partition offsets. */
+    static Map<Integer, List<Long>> locate(TopicOffsets offsets, TreeMap<Integer, Long> depths, Set<Long> positions) {
+        var starts = new TreeMap<Long, Integer>();
+        long acc = 0;
+        for (var e : depths.entrySet()) {
+            if (e.getValue() > 0) {
+                starts.put(acc, e.getKey());
+                acc += e.getValue();
+            }
+        }
+        var out = new HashMap<Integer, List<Long>>();
+        for (long pos : positions) {
+            var start = starts.floorEntry(pos);
+            int partition = start.getValue();
+            out.computeIfAbsent(partition, p -> new ArrayList<>())
+                    .add(offsets.begin().getOrDefault(partition, 0L) + pos - start.getKey());
+        }
+        return out;
+    }
+}
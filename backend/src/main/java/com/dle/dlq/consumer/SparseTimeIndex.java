@@ -0,0 +1,160 @@
+package com.dle.dlq.consumer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Timestamp→offset entries for one partition, at least {@code every} offsets apart, sorted on both
+ * columns. An entry's timestamp is raised to the largest timestamp of the entries before it, so the
+ * columns stay sorted even when producers' timestamps are not, and a lookup can binary-search them.
+ * Entries may be added in any offset order, because records are observed by whichever fetch
+ * happens to read them. Not thread-safe; {@link TimeIndexRegistry} guards each index.
+ * <p>
+ * The encoded form is delta-encoded: the spacing and the entry count, then for each entry the
+ * differences to the previous timestamp and offset as unsigned LEB128 varints, which takes a few
+ * bytes per entry instead of sixteen.
+ */
+public final class SparseTimeIndex {
+
+    private final int every;
+    private long[] timestamps = new long[16];
+    private long[] offsets = new long[16];
+    private int size;
+
+    public SparseTimeIndex(int every) {
+        this.every = Math.max(1, every);
+    }
+
+    /** Records that {@code offset} holds a record with the given timestamp; returns whether an entry was added. */
+    public boolean observe(long timestamp, long offset) {
+        int i = search(offsets, size, offset);
+        if (i >= 0) return false;
+        int at = -i - 1;
+        if (at > 0 && offset - offsets[at - 1] < every) return false;
+        if (at < size && offsets[at] - offset < every) return false;
+
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        System.arraycopy(timestamps, at, timestamps, at + 1, size - at);
+        System.arraycopy(offsets, at, offsets, at + 1, size - at);
+        timestamps[at] = at > 0 ? Math.max(timestamp, timestamps[at - 1]) : timestamp;
+        offsets[at] = offset;
+        size++;
+        for (int j = at + 1; j < size && timestamps[j] < timestamps[at]; j++) {
+            timestamps[j] = timestamps[at];
+        }
+        return true;
+    }
+
+    /**
+     * An offset to start reading at for records at or after {@code timestamp}: the offset of the
+     * last entry with an earlier timestamp, or -1 if no entry is earlier.
+     */
+    public long floorOffset(long timestamp) {
+        int lo = 0;
+        int hi = size - 1;
+        long found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                found = offsets[mid];
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * As {@link #floorOffset(long)}, but only when the entry after the floor has a timestamp at or
+     * after {@code timestamp} and is at most {@code maxGap} offsets further, so reading from the
+     * floor reaches the first such record within a bounded number of records. -1 otherwise.
+     */
+    public long floorOffset(long timestamp, long maxGap) {
+        int i = Arrays.binarySearch(offsets, 0, size, floorOffset(timestamp));
+        if (i < 0 || i + 1 >= size || offsets[i + 1] - offsets[i] > maxGap) return -1;
+        return offsets[i];
+    }
+
+    /** Adds the entries of {@code other}, e.g. an index another replica persisted. */
+    public void merge(SparseTimeIndex other) {
+        for (int i = 0; i < other.size; i++) {
+            observe(other.timestamps[i], other.offsets[i]);
+        }
+    }
+
+    /** Drops entries below {@code offset}, e.g. once retention has deleted those records. */
+    public void truncateBefore(long offset) {
+        int from = search(offsets, size, offset);
+        from = from >= 0 ? from : -from - 1;
+        if (from == 0) return;
+        System.arraycopy(timestamps, from, timestamps, 0, size - from);
+        System.arraycopy(offsets, from, offsets, 0, size - from);
+        size -= from;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] encode() {
+        var out = new ByteArrayOutputStream(8 + size * 6);
+        writeVarint(out, every);
+        writeVarint(out, size);
+        long prevTs = 0;
+        long prevOffset = 0;
+        for (int i = 0; i < size; i++) {
+            // The first timestamp may be negative (no timestamp); zigzag keeps it short either way
+            long dt = i == 0 ? (timestamps[0] << 1) ^ (timestamps[0] >> 63) : timestamps[i] - prevTs;
+            writeVarint(out, dt);
+            writeVarint(out, offsets[i] - prevOffset);
+            prevTs = timestamps[i];
+            prevOffset = offsets[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static SparseTimeIndex decode(byte[] data) {
+        var in = ByteBuffer.wrap(data);
+        var index = new SparseTimeIndex((int) readVarint(in));
+        int n = (int) readVarint(in);
+        index.timestamps = new long[Math.max(16, n)];
+        index.offsets = new long[Math.max(16, n)];
+        long ts = 0;
+        long offset = 0;
+        for (int i = 0; i < n; i++) {
+            long dt = readVarint(in);
+            ts = i == 0 ? (dt >>> 1) ^ -(dt & 1) : ts + dt;
+            offset += readVarint(in);
+            index.timestamps[i] = ts;
+            index.offsets[i] = offset;
+        }
+        index.size = n;
+        return index;
+    }
+
+    private static int search(long[] a, int size, long key) {
+        return Arrays.binarySearch(a, 0, size, key);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+    }
+}
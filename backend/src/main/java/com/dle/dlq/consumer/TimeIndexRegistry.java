@@ -0,0 +1,267 @@
+package com.dle.dlq.consumer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One {@link SparseTimeIndex} per topic partition, fed by every record the explorer reads, whether
+ * by a fetch, a scan or the background indexer, so time-based positions can be resolved without
+ * asking the broker. Indexes are persisted in their encoded form to the compacted
+ * {@code dle.timeIndex.topic}, keyed by {@code topic/partition}, at most every
+ * {@code dle.timeIndex.persistIntervalMs}; the first lookup merges what was persisted, by this
+ * replica before a restart or by others, into the local indexes.
+ */
+@Slf4j
+@Component
+public class TimeIndexRegistry implements DisposableBean {
+
+    private final ConsumerFactory<byte[], byte[]> cf;
+    private final KafkaTemplate<byte[], byte[]> template;
+    private final String topic;
+
+    private final Map<TopicPartition, Entry> indexes = new ConcurrentHashMap<>();
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private volatile long persistedAt;
+
+    @Value("${dle.timeIndex.every:1000}")
+    int every = 1000;
+
+    @Value("${dle.timeIndex.persist:true}")
+    boolean persist = true;
+
+    @Value("${dle.timeIndex.persistIntervalMs:60000}")
+    long persistIntervalMs = 60_000;
+
+    @Value("${dle.timeIndex.loadTimeoutMs:10000}")
+    long loadTimeoutMs = 10_000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    /** An index that is neither loaded from nor persisted to Kafka. */
+    public TimeIndexRegistry() {
+        this(null, null, null);
+        this.persist = false;
+    }
+
+    @Autowired
+    public TimeIndexRegistry(
+            ConsumerFactory<byte[], byte[]> cf,
+            KafkaTemplate<byte[], byte[]> template,
+            @Value("${dle.timeIndex.topic:dle-time-index}") String topic) {
+        this.cf = cf;
+        this.template = template;
+        this.topic = topic;
+    }
+
+    private static final class Entry {
+        final SparseTimeIndex index;
+        final ReentrantLock lock = new ReentrantLock();
+        boolean dirty;
+
+        Entry(SparseTimeIndex index) {
+            this.index = index;
+        }
+    }
+
+    public void observe(ConsumerRecord<?, ?> rec) {
+        observe(new TopicPartition(rec.topic(), rec.partition()), rec.timestamp(), rec.offset());
+    }
+
+    public void observe(TopicPartition tp, long timestamp, long offset) {
+        if (timestamp < 0) return;   // no timestamp to index
+        var entry = indexes.computeIfAbsent(tp, k -> new Entry(new SparseTimeIndex(every)));
+        entry.lock.lock();
+        try {
+            entry.dirty |= entry.index.observe(timestamp, offset);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * Where to start reading {@code tp} for records at or after {@code timestamp}, if the local
+     * index pins it down to a read of at most two index spacings; -1 when the broker must be asked.
+     */
+    public long startOffset(TopicPartition tp, long timestamp) {
+        ensureLoaded();
+        var entry = indexes.get(tp);
+        if (entry == null) return -1;
+        entry.lock.lock();
+        try {
+            return entry.index.floorOffset(timestamp, 2L * every);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /** Offset of the last indexed entry before {@code timestamp}, however far from it; -1 if none. */
+    public long floorOffset(TopicPartition tp, long timestamp) {
+        ensureLoaded();
+        var entry = indexes.get(tp);
+        if (entry == null) return -1;
+        entry.lock.lock();
+        try {
+            return entry.index.floorOffset(timestamp);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /** Forgets entries below {@code offset}, once retention has deleted the records they point at. */
+    public void truncateBefore(TopicPartition tp, long offset) {
+        var entry = indexes.get(tp);
+        if (entry == null) return;
+        entry.lock.lock();
+        try {
+            int before = entry.index.size();
+            entry.index.truncateBefore(offset);
+            entry.dirty |= entry.index.size() != before;
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    public void remove(TopicPartition tp) {
+        if (indexes.remove(tp) != null && persist) {
+            send(key(tp), null);
+        }
+    }
+
+    public int size(TopicPartition tp) {
+        var entry = indexes.get(tp);
+        if (entry == null) return 0;
+        entry.lock.lock();
+        try {
+            return entry.index.size();
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /** Persists changed indexes if {@code dle.timeIndex.persistIntervalMs} has passed since the last time. */
+    public void persistIfDue() {
+        long now = clock.getAsLong();
+        if (!persist || now - persistedAt < persistIntervalMs) return;
+        persistedAt = now;
+        persistChanged();
+    }
+
+    void persistChanged() {
+        int sent = 0;
+        for (var e : indexes.entrySet()) {
+            var entry = e.getValue();
+            byte[] bytes;
+            entry.lock.lock();
+            try {
+                if (!entry.dirty) continue;
+                entry.dirty = false;
+                bytes = entry.index.encode();
+            } finally {
+                entry.lock.unlock();
+            }
+            send(key(e.getKey()), bytes);
+            sent++;
+        }
+        if (sent > 0) {
+            log.debug("Persisted {} time indexes to topic='{}'", sent, topic);
+        }
+    }
+
+    private void send(byte[] key, byte[] value) {
+        try {
+            template.send(new ProducerRecord<>(topic, key, value)).whenComplete((r, e) -> {
+                if (e != null) log.warn("Failed to persist time index to topic='{}'", topic, e);
+            });
+        } catch (Exception e) {
+            log.warn("Failed to persist time index to topic='{}'", topic, e);
+        }
+    }
+
+    void ensureLoaded() {
+        if (loaded || !persist) return;
+        // A lock rather than synchronized: loading blocks on Kafka and must not pin a virtual thread's carrier
+        loadLock.lock();
+        try {
+            if (loaded) return;
+            load();
+        } catch (Exception e) {
+            log.warn("Could not load persisted time indexes from topic='{}'; using this replica's only", topic, e);
+        } finally {
+            loaded = true;   // a broken or missing topic is not retried on every lookup
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
+        final long startNanos = System.nanoTime();
+        try (var consumer = cf.createConsumer("dle-time-index-" + UUID.randomUUID(), null)) {
+            var infos = consumer.partitionsFor(topic);
+            if (infos == null || infos.isEmpty()) return;
+            var tps = infos.stream().map(i -> new TopicPartition(topic, i.partition())).toList();
+            consumer.assign(tps);
+            consumer.seekToBeginning(tps);
+            var end = consumer.endOffsets(tps);
+
+            var persisted = new HashMap<String, byte[]>();
+            long deadline = clock.getAsLong() + loadTimeoutMs;
+            while (tps.stream().anyMatch(tp -> consumer.position(tp) < end.get(tp))) {
+                if (clock.getAsLong() >= deadline) {
+                    throw new IllegalStateException("Timed out loading time index topic '" + topic + "'");
+                }
+                for (var rec : consumer.poll(Duration.ofMillis(200))) {
+                    if (rec.key() == null) continue;
+                    var key = new String(rec.key(), StandardCharsets.UTF_8);
+                    if (rec.value() == null) persisted.remove(key);
+                    else persisted.put(key, rec.value());
+                }
+            }
+
+            persisted.forEach((key, value) -> {
+                int slash = key.lastIndexOf('/');
+                try {
+                    var tp = new TopicPartition(key.substring(0, slash), Integer.parseInt(key.substring(slash + 1)));
+                    var remote = SparseTimeIndex.decode(value);
+                    var entry = indexes.computeIfAbsent(tp, k -> new Entry(new SparseTimeIndex(every)));
+                    entry.lock.lock();
+                    try {
+                        entry.index.merge(remote);
+                    } finally {
+                        entry.lock.unlock();
+                    }
+                } catch (RuntimeException e) {
+                    log.debug("Ignoring malformed time index record '{}'", key, e);
+                }
+            });
+            log.info("Loaded {} persisted time indexes from topic='{}' in {} ms",
+                    persisted.size(), topic, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private static byte[] key(TopicPartition tp) {
+        return (tp.topic() + "/" + tp.partition()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void destroy() {
+        if (persist) persistChanged();
+    }
+}
@@ -0,0 +1,15 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records that arrived per time bucket in {@code [from, to)}, oldest bucket first. The last bucket
+ * is still open and ends at the topic's current end offsets.
+ */
+public record ArrivalHistogram(String topic, long bucketMs, long from, long to, long total, List<Bucket> buckets) {
+
+    /** {@code partitions} holds the count per partition, or null unless requested. */
+    public record Bucket(long start, long count, Map<Integer, Long> partitions) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+/**
+ * One page of a browse session. {@code complete} is false if the read timed out before every
+ * partition's slab was read; asking for the same page again retries it.
+ */
+public record BrowsePage(String sessionId, int page, int pages, List<MessageDto> messages, boolean complete) {
+}
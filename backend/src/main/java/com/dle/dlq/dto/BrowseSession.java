@@ -0,0 +1,12 @@
+package com.dle.dlq.dto;
+
+import java.util.Map;
+
+/**
+ * A browse session over a topic pinned to the offsets it had when the session opened; every page
+ * is read below {@code end}. {@code total} is the number of records in that snapshot; the session
+ * expires after {@code idleTtlMs} without use.
+ */
+public record BrowseSession(String sessionId, String topic, Map<Integer, Long> begin, Map<Integer, Long> end,
+                            long total, int pageSize, int pages, long idleTtlMs) {
+}
@@ -0,0 +1,17 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+/**
+ * Records sharing one failure fingerprint. The true count lies in
+ * {@code [count - maxOverestimate, count]}; {@code examples} are {@code partition:offset} positions.
+ */
+public record ErrorCluster(
+    String fingerprint,
+    String label,
+    long count,
+    long maxOverestimate,
+    long firstSeen,
+    long lastSeen,
+    List<String> examples
+) {}
@@ -0,0 +1,10 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+/**
+ * Largest failure clusters of a topic. {@code complete} is false if a partition scan stopped at its
+ * deadline before reaching the end offsets taken when the scan started.
+ */
+public record ErrorClusters(String topic, long scanned, boolean complete, List<ErrorCluster> clusters) {
+}
@@ -0,0 +1,9 @@
+package com.dle.dlq.dto;
+
+/**
+ * An export being written to a file on the replica that started it. status is RUNNING, DONE or
+ * FAILED; bytes counts compressed bytes written so far.
+ */
+public record ExportJob(String jobId, String topic, String status, String file, long records, long bytes,
+        String error, long startedAt, Long finishedAt) {
+}
@@ -0,0 +1,12 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+/**
+ * Exports the records of topic on the given partitions (null for all) between fromOffset and
+ * toOffset (both inclusive, null for the log start/end) whose timestamps lie in [fromTimestamp,
+ * toTimestamp) (epoch millis, null for unbounded), compressed with none, gzip (default) or zstd.
+ */
+public record ExportRequest(String topic, List<Integer> partitions, Long fromOffset, Long toOffset,
+        Long fromTimestamp, Long toTimestamp, String compression) {
+}
@@ -0,0 +1,12 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records newer than a client's last-seen offsets. {@code positions} holds the last offset now
+ * covered per partition, to send back as the next {@code since}; {@code truncated} is set when a
+ * partition had more new records than the limit and only the newest were returned.
+ */
+public record MessageDelta(List<MessageDto> messages, Map<Integer, Long> positions, boolean truncated) {
+}
@@ -0,0 +1,11 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+/**
+ * A uniform random sample of a topic's retained records. {@code retained} is the number of
+ * records the sample was drawn from; {@code complete} is false if the read timed out before every
+ * picked record was read.
+ */
+public record MessageSample(String topic, long retained, int requested, List<MessageDto> messages, boolean complete) {
+}
@@ -0,0 +1,22 @@
+package com.dle.dlq.dto;
+
+import java.util.Map;
+
+import com.dle.dlq.dto.TopicStats.Quantiles;
+
+/**
+ * What the background indexer has folded for one partition, over offsets
+ * {@code [firstOffset, nextOffset)}. {@code headerValues} holds the most frequent values of each
+ * header with approximate counts.
+ */
+public record PartitionIndexSummary(
+    int partition,
+    long firstOffset,
+    long nextOffset,
+    long records,
+    int timeIndexEntries,
+    Long firstTimestamp,
+    Long lastTimestamp,
+    Quantiles payloadBytes,
+    Map<String, Map<String, Long>> headerValues
+) {}
@@ -0,0 +1,4 @@
+package com.dle.dlq.dto;
+
+public record RangeReplayJob(String jobId, int workItems, long records) {
+}
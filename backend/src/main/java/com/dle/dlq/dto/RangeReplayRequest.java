@@ -0,0 +1,12 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+/**
+ * Replays every record of sourceTopic between fromOffset and toOffset (both inclusive, null for
+ * the log start/end) on the given partitions (null for all), distributed across replicas.
+ */
+public record RangeReplayRequest(String sourceTopic, String targetTopic, List<Integer> partitions,
+        Long fromOffset, Long toOffset, Integer throttlePerSec, String producerProfile,
+        Boolean toOriginalTopic, Boolean preservePartition) {
+}
@@ -0,0 +1,18 @@
+package com.dle.dlq.dto;
+
+import java.util.Map;
+
+/**
+ * A record with its key, value and header values as raw bytes, for binary representations that
+ * carry bytes natively (CBOR byte strings) instead of Base64 text. Unlike {@link MessageDto} there
+ * is no UTF-8 copy of the value; clients decode the bytes themselves.
+ */
+public record RawMessage(
+    String topic,
+    int partition,
+    long offset,
+    long timestamp,
+    byte[] key,
+    byte[] value,
+    Map<String, byte[]> headers
+) {}
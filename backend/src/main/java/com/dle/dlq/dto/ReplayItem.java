@@ -2,5 +2,11 @@ package com.dle.dlq.dto;
 
 import java.util.Map;
 
-public record ReplayItem(int partition, long offset, String valueBase64, Map<String, String> headersBase64) {
+/** One record to replay; {@code keyBase64} is optional and sent as the record key when present. */
+public record ReplayItem(int partition, long offset, String valueBase64, Map<String, String> headersBase64,
+        String keyBase64) {
+
+    public ReplayItem(int partition, long offset, String valueBase64, Map<String, String> headersBase64) {
+        this(partition, offset, valueBase64, headersBase64, null);
+    }
 }
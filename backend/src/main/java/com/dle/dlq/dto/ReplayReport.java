@@ -0,0 +1,84 @@
+package com.dle.dlq.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of one replay: totals plus, per target topic, counts and mean broker-ack latency.
+ */
+public record ReplayReport(int sent, int skipped, int failed, int unroutable, long tookMs,
+        Map<String, TargetStats> targets) {
+
+    public static final ReplayReport EMPTY = new ReplayReport(0, 0, 0, 0, 0, Map.of());
+
+    public record TargetStats(int sent, int skipped, int failed, long tookMs, double meanAckMs) {
+    }
+
+    /** Mutable accumulator used while a replay runs; not thread-safe. */
+    public static final class Builder {
+        private final long startNanos = System.nanoTime();
+        private final Map<String, long[]> perTarget = new LinkedHashMap<>();
+        private int sent;
+        private int skipped;
+        private int failed;
+        private int unroutable;
+
+        // counters per target: sent, skipped, failed, elapsedNanos, ackNanos
+        private long[] of(String target) {
+            return perTarget.computeIfAbsent(target, t -> new long[5]);
+        }
+
+        public void sent(String target, long ackNanos) {
+            sent++;
+            long[] c = of(target);
+            c[0]++;
+            c[4] += ackNanos;
+        }
+
+        public void skipped(String target) {
+            skipped++;
+            of(target)[1]++;
+        }
+
+        public void failed(String target) {
+            failed++;
+            of(target)[2]++;
+        }
+
+        public void elapsed(String target, long nanos) {
+            of(target)[3] += nanos;
+        }
+
+        public void markUnroutable() {
+            unroutable++;
+        }
+
+        public int sent() {
+            return sent;
+        }
+
+        public int skipped() {
+            return skipped;
+        }
+
+        public int failed() {
+            return failed;
+        }
+
+        public int unroutable() {
+            return unroutable;
+        }
+
+        public long elapsedMs() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public ReplayReport build() {
+            var targets = new LinkedHashMap<String, TargetStats>();
+            perTarget.forEach((t, c) -> targets.put(t, new TargetStats(
+                    (int) c[0], (int) c[1], (int) c[2], c[3] / 1_000_000,
+                    c[0] == 0 ? 0 : c[4] / 1_000_000.0 / c[0])));
+            return new ReplayReport(sent, skipped, failed, unroutable, elapsedMs(), targets);
+        }
+    }
+}
@@ -4,5 +4,7 @@ import java.util.List;
 import java.util.Set;
 
 public record ReplayRequest(String sourceTopic, String targetTopic, List<ReplayItem> items, Integer throttlePerSec,
-        Set<String> headerAllowList) {
-}
\ No newline at end of file
+        Set<String> headerAllowList, Boolean force, Boolean transactional, Integer batchSize,
+        Boolean adaptive, String lagGroup, String producerProfile,
+        Boolean toOriginalTopic, Boolean preservePartition) {
+}
@@ -0,0 +1,8 @@
+package com.dle.dlq.dto;
+
+/**
+ * One slice of a range replay job: offsets [fromOffset, toOffset) of a single source partition.
+ */
+public record ReplayWorkItem(String jobId, RangeReplayRequest request, int partition,
+        long fromOffset, long toOffset, String priority) {
+}
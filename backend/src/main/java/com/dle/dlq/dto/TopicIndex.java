@@ -0,0 +1,6 @@
+package com.dle.dlq.dto;
+
+import java.util.List;
+
+public record TopicIndex(String topic, List<PartitionIndexSummary> partitions) {
+}
@@ -0,0 +1,10 @@
+package com.dle.dlq.dto;
+
+import java.util.Map;
+
+/**
+ * Begin (earliest) and end (log end) offsets of each partition of a topic, keyed by partition.
+ * Both maps are empty if the topic does not exist.
+ */
+public record TopicOffsets(String topic, Map<Integer, Long> begin, Map<Integer, Long> end) {
+}
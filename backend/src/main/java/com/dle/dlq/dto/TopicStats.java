@@ -0,0 +1,26 @@
+package com.dle.dlq.dto;
+
+import java.util.Map;
+
+/**
+ * Approximate statistics of a topic's records. {@code distinctKeys} and the header
+ * {@code distinctValues} are HyperLogLog estimates (about 1% and 3% error), the quantiles come
+ * from t-digests. Quantiles are null when the topic holds no records.
+ */
+public record TopicStats(
+    String topic,
+    long records,
+    long distinctKeys,
+    Quantiles payloadBytes,
+    Quantiles ageMs,
+    Map<String, HeaderStats> headers,
+    long computedAt
+) {
+
+    public record Quantiles(long p50, long p90, long p99, long max) {
+    }
+
+    /** How many records carry a header and how many distinct values it takes. */
+    public record HeaderStats(long records, long distinctValues) {
+    }
+}
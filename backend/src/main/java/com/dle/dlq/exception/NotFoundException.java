@@ -0,0 +1,12 @@
+package com.dle.dlq.exception;
+
+/**
+ * Something the request names, such as a browse session or export job, does not exist (or no
+ * longer does) on this replica. Answered with 404; other missing-element errors stay 500.
+ */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,59 @@
+package com.dle.dlq.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+/** How an export file is compressed. */
+public enum Compression {
+
+    NONE(".ndjson", "application/x-ndjson"),
+    GZIP(".ndjson.gz", "application/gzip"),
+    ZSTD(".ndjson.zst", "application/zstd");
+
+    private final String extension;
+    private final String contentType;
+
+    Compression(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    /** Wraps {@code out}; closing the returned stream finishes the compressed frame and closes {@code out}. */
+    public OutputStream wrap(OutputStream out) throws IOException {
+        return switch (this) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, 64 * 1024);
+            case ZSTD -> new ZstdOutputStream(out, 3);
+        };
+    }
+
+    /** Recognises gzip and zstd by their magic bytes at the start of {@code head}; anything else is none. */
+    public static Compression detect(byte[] head) {
+        if (head.length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) return GZIP;
+        if (head.length >= 4 && (head[0] & 0xff) == 0x28 && (head[1] & 0xff) == 0xb5
+                && (head[2] & 0xff) == 0x2f && (head[3] & 0xff) == 0xfd) return ZSTD;
+        return NONE;
+    }
+
+    /** gzip when absent; otherwise none, gzip or zstd, in any case. */
+    public static Compression of(String name) {
+        if (name == null || name.isBlank()) return GZIP;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("compression must be one of none, gzip, zstd but was '" + name + "'");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.dle.dlq.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+
+import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.util.NdjsonDecoder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads an export file back as {@link ReplayItem}s while it is still arriving, e.g. as an upload's
+ * request body. Plain NDJSON goes straight from the network buffers into {@link NdjsonDecoder};
+ * gzip and zstd, recognised by their magic bytes, are inflated buffer by buffer as they arrive
+ * (see {@link Inflating}), a few buffers ahead of the decoder, so no thread waits on the upload
+ * however slowly the client sends it. Fields of a line that {@code ReplayItem} does not have
+ * (topic, timestamp) are ignored.
+ */
+@Slf4j
+@Component
+public class ExportReader {
+
+    private static final ObjectReader ITEM = new ObjectMapper()
+            .readerFor(ReplayItem.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /** Compressed buffers requested ahead of the decompressor. */
+    private static final int PREFETCH = 4;
+
+    @Value("${dle.export.chunkBytes:65536}")
+    int chunkBytes = 64 * 1024;
+
+    /** The records of an export file, one item per line, read as {@code body} is consumed. */
+    public Flux<ReplayItem> items(Flux<DataBuffer> body) {
+        return NdjsonDecoder.decode(decompressed(body), ITEM);
+    }
+
+    /** The body's bytes, inflated if they start like a gzip or zstd stream. */
+    Flux<byte[]> decompressed(Flux<DataBuffer> body) {
+        return NdjsonDecoder.bytes(body).switchOnFirst((first, all) -> {
+            var compression = first.hasValue() ? Compression.detect(first.get()) : Compression.NONE;
+            if (compression == Compression.NONE) {
+                return all;
+            }
+            log.debug("Reading {}-compressed export input", compression);
+            return inflate(all, compression);
+        });
+    }
+
+    private Flux<byte[]> inflate(Flux<byte[]> compressed, Compression compression) {
+        return Flux.using(
+                () -> Inflating.of(compression, chunkBytes),
+                inflating -> compressed.concatMapIterable(inflating::feed, PREFETCH)
+                        .concatWith(Mono.<byte[]>fromRunnable(inflating::end)),
+                Inflating::close);
+    }
+}
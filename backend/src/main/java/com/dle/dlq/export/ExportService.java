@@ -0,0 +1,376 @@
+package com.dle.dlq.export;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.consumer.TimeIndexRegistry;
+import com.dle.dlq.dto.ExportJob;
+import com.dle.dlq.dto.ExportRequest;
+import com.dle.dlq.exception.NotFoundException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Exports DLQ records as compressed NDJSON, one record per line with its raw key, value and
+ * headers in Base64 under the field names of {@code ReplayItem}. Records go from the scan straight
+ * into a streaming {@link JsonGenerator}, which Base64-encodes the bytes into its own buffer, and on
+ * through the compressor; no DTO or encoded string is built, so memory does not grow with the
+ * export. The output is either the HTTP response, as a publisher of data buffers that only asks
+ * for more records once the client has taken the previous ones, or a file under
+ * {@code dle.export.dir} written through a {@link FileChannel} by a background job. Both are
+ * written on the export scheduler, so slow downloads and long jobs never hold the scan threads.
+ * Finished jobs are forgotten after {@code dle.export.jobTtlMs}; their files stay.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final DlqAdminService admin;
+    private final DlqConsumerService consumer;
+    private final TimeIndexRegistry timeIndex;
+    private final BlockingSchedulers schedulers;
+
+    final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${dle.export.dir:${java.io.tmpdir}/dle-exports}")
+    String dir = System.getProperty("java.io.tmpdir") + "/dle-exports";
+
+    @Value("${dle.export.chunkBytes:65536}")
+    int chunkBytes = 64 * 1024;
+
+    @Value("${dle.export.timeoutMs:3600000}")
+    long timeoutMs = 3_600_000;
+
+    @Value("${dle.export.jobTtlMs:86400000}")
+    long jobTtlMs = 86_400_000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    public ExportService(DlqAdminService admin, DlqConsumerService consumer, TimeIndexRegistry timeIndex,
+                         BlockingSchedulers schedulers) {
+        this.admin = admin;
+        this.consumer = consumer;
+        this.timeIndex = timeIndex;
+        this.schedulers = schedulers;
+    }
+
+    /** A job's progress, updated by the thread writing it. */
+    private static final class Job {
+        final String id;
+        final String topic;
+        final Path file;
+        final long startedAt;
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile Long finishedAt;
+
+        Job(String id, String topic, Path file, long startedAt) {
+            this.id = id;
+            this.topic = topic;
+            this.file = file;
+            this.startedAt = startedAt;
+        }
+
+        ExportJob snapshot() {
+            return new ExportJob(id, topic, status, file.toString(), records.get(), bytes.get(), error, startedAt, finishedAt);
+        }
+    }
+
+    /**
+     * The export as compressed bytes, produced while the response is written. Planning happens on
+     * subscription, so a bad request fails the response before any byte is sent. A failure while
+     * writing, such as a partition not read to its end in time, errors the response without
+     * finishing the compressed frame, so a truncated export never looks complete to the client;
+     * it is only swallowed when the client has already gone away.
+     */
+    public Flux<DataBuffer> stream(ExportRequest req) {
+        return Flux.defer(() -> {
+            Compression compression;
+            List<OffsetRange> ranges;
+            try {
+                compression = Compression.of(req.compression());
+                ranges = plan(req);
+            } catch (Exception e) {
+                return Flux.error(e);
+            }
+            var cancelled = new AtomicBoolean();
+            return Flux.from(DataBufferUtils.outputStreamPublisher(
+                    out -> {
+                        var response = new DetachableOutputStream(out);
+                        OutputStream compressed = null;
+                        try {
+                            compressed = compression.wrap(response);
+                            long n = write(req, ranges, compressed, new AtomicLong());
+                            compressed.close();
+                            log.info("Streamed export of {} records from topic='{}' ({})", n, req.topic(), compression);
+                        } catch (IOException | RuntimeException e) {
+                            // Release the compressor without its trailer reaching the response
+                            response.detach();
+                            if (compressed != null) closeQuietly(compressed);
+                            if (cancelled.get()) {
+                                log.info("Export of topic='{}' stopped, the client went away: {}", req.topic(), e.getMessage());
+                                return;
+                            }
+                            log.warn("Export of topic='{}' failed: {}", req.topic(), e.getMessage());
+                            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+                        }
+                    },
+                    DefaultDataBufferFactory.sharedInstance,
+                    r -> schedulers.export().schedule(r),
+                    chunkBytes))
+                    .doOnCancel(() -> cancelled.set(true));
+        }).subscribeOn(schedulers.io());
+    }
+
+    /** Starts writing the export to a new file under {@code dle.export.dir} and returns at once. */
+    public ExportJob start(ExportRequest req) throws Exception {
+        var compression = Compression.of(req.compression());
+        var ranges = plan(req);
+        var id = UUID.randomUUID().toString();
+        Files.createDirectories(Path.of(dir));
+        var file = Path.of(dir, req.topic().replaceAll("[^A-Za-z0-9._-]", "_") + "-" + id + compression.extension());
+        long now = clock.getAsLong();
+        expire(now);
+        var job = new Job(id, req.topic(), file, now);
+        jobs.put(id, job);
+
+        try {
+            schedulers.export().schedule(() -> run(job, req, ranges, compression));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);   // never started, so never reported as running
+            throw e;
+        }
+        log.info("Started export job '{}' of topic='{}' to {}", id, req.topic(), file);
+        return job.snapshot();
+    }
+
+    public ExportJob job(String jobId) {
+        expire(clock.getAsLong());
+        var job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException("Export job '" + jobId + "' does not exist on this replica");
+        }
+        return job.snapshot();
+    }
+
+    /** Forgets jobs that finished more than {@code dle.export.jobTtlMs} ago. */
+    private void expire(long now) {
+        jobs.values().removeIf(j -> j.finishedAt != null && now - j.finishedAt > jobTtlMs);
+    }
+
+    private void run(Job job, ExportRequest req, List<OffsetRange> ranges, Compression compression) {
+        try (var channel = FileChannel.open(job.file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             var out = compression.wrap(new CountingOutputStream(Channels.newOutputStream(channel), job.bytes))) {
+            write(req, ranges, out, job.records);
+            job.status = "DONE";
+        } catch (Exception e) {
+            log.error("Export job '{}' of topic='{}' failed", job.id, job.topic, e);
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = clock.getAsLong();
+            log.info("Export job '{}' {}: {} records, {} bytes", job.id, job.status, job.records.get(), job.bytes.get());
+        }
+    }
+
+    /** Per partition, the offsets the request covers; the time window is narrowed via the time index or broker. */
+    List<OffsetRange> plan(ExportRequest req) throws Exception {
+        if (req == null || req.topic() == null || req.topic().isBlank()) {
+            throw new IllegalArgumentException("topic must not be null/blank");
+        }
+        var offsets = admin.offsets(req.topic());
+        var from = new TreeMap<Integer, Long>();
+        var to = new TreeMap<Integer, Long>();
+        var wanted = req.partitions() == null || req.partitions().isEmpty() ? null : new HashSet<>(req.partitions());
+        offsets.end().forEach((p, end) -> {
+            if (wanted != null && !wanted.contains(p)) return;
+            long begin = offsets.begin().getOrDefault(p, 0L);
+            from.put(p, req.fromOffset() == null ? begin : Math.max(begin, req.fromOffset()));
+            to.put(p, req.toOffset() == null ? end : Math.min(end, req.toOffset() + 1));
+        });
+
+        var unresolved = new HashSet<Integer>();
+        if (req.fromTimestamp() != null) {
+            from.replaceAll((p, start) -> {
+                long local = timeIndex.startOffset(new TopicPartition(req.topic(), p), req.fromTimestamp());
+                if (local < 0) unresolved.add(p);
+                return Math.max(start, local);
+            });
+        }
+        var lookups = new ArrayList<Long>();
+        if (!unresolved.isEmpty()) lookups.add(req.fromTimestamp());
+        if (req.toTimestamp() != null) lookups.add(req.toTimestamp());
+        if (!lookups.isEmpty()) {
+            var found = admin.offsetsForTimes(offsets, lookups);
+            if (!unresolved.isEmpty()) {
+                found.get(req.fromTimestamp()).forEach((p, o) -> {
+                    if (unresolved.contains(p)) from.computeIfPresent(p, (k, start) -> Math.max(start, o));
+                });
+            }
+            if (req.toTimestamp() != null) {
+                found.get(req.toTimestamp()).forEach((p, o) -> to.computeIfPresent(p, (k, end) -> Math.min(end, o)));
+            }
+        }
+
+        var out = new ArrayList<OffsetRange>();
+        to.forEach((p, end) -> {
+            if (from.get(p) < end) out.add(new OffsetRange(p, from.get(p), end));
+        });
+        return out;
+    }
+
+    /** Writes every record of {@code ranges} inside the request's time window as one NDJSON line each. */
+    long write(ExportRequest req, List<OffsetRange> ranges, OutputStream out, AtomicLong records) throws IOException {
+        long deadline = clock.getAsLong() + timeoutMs;
+        try (var gen = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            for (var range : ranges) {
+                long reached = consumer.scanWhile(req.topic(), range.partition(), range.from(), range.to(), deadline, rec -> {
+                    if (req.fromTimestamp() != null && rec.timestamp() < req.fromTimestamp()) return true;
+                    if (req.toTimestamp() != null && rec.timestamp() >= req.toTimestamp()) return true;
+                    try {
+                        writeLine(gen, rec);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    records.incrementAndGet();
+                    return true;
+                });
+                if (reached < range.to()) {
+                    throw new IOException("Export of topic '" + req.topic() + "' partition " + range.partition()
+                            + " stopped at offset " + reached + " before " + range.to());
+                }
+            }
+            gen.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return records.get();
+    }
+
+    static void writeLine(JsonGenerator gen, ConsumerRecord<byte[], byte[]> rec) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("topic", rec.topic());
+        gen.writeNumberField("partition", rec.partition());
+        gen.writeNumberField("offset", rec.offset());
+        gen.writeNumberField("timestamp", rec.timestamp());
+        gen.writeFieldName("keyBase64");
+        writeBytes(gen, rec.key());
+        gen.writeFieldName("valueBase64");
+        writeBytes(gen, rec.value());
+        gen.writeObjectFieldStart("headersBase64");
+        for (var h : rec.headers()) {
+            gen.writeFieldName(h.key());
+            writeBytes(gen, h.value());
+        }
+        gen.writeEndObject();
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+    }
+
+    private static void writeBytes(JsonGenerator gen, byte[] bytes) throws IOException {
+        if (bytes == null) gen.writeNull();
+        else gen.writeBinary(bytes);
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        try {
+            out.close();
+        } catch (IOException | RuntimeException ignored) {
+            // the stream is detached; nothing more reaches the response
+        }
+    }
+
+    /** Passes writes through until detached, then drops them; closing it never closes the response. */
+    private static final class DetachableOutputStream extends FilterOutputStream {
+        private boolean detached;
+
+        DetachableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        void detach() {
+            detached = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!detached) out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!detached) out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!detached) out.flush();
+        }
+
+        @Override
+        public void close() {
+            // the publisher closes the response stream once the handler returns
+        }
+    }
+
+    /** Counts the bytes that reach the file, i.e. after compression. */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong count;
+
+        CountingOutputStream(OutputStream out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.dle.dlq.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+
+/**
+ * Decompresses gzip or zstd input pushed in one buffer at a time, without blocking: each buffer is
+ * handed to {@link Inflater} or {@link ZstdDecompressCtx} as it arrives, and its output is inflated
+ * a chunk at a time only as the returned iterable is pulled, so memory follows the demand of the
+ * reader rather than the compression ratio. Concatenated gzip members and zstd frames are read in
+ * turn. Calls on one instance must not overlap, which the reactive operators feeding it ensure;
+ * {@link #close()} may come from a cancelling thread and waits for the step in progress.
+ */
+abstract class Inflating implements AutoCloseable {
+
+    final Compression compression;
+    final int chunkBytes;
+
+    private Inflating(Compression compression, int chunkBytes) {
+        this.compression = compression;
+        this.chunkBytes = chunkBytes;
+    }
+
+    static Inflating of(Compression compression, int chunkBytes) {
+        return switch (compression) {
+            case GZIP -> new Gzip(chunkBytes);
+            case ZSTD -> new Zstd(chunkBytes);
+            case NONE -> throw new IllegalArgumentException("Uncompressed input needs no inflating");
+        };
+    }
+
+    /** The decompressed chunks of {@code input}, inflated as they are iterated. */
+    Iterable<byte[]> feed(byte[] input) {
+        return () -> new Iterator<>() {
+            private boolean fed;
+            private byte[] next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        synchronized (Inflating.this) {
+                            if (!fed) {
+                                accept(input);
+                                fed = true;
+                            }
+                            next = produce();
+                        }
+                    } catch (IOException e) {
+                        throw corrupt(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public byte[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                byte[] out = next;
+                next = null;
+                return out;
+            }
+        };
+    }
+
+    /** Fails if the input ended inside a gzip member or zstd frame. */
+    synchronized void end() {
+        if (!atBoundary()) {
+            throw corrupt(new IOException("unexpected end of input"));
+        }
+    }
+
+    /** Takes the next buffer of input; only called once the previous one is used up. */
+    abstract void accept(byte[] input) throws IOException;
+
+    /** The next chunk of output, or null once the input so far is used up. */
+    abstract byte[] produce() throws IOException;
+
+    /** Whether the input so far ends exactly after a whole member or frame. */
+    abstract boolean atBoundary();
+
+    @Override
+    public abstract void close();
+
+    private IllegalArgumentException corrupt(IOException e) {
+        return new IllegalArgumentException("Cannot decompress " + compression + " input: " + e.getMessage());
+    }
+
+    private static byte[] trimmed(byte[] chunk, int n) {
+        return n == chunk.length ? chunk : Arrays.copyOf(chunk, n);
+    }
+
+    /** RFC 1952 members: header, raw deflate data, CRC-32 and size trailer. */
+    private static final class Gzip extends Inflating {
+        private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+        private enum Part { HEADER, DATA, TRAILER }
+
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private Part part = Part.HEADER;
+        private byte[] buf = new byte[0];
+        private int pos;
+        private long size;
+        private boolean closed;
+
+        Gzip(int chunkBytes) {
+            super(Compression.GZIP, chunkBytes);
+        }
+
+        @Override
+        void accept(byte[] input) {
+            // Only a header or trailer cut by the previous buffer is left over, a few bytes at most
+            byte[] joined = Arrays.copyOf(Arrays.copyOfRange(buf, pos, buf.length), buf.length - pos + input.length);
+            System.arraycopy(input, 0, joined, buf.length - pos, input.length);
+            buf = joined;
+            pos = 0;
+        }
+
+        @Override
+        byte[] produce() throws IOException {
+            if (closed) return null;
+            while (true) {
+                switch (part) {
+                    case HEADER -> {
+                        if (pos == buf.length) return null;
+                        int n = headerLength();
+                        if (n < 0) return null;
+                        pos += n;
+                        inflater.reset();
+                        crc.reset();
+                        size = 0;
+                        part = Part.DATA;
+                    }
+                    case DATA -> {
+                        if (inflater.needsInput() && pos < buf.length) {
+                            inflater.setInput(buf, pos, buf.length - pos);
+                            pos = buf.length;
+                        }
+                        byte[] chunk = new byte[chunkBytes];
+                        int n;
+                        try {
+                            n = inflater.inflate(chunk);
+                        } catch (DataFormatException e) {
+                            throw new IOException(e.getMessage(), e);
+                        }
+                        if (n > 0) {
+                            crc.update(chunk, 0, n);
+                            size += n;
+                            return trimmed(chunk, n);
+                        }
+                        if (inflater.finished()) {
+                            pos = buf.length - inflater.getRemaining();
+                            part = Part.TRAILER;
+                        } else if (inflater.needsDictionary()) {
+                            throw new IOException("preset dictionaries are not supported");
+                        } else {
+                            return null;
+                        }
+                    }
+                    case TRAILER -> {
+                        if (buf.length - pos < 8) return null;
+                        if (intLe(pos) != (int) crc.getValue() || intLe(pos + 4) != (int) size) {
+                            throw new IOException("corrupt trailer (CRC or size mismatch)");
+                        }
+                        pos += 8;
+                        part = Part.HEADER;
+                    }
+                }
+            }
+        }
+
+        @Override
+        boolean atBoundary() {
+            return part == Part.HEADER && pos == buf.length;
+        }
+
+        /** Length of the member header at {@code pos}, or -1 if it is not all here yet. */
+        private int headerLength() throws IOException {
+            int avail = buf.length - pos;
+            if (avail >= 2 && ((buf[pos] & 0xff) != 0x1f || (buf[pos + 1] & 0xff) != 0x8b)) {
+                throw new IOException("not in gzip format");
+            }
+            if (avail < 10) return -1;
+            if (buf[pos + 2] != 8) throw new IOException("unsupported compression method");
+            int flags = buf[pos + 3] & 0xff;
+            int i = pos + 10;
+            if ((flags & FEXTRA) != 0) {
+                if (buf.length - i < 2) return -1;
+                i += 2 + ((buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8);
+            }
+            if ((flags & FNAME) != 0 && (i = afterZero(i)) < 0) return -1;
+            if ((flags & FCOMMENT) != 0 && (i = afterZero(i)) < 0) return -1;
+            if ((flags & FHCRC) != 0) i += 2;
+            return i <= buf.length ? i - pos : -1;
+        }
+
+        private int afterZero(int from) {
+            for (int i = from; i < buf.length; i++) {
+                if (buf[i] == 0) return i + 1;
+            }
+            return -1;
+        }
+
+        private int intLe(int at) {
+            return (buf[at] & 0xff) | (buf[at + 1] & 0xff) << 8 | (buf[at + 2] & 0xff) << 16 | (buf[at + 3] & 0xff) << 24;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                inflater.end();
+            }
+        }
+    }
+
+    /** zstd frames through the streaming decompression context, which needs direct buffers. */
+    private static final class Zstd extends Inflating {
+        private final ZstdDecompressCtx ctx = new ZstdDecompressCtx();
+        private final ByteBuffer out;
+        private ByteBuffer in = ByteBuffer.allocateDirect(0);
+        private boolean flushing;
+        private boolean frameDone = true;
+        private boolean closed;
+
+        Zstd(int chunkBytes) {
+            super(Compression.ZSTD, chunkBytes);
+            out = ByteBuffer.allocateDirect(chunkBytes);
+        }
+
+        @Override
+        void accept(byte[] input) {
+            if (in.capacity() < input.length) {
+                in = ByteBuffer.allocateDirect(Math.max(input.length, 2 * in.capacity()));
+            }
+            in.clear();
+            in.put(input).flip();
+        }
+
+        @Override
+        byte[] produce() throws IOException {
+            while (!closed && (in.hasRemaining() || flushing)) {
+                out.clear();
+                try {
+                    frameDone = ctx.decompressDirectByteBufferStream(out, in);
+                } catch (ZstdException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                out.flip();
+                // A full output buffer may leave more output inside the context
+                flushing = out.remaining() == out.capacity();
+                if (out.hasRemaining()) {
+                    byte[] chunk = new byte[out.remaining()];
+                    out.get(chunk);
+                    return chunk;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        boolean atBoundary() {
+            return frameDone && !in.hasRemaining();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                ctx.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.dle.dlq.insights;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.dto.ArrivalHistogram;
+import com.dle.dlq.dto.ArrivalHistogram.Bucket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Arrival counts per time bucket computed from offsets alone: the count of a partition's bucket
+ * {@code [t, t + width)} is the difference between the offsets the broker reports for those two
+ * timestamps ({@code offsetsForTimes}), so no record is read. Bucket boundaries are aligned to the
+ * bucket width, and the per-partition counts of buckets that have closed are cached, so a repeated
+ * request only looks up the open bucket's start. Counts include offsets taken by transaction
+ * markers or removed by compaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArrivalHistogramService {
+
+    private final DlqAdminService admin;
+
+    @Value("${dle.histogram.maxBuckets:2000}")
+    int maxBuckets = 2000;
+
+    @Value("${dle.histogram.cacheBuckets:200000}")
+    int cacheBuckets = 200_000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private record BucketKey(String topic, long widthMs, long start) {
+    }
+
+    /** Per-partition counts of closed buckets, least recently used evicted first. */
+    private final Map<BucketKey, Map<Integer, Long>> closed = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<BucketKey, Map<Integer, Long>> eldest) {
+                    return size() > cacheBuckets;
+                }
+            });
+
+    public ArrivalHistogram histogram(String topic, Duration bucket, Duration window, boolean byPartition) throws Exception {
+        if (topic == null || topic.isBlank()) {
+            throw new IllegalArgumentException("topic must not be null/blank");
+        }
+        final long width = bucket.toMillis();
+        if (width < 1000) {
+            throw new IllegalArgumentException("bucket must be at least one second");
+        }
+        final int n = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (window.toMillis() + width - 1) / width));
+        if (n > maxBuckets) {
+            throw new IllegalArgumentException("window spans " + n + " buckets; at most " + maxBuckets + " are allowed");
+        }
+
+        final long startNanos = System.nanoTime();
+        final long now = clock.getAsLong();
+        final long openStart = Math.floorDiv(now, width) * width;
+        final long firstStart = openStart - (n - 1) * width;
+        final var offsets = admin.offsets(topic);
+        final var partitions = offsets.end().keySet();
+
+        // Boundaries to look up: both edges of every closed bucket not cached yet, and the open bucket's start
+        var boundaries = new TreeSet<Long>();
+        boundaries.add(openStart);
+        int cached = 0;
+        for (long start = firstStart; start < openStart; start += width) {
+            var counts = closed.get(new BucketKey(topic, width, start));
+            if (counts != null && counts.keySet().equals(partitions)) {
+                cached++;
+            } else {
+                boundaries.add(start);
+                boundaries.add(start + width);
+            }
+        }
+        var at = partitions.isEmpty() ? Map.<Long, Map<Integer, Long>>of() : admin.offsetsForTimes(offsets, boundaries);
+
+        var buckets = new ArrayList<Bucket>(n);
+        long total = 0;
+        for (long start = firstStart; start <= openStart; start += width) {
+            Map<Integer, Long> counts;
+            if (start == openStart) {
+                counts = diff(partitions, at.get(start), offsets.end());
+            } else {
+                var key = new BucketKey(topic, width, start);
+                counts = closed.get(key);
+                if (counts == null || !counts.keySet().equals(partitions)) {
+                    counts = diff(partitions, at.get(start), at.get(start + width));
+                    closed.put(key, counts);
+                }
+            }
+            long count = counts.values().stream().mapToLong(Long::longValue).sum();
+            total += count;
+            buckets.add(new Bucket(start, count, byPartition ? counts : null));
+        }
+
+        log.info("Histogram for topic='{}': {} buckets of {} ms ({} cached, {} boundary lookups) in {} ms",
+                topic, buckets.size(), width, cached, partitions.isEmpty() ? 0 : boundaries.size(),
+                (System.nanoTime() - startNanos) / 1_000_000);
+        return new ArrivalHistogram(topic, width, firstStart, openStart + width, total, buckets);
+    }
+
+    private static Map<Integer, Long> diff(Iterable<Integer> partitions, Map<Integer, Long> from, Map<Integer, Long> to) {
+        var out = new HashMap<Integer, Long>();
+        for (int p : partitions) {
+            long a = from == null ? 0 : from.getOrDefault(p, 0L);
+            long b = to == null ? 0 : to.getOrDefault(p, 0L);
+            out.put(p, Math.max(0, b - a));
+        }
+        return Map.copyOf(out);
+    }
+}
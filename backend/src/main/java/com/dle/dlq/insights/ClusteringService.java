@@ -0,0 +1,92 @@
+package com.dle.dlq.insights;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.dto.ErrorCluster;
+import com.dle.dlq.dto.ErrorClusters;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Groups every record of a topic by failure fingerprint and counts the groups. Partitions are
+ * scanned in parallel on the scan scheduler, each into its own {@link SpaceSaving} summary of
+ * {@code dle.cluster.capacity} counters, and the summaries are merged at the end, so memory does
+ * not grow with the topic. Scans stop at the end offsets taken when they start.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusteringService {
+
+    private final DlqAdminService admin;
+    private final DlqConsumerService consumer;
+    private final Fingerprinter fingerprinter;
+    private final BlockingSchedulers schedulers;
+
+    @Value("${dle.cluster.capacity:256}")
+    int capacity = 256;
+
+    @Value("${dle.cluster.parallelism:4}")
+    int parallelism = 4;
+
+    @Value("${dle.cluster.scanTimeoutMs:120000}")
+    long scanTimeoutMs = 120_000;
+
+    @Value("${dle.cluster.defaultTop:20}")
+    int defaultTop = 20;
+
+    /** Result of scanning one partition. */
+    private record Partial(SpaceSaving sketch, boolean complete) {
+    }
+
+    public Mono<ErrorClusters> cluster(String topic, Integer top) {
+        if (topic == null || topic.isBlank()) {
+            return Mono.error(new IllegalArgumentException("topic must not be null/blank"));
+        }
+        final int n = (top == null || top <= 0) ? defaultTop : Math.min(top, capacity);
+        final long startNanos = System.nanoTime();
+
+        return Mono.fromCallable(() -> admin.offsets(topic))
+                .subscribeOn(schedulers.io())
+                .flatMap(offsets -> {
+                    long deadline = System.currentTimeMillis() + scanTimeoutMs;
+                    var ranges = new ArrayList<OffsetRange>();
+                    offsets.end().forEach((p, end) -> ranges.add(new OffsetRange(p, offsets.begin().getOrDefault(p, 0L), end)));
+                    return Flux.fromIterable(ranges)
+                            .flatMap(r -> Mono.fromCallable(() -> scan(topic, r, deadline)).subscribeOn(schedulers.scan()),
+                                    Math.max(1, parallelism))
+                            .reduce(new Partial(new SpaceSaving(capacity), true),
+                                    (a, b) -> new Partial(SpaceSaving.merge(a.sketch(), b.sketch()), a.complete() && b.complete()));
+                })
+                .map(result -> {
+                    var clusters = result.sketch().top(n).stream()
+                            .map(c -> new ErrorCluster(Fingerprinter.fingerprint(c.label), c.label, c.count, c.error,
+                                    c.firstSeen, c.lastSeen, List.copyOf(c.examples)))
+                            .toList();
+                    log.info("Clustered {} records of topic='{}' into {} reported clusters in {} ms (complete={})",
+                            result.sketch().total(), topic, clusters.size(), (System.nanoTime() - startNanos) / 1_000_000,
+                            result.complete());
+                    return new ErrorClusters(topic, result.sketch().total(), result.complete(), clusters);
+                });
+    }
+
+    private Partial scan(String topic, OffsetRange range, long deadline) {
+        var sketch = new SpaceSaving(capacity);
+        long reached = consumer.scan(topic, range.partition(), range.from(), range.to(), deadline, rec -> {
+            var label = fingerprinter.label(rec);
+            sketch.offer(label, label, rec.timestamp(), rec.partition() + ":" + rec.offset());
+        });
+        return new Partial(sketch, reached >= range.to());
+    }
+}
@@ -0,0 +1,249 @@
+package com.dle.dlq.insights;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.stereotype.Component;
+
+import com.dle.dlq.consumer.TimeIndexRegistry;
+import com.dle.dlq.dto.TopicIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumes every DLQ topic in the background and keeps a {@link PartitionIndex} per partition, so
+ * statistics can be answered from state that is already current instead of a scan per request.
+ * Every record also goes into the shared {@link TimeIndexRegistry}.
+ * The container is built from the shared {@code kafkaListenerContainerFactory} (and so gets its
+ * MDC interceptor) with a pattern subscription on {@code dle.dlqPattern}: topics that appear are
+ * picked up within {@code dle.indexer.topicRefreshMs}, and the state of deleted topics is dropped
+ * when their partitions are revoked. Each replica indexes every partition, so its group id is
+ * unique unless {@code dle.indexer.group} is set, and nothing is committed (manual ack mode, never
+ * acknowledged, and no auto-commit): the index lives in memory, and a partition is read from its
+ * beginning whenever the index has no state for it.
+ * <p>
+ * The state rolls with retention: every {@code dle.indexer.retentionCheckMs} each partition's
+ * beginning is compared with what its state covers, and once more than
+ * {@code dle.stats.maxExpiredRatio} of it has been deleted the partition is started afresh and its
+ * consumer rewound to the new beginning, the same way {@link TopicStatsService} rebuilds its sketches.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "dle.indexer.enabled", havingValue = "true")
+public class DlqIndexer implements SmartLifecycle {
+
+    private final ConcurrentKafkaListenerContainerFactory<byte[], byte[]> factory;
+    private final TimeIndexRegistry timeIndex;
+    private final Pattern pattern;
+    private final String group;
+    private final Counter indexed;
+
+    private final Map<TopicPartition, PartitionIndex> partitions = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> checkedAt = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> rewoundTo = new ConcurrentHashMap<>();
+    private volatile ConcurrentMessageListenerContainer<byte[], byte[]> container;
+
+    @Value("${dle.indexer.concurrency:2}")
+    int concurrency = 2;
+
+    @Value("${dle.indexer.topicRefreshMs:30000}")
+    long topicRefreshMs = 30_000;
+
+    @Value("${dle.stats.maxHeaders:32}")
+    int maxHeaders = 32;
+
+    @Value("${dle.stats.maxExpiredRatio:0.2}")
+    double maxExpiredRatio = 0.2;
+
+    @Value("${dle.indexer.retentionCheckMs:60000}")
+    long retentionCheckMs = 60_000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    public DlqIndexer(
+            ConcurrentKafkaListenerContainerFactory<byte[], byte[]> factory,
+            TimeIndexRegistry timeIndex,
+            MeterRegistry registry,
+            @Value("${dle.dlqPattern:.*-DLQ$}") String pattern,
+            @Value("${dle.indexer.group:}") String group) {
+        this.factory = factory;
+        this.timeIndex = timeIndex;
+        this.pattern = Pattern.compile(pattern);
+        this.group = group == null || group.isBlank() ? "dle-indexer-" + UUID.randomUUID() : group;
+        this.indexed = Counter.builder("dle.indexer.records")
+                .description("Records folded into the background DLQ index").register(registry);
+        Gauge.builder("dle.indexer.partitions", partitions, Map::size)
+                .description("Partitions held by the background DLQ index").register(registry);
+    }
+
+    ConcurrentMessageListenerContainer<byte[], byte[]> container() {
+        var c = factory.createContainer(pattern);
+        var props = c.getContainerProperties();
+        props.setGroupId(group);
+        props.setClientId("dle-indexer");
+        props.setMessageListener((ConsumerAwareMessageListener<byte[], byte[]>) this::onRecord);
+        props.setAckMode(ContainerProperties.AckMode.MANUAL);
+        props.setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+                DlqIndexer.this.onAssigned(consumer, assigned);
+            }
+
+            @Override
+            public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+                DlqIndexer.this.onRevoked(consumer, revoked);
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> lost) {
+                DlqIndexer.this.onRevoked(consumer, lost);
+            }
+        });
+        var kafka = new Properties();
+        kafka.put(ConsumerConfig.METADATA_MAX_AGE_CONFIG, Long.toString(topicRefreshMs));
+        kafka.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        kafka.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        kafka.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, "false");
+        props.setKafkaConsumerProperties(kafka);
+        c.setConcurrency(Math.max(1, concurrency));
+        c.setBeanName("dle-indexer");
+        return c;
+    }
+
+    void onRecord(ConsumerRecord<byte[], byte[]> rec, Consumer<?, ?> consumer) {
+        var tp = new TopicPartition(rec.topic(), rec.partition());
+        var rewound = rewoundTo.get(tp);
+        if (rewound != null) {
+            // Until the next poll moves the position on, records still arriving were fetched before the seek
+            if (consumer.position(tp) == rewound) return;
+            rewoundTo.remove(tp);
+        }
+        if (rebuildIfExpired(tp, rec, consumer)) return;
+        partitions.computeIfAbsent(tp, k -> new PartitionIndex(k.partition(), rec.offset(), maxHeaders)).fold(rec);
+        timeIndex.observe(rec);
+        timeIndex.persistIfDue();
+        indexed.increment();
+    }
+
+    /**
+     * Starts a partition's state afresh from its beginning once retention has deleted more than
+     * {@code maxExpiredRatio} of what it covers, checked at most every {@code retentionCheckMs}.
+     * Returns whether the consumer was rewound, in which case {@code rec} comes again.
+     */
+    private boolean rebuildIfExpired(TopicPartition tp, ConsumerRecord<byte[], byte[]> rec, Consumer<?, ?> consumer) {
+        var index = partitions.get(tp);
+        long now = clock.getAsLong();
+        var last = checkedAt.putIfAbsent(tp, now);
+        if (index == null || last == null || now - last < retentionCheckMs) return false;
+        checkedAt.put(tp, now);
+
+        long begin;
+        try {
+            begin = consumer.beginningOffsets(List.of(tp)).getOrDefault(tp, 0L);
+        } catch (Exception e) {
+            log.debug("Could not read the beginning of {}; checking retention again later", tp, e);
+            return false;
+        }
+        if (!index.expired(begin, maxExpiredRatio)) return false;
+
+        partitions.put(tp, new PartitionIndex(tp.partition(), begin, maxHeaders));
+        log.info("Rebuilding index of {} from offset {}: retention removed the records it started with", tp, begin);
+        if (begin > rec.offset()) return false;   // this record has expired too and is skipped
+        consumer.seek(tp, begin);
+        rewoundTo.put(tp, begin);
+        return true;
+    }
+
+    /** Resumes partitions the index already holds where it stopped; the rest start at their beginning. */
+    void onAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> assigned) {
+        for (var tp : assigned) {
+            rewoundTo.remove(tp);
+            var known = partitions.get(tp);
+            if (known != null) {
+                consumer.seek(tp, known.next());
+            } else {
+                consumer.seekToBeginning(List.of(tp));
+            }
+        }
+        log.info("Indexer assigned {} partitions (holding {} in total)", assigned.size(), partitions.size());
+    }
+
+    /** Drops the state of revoked partitions whose topic no longer exists; others may come back. */
+    void onRevoked(Consumer<?, ?> consumer, Collection<TopicPartition> revoked) {
+        if (revoked.isEmpty()) return;
+        try {
+            var existing = consumer.listTopics().keySet();
+            for (var tp : revoked) {
+                rewoundTo.remove(tp);
+                if (!existing.contains(tp.topic()) && partitions.remove(tp) != null) {
+                    checkedAt.remove(tp);
+                    timeIndex.remove(tp);
+                    log.info("Dropped index of deleted topic partition {}", tp);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Could not check which of {} revoked partitions still exist; keeping their index", revoked.size(), e);
+        }
+    }
+
+    /** Sketches of a partition if the index holds it, else null. */
+    PartitionStats stats(String topic, int partition) {
+        var index = partitions.get(new TopicPartition(topic, partition));
+        return index == null ? null : index.stats();
+    }
+
+    public TopicIndex index(String topic, int topValues) {
+        var out = partitions.entrySet().stream()
+                .filter(e -> e.getKey().topic().equals(topic))
+                .map(e -> e.getValue().summary(topValues, timeIndex.size(e.getKey())))
+                .sorted(Comparator.comparingInt(s -> s.partition()))
+                .toList();
+        return new TopicIndex(topic, out);
+    }
+
+    @Override
+    public void start() {
+        if (container != null) return;
+        var c = container();
+        c.start();
+        container = c;
+        log.info("Background DLQ indexer started: pattern={}, group={}, concurrency={}", pattern, group, concurrency);
+    }
+
+    @Override
+    public void stop() {
+        var c = container;
+        if (c != null) {
+            c.stop();
+            container = null;
+            log.info("Background DLQ indexer stopped");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return container != null && container.isRunning();
+    }
+}
@@ -0,0 +1,104 @@
+package com.dle.dlq.insights;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reduces a DLQ record to a label that is equal for records that failed for the same reason.
+ * If the record carries any of the {@code dle.cluster.headers} (by default Spring Kafka's
+ * exception class and message), the label is those values with ids, numbers and hex blobs masked.
+ * Otherwise it is the shape of the payload: field names and value types of a JSON document, or
+ * just {@code text}/{@code binary}.
+ */
+@Component
+public class Fingerprinter {
+
+    private static final Pattern UUID = Pattern.compile("\\b[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+    private static final Pattern HEX = Pattern.compile("\\b(?:0x)?(?=[0-9a-fA-F]*\\d)[0-9a-fA-F]{8,}\\b");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+    private static final Pattern SPACE = Pattern.compile("\\s+");
+    private static final int MAX_DEPTH = 4;
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Value("${dle.cluster.headers:kafka_dlt-exception-fqcn,kafka_dlt-exception-message}")
+    List<String> headers = List.of("kafka_dlt-exception-fqcn", "kafka_dlt-exception-message");
+
+    @Value("${dle.cluster.maxLabelLength:200}")
+    int maxLabelLength = 200;
+
+    public String label(ConsumerRecord<byte[], byte[]> rec) {
+        var parts = new ArrayList<String>(headers.size());
+        for (var name : headers) {
+            var h = rec.headers().lastHeader(name);
+            if (h != null && h.value() != null && h.value().length > 0) {
+                parts.add(normalize(new String(h.value(), StandardCharsets.UTF_8)));
+            }
+        }
+        var label = parts.isEmpty() ? "payload " + shape(rec.value()) : String.join(": ", parts);
+        return label.length() > maxLabelLength ? label.substring(0, maxLabelLength) : label;
+    }
+
+    /** Short stable id of a label (64-bit FNV-1a, hex). */
+    public static String fingerprint(String label) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < label.length(); i++) {
+            h ^= label.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return String.format("%016x", h);
+    }
+
+    static String normalize(String text) {
+        var s = UUID.matcher(text).replaceAll("<uuid>");
+        s = HEX.matcher(s).replaceAll("<hex>");
+        s = NUMBER.matcher(s).replaceAll("#");
+        return SPACE.matcher(s).replaceAll(" ").trim();
+    }
+
+    String shape(byte[] value) {
+        if (value == null || value.length == 0) return "empty";
+        try {
+            return shape(json.readTree(value), 0);
+        } catch (Exception notJson) {
+            try {
+                StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(value));
+                return "text";
+            } catch (CharacterCodingException e) {
+                return "binary";
+            }
+        }
+    }
+
+    private static String shape(JsonNode node, int depth) {
+        if (node == null || node.isMissingNode()) return "empty";
+        if (node.isObject()) {
+            if (depth >= MAX_DEPTH) return "{…}";
+            var fields = new TreeMap<String, String>();
+            node.fields().forEachRemaining(e -> fields.put(e.getKey(), shape(e.getValue(), depth + 1)));
+            var sb = new StringBuilder("{");
+            fields.forEach((k, v) -> sb.append(sb.length() > 1 ? "," : "").append(k).append(':').append(v));
+            return sb.append('}').toString();
+        }
+        if (node.isArray()) {
+            if (depth >= MAX_DEPTH) return "[…]";
+            return node.isEmpty() ? "[]" : "[" + shape(node.get(0), depth + 1) + "]";
+        }
+        if (node.isTextual()) return "string";
+        if (node.isNumber()) return "number";
+        if (node.isBoolean()) return "boolean";
+        return "null";
+    }
+}
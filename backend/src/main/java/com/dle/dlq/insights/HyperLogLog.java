@@ -0,0 +1,82 @@
+package com.dle.dlq.insights;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * HyperLogLog distinct counter with {@code 2^precision} one-byte registers; the standard error is
+ * about {@code 1.04 / sqrt(2^precision)}, e.g. 1.6% at precision 12 (4 KiB). Two counters of the
+ * same precision merge by taking the larger register, which equals counting both inputs at once.
+ */
+final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add(byte[] value) {
+        long h = hash(value);
+        int index = (int) (h >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) zeros++;
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double raw = alpha * m * (double) m / sum;
+        if (raw <= 2.5 * m && zeros > 0) {
+            // Small cardinalities: linear counting over the empty registers is more accurate
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("cannot merge HyperLogLog of precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeByte(precision);
+        out.write(registers);
+    }
+
+    static HyperLogLog read(DataInputStream in) throws IOException {
+        var hll = new HyperLogLog(in.readUnsignedByte());
+        in.readFully(hll.registers);
+        return hll;
+    }
+
+    /** 64-bit FNV-1a followed by the SplitMix64 finalizer, so every bit depends on every input byte. */
+    static long hash(byte[] value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
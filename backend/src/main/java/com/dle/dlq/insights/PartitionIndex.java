@@ -0,0 +1,108 @@
+package com.dle.dlq.insights;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import com.dle.dlq.dto.PartitionIndexSummary;
+import com.dle.dlq.dto.TopicStats.Quantiles;
+
+/**
+ * What the background indexer knows about one partition: the records it has folded since it
+ * started on the partition (or last rebuilt it after retention), the {@link PartitionStats}
+ * sketches and the most frequent values of each header. Updated by the indexer's consumer thread and read by request
+ * threads, so every access holds the lock.
+ */
+final class PartitionIndex {
+
+    static final int HEADER_VALUES = 32;
+
+    private final int partition;
+    private final PartitionStats stats;
+    private final Map<String, SpaceSaving> headerValues = new HashMap<>();
+    private final int maxHeaders;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    PartitionIndex(int partition, long from, int maxHeaders) {
+        this.partition = partition;
+        this.stats = new PartitionStats(from, maxHeaders);
+        this.maxHeaders = maxHeaders;
+    }
+
+    void fold(ConsumerRecord<byte[], byte[]> rec) {
+        lock.lock();
+        try {
+            if (rec.offset() < stats.next) return;   // redelivered after a rebalance
+            stats.fold(rec);
+            firstTimestamp = Math.min(firstTimestamp, rec.timestamp());
+            lastTimestamp = Math.max(lastTimestamp, rec.timestamp());
+            for (var h : rec.headers()) {
+                var top = headerValues.get(h.key());
+                if (top == null) {
+                    if (headerValues.size() >= maxHeaders) continue;
+                    top = new SpaceSaving(HEADER_VALUES);
+                    headerValues.put(h.key(), top);
+                }
+                var value = h.value() == null ? "" : new String(h.value(), StandardCharsets.UTF_8);
+                top.offer(value, value, rec.timestamp(), Long.toString(rec.offset()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** See {@link PartitionStats#expired}; the header values expire with the sketches. */
+    boolean expired(long begin, double maxExpiredRatio) {
+        lock.lock();
+        try {
+            return stats.expired(begin, maxExpiredRatio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long next() {
+        lock.lock();
+        try {
+            return stats.next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** A copy of the sketches, safe to merge while indexing goes on. */
+    PartitionStats stats() {
+        lock.lock();
+        try {
+            return PartitionStats.fromBytes(stats.toBytes());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    PartitionIndexSummary summary(int topValues, int timeIndexEntries) {
+        lock.lock();
+        try {
+            var values = new TreeMap<String, Map<String, Long>>();
+            headerValues.forEach((name, top) -> {
+                var counts = new LinkedHashMap<String, Long>();
+                top.top(topValues).forEach(c -> counts.put(c.key, c.count));
+                values.put(name, counts);
+            });
+            var sizes = stats.records == 0 ? null : new Quantiles(Math.round(stats.sizes.quantile(0.5)),
+                    Math.round(stats.sizes.quantile(0.9)), Math.round(stats.sizes.quantile(0.99)),
+                    Math.round(stats.sizes.quantile(1)));
+            return new PartitionIndexSummary(partition, stats.from, stats.next, stats.records, timeIndexEntries,
+                    stats.records == 0 ? null : firstTimestamp, stats.records == 0 ? null : lastTimestamp, sizes, values);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.dle.dlq.insights;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Mergeable sketches of one partition's records in {@code [from, next)}: distinct keys, payload
+ * sizes, record timestamps and, for up to {@code maxHeaders} header names, how many records carry
+ * each header and how many distinct values it takes. Folding a record is O(1) apart from the
+ * digests' occasional compression, so a partition can be kept current by folding only the records
+ * appended since {@code next}.
+ */
+final class PartitionStats {
+
+    private static final int VERSION = 1;
+    static final int KEY_PRECISION = 14;
+    static final int HEADER_PRECISION = 10;
+    static final double COMPRESSION = 100;
+
+    final long from;
+    long next;
+    long records;
+    final HyperLogLog keys;
+    final TDigest sizes;
+    final TDigest timestamps;
+    final Map<String, Long> headerRecords = new HashMap<>();
+    final Map<String, HyperLogLog> headerValues = new HashMap<>();
+    private final int maxHeaders;
+
+    PartitionStats(long from, int maxHeaders) {
+        this(from, maxHeaders, new HyperLogLog(KEY_PRECISION), new TDigest(COMPRESSION), new TDigest(COMPRESSION));
+    }
+
+    private PartitionStats(long from, int maxHeaders, HyperLogLog keys, TDigest sizes, TDigest timestamps) {
+        this.from = from;
+        this.next = from;
+        this.maxHeaders = maxHeaders;
+        this.keys = keys;
+        this.sizes = sizes;
+        this.timestamps = timestamps;
+    }
+
+    void fold(ConsumerRecord<byte[], byte[]> rec) {
+        records++;
+        next = rec.offset() + 1;
+        if (rec.key() != null) {
+            keys.add(rec.key());
+        }
+        sizes.add(rec.value() == null ? 0 : rec.value().length);
+        timestamps.add(rec.timestamp());
+        for (var h : rec.headers()) {
+            if (!headerRecords.containsKey(h.key()) && headerRecords.size() >= maxHeaders) continue;
+            headerRecords.merge(h.key(), 1L, Long::sum);
+            headerValues.computeIfAbsent(h.key(), k -> new HyperLogLog(HEADER_PRECISION))
+                    .add(h.value() == null ? new byte[0] : h.value());
+        }
+    }
+
+    /**
+     * Whether retention, now starting the partition at {@code begin}, has deleted every record
+     * these sketches cover or more than {@code maxExpiredRatio} of them. Sketches cannot forget
+     * records, so such sketches have to be rebuilt from {@code begin}.
+     */
+    boolean expired(long begin, double maxExpiredRatio) {
+        if (begin >= next && next > from) {
+            return true;
+        }
+        long covered = next - from;
+        return covered > 0 && (double) (begin - from) / covered > maxExpiredRatio;
+    }
+
+    /** Folds another partition's sketches into these (the offset range is left as is). */
+    void merge(PartitionStats other) {
+        records += other.records;
+        keys.merge(other.keys);
+        sizes.merge(other.sizes);
+        timestamps.merge(other.timestamps);
+        other.headerRecords.forEach((name, n) -> {
+            if (!headerRecords.containsKey(name) && headerRecords.size() >= maxHeaders) return;
+            headerRecords.merge(name, n, Long::sum);
+            headerValues.computeIfAbsent(name, k -> new HyperLogLog(HEADER_PRECISION)).merge(other.headerValues.get(name));
+        });
+    }
+
+    byte[] toBytes() {
+        try (var bytes = new ByteArrayOutputStream(); var out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(from);
+            out.writeLong(next);
+            out.writeLong(records);
+            out.writeInt(maxHeaders);
+            keys.write(out);
+            sizes.write(out);
+            timestamps.write(out);
+            out.writeInt(headerRecords.size());
+            for (var e : headerRecords.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue());
+                headerValues.get(e.getKey()).write(out);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static PartitionStats fromBytes(byte[] data) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported partition stats version " + version);
+            }
+            long from = in.readLong();
+            long next = in.readLong();
+            long records = in.readLong();
+            int maxHeaders = in.readInt();
+            var stats = new PartitionStats(from, maxHeaders, HyperLogLog.read(in), TDigest.read(in), TDigest.read(in));
+            stats.next = next;
+            stats.records = records;
+            int headers = in.readInt();
+            for (int i = 0; i < headers; i++) {
+                var name = in.readUTF();
+                stats.headerRecords.put(name, in.readLong());
+                stats.headerValues.put(name, HyperLogLog.read(in));
+            }
+            return stats;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
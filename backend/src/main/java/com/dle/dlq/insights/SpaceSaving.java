@@ -0,0 +1,128 @@
+package com.dle.dlq.insights;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters summary: at most {@code capacity} counters, so memory stays bounded
+ * however many distinct keys a topic holds. A key seen for the first time when the summary is full
+ * takes over the smallest counter and inherits its count as {@code error}; a counter's true count
+ * therefore lies in {@code [count - error, count]}, and every key more frequent than
+ * {@code total / capacity} is guaranteed to be kept. Summaries built on separate partitions merge
+ * with the same guarantee. Not thread-safe; each scan builds its own and they are merged after.
+ */
+final class SpaceSaving {
+
+    static final int EXAMPLES = 3;
+
+    /** One monitored key with its bounds, time range and a few example record positions. */
+    static final class Counter {
+        final String key;
+        final String label;
+        long count;
+        long error;
+        long firstSeen = Long.MAX_VALUE;
+        long lastSeen = Long.MIN_VALUE;
+        final List<String> examples = new ArrayList<>(EXAMPLES);
+        private long seq;
+
+        Counter(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+
+        private void seen(long timestamp) {
+            firstSeen = Math.min(firstSeen, timestamp);
+            lastSeen = Math.max(lastSeen, timestamp);
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(
+            Comparator.comparingLong((Counter c) -> c.count).thenComparingLong(c -> c.seq));
+    private long seq;
+    private long total;
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    void offer(String key, String label, long timestamp, String example) {
+        total++;
+        var c = counters.get(key);
+        if (c != null) {
+            byCount.remove(c);
+        } else {
+            c = new Counter(key, label);
+            if (counters.size() >= capacity) {
+                var smallest = byCount.pollFirst();
+                counters.remove(smallest.key);
+                c.count = smallest.count;
+                c.error = smallest.count;
+            }
+            counters.put(key, c);
+        }
+        c.count++;
+        c.seen(timestamp);
+        if (c.examples.size() < EXAMPLES) {
+            c.examples.add(example);
+        }
+        c.seq = ++seq;
+        byCount.add(c);
+    }
+
+    /** Number of records offered, including those merged in. */
+    long total() {
+        return total;
+    }
+
+    /** Counters by descending count, at most {@code n}. */
+    List<Counter> top(int n) {
+        return byCount.descendingSet().stream().limit(n).toList();
+    }
+
+    /**
+     * Combines two summaries. A key missing from a full summary may still have occurred up to that
+     * summary's smallest count, so that amount is added to both its count and its error.
+     */
+    static SpaceSaving merge(SpaceSaving a, SpaceSaving b) {
+        long aMissing = a.counters.size() >= a.capacity ? a.byCount.first().count : 0;
+        long bMissing = b.counters.size() >= b.capacity ? b.byCount.first().count : 0;
+
+        var keys = new HashSet<>(a.counters.keySet());
+        keys.addAll(b.counters.keySet());
+        var merged = new ArrayList<Counter>(keys.size());
+        for (var key : keys) {
+            var x = a.counters.get(key);
+            var y = b.counters.get(key);
+            var c = new Counter(key, x != null ? x.label : y.label);
+            c.count = (x != null ? x.count : aMissing) + (y != null ? y.count : bMissing);
+            c.error = (x != null ? x.error : aMissing) + (y != null ? y.error : bMissing);
+            for (var part : new Counter[] { x, y }) {
+                if (part == null) continue;
+                c.firstSeen = Math.min(c.firstSeen, part.firstSeen);
+                c.lastSeen = Math.max(c.lastSeen, part.lastSeen);
+                part.examples.stream().limit(EXAMPLES - c.examples.size()).forEach(c.examples::add);
+            }
+            merged.add(c);
+        }
+
+        var out = new SpaceSaving(Math.max(a.capacity, b.capacity));
+        out.total = a.total + b.total;
+        merged.stream()
+                .sorted(Comparator.comparingLong((Counter c) -> c.count).reversed())
+                .limit(out.capacity)
+                .forEach(c -> {
+                    c.seq = ++out.seq;
+                    out.counters.put(c.key, c);
+                    out.byCount.add(c);
+                });
+        return out;
+    }
+}
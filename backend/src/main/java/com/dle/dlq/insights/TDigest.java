@@ -0,0 +1,167 @@
+package com.dle.dlq.insights;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning) for quantiles of a stream in bounded memory. Values are buffered and
+ * folded into at most about {@code compression} centroids; the size limit of a centroid shrinks
+ * towards both tails (the arcsine scale function), so extreme quantiles such as p99 stay precise
+ * while the median is coarser. Digests merge by folding one's centroids into the other.
+ */
+final class TDigest {
+
+    private final double compression;
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+    private double count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression * 5);
+        this.bufferMeans = new double[capacity];
+        this.bufferWeights = new double[capacity];
+    }
+
+    void add(double value) {
+        add(value, 1);
+    }
+
+    private void add(double value, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        count += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.means.length; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.count > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    long count() {
+        return (long) count;
+    }
+
+    /** Estimated value at quantile {@code q} in [0, 1]; NaN if nothing was added. */
+    double quantile(double q) {
+        compress();
+        if (means.length == 0) return Double.NaN;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        if (means.length == 1) return means[0];
+
+        double target = q * count;
+        double cumulative = 0;
+        for (int i = 0; i < means.length; i++) {
+            double center = cumulative + weights[i] / 2;
+            if (target < center) {
+                if (i == 0) {
+                    return min + (means[0] - min) * target / center;
+                }
+                double prevCenter = cumulative - weights[i - 1] / 2;
+                double t = (target - prevCenter) / (center - prevCenter);
+                return means[i - 1] + t * (means[i] - means[i - 1]);
+            }
+            cumulative += weights[i];
+        }
+        double lastCenter = count - weights[means.length - 1] / 2;
+        return means[means.length - 1] + (max - means[means.length - 1]) * (target - lastCenter) / (count - lastCenter);
+    }
+
+    private void compress() {
+        if (buffered == 0) return;
+
+        int n = means.length + buffered;
+        var order = new Integer[n];
+        var allMeans = Arrays.copyOf(means, n);
+        var allWeights = Arrays.copyOf(weights, n);
+        System.arraycopy(bufferMeans, 0, allMeans, means.length, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, means.length, buffered);
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        var outMeans = new double[n];
+        var outWeights = new double[n];
+        int out = 0;
+        double soFar = 0;
+        double curMean = allMeans[order[0]];
+        double curWeight = allWeights[order[0]];
+        double limit = count * kInverse(k(0) + 1);
+        for (int j = 1; j < n; j++) {
+            int i = order[j];
+            if (soFar + curWeight + allWeights[i] <= limit) {
+                curWeight += allWeights[i];
+                curMean += (allMeans[i] - curMean) * allWeights[i] / curWeight;
+            } else {
+                outMeans[out] = curMean;
+                outWeights[out++] = curWeight;
+                soFar += curWeight;
+                limit = count * kInverse(k(soFar / count) + 1);
+                curMean = allMeans[i];
+                curWeight = allWeights[i];
+            }
+        }
+        outMeans[out] = curMean;
+        outWeights[out++] = curWeight;
+
+        means = Arrays.copyOf(outMeans, out);
+        weights = Arrays.copyOf(outWeights, out);
+        buffered = 0;
+    }
+
+    private double k(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private double kInverse(double k) {
+        return (Math.sin(Math.min(Math.PI / 2, k * 2 * Math.PI / compression)) + 1) / 2;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        compress();
+        out.writeDouble(compression);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(means.length);
+        for (int i = 0; i < means.length; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(weights[i]);
+        }
+    }
+
+    static TDigest read(DataInputStream in) throws IOException {
+        var digest = new TDigest(in.readDouble());
+        double min = in.readDouble();
+        double max = in.readDouble();
+        int n = in.readInt();
+        digest.means = new double[n];
+        digest.weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            digest.means[i] = in.readDouble();
+            digest.weights[i] = in.readDouble();
+            digest.count += digest.weights[i];
+        }
+        digest.min = min;
+        digest.max = max;
+        return digest;
+    }
+}
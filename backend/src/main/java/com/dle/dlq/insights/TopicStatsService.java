@@ -0,0 +1,260 @@
+package com.dle.dlq.insights;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.dto.TopicStats;
+import com.dle.dlq.dto.TopicStats.HeaderStats;
+import com.dle.dlq.dto.TopicStats.Quantiles;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Approximate per-topic statistics kept as {@link PartitionStats} sketches per partition. A request
+ * folds only the records appended since the previous one into each partition's sketches and then
+ * merges the partitions. Sketches are published to the compacted {@code dle.stats.topic}, keyed by
+ * {@code topic/partition}; every replica adopts sketches that other replicas have advanced further
+ * than its own, so a partition's history is scanned once across the deployment.
+ * <p>
+ * Sketches cannot forget records. Once retention has deleted more than
+ * {@code dle.stats.maxExpiredRatio} of what a partition's sketch covers, it is rebuilt from the
+ * partition's current beginning.
+ * <p>
+ * When the {@link DlqIndexer} runs and has caught up with a partition, its sketches are used
+ * instead and nothing is scanned.
+ */
+@Slf4j
+@Service
+public class TopicStatsService {
+
+    private final DlqAdminService admin;
+    private final DlqConsumerService consumer;
+    private final ConsumerFactory<byte[], byte[]> cf;
+    private final KafkaTemplate<byte[], byte[]> template;
+    private final BlockingSchedulers schedulers;
+    private final ObjectProvider<DlqIndexer> indexer;
+    private final String statsTopic;
+
+    private final Map<String, PartitionStats> partitions = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> sharedPositions = new HashMap<>();
+    private final ReentrantLock sharedLock = new ReentrantLock();
+    private volatile long sharedReadAt = Long.MIN_VALUE;
+
+    @Value("${dle.stats.share:true}")
+    boolean share = true;
+
+    @Value("${dle.stats.shareRefreshMs:5000}")
+    long shareRefreshMs = 5000;
+
+    @Value("${dle.stats.maxHeaders:32}")
+    int maxHeaders = 32;
+
+    @Value("${dle.stats.maxExpiredRatio:0.2}")
+    double maxExpiredRatio = 0.2;
+
+    @Value("${dle.stats.parallelism:4}")
+    int parallelism = 4;
+
+    @Value("${dle.stats.scanTimeoutMs:120000}")
+    long scanTimeoutMs = 120_000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    public TopicStatsService(
+            DlqAdminService admin,
+            DlqConsumerService consumer,
+            ConsumerFactory<byte[], byte[]> cf,
+            KafkaTemplate<byte[], byte[]> template,
+            BlockingSchedulers schedulers,
+            ObjectProvider<DlqIndexer> indexer,
+            @Value("${dle.stats.topic:dle-topic-stats}") String statsTopic) {
+        this.admin = admin;
+        this.consumer = consumer;
+        this.cf = cf;
+        this.template = template;
+        this.schedulers = schedulers;
+        this.indexer = indexer;
+        this.statsTopic = statsTopic;
+    }
+
+    public Mono<TopicStats> stats(String topic) {
+        if (topic == null || topic.isBlank()) {
+            return Mono.error(new IllegalArgumentException("topic must not be null/blank"));
+        }
+        final long startNanos = System.nanoTime();
+        return Mono.fromCallable(() -> {
+                    readShared();
+                    return admin.offsets(topic);
+                })
+                .subscribeOn(schedulers.io())
+                .flatMap(offsets -> {
+                    long deadline = clock.getAsLong() + scanTimeoutMs;
+                    return Flux.fromIterable(new TreeMap<>(offsets.end()).entrySet())
+                            .flatMap(e -> Mono.fromCallable(() -> current(topic, e.getKey(),
+                                                    offsets.begin().getOrDefault(e.getKey(), 0L), e.getValue(), deadline))
+                                            .subscribeOn(schedulers.scan()),
+                                    Math.max(1, parallelism))
+                            .reduce(new PartitionStats(0, maxHeaders), (total, p) -> {
+                                total.merge(p);
+                                return total;
+                            });
+                })
+                .map(total -> {
+                    var stats = summarize(topic, total, clock.getAsLong());
+                    log.info("Computed stats for topic='{}': records={}, distinctKeys~{} in {} ms",
+                            topic, stats.records(), stats.distinctKeys(), (System.nanoTime() - startNanos) / 1_000_000);
+                    return stats;
+                });
+    }
+
+    /**
+     * Brings one partition's sketches up to {@code end} and returns a copy of them. Partitions are
+     * locked one at a time so concurrent requests never scan the same records twice.
+     */
+    PartitionStats current(String topic, int partition, long begin, long end, long deadline) {
+        var index = indexer.getIfAvailable();
+        if (index != null) {
+            var indexed = index.stats(topic, partition);
+            if (indexed != null && indexed.next >= end && !stale(indexed, begin, end)) {
+                return indexed;
+            }
+        }
+
+        var key = topic + "/" + partition;
+        var lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            var stats = partitions.get(key);
+            if (stats == null || stale(stats, begin, end)) {
+                stats = new PartitionStats(begin, maxHeaders);
+                partitions.put(key, stats);
+            }
+            if (stats.next >= end) {
+                return PartitionStats.fromBytes(stats.toBytes());
+            }
+
+            long reached = consumer.scan(topic, partition, stats.next, end, deadline, stats::fold);
+            stats.next = Math.max(stats.next, reached);
+            byte[] bytes = stats.toBytes();
+            publish(key, bytes);
+            return PartitionStats.fromBytes(bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean stale(PartitionStats stats, long begin, long end) {
+        return end < stats.next    // topic recreated
+                || stats.expired(begin, maxExpiredRatio);
+    }
+
+    static TopicStats summarize(String topic, PartitionStats total, long now) {
+        var headers = new TreeMap<String, HeaderStats>();
+        total.headerRecords.forEach((name, n) ->
+                headers.put(name, new HeaderStats(n, total.headerValues.get(name).estimate())));
+        if (total.records == 0) {
+            return new TopicStats(topic, 0, 0, null, null, headers, now);
+        }
+        var sizes = total.sizes;
+        var ts = total.timestamps;
+        return new TopicStats(topic, total.records, total.keys.estimate(),
+                new Quantiles(Math.round(sizes.quantile(0.5)), Math.round(sizes.quantile(0.9)),
+                        Math.round(sizes.quantile(0.99)), Math.round(sizes.quantile(1))),
+                // The p90 age is the age of the record at the 10th timestamp percentile, and so on
+                new Quantiles(now - Math.round(ts.quantile(0.5)), now - Math.round(ts.quantile(0.1)),
+                        now - Math.round(ts.quantile(0.01)), now - Math.round(ts.quantile(0))),
+                headers, now);
+    }
+
+    private void publish(String key, byte[] bytes) {
+        if (!share) return;
+        try {
+            template.send(new ProducerRecord<>(statsTopic, key.getBytes(StandardCharsets.UTF_8), bytes))
+                    .whenComplete((r, e) -> {
+                        if (e != null) log.warn("Failed to publish stats for '{}' to topic='{}'", key, statsTopic, e);
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to publish stats for '{}' to topic='{}'", key, statsTopic, e);
+        }
+    }
+
+    /**
+     * Reads sketches other replicas published since the last read, at most every
+     * {@code dle.stats.shareRefreshMs}, and adopts those that cover more records than ours.
+     */
+    void readShared() {
+        if (!share || clock.getAsLong() - sharedReadAt < shareRefreshMs) return;
+        if (!sharedLock.tryLock()) return;   // another request is already reading
+        try (var c = cf.createConsumer("dle-stats-" + UUID.randomUUID(), null)) {
+            var infos = c.partitionsFor(statsTopic);
+            if (infos == null || infos.isEmpty()) return;
+            var tps = infos.stream().map(i -> new TopicPartition(statsTopic, i.partition())).toList();
+            c.assign(tps);
+            var end = c.endOffsets(tps);
+            tps.forEach(tp -> {
+                var position = sharedPositions.get(tp);
+                if (position == null) c.seekToBeginning(List.of(tp));
+                else c.seek(tp, position);
+            });
+
+            long deadline = clock.getAsLong() + 5000;
+            int adopted = 0;
+            while (tps.stream().anyMatch(tp -> c.position(tp) < end.get(tp)) && clock.getAsLong() < deadline) {
+                for (var rec : c.poll(Duration.ofMillis(200))) {
+                    if (rec.key() != null && rec.value() != null && adopt(new String(rec.key(), StandardCharsets.UTF_8), rec.value())) {
+                        adopted++;
+                    }
+                }
+            }
+            tps.forEach(tp -> sharedPositions.put(tp, c.position(tp)));
+            sharedReadAt = clock.getAsLong();
+            if (adopted > 0) {
+                log.info("Adopted {} partition sketches from other replicas via topic='{}'", adopted, statsTopic);
+            }
+        } catch (Exception e) {
+            log.warn("Could not read shared stats from topic='{}'; using this replica's sketches only", statsTopic, e);
+        } finally {
+            sharedLock.unlock();
+        }
+    }
+
+    private boolean adopt(String key, byte[] value) {
+        var lock = locks.computeIfAbsent(key, k -> new ReentrantLock());
+        // Skip partitions being folded right now; that request is ahead of the shared copy anyway
+        if (!lock.tryLock()) return false;
+        try {
+            var remote = PartitionStats.fromBytes(value);
+            var local = partitions.get(key);
+            if (local != null && remote.next <= local.next) return false;
+            partitions.put(key, remote);
+            return true;
+        } catch (Exception e) {
+            log.debug("Ignoring malformed stats record '{}'", key, e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.dle.dlq.ledger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers which DLQ records were already replayed to which target topic.
+ * The ledger is persisted in a compacted Kafka topic and mirrored in memory, so
+ * look-ups on the replay hot path are a single hash probe. Once loaded, the topic is
+ * tailed so that replays done by other replicas show up here too. The in-memory view keeps
+ * at most {@code dle.replay.ledger.maxEntries} keys and forgets the oldest beyond that.
+ */
+@Slf4j
+@Service
+public class ReplayLedger implements DisposableBean {
+
+    public static final String IDEMPOTENCY_HEADER = "dle-idempotency-key";
+
+    private final ConsumerFactory<byte[], byte[]> cf;
+    private final KafkaTemplate<byte[], byte[]> template;
+    private final String topic;
+
+    @Value("${dle.replay.ledger.loadTimeoutMs:30000}")
+    long loadTimeoutMs = 30_000;
+
+    @Value("${dle.replay.ledger.tailIntervalMs:1000}")
+    long tailIntervalMs = 1000;
+
+    @Value("${dle.replay.ledger.maxEntries:1000000}")
+    int maxEntries = 1_000_000;
+
+    /** Key id to the sequence number it was added under; the queue holds them oldest first. */
+    private final ConcurrentHashMap<String, Long> replayed = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Remembered> order = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private volatile ScheduledExecutorService tailer;
+    private Consumer<byte[], byte[]> tail;
+
+    public ReplayLedger(
+            ConsumerFactory<byte[], byte[]> cf,
+            KafkaTemplate<byte[], byte[]> template,
+            @Value("${dle.replay.ledger.topic:dle-replay-ledger}") String topic) {
+        this.cf = cf;
+        this.template = template;
+        this.topic = topic;
+        log.info("ReplayLedger initialized with topic='{}'", topic);
+    }
+
+    /**
+     * Identity of one replay: a DLQ record (topic/partition/offset) sent to a target topic.
+     */
+    public record Key(String sourceTopic, int partition, long offset, String targetTopic) {
+
+        public String id() {
+            return sourceTopic + "/" + partition + "/" + offset + "->" + targetTopic;
+        }
+
+        /** Deterministic key stamped on the replayed record so consumers can de-duplicate too. */
+        public String idempotencyKey() {
+            return UUID.nameUUIDFromBytes(id().getBytes(StandardCharsets.UTF_8)).toString();
+        }
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public boolean isReplayed(Key key) {
+        return replayed.containsKey(key.id());
+    }
+
+    /**
+     * Claims the key for a send about to happen: true if it was not replayed or claimed yet, in
+     * which case concurrent and later callers see it as replayed. Follow up with {@link #record}
+     * once the send is acknowledged, or {@link #release} if it fails.
+     */
+    public boolean reserve(Key key) {
+        return add(key.id());
+    }
+
+    /** Gives up a claim from {@link #reserve} whose send failed, so the record can be replayed again. */
+    public void release(Key key) {
+        replayed.remove(key.id());
+    }
+
+    /**
+     * Persists the key to the ledger topic (asynchronously) and to the in-memory view.
+     */
+    public void record(Key key) {
+        template.send(ledgerRecord(key)).whenComplete((res, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to persist ledger entry '{}' to topic='{}'", key.id(), topic, ex);
+            }
+        });
+        remember(key);
+    }
+
+    /**
+     * Builds the compacted-topic record for a key without sending it, for callers that
+     * need the ledger write to share a producer (e.g. a transaction) with the replay.
+     */
+    public ProducerRecord<byte[], byte[]> ledgerRecord(Key key) {
+        return new ProducerRecord<>(topic,
+                key.id().getBytes(StandardCharsets.UTF_8),
+                Instant.now().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Marks the key as replayed locally, once its ledger record is known to be durable. */
+    public void remember(Key key) {
+        add(key.id());
+    }
+
+    private record Remembered(String id, long seq) {
+    }
+
+    private boolean add(String id) {
+        long seq = sequence.incrementAndGet();
+        if (replayed.putIfAbsent(id, seq) != null) {
+            return false;
+        }
+        order.add(new Remembered(id, seq));
+        queued.incrementAndGet();
+        trim();
+        return true;
+    }
+
+    /** Forgets the oldest keys beyond the cap, and drops queue entries of keys already removed. */
+    private void trim() {
+        while (replayed.size() > maxEntries || queued.get() > 2L * maxEntries) {
+            Remembered oldest = order.poll();
+            if (oldest == null) return;
+            queued.decrementAndGet();
+            replayed.remove(oldest.id(), oldest.seq());
+        }
+    }
+
+    public int size() {
+        return replayed.size();
+    }
+
+    /**
+     * Rebuilds the in-memory view from the ledger topic the first time it is needed, then keeps
+     * following the topic every {@code dle.replay.ledger.tailIntervalMs}. Failures are logged and
+     * retried on the next call; replay keeps working on the local view.
+     */
+    public void ensureLoaded() {
+        if (loaded) return;
+        // A lock rather than synchronized: loading blocks on Kafka and must not pin a virtual thread's carrier
+        loadLock.lock();
+        try {
+            if (loaded) return;
+            load();
+            loaded = true;
+        } catch (Exception e) {
+            log.warn("Could not load replay ledger from topic='{}'; using local view only (entries={})",
+                    topic, replayed.size(), e);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void load() {
+        final long startNanos = System.nanoTime();
+
+        var consumer = cf.createConsumer("dle-ledger-" + UUID.randomUUID(), null);
+        try {
+            var partitionsInfo = consumer.partitionsFor(topic);
+            if (partitionsInfo == null || partitionsInfo.isEmpty()) {
+                log.info("Ledger topic='{}' has no partitions yet; starting empty", topic);
+                consumer.close();
+                return;
+            }
+
+            var partitions = partitionsInfo.stream()
+                    .map(i -> new TopicPartition(topic, i.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            var end = consumer.endOffsets(partitions);
+
+            long deadline = System.currentTimeMillis() + loadTimeoutMs;
+            int records = 0;
+            while (partitions.stream().anyMatch(tp -> consumer.position(tp) < end.get(tp))) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new IllegalStateException("Timed out loading ledger topic '" + topic + "'");
+                }
+                for (var rec : consumer.poll(Duration.ofMillis(200))) {
+                    apply(rec);
+                    records++;
+                }
+            }
+
+            long tookMs = (System.nanoTime() - startNanos) / 1_000_000;
+            log.info("Loaded replay ledger from topic='{}': records={}, entries={}, tookMs={}",
+                    topic, records, replayed.size(), tookMs);
+        } catch (RuntimeException e) {
+            consumer.close();
+            throw e;
+        }
+        startTailing(consumer);
+    }
+
+    private void apply(ConsumerRecord<byte[], byte[]> rec) {
+        if (rec.key() == null) return;
+        String id = new String(rec.key(), StandardCharsets.UTF_8);
+        if (rec.value() == null) {
+            replayed.remove(id); // tombstone
+        } else {
+            add(id);
+        }
+    }
+
+    private void startTailing(Consumer<byte[], byte[]> consumer) {
+        tail = consumer;
+        if (tailer == null) {
+            tailer = Executors.newSingleThreadScheduledExecutor(r -> {
+                var t = new Thread(r, "dle-replay-ledger");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        tailer.scheduleWithFixedDelay(this::pollTail, tailIntervalMs, tailIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Applies what other replicas (and this one) wrote since the last poll. */
+    void pollTail() {
+        loadLock.lock();
+        try {
+            if (tail == null) return;
+            for (var rec : tail.poll(Duration.ofMillis(100))) {
+                apply(rec);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not follow replay ledger topic='{}'; reloading it on the next replay", topic, e);
+            closeTail();
+            loaded = false;
+            throw e;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    private void closeTail() {
+        if (tail != null) {
+            tail.close();
+            tail = null;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        var executor = tailer;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        loadLock.lock();
+        try {
+            closeTail();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.dle.dlq.producer;
+
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AIMD replay pacing: the rate grows additively while the target's consumers keep up and
+ * is cut multiplicatively when their lag or the DLQ re-entry rate crosses its threshold.
+ * Signals are sampled at most once per {@code sampleIntervalMs}; between samples the
+ * current rate is reused.
+ */
+@Slf4j
+class AdaptiveThrottle {
+
+    /** Source of the two congestion signals; either may throw if the cluster is unreachable. */
+    interface Signals {
+        /** Current lag of the target consumer group, or 0 when no group is watched. */
+        long targetLag() throws Exception;
+
+        /** Current total end offset of the source DLQ. */
+        long dlqEndOffset() throws Exception;
+    }
+
+    record Settings(int floorPerSec, int ceilingPerSec, int increaseStep, double decreaseFactor,
+                    long maxLag, double maxReentryPerSec, long sampleIntervalMs) {
+    }
+
+    private final Settings settings;
+    private final Signals signals;
+    private final LongSupplier clock;
+
+    private int rate;
+    private long lastSampleAt;
+    private long lastDlqEnd = -1;
+    private boolean sampled;
+
+    AdaptiveThrottle(int initialPerSec, Settings settings, Signals signals, LongSupplier clock) {
+        this.settings = settings;
+        this.signals = signals;
+        this.clock = clock;
+        this.rate = clamp(initialPerSec);
+        this.lastSampleAt = clock.getAsLong();
+        log.info("Adaptive throttle started: rate={}/s, floor={}/s, ceiling={}/s, maxLag={}, maxReentryPerSec={}",
+                rate, settings.floorPerSec(), settings.ceilingPerSec(), settings.maxLag(), settings.maxReentryPerSec());
+    }
+
+    int ratePerSec() {
+        return rate;
+    }
+
+    /**
+     * Spacing between two sent records, in nanoseconds so that rates above 1000/s stay distinct;
+     * re-samples the signals when due.
+     */
+    long intervalNanos() {
+        long now = clock.getAsLong();
+        if (!sampled || now - lastSampleAt >= settings.sampleIntervalMs()) {
+            sample(now);
+        }
+        return 1_000_000_000L / rate;
+    }
+
+    private void sample(long now) {
+        sampled = true;
+        long lag;
+        long dlqEnd;
+        try {
+            lag = signals.targetLag();
+            dlqEnd = signals.dlqEndOffset();
+        } catch (Exception e) {
+            log.warn("Adaptive throttle could not sample lag; holding rate at {}/s", rate, e);
+            lastSampleAt = now;
+            return;
+        }
+
+        double elapsedSec = Math.max(0.001, (now - lastSampleAt) / 1000.0);
+        double reentryPerSec = lastDlqEnd < 0 ? 0 : Math.max(0, dlqEnd - lastDlqEnd) / elapsedSec;
+        lastDlqEnd = dlqEnd;
+        lastSampleAt = now;
+
+        int previous = rate;
+        if (lag > settings.maxLag() || reentryPerSec > settings.maxReentryPerSec()) {
+            rate = clamp((int) (rate * settings.decreaseFactor()));
+        } else {
+            rate = clamp(rate + settings.increaseStep());
+        }
+
+        if (previous != rate) {
+            log.info("Adaptive throttle: lag={}, dlqReentryPerSec={}, rate {} -> {}/s",
+                    lag, String.format("%.1f", reentryPerSec), previous, rate);
+        }
+    }
+
+    private int clamp(int perSec) {
+        return Math.max(settings.floorPerSec(), Math.min(settings.ceilingPerSec(), perSec));
+    }
+}
@@ -1,15 +1,26 @@
 package com.dle.dlq.producer;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -17,25 +28,76 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
+import com.dle.dlq.admin.DlqAdminService;
 import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayReport;
 import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.ledger.ReplayLedger;
 import com.dle.dlq.util.MessageMapper;
 
 @Slf4j
 @Service
 public class DlqProducerService {
 
+    /** Sends allowed in flight per target before replay waits for their acknowledgements. */
+    static final int MAX_UNACKED = 1000;
+
+    /** Metrics tag for transactional sends, which bypass the profile pool. */
+    static final String TRANSACTIONAL_PROFILE = "transactional";
+
     private final KafkaTemplate<byte[], byte[]> template;
+    private final KafkaTemplate<byte[], byte[]> txTemplate;
+    private final ReplayLedger ledger;
+    private final DlqAdminService admin;
+    private final ProducerPool pool;
+    private final ReplayGovernor governor;
 
     @Value("${dle.replay.throttlePerSec:50}")
     int throttlePerSec;
 
+    @Value("${dle.replay.transactional.batchSize:500}")
+    int transactionalBatchSize = 500;
+
+    @Value("${dle.replay.adaptive.group:}")
+    String adaptiveGroup = "";
+
+    @Value("${dle.replay.adaptive.floorPerSec:10}")
+    int adaptiveFloorPerSec = 10;
+
+    @Value("${dle.replay.adaptive.ceilingPerSec:5000}")
+    int adaptiveCeilingPerSec = 5000;
+
+    @Value("${dle.replay.adaptive.increaseStep:25}")
+    int adaptiveIncreaseStep = 25;
+
+    @Value("${dle.replay.adaptive.decreaseFactor:0.5}")
+    double adaptiveDecreaseFactor = 0.5;
+
+    @Value("${dle.replay.adaptive.maxLag:10000}")
+    long adaptiveMaxLag = 10_000;
+
+    @Value("${dle.replay.adaptive.maxReentryPerSec:5}")
+    double adaptiveMaxReentryPerSec = 5;
+
+    @Value("${dle.replay.adaptive.sampleIntervalMs:2000}")
+    long adaptiveSampleIntervalMs = 2000;
+
     private final Set<String> allow = new HashSet<>();
 
     public DlqProducerService(
             @Value("${dle.replay.headerAllowList:content-type,correlation-id}") String allowList,
-            KafkaTemplate<byte[], byte[]> template) {
+            KafkaTemplate<byte[], byte[]> template,
+            ReplayLedger ledger,
+            @Qualifier("transactionalKafkaTemplate") KafkaTemplate<byte[], byte[]> txTemplate,
+            DlqAdminService admin,
+            ProducerPool pool,
+            ReplayGovernor governor) {
         this.template = template;
+        this.governor = governor;
+        this.ledger = ledger;
+        this.txTemplate = txTemplate;
+        this.admin = admin;
+        this.pool = pool;
         Arrays.stream(allowList.split(","))
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
@@ -47,80 +109,576 @@ public class DlqProducerService {
 
     /**
      * Replays the provided items to targetTopic with throttling and header allow-list.
+     * Items already recorded in the replay ledger for the same target, or claimed by a send still
+     * in flight (a concurrent replay, or a duplicate earlier in the request), are skipped unless
+     * the request is forced. With {@code transactional=true} items are committed in atomic batches;
+     * with {@code adaptive=true} the rate follows the target consumer group's lag (AIMD).
+     * {@code producerProfile} selects a pooled producer tuning (see {@link ProducerProfile}).
      * Returns the number of successfully sent records (blocking send).
      */
     public int replay(ReplayRequest req) throws Exception { // keep checked throws, or narrow to InterruptedException
-        Objects.requireNonNull(req.targetTopic(), "targetTopic required");
+        return replay(req, ReplayGovernor.Priority.TRIAGER);
+    }
+
+    /**
+     * Same as {@link #replay(ReplayRequest)}, drawing on the shared {@link ReplayGovernor} budgets
+     * with the given priority. The request's own throttle stays an upper bound.
+     */
+    public int replay(ReplayRequest req, ReplayGovernor.Priority priority) throws Exception {
+        return replayWithReport(req, priority).sent();
+    }
+
+    /**
+     * Same as {@link #replay(ReplayRequest)} but reports counts and latency per target topic.
+     * With {@code toOriginalTopic=true} each item is routed to the topic named in its
+     * {@code kafka_dlt-original-topic} header (targetTopic is then only a fallback), and with
+     * {@code preservePartition=true} also to its {@code kafka_dlt-original-partition}.
+     */
+    public ReplayReport replayWithReport(ReplayRequest req) throws Exception {
+        return replayWithReport(req, ReplayGovernor.Priority.TRIAGER);
+    }
+
+    public ReplayReport replayWithReport(ReplayRequest req, ReplayGovernor.Priority priority) throws Exception {
+        final boolean toOriginal = Boolean.TRUE.equals(req.toOriginalTopic());
+        if (!toOriginal) {
+            Objects.requireNonNull(req.targetTopic(), "targetTopic required");
+        }
 
         final int requestedTps = Optional.ofNullable(req.throttlePerSec()).orElse(throttlePerSec);
         final int effectiveTps = Math.max(1, Math.min(10_000, requestedTps));
-        final long intervalMs = Math.max(1, 1000L / effectiveTps);
+        final long intervalNanos = 1_000_000_000L / effectiveTps;
 
         if (req.items() == null || req.items().isEmpty()) {
             log.info("Replay requested with empty items for targetTopic='{}' (nothing to send)", req.targetTopic());
-            return 0;
+            return ReplayReport.EMPTY;
+        }
+
+        final boolean force = Boolean.TRUE.equals(req.force());
+        final boolean tracked = req.sourceTopic() != null && !req.sourceTopic().isBlank();
+
+        log.info("Starting replay: sourceTopic='{}', targetTopic='{}', toOriginalTopic={}, items={}, requestedTps={}, effectiveTps={}, force={}",
+                req.sourceTopic(), req.targetTopic(), toOriginal, req.items().size(), requestedTps, effectiveTps, force);
+
+        if (tracked) {
+            ledger.ensureLoaded();
+        } else {
+            log.debug("Replay has no sourceTopic; ledger de-duplication disabled for this request");
         }
 
-        log.info("Starting replay: targetTopic='{}', items={}, requestedTps={}, effectiveTps={}, intervalMs={}",
-                req.targetTopic(), req.items().size(), requestedTps, effectiveTps, intervalMs);
+        final Pacer pacer = Boolean.TRUE.equals(req.adaptive())
+                ? adaptivePacer(req, effectiveTps)
+                : () -> intervalNanos;
 
-        int sent = 0;
-        final long startNanos = System.nanoTime();
+        final var report = new ReplayReport.Builder();
+        final List<Routed> routed = route(req, toOriginal, report);
 
+        if (Boolean.TRUE.equals(req.transactional())) {
+            if (req.producerProfile() != null) {
+                log.info("Ignoring producerProfile='{}' for transactional replay", req.producerProfile());
+            }
+            return replayTransactional(req, routed, tracked, force, pacer, priority, report);
+        }
+
+        final ProducerProfile profile = profileOf(req);
+        final String profileTag = profile == null ? ProducerPool.DEFAULT_PROFILE : profile.id();
+
+        // Group by target so each target's records go out back to back and batch in the producer
+        final Map<String, List<Routed>> byTarget = new LinkedHashMap<>();
+        routed.forEach(r -> byTarget.computeIfAbsent(r.topic(), t -> new ArrayList<>()).add(r));
+
+        final KafkaTemplate<byte[], byte[]> sender = profile == null ? template : pool.acquire(profile);
         try {
-            for (ReplayItem it : req.items()) {
-                byte[] value = null;
-                if (it.valueBase64() != null) {
-                    try {
-                        value = Base64.getDecoder().decode(it.valueBase64());
-                    } catch (IllegalArgumentException bad64) {
-                        log.warn("Skipping item due to invalid Base64 payload (offset={} partition={}): {}",
-                                it.offset(), it.partition(), bad64.toString());
-                        continue;
-                    }
-                } else {
-                    log.debug("Replay item has null payload (offset={} partition={})", it.offset(), it.partition());
+            for (var group : byTarget.entrySet()) {
+                final long groupStart = System.nanoTime();
+                try (var lease = governor.acquire(group.getKey(), priority)) {
+                    Pacer governed = () -> Math.max(pacer.intervalNanos(), lease.intervalNanos());
+                    send(req, group.getValue(), tracked, force, t -> governed, sender, profileTag, report);
+                } finally {
+                    report.elapsed(group.getKey(), System.nanoTime() - groupStart);
+                }
+            }
+        } finally {
+            if (profile != null) pool.release(sender);
+            log.info("Replay finished: targetTopic='{}', profile={}, sent={}, failed={}, skippedAlreadyReplayed={}, unroutable={}, totalItems={}, tookMs={}",
+                    req.targetTopic(), profileTag, report.sent(), report.failed(), report.skipped(), report.unroutable(),
+                    req.items().size(), report.elapsedMs());
+        }
+
+        return report.build();
+    }
+
+    /**
+     * Replays items as they are pulled from {@code items} rather than from {@code settings.items()},
+     * which is ignored. The iterable may block waiting for its next item, so a publisher's
+     * {@code toIterable} keeps no more than its prefetch in memory and is read at the pace of the
+     * sends. Items are routed one at a time; each target draws on its own governor lease from its
+     * first item until the replay ends. Transactional replays need all items up front and are
+     * rejected. If the source fails mid-way, the sends so far are acknowledged and recorded in the
+     * ledger before its error is rethrown.
+     */
+    public ReplayReport replayStream(ReplayRequest settings, Iterable<ReplayItem> items,
+                                     ReplayGovernor.Priority priority) throws Exception {
+        if (Boolean.TRUE.equals(settings.transactional())) {
+            throw new IllegalArgumentException("Transactional replay needs its items in the request");
+        }
+        final boolean toOriginal = Boolean.TRUE.equals(settings.toOriginalTopic());
+        if (!toOriginal) {
+            Objects.requireNonNull(settings.targetTopic(), "targetTopic required");
+        }
+
+        final int effectiveTps = Math.max(1, Math.min(10_000,
+                Optional.ofNullable(settings.throttlePerSec()).orElse(throttlePerSec)));
+        final long intervalNanos = 1_000_000_000L / effectiveTps;
+        final boolean force = Boolean.TRUE.equals(settings.force());
+        final boolean tracked = settings.sourceTopic() != null && !settings.sourceTopic().isBlank();
+
+        log.info("Starting streamed replay: sourceTopic='{}', targetTopic='{}', toOriginalTopic={}, effectiveTps={}, force={}",
+                settings.sourceTopic(), settings.targetTopic(), toOriginal, effectiveTps, force);
+
+        if (tracked) {
+            ledger.ensureLoaded();
+        }
+
+        final Pacer pacer = Boolean.TRUE.equals(settings.adaptive())
+                ? adaptivePacer(settings, effectiveTps)
+                : () -> intervalNanos;
+        final ProducerProfile profile = profileOf(settings);
+        final String profileTag = profile == null ? ProducerPool.DEFAULT_PROFILE : profile.id();
+
+        final var report = new ReplayReport.Builder();
+        final Map<String, Pacer> governed = new LinkedHashMap<>();
+        final List<ReplayGovernor.Lease> leases = new ArrayList<>();
+        final Map<String, Long> firstSeen = new LinkedHashMap<>();
+        final AtomicLong read = new AtomicLong();
+
+        final KafkaTemplate<byte[], byte[]> sender = profile == null ? template : pool.acquire(profile);
+        try {
+            send(settings, routing(settings, items, toOriginal, report, read), tracked, force,
+                    target -> governed.computeIfAbsent(target, t -> {
+                        firstSeen.put(t, System.nanoTime());
+                        var lease = governor.acquire(t, priority);
+                        leases.add(lease);
+                        return () -> Math.max(pacer.intervalNanos(), lease.intervalNanos());
+                    }),
+                    sender, profileTag, report);
+        } finally {
+            long now = System.nanoTime();
+            firstSeen.forEach((t, since) -> report.elapsed(t, now - since));
+            leases.forEach(ReplayGovernor.Lease::close);
+            if (profile != null) pool.release(sender);
+            log.info("Streamed replay finished: targetTopic='{}', profile={}, read={}, sent={}, failed={}, skippedAlreadyReplayed={}, unroutable={}, tookMs={}",
+                    settings.targetTopic(), profileTag, read.get(), report.sent(), report.failed(), report.skipped(),
+                    report.unroutable(), report.elapsedMs());
+        }
+
+        return report.build();
+    }
+
+    /** An item with its resolved destination; partition is null to let the producer choose. */
+    private record Routed(ReplayItem item, String topic, Integer partition) {
+    }
+
+    private List<Routed> route(ReplayRequest req, boolean toOriginal, ReplayReport.Builder report) {
+        final List<Routed> out = new ArrayList<>(req.items().size());
+        for (ReplayItem it : req.items()) {
+            Routed r = route(req, it, toOriginal, report);
+            if (r != null) out.add(r);
+        }
+        return out;
+    }
+
+    /** Routes {@code items} as they are pulled, counting each one read and skipping the unroutable. */
+    private Iterable<Routed> routing(ReplayRequest req, Iterable<ReplayItem> items, boolean toOriginal,
+                                     ReplayReport.Builder report, AtomicLong read) {
+        return () -> new Iterator<>() {
+            private final Iterator<ReplayItem> source = items.iterator();
+            private Routed next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && source.hasNext()) {
+                    read.incrementAndGet();
+                    next = route(req, source.next(), toOriginal, report);
                 }
+                return next != null;
+            }
 
-                Map<String, Object> filtered = MessageMapper.filterAllowed(it.headersBase64(), allow);
+            @Override
+            public Routed next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Routed r = next;
+                next = null;
+                return r;
+            }
+        };
+    }
 
-                Message<byte[]> msg = MessageBuilder.withPayload(value)
-                        .setHeader(KafkaHeaders.TOPIC, req.targetTopic())
-                        .copyHeaders(filtered)
-                        .build();
+    /** The item's destination, or null (counted as unroutable) if it has none. */
+    private Routed route(ReplayRequest req, ReplayItem it, boolean toOriginal, ReplayReport.Builder report) {
+        if (!toOriginal) {
+            return new Routed(it, req.targetTopic(), null);
+        }
+
+        String topic = MessageMapper.headerUtf8(it.headersBase64(), KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        Integer partition = Boolean.TRUE.equals(req.preservePartition())
+                ? MessageMapper.headerInt(it.headersBase64(), KafkaHeaders.DLT_ORIGINAL_PARTITION)
+                : null;
+        if (topic == null) {
+            topic = req.targetTopic();
+            partition = null;
+        }
+        if (topic == null || topic.isBlank()) {
+            log.warn("Skipping item without {} header and no fallback targetTopic (offset={} partition={})",
+                    KafkaHeaders.DLT_ORIGINAL_TOPIC, it.offset(), it.partition());
+            report.markUnroutable();
+            return null;
+        }
+        return new Routed(it, topic, partition);
+    }
+
+    /** A send awaiting its broker acknowledgement; {@code reserved} if it holds the ledger claim on its key. */
+    private record Pending(Routed routed, ReplayLedger.Key key, boolean reserved, int bytes,
+                           CompletableFuture<Long> ackNanos) {
+    }
+
+    /**
+     * Sends records without waiting for each acknowledgement, awaiting them every
+     * {@link #MAX_UNACKED} sends and at the end. Each record is spaced by the pacer of its target,
+     * which {@code pacerFor} looks up before the record is sent. Failed sends are logged and
+     * counted; replay goes on with the next record. If {@code routed} itself fails, the sends so
+     * far are acknowledged before its error is rethrown. If the replay is interrupted, sends already
+     * acknowledged are still recorded in the ledger and every other claim is given back.
+     */
+    private void send(ReplayRequest req, Iterable<Routed> routed, boolean tracked, boolean force,
+                      Function<String, Pacer> pacerFor, KafkaTemplate<byte[], byte[]> sender, String profileTag,
+                      ReplayReport.Builder report) throws InterruptedException {
+        final List<Pending> pending = new ArrayList<>();
+        final Spacing spacing = new Spacing();
+
+        try {
+            for (Routed r : routed) {
+                ReplayItem it = r.item();
+                Pacer pacer = pacerFor.apply(r.topic());
+                ReplayLedger.Key key = ledgerKey(req, r, tracked);
+                boolean reserved = key != null && ledger.reserve(key);
+                if (key != null && !reserved && !force) {
+                    log.debug("Skipping already replayed item '{}'", key.id());
+                    report.skipped(r.topic());
+                    continue;
+                }
+
+                Message<byte[]> msg = toMessage(r, key);
+                if (msg == null) {
+                    if (reserved) ledger.release(key);
+                    report.failed(r.topic());
+                    continue;
+                }
 
                 try {
-                    // This can throw InterruptedException or ExecutionException
-                    template.send(msg).get();
-                    sent++;
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt(); // restore flag
-                    log.warn("Replay interrupted during send; sentSoFar={}", sent, ie);
-                    throw ie; // propagate (preferred)
-                } catch (ExecutionException ee) {
-                    // Sending failed but we keep going with the next item
-                    log.error("Failed to send item to topic='{}' (offset={}, partition={})",
-                            req.targetTopic(), it.offset(), it.partition(), ee.getCause() != null ? ee.getCause() : ee);
+                    long sendStart = System.nanoTime();
+                    CompletableFuture<Long> ack = sender.send(msg).thenApply(res -> System.nanoTime() - sendStart);
+                    pending.add(new Pending(r, key, reserved, msg.getPayload().length, ack));
                 } catch (RuntimeException re) {
                     // Synchronous Kafka client/runtime error
                     log.error("Failed to send item to topic='{}' (offset={}, partition={})",
-                            req.targetTopic(), it.offset(), it.partition(), re);
+                            r.topic(), it.offset(), it.partition(), re);
+                    if (reserved) ledger.release(key);
+                    report.failed(r.topic());
                 }
 
-                try {
-                    Thread.sleep(intervalMs);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    log.warn("Replay interrupted while throttling; sentSoFar={}", sent, ie);
-                    throw ie; // propagate (preferred)
+                if (pending.size() >= MAX_UNACKED) {
+                    awaitAcks(pending, profileTag, report);
                 }
+                spacing.await(pacer.intervalNanos(), report.sent() + pending.size());
+            }
+            awaitAcks(pending, profileTag, report);
+        } catch (RuntimeException sourceFailed) {
+            try {
+                awaitAcks(pending, profileTag, report);
+            } catch (InterruptedException ie) {
+                sourceFailed.addSuppressed(ie);
             }
+            throw sourceFailed;
         } finally {
-            long tookMs = (System.nanoTime() - startNanos) / 1_000_000;
-            log.info("Replay finished: targetTopic='{}', sent={}, totalItems={}, tookMs={}",
-                    req.targetTopic(), sent, req.items().size(), tookMs);
+            settleUnacked(pending, profileTag, report);
         }
+    }
+
+    /** Awaits each pending send in turn; the ones settled are removed even if the wait is interrupted. */
+    private void awaitAcks(List<Pending> pending, String profileTag, ReplayReport.Builder report)
+            throws InterruptedException {
+        int settled = 0;
+        try {
+            for (Pending p : pending) {
+                awaitAck(p, profileTag, report);
+                settled++;
+            }
+        } finally {
+            pending.subList(0, settled).clear();
+        }
+    }
+
+    private void awaitAck(Pending p, String profileTag, ReplayReport.Builder report) throws InterruptedException {
+        String target = p.routed().topic();
+        try {
+            // This can throw InterruptedException or ExecutionException
+            acknowledged(p, p.ackNanos().get(), profileTag, report);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt(); // restore flag
+            log.warn("Replay interrupted during send; sentSoFar={}", report.sent(), ie);
+            throw ie; // propagate (preferred)
+        } catch (ExecutionException ee) {
+            // Sending failed but we keep going with the next item
+            log.error("Failed to send item to topic='{}' (offset={}, partition={})",
+                    target, p.routed().item().offset(), p.routed().item().partition(),
+                    ee.getCause() != null ? ee.getCause() : ee);
+            if (p.reserved()) ledger.release(p.key());
+            report.failed(target);
+        }
+    }
+
+    private void acknowledged(Pending p, long nanos, String profileTag, ReplayReport.Builder report) {
+        pool.recordSend(profileTag, p.bytes(), nanos);
+        report.sent(p.routed().topic(), nanos);
+        if (p.key() != null) {
+            ledger.record(p.key());
+        }
+    }
+
+    /**
+     * Settles what a replay left unawaited when it stopped early: acknowledged sends are recorded,
+     * and the claims of the others are given back so a later replay can send them again.
+     */
+    private void settleUnacked(List<Pending> pending, String profileTag, ReplayReport.Builder report) {
+        for (Pending p : pending) {
+            var ack = p.ackNanos();
+            if (ack.isDone() && !ack.isCompletedExceptionally()) {
+                acknowledged(p, ack.getNow(0L), profileTag, report);
+            } else {
+                if (p.reserved()) ledger.release(p.key());
+                report.failed(p.routed().topic());
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Exactly-once mode: items are sent in batches, each batch (records plus their ledger
+     * entries) in one Kafka transaction. A failed batch is aborted as a whole and replay stops
+     * there, so the target never sees a partial batch or records after a gap.
+     */
+    private ReplayReport replayTransactional(ReplayRequest req, List<Routed> routed, boolean tracked, boolean force,
+                                             Pacer pacer, ReplayGovernor.Priority priority,
+                                             ReplayReport.Builder report) throws InterruptedException {
+        final int size = Math.max(1, Math.min(10_000,
+                Optional.ofNullable(req.batchSize()).orElse(transactionalBatchSize)));
+
+        log.info("Transactional replay: targetTopic='{}', items={}, batchSize={}", req.targetTopic(), routed.size(), size);
 
-        return sent;
+        // Batches may mix targets, so pace by the tightest share among them
+        final List<ReplayGovernor.Lease> leases = routed.stream().map(Routed::topic).distinct()
+                .map(t -> governor.acquire(t, priority))
+                .toList();
+        final Pacer governed = () -> Math.max(pacer.intervalNanos(),
+                leases.stream().mapToLong(ReplayGovernor.Lease::intervalNanos).max().orElse(0));
+        final Spacing spacing = new Spacing();
+
+        int batches = 0;
+        final List<ReplayLedger.Key> keys = new ArrayList<>(size);
+        final List<ReplayLedger.Key> reservedKeys = new ArrayList<>(size);
+        final List<Message<byte[]>> batch = new ArrayList<>(size);
+        final List<String> targets = new ArrayList<>(size);
+
+        try {
+            for (int i = 0; i < routed.size(); i++) {
+                Routed r = routed.get(i);
+                ReplayLedger.Key key = ledgerKey(req, r, tracked);
+                boolean reserved = key != null && ledger.reserve(key);
+                if (key != null && !reserved && !force) {
+                    log.debug("Skipping already replayed item '{}'", key.id());
+                    report.skipped(r.topic());
+                } else {
+                    Message<byte[]> msg = toMessage(r, key);
+                    if (msg != null) {
+                        batch.add(msg);
+                        targets.add(r.topic());
+                        if (key != null) keys.add(key);
+                        if (reserved) reservedKeys.add(key);
+                    } else {
+                        if (reserved) ledger.release(key);
+                        report.failed(r.topic());
+                    }
+                }
+
+                boolean last = i == routed.size() - 1;
+                if (batch.size() >= size || (last && !batch.isEmpty())) {
+                    long start = System.nanoTime();
+                    if (!commitBatch(batch, keys)) {
+                        reservedKeys.forEach(ledger::release);
+                        targets.forEach(report::failed);
+                        log.error("Transactional replay stopped after {} committed batches; remaining items were not sent",
+                                batches);
+                        break;
+                    }
+                    long perRecordNanos = (System.nanoTime() - start) / batch.size();
+                    targets.forEach(t -> report.sent(t, perRecordNanos));
+                    batches++;
+                    spacing.await(governed.intervalNanos() * batch.size(), report.sent());
+                    batch.clear();
+                    keys.clear();
+                    reservedKeys.clear();
+                    targets.clear();
+                }
+            }
+        } finally {
+            leases.forEach(ReplayGovernor.Lease::close);
+            log.info("Transactional replay finished: targetTopic='{}', sent={}, batches={}, skippedAlreadyReplayed={}, totalItems={}, tookMs={}",
+                    req.targetTopic(), report.sent(), batches, report.skipped(), req.items().size(), report.elapsedMs());
+        }
+
+        return report.build();
+    }
+
+    private boolean commitBatch(List<Message<byte[]>> batch, List<ReplayLedger.Key> keys) {
+        try {
+            long start = System.nanoTime();
+            txTemplate.executeInTransaction(ops -> {
+                batch.forEach(ops::send);
+                keys.forEach(k -> ops.send(ledger.ledgerRecord(k)));
+                return batch.size();
+            });
+            keys.forEach(ledger::remember);
+            long perRecordNanos = (System.nanoTime() - start) / batch.size();
+            batch.forEach(m -> pool.recordSend(TRANSACTIONAL_PROFILE, m.getPayload().length, perRecordNanos));
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Transaction aborted for batch of {} records", batch.size(), e);
+            return false;
+        }
+    }
+
+    /** Spacing between two sent records, in nanoseconds. */
+    @FunctionalInterface
+    interface Pacer {
+        long intervalNanos();
+    }
+
+    /**
+     * Keeps sends on a schedule of nanosecond intervals. Time owed accumulates across records and
+     * is slept off once it reaches a millisecond, so rates above 1000/s are kept on average rather
+     * than all rounding to one sleep per record. Time lost while behind is not made up in a burst.
+     */
+    static final class Spacing {
+        private static final long MIN_SLEEP_NANOS = 1_000_000;
+
+        private long next = System.nanoTime();
+
+        void await(long intervalNanos, int sentSoFar) throws InterruptedException {
+            long now = System.nanoTime();
+            next = Math.max(next, now) + intervalNanos;
+            long owed = next - now;
+            if (owed >= MIN_SLEEP_NANOS) {
+                throttle(owed, sentSoFar);
+            }
+        }
+    }
+
+    /**
+     * Pacer driven by the lag of the consumer group on the target topic (request {@code lagGroup},
+     * falling back to {@code dle.replay.adaptive.group}) and by the re-entry rate of the source DLQ.
+     */
+    private Pacer adaptivePacer(ReplayRequest req, int initialTps) {
+        String group = req.lagGroup() != null && !req.lagGroup().isBlank() ? req.lagGroup() : adaptiveGroup;
+        if (group == null || group.isBlank()) {
+            log.warn("Adaptive replay to topic='{}' has no consumer group to watch; pacing on DLQ re-entry only",
+                    req.targetTopic());
+        }
+
+        var settings = new AdaptiveThrottle.Settings(adaptiveFloorPerSec, adaptiveCeilingPerSec, adaptiveIncreaseStep,
+                adaptiveDecreaseFactor, adaptiveMaxLag, adaptiveMaxReentryPerSec, adaptiveSampleIntervalMs);
+        var signals = new AdaptiveThrottle.Signals() {
+            @Override
+            public long targetLag() throws Exception {
+                return group == null || group.isBlank() ? 0 : admin.consumerGroupLag(group, req.targetTopic());
+            }
+
+            @Override
+            public long dlqEndOffset() throws Exception {
+                return req.sourceTopic() == null || req.sourceTopic().isBlank() ? 0 : admin.endOffsetTotal(req.sourceTopic());
+            }
+        };
+        return new AdaptiveThrottle(initialTps, settings, signals, System::currentTimeMillis)::intervalNanos;
+    }
+
+    /** The pooled producer tuning the request names, or null for the default template. */
+    private static ProducerProfile profileOf(ReplayRequest req) {
+        return req.producerProfile() == null || req.producerProfile().isBlank()
+                ? null
+                : ProducerProfile.of(req.producerProfile());
+    }
+
+    private static ReplayLedger.Key ledgerKey(ReplayRequest req, Routed r, boolean tracked) {
+        return tracked
+                ? new ReplayLedger.Key(req.sourceTopic(), r.item().partition(), r.item().offset(), r.topic())
+                : null;
+    }
+
+    /**
+     * Decodes the item into a message for its routed topic, or returns null if it has no payload or
+     * its key or payload is not valid Base64.
+     */
+    private Message<byte[]> toMessage(Routed r, ReplayLedger.Key key) {
+        ReplayItem it = r.item();
+        if (it.valueBase64() == null) {
+            // A Message cannot carry a null payload, so tombstones cannot be replayed
+            log.warn("Skipping item with null payload (offset={} partition={})", it.offset(), it.partition());
+            return null;
+        }
+        byte[] value;
+        try {
+            value = Base64.getDecoder().decode(it.valueBase64());
+        } catch (IllegalArgumentException bad64) {
+            log.warn("Skipping item due to invalid Base64 payload (offset={} partition={}): {}",
+                    it.offset(), it.partition(), bad64.toString());
+            return null;
+        }
+
+        byte[] recordKey = null;
+        if (it.keyBase64() != null) {
+            try {
+                recordKey = Base64.getDecoder().decode(it.keyBase64());
+            } catch (IllegalArgumentException bad64) {
+                log.warn("Skipping item due to invalid Base64 key (offset={} partition={}): {}",
+                        it.offset(), it.partition(), bad64.toString());
+                return null;
+            }
+        }
+
+        Map<String, Object> filtered = MessageMapper.filterAllowed(it.headersBase64(), allow);
+
+        MessageBuilder<byte[]> builder = MessageBuilder.withPayload(value)
+                .setHeader(KafkaHeaders.TOPIC, r.topic())
+                .copyHeaders(filtered);
+        if (recordKey != null) {
+            builder.setHeader(KafkaHeaders.KEY, recordKey);
+        }
+        if (r.partition() != null) {
+            builder.setHeader(KafkaHeaders.PARTITION, r.partition());
+        }
+        if (key != null) {
+            builder.setHeader(ReplayLedger.IDEMPOTENCY_HEADER,
+                    key.idempotencyKey().getBytes(StandardCharsets.UTF_8));
+        }
+        return builder.build();
+    }
+
+    private static void throttle(long sleepNanos, int sentSoFar) throws InterruptedException {
+        try {
+            Thread.sleep(Duration.ofNanos(sleepNanos));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.warn("Replay interrupted while throttling; sentSoFar={}", sentSoFar, ie);
+            throw ie; // propagate (preferred)
+        }
     }
 }
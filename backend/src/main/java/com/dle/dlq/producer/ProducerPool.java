@@ -0,0 +1,185 @@
+package com.dle.dlq.producer;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool of replay producers keyed by {@link ProducerProfile}. Each profile gets its own
+ * producer derived from the default factory, created on first use and evicted least-recently-used
+ * when the pool is full. Templates are checked out with {@link #acquire} and handed back with
+ * {@link #release}; an evicted producer stays open until its last user releases it. Replay throughput and bytes are metered per profile
+ * ({@code dle.replay.records}, {@code dle.replay.bytes}, {@code dle.replay.send}), next to the
+ * Kafka client metrics of every pooled producer tagged with {@code profile}.
+ */
+@Slf4j
+@Component
+public class ProducerPool implements DisposableBean {
+
+    /** Tag value used for sends through the default producer. */
+    public static final String DEFAULT_PROFILE = "default";
+
+    private final ProducerFactory<byte[], byte[]> base;
+    private final MeterRegistry registry;
+    private final int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<ProducerProfile, Pooled> pool = new LinkedHashMap<>(4, 0.75f, true);
+    /** Every open producer by its template, pooled or evicted and still checked out. */
+    private final Map<KafkaTemplate<byte[], byte[]>, Pooled> open = new IdentityHashMap<>();
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private static final class Pooled {
+        final ProducerProfile profile;
+        final ProducerFactory<byte[], byte[]> factory;
+        final KafkaTemplate<byte[], byte[]> template;
+        int users;
+        boolean evicted;
+
+        Pooled(ProducerProfile profile, ProducerFactory<byte[], byte[]> factory) {
+            this.profile = profile;
+            this.factory = factory;
+            this.template = new KafkaTemplate<>(factory);
+        }
+    }
+
+    private record Meters(Counter records, Counter bytes, Timer send) {
+    }
+
+    public ProducerPool(
+            ProducerFactory<byte[], byte[]> base,
+            MeterRegistry registry,
+            @Value("${dle.replay.producerPool.maxSize:3}") int maxSize) {
+        this.base = base;
+        this.registry = registry;
+        this.maxSize = Math.max(1, maxSize);
+        log.info("ProducerPool initialized: maxSize={}", this.maxSize);
+    }
+
+    /**
+     * Checks out the template for the profile, creating its producer (and evicting the least
+     * recently used one if the pool is full) on first use. Every call must be paired with
+     * {@link #release} once the caller's sends are acknowledged.
+     */
+    public KafkaTemplate<byte[], byte[]> acquire(ProducerProfile profile) {
+        lock.lock();
+        try {
+            var pooled = pool.get(profile);
+            if (pooled == null) {
+                if (pool.size() >= maxSize) {
+                    evict(pool.entrySet().iterator().next().getValue());
+                }
+
+                var factory = base.copyWithConfigurationOverride(profile.overrides());
+                factory.addListener(new MicrometerProducerListener<>(registry, List.of(Tag.of("profile", profile.id()))));
+                pooled = new Pooled(profile, factory);
+                pool.put(profile, pooled);
+                open.put(pooled.template, pooled);
+                log.info("Created producer for profile='{}' with overrides={}", profile.id(), profile.overrides());
+            }
+            pooled.users++;
+            return pooled.template;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back a template from {@link #acquire}; closes its producer if it was evicted meanwhile
+     * and this was its last user.
+     */
+    public void release(KafkaTemplate<byte[], byte[]> template) {
+        lock.lock();
+        try {
+            var pooled = open.get(template);
+            if (pooled == null || pooled.users == 0) {
+                log.warn("Ignoring release of a template that is not checked out");
+                return;
+            }
+            pooled.users--;
+            if (pooled.evicted && pooled.users == 0) {
+                open.remove(template);
+                log.info("Closing evicted producer for profile='{}' after its last replay", pooled.profile.id());
+                close(pooled);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict(Pooled eldest) {
+        pool.remove(eldest.profile);
+        eldest.evicted = true;
+        if (eldest.users == 0) {
+            open.remove(eldest.template);
+            log.info("Evicting producer for profile='{}' (pool full, maxSize={})", eldest.profile.id(), maxSize);
+            close(eldest);
+        } else {
+            log.info("Evicting producer for profile='{}' (pool full, maxSize={}); closing once its {} replay(s) finish",
+                    eldest.profile.id(), maxSize, eldest.users);
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pool.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records one successful replay send for the profile tag.
+     */
+    public void recordSend(String profile, int bytes, long nanos) {
+        var m = meters.computeIfAbsent(profile, p -> new Meters(
+                Counter.builder("dle.replay.records").tag("profile", p)
+                        .description("Records replayed").register(registry),
+                Counter.builder("dle.replay.bytes").tag("profile", p).baseUnit("bytes")
+                        .description("Payload bytes replayed").register(registry),
+                Timer.builder("dle.replay.send").tag("profile", p)
+                        .description("Replay send latency until broker acknowledgement").register(registry)));
+        m.records().increment();
+        m.bytes().increment(bytes);
+        m.send().record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        lock.lock();
+        try {
+            open.values().forEach(this::close);
+            open.clear();
+            pool.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void close(Pooled pooled) {
+        if (pooled.factory instanceof DefaultKafkaProducerFactory<byte[], byte[]> dkpf) {
+            dkpf.destroy();
+        } else {
+            pooled.factory.reset();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.dle.dlq.producer;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+/**
+ * Named producer tunings a replay can select. Each profile only overrides batching,
+ * compression and delivery settings on top of the default producer configuration,
+ * so idempotence stays on for all of them.
+ */
+public enum ProducerProfile {
+
+    /** Large batches with zstd and a short linger: best throughput for bulk redrives of small records. */
+    BULK("bulk", Map.of(
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd",
+            ProducerConfig.LINGER_MS_CONFIG, 20,
+            ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024)),
+
+    /** Sends immediately without compression: lowest per-record latency. */
+    LOW_LATENCY("low-latency", Map.of(
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none",
+            ProducerConfig.LINGER_MS_CONFIG, 0,
+            ProducerConfig.BATCH_SIZE_CONFIG, 16 * 1024)),
+
+    /** One in-flight request and lz4: strict ordering even across retries, moderate throughput. */
+    SAFE("safe", Map.of(
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+            ProducerConfig.LINGER_MS_CONFIG, 5,
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1,
+            ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, 300_000));
+
+    private final String id;
+    private final Map<String, Object> overrides;
+
+    ProducerProfile(String id, Map<String, Object> overrides) {
+        this.id = id;
+        this.overrides = overrides;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Map<String, Object> overrides() {
+        return overrides;
+    }
+
+    /**
+     * Resolves a profile by its id (case-insensitive), e.g. {@code bulk} or {@code low-latency}.
+     */
+    public static ProducerProfile of(String id) {
+        return Arrays.stream(values())
+                .filter(p -> p.id.equalsIgnoreCase(id.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown producer profile '" + id + "'"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.dle.dlq.producer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.dto.RangeReplayJob;
+import com.dle.dlq.dto.RangeReplayRequest;
+import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.dto.ReplayWorkItem;
+import com.dle.dlq.util.MessageMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Range replays run on every replica: a job is split into per-partition work items published to
+ * {@code dle.replay.jobs.topic}, keyed by source partition, and executed by the consumer group
+ * {@value #WORKER_GROUP}. A work item is committed only once fully replayed; when a replica dies its
+ * items are redelivered after the rebalance and the replay ledger, which every replica tails, skips
+ * what was already sent. Items are sized from the replay's throttle so that one finishes well within
+ * {@code max.poll.interval.ms}.
+ */
+@Slf4j
+@Service
+public class RangeReplayService {
+
+    static final String WORKER_GROUP = "dle-replay-workers";
+
+    private final ConsumerFactory<byte[], byte[]> cf;
+    private final KafkaTemplate<byte[], byte[]> template;
+    private final DlqProducerService producer;
+    private final ObjectMapper json;
+    private final String jobsTopic;
+
+    @Value("${dle.replay.jobs.chunkSize:5000}")
+    long chunkSize = 5000;
+
+    @Value("${dle.replay.jobs.readBatchSize:500}")
+    int readBatchSize = 500;
+
+    @Value("${dle.replay.jobs.maxPollIntervalMs:900000}")
+    long maxPollIntervalMs = 900_000;
+
+    @Value("${dle.replay.throttlePerSec:50}")
+    int throttlePerSec = 50;
+
+    public RangeReplayService(
+            ConsumerFactory<byte[], byte[]> cf,
+            KafkaTemplate<byte[], byte[]> template,
+            DlqProducerService producer,
+            ObjectMapper json,
+            @Value("${dle.replay.jobs.topic:dle-replay-jobs}") String jobsTopic) {
+        this.cf = cf;
+        this.template = template;
+        this.producer = producer;
+        this.json = json;
+        this.jobsTopic = jobsTopic;
+        log.info("RangeReplayService initialized with jobsTopic='{}', group='{}'", jobsTopic, WORKER_GROUP);
+    }
+
+    /**
+     * Plans the job against the current end offsets and publishes its work items.
+     * Returns once every work item is durably on the jobs topic.
+     */
+    public RangeReplayJob submit(RangeReplayRequest req, ReplayGovernor.Priority priority) throws Exception {
+        if (req.sourceTopic() == null || req.sourceTopic().isBlank()) {
+            throw new IllegalArgumentException("sourceTopic must not be null/blank");
+        }
+        if (!Boolean.TRUE.equals(req.toOriginalTopic()) && (req.targetTopic() == null || req.targetTopic().isBlank())) {
+            throw new IllegalArgumentException("targetTopic required unless toOriginalTopic is set");
+        }
+
+        final String jobId = UUID.randomUUID().toString();
+        final List<ReplayWorkItem> items = new ArrayList<>();
+        final long chunk = chunkFor(req);
+
+        try (var consumer = cf.createConsumer("dle-range-planner-" + jobId, null)) {
+            var partitionsInfo = consumer.partitionsFor(req.sourceTopic());
+            if (partitionsInfo == null || partitionsInfo.isEmpty()) {
+                throw new IllegalArgumentException("Unknown topic '" + req.sourceTopic() + "'");
+            }
+
+            var partitions = partitionsInfo.stream()
+                    .map(i -> new TopicPartition(req.sourceTopic(), i.partition()))
+                    .filter(tp -> req.partitions() == null || req.partitions().contains(tp.partition()))
+                    .toList();
+            var begin = consumer.beginningOffsets(partitions);
+            var end = consumer.endOffsets(partitions);
+
+            for (var tp : partitions) {
+                long from = Math.max(begin.get(tp), req.fromOffset() == null ? 0 : req.fromOffset());
+                long to = Math.min(end.get(tp), req.toOffset() == null ? Long.MAX_VALUE : req.toOffset() + 1);
+                for (long start = from; start < to; start += chunk) {
+                    items.add(new ReplayWorkItem(jobId, req, tp.partition(), start, Math.min(to, start + chunk),
+                            priority.name()));
+                }
+            }
+        }
+
+        var sends = new ArrayList<CompletableFuture<?>>(items.size());
+        for (var item : items) {
+            byte[] key = (req.sourceTopic() + "/" + item.partition()).getBytes(StandardCharsets.UTF_8);
+            sends.add(template.send(new ProducerRecord<>(jobsTopic, key, json.writeValueAsBytes(item))));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+
+        long records = items.stream().mapToLong(i -> i.toOffset() - i.fromOffset()).sum();
+        log.info("Submitted range replay job '{}': sourceTopic='{}', targetTopic='{}', workItems={}, chunk={}, records<={}",
+                jobId, req.sourceTopic(), req.targetTopic(), items.size(), chunk, records);
+        return new RangeReplayJob(jobId, items.size(), records);
+    }
+
+    /**
+     * Offsets per work item: {@code chunkSize} at most, and no more than the replay's throttle sends
+     * in half of {@code max.poll.interval.ms}. A worker takes one item per poll, so an item that
+     * outlasts the interval gets its worker thrown out of the group and is redelivered; the
+     * headroom absorbs a governor share of down to half the throttle.
+     */
+    long chunkFor(RangeReplayRequest req) {
+        int tps = Math.max(1, Math.min(10_000, req.throttlePerSec() == null ? throttlePerSec : req.throttlePerSec()));
+        return Math.max(1, Math.min(chunkSize, tps * maxPollIntervalMs / 2000));
+    }
+
+    @KafkaListener(
+            topics = "${dle.replay.jobs.topic:dle-replay-jobs}",
+            groupId = WORKER_GROUP,
+            containerFactory = "kafkaListenerContainerFactory",
+            concurrency = "${dle.replay.jobs.concurrency:1}",
+            autoStartup = "${dle.replay.jobs.enabled:true}",
+            properties = {
+                    "max.poll.records=1",
+                    "auto.offset.reset=earliest",
+                    "max.poll.interval.ms=${dle.replay.jobs.maxPollIntervalMs:900000}"
+            })
+    public void onWorkItem(ConsumerRecord<byte[], byte[]> rec) throws Exception {
+        execute(json.readValue(rec.value(), ReplayWorkItem.class));
+    }
+
+    /**
+     * Reads the item's offset range and replays it in batches. Records are tracked in the ledger
+     * under the source topic, so a redelivered item only re-sends what never made it.
+     */
+    void execute(ReplayWorkItem item) throws Exception {
+        final RangeReplayRequest req = item.request();
+        final var tp = new TopicPartition(req.sourceTopic(), item.partition());
+        final var priority = ReplayGovernor.Priority.valueOf(item.priority());
+        final long startNanos = System.nanoTime();
+
+        log.info("Executing work item of job '{}': {} offsets [{}, {})", item.jobId(), tp, item.fromOffset(), item.toOffset());
+
+        int sent = 0;
+        int read = 0;
+        try (var consumer = cf.createConsumer(WORKER_GROUP + "-reader-" + UUID.randomUUID(), null)) {
+            consumer.assign(List.of(tp));
+            consumer.seek(tp, item.fromOffset());
+
+            var batch = new ArrayList<ReplayItem>(readBatchSize);
+            int idlePolls = 0;
+            while (consumer.position(tp) < item.toOffset() && idlePolls < 10) {
+                var records = consumer.poll(Duration.ofMillis(200));
+                idlePolls = records.isEmpty() ? idlePolls + 1 : 0;
+
+                for (var r : records) {
+                    if (r.offset() >= item.toOffset()) break;
+                    read++;
+                    var dto = MessageMapper.toDto(r);
+                    if (dto.valueBase64() == null) {
+                        log.debug("Skipping tombstone at {}@{}", tp, r.offset());
+                        continue;
+                    }
+                    String keyBase64 = r.key() == null ? null : Base64.getEncoder().encodeToString(r.key());
+                    batch.add(new ReplayItem(r.partition(), r.offset(), dto.valueBase64(), dto.headers(), keyBase64));
+                    if (batch.size() >= readBatchSize) {
+                        sent += replayBatch(req, batch, priority);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                sent += replayBatch(req, batch, priority);
+            }
+            if (idlePolls >= 10) {
+                log.warn("Work item of job '{}' stopped early at {} offset {} (no records before {})",
+                        item.jobId(), tp, consumer.position(tp), item.toOffset());
+            }
+        }
+
+        long tookMs = (System.nanoTime() - startNanos) / 1_000_000;
+        log.info("Finished work item of job '{}': {} offsets [{}, {}), read={}, sent={}, tookMs={}",
+                item.jobId(), tp, item.fromOffset(), item.toOffset(), read, sent, tookMs);
+    }
+
+    private int replayBatch(RangeReplayRequest req, List<ReplayItem> batch, ReplayGovernor.Priority priority)
+            throws Exception {
+        var replay = new ReplayRequest(req.sourceTopic(), req.targetTopic(), List.copyOf(batch), req.throttlePerSec(),
+                null, null, null, null, null, null, req.producerProfile(), req.toOriginalTopic(), req.preservePartition());
+        batch.clear();
+        return producer.replay(replay, priority);
+    }
+}
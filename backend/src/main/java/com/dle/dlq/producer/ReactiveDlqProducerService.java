@@ -0,0 +1,226 @@
+package com.dle.dlq.producer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Service;
+
+import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayReport;
+import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.ledger.ReplayLedger;
+import com.dle.dlq.util.MessageMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+
+/**
+ * reactor-kafka counterpart of {@link DlqProducerService} for plain replays to a single target:
+ * records are paced with timers instead of sleeping threads and sent through a {@link KafkaSender}
+ * that keeps at most {@code dle.reactive.maxInFlight} records unacknowledged. Ledger, header
+ * allow-list and {@link ReplayGovernor} budgets apply as in the classic path. Transactional,
+ * adaptive, pooled-profile and original-topic replays are left to {@link DlqProducerService}
+ * (see {@link #supports}). Enabled with {@code dle.reactive.enabled=true}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "dle.reactive.enabled", havingValue = "true")
+public class ReactiveDlqProducerService implements DisposableBean {
+
+    private final KafkaSender<byte[], byte[]> sender;
+    private final ReplayLedger ledger;
+    private final ReplayGovernor governor;
+    private final Set<String> allow = new HashSet<>();
+
+    @Value("${dle.replay.throttlePerSec:50}")
+    int throttlePerSec = 50;
+
+    @Autowired
+    public ReactiveDlqProducerService(
+            @Value("${dle.replay.headerAllowList:content-type,correlation-id}") String allowList,
+            @Value("${dle.reactive.maxInFlight:256}") int maxInFlight,
+            ProducerFactory<byte[], byte[]> pf,
+            ReplayLedger ledger,
+            ReplayGovernor governor) {
+        this(KafkaSender.create(SenderOptions.<byte[], byte[]>create(pf.getConfigurationProperties())
+                .maxInFlight(Math.max(1, maxInFlight))
+                .stopOnError(false)), allowList, ledger, governor);
+        log.info("ReactiveDlqProducerService initialized (reactor-kafka): maxInFlight={}, headerAllowList={}",
+                maxInFlight, allow);
+    }
+
+    ReactiveDlqProducerService(KafkaSender<byte[], byte[]> sender, String allowList,
+                               ReplayLedger ledger, ReplayGovernor governor) {
+        this.sender = sender;
+        this.ledger = ledger;
+        this.governor = governor;
+        Arrays.stream(allowList.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .forEach(allow::add);
+    }
+
+    /** True if the request needs nothing beyond a paced, ledger-tracked send to its targetTopic. */
+    public static boolean supports(ReplayRequest req) {
+        return !Boolean.TRUE.equals(req.transactional())
+                && !Boolean.TRUE.equals(req.adaptive())
+                && !Boolean.TRUE.equals(req.toOriginalTopic())
+                && (req.producerProfile() == null || req.producerProfile().isBlank());
+    }
+
+    /**
+     * Where a sent record came from, carried through the sender as correlation metadata;
+     * {@code reserved} if it holds the ledger claim on its key.
+     */
+    private record Sent(ReplayLedger.Key key, boolean reserved, long startNanos) {
+    }
+
+    /**
+     * Replays the items to targetTopic; the returned report completes once every record is
+     * acknowledged or failed. Items already in the ledger, or claimed by a send in flight, are
+     * skipped unless forced.
+     */
+    public Mono<ReplayReport> replay(ReplayRequest req, ReplayGovernor.Priority priority) {
+        if (!supports(req)) {
+            return Mono.error(new IllegalArgumentException("Request needs the classic replay path"));
+        }
+        Objects.requireNonNull(req.targetTopic(), "targetTopic required");
+        if (req.items() == null || req.items().isEmpty()) {
+            log.info("Replay requested with empty items for targetTopic='{}' (nothing to send)", req.targetTopic());
+            return Mono.just(ReplayReport.EMPTY);
+        }
+
+        final String target = req.targetTopic();
+        final int requestedTps = Optional.ofNullable(req.throttlePerSec()).orElse(throttlePerSec);
+        final int effectiveTps = Math.max(1, Math.min(10_000, requestedTps));
+        final long intervalNanos = 1_000_000_000L / effectiveTps;
+        final boolean force = Boolean.TRUE.equals(req.force());
+        final boolean tracked = req.sourceTopic() != null && !req.sourceTopic().isBlank();
+
+        log.info("Starting reactive replay: sourceTopic='{}', targetTopic='{}', items={}, effectiveTps={}, force={}",
+                req.sourceTopic(), target, req.items().size(), effectiveTps, force);
+
+        // Loading the ledger blocks on its topic the first time; keep that off the caller's thread
+        Mono<Void> load = tracked
+                ? Mono.fromRunnable(ledger::ensureLoaded).subscribeOn(Schedulers.boundedElastic()).then()
+                : Mono.empty();
+
+        return load.then(Mono.using(
+                () -> governor.acquire(target, priority),
+                lease -> send(req, target, tracked, force, () -> Math.max(intervalNanos, lease.intervalNanos())),
+                ReplayGovernor.Lease::close));
+    }
+
+    private Mono<ReplayReport> send(ReplayRequest req, String target, boolean tracked, boolean force,
+                                    DlqProducerService.Pacer pacer) {
+        final var report = new ReplayReport.Builder();
+        final long start = System.nanoTime();
+
+        // Ledger checks and decoding happen up front, so the report is only touched by sender results afterwards
+        final List<SenderRecord<byte[], byte[], Sent>> toSend = new ArrayList<>(req.items().size());
+        // Claims not yet settled by a send result; given back if the replay stops before they are
+        final Set<ReplayLedger.Key> unsettled = ConcurrentHashMap.newKeySet();
+        for (ReplayItem it : req.items()) {
+            var key = tracked ? new ReplayLedger.Key(req.sourceTopic(), it.partition(), it.offset(), target) : null;
+            boolean reserved = key != null && ledger.reserve(key);
+            if (key != null && !reserved && !force) {
+                log.debug("Skipping already replayed item '{}'", key.id());
+                report.skipped(target);
+                continue;
+            }
+            var rec = toRecord(it, target, key, reserved);
+            if (rec != null) {
+                toSend.add(rec);
+                if (reserved) unsettled.add(key);
+            } else {
+                if (reserved) ledger.release(key);
+                report.failed(target);
+            }
+        }
+
+        Flux<SenderRecord<byte[], byte[], Sent>> records = Flux.fromIterable(toSend)
+                // Pacing: each record waits out the interval on a timer rather than a thread, re-read
+                // per record so the governor's share follows the other replays as they come and go
+                .concatMap(rec -> Mono.just(rec).delayElement(Duration.ofNanos(pacer.intervalNanos())))
+                .map(rec -> {
+                    Sent meta = rec.correlationMetadata();
+                    return SenderRecord.create(rec, new Sent(meta.key(), meta.reserved(), System.nanoTime()));
+                });
+
+        return sender.send(records)
+                .doOnNext(result -> {
+                    Sent sent = result.correlationMetadata();
+                    if (sent.key() != null) unsettled.remove(sent.key());
+                    if (result.exception() != null) {
+                        log.warn("Replay send to topic='{}' failed: {}", target, result.exception().toString());
+                        if (sent.reserved()) ledger.release(sent.key());
+                        report.failed(target);
+                        return;
+                    }
+                    report.sent(target, System.nanoTime() - sent.startNanos());
+                    if (sent.key() != null) ledger.record(sent.key());
+                })
+                .doFinally(signal -> unsettled.forEach(ledger::release))
+                .then(Mono.fromSupplier(() -> {
+                    report.elapsed(target, System.nanoTime() - start);
+                    log.info("Reactive replay finished: targetTopic='{}', sent={}, failed={}, skippedAlreadyReplayed={}, totalItems={}, tookMs={}",
+                            target, report.sent(), report.failed(), report.skipped(), req.items().size(), report.elapsedMs());
+                    return report.build();
+                }));
+    }
+
+    /**
+     * Decodes the item into a record for the target, or returns null if it has no payload or its key
+     * or payload is not valid Base64.
+     */
+    private SenderRecord<byte[], byte[], Sent> toRecord(ReplayItem it, String target, ReplayLedger.Key key,
+                                                        boolean reserved) {
+        if (it.valueBase64() == null) {
+            log.warn("Skipping item with null payload (offset={} partition={})", it.offset(), it.partition());
+            return null;
+        }
+        byte[] value;
+        byte[] recordKey;
+        try {
+            value = Base64.getDecoder().decode(it.valueBase64());
+            recordKey = it.keyBase64() == null ? null : Base64.getDecoder().decode(it.keyBase64());
+        } catch (IllegalArgumentException bad64) {
+            log.warn("Skipping item due to invalid Base64 key or payload (offset={} partition={}): {}",
+                    it.offset(), it.partition(), bad64.toString());
+            return null;
+        }
+
+        var headers = new RecordHeaders();
+        MessageMapper.filterAllowed(it.headersBase64(), allow).forEach((name, v) -> headers.add(name, (byte[]) v));
+        if (key != null) {
+            headers.add(ReplayLedger.IDEMPOTENCY_HEADER, key.idempotencyKey().getBytes(StandardCharsets.UTF_8));
+        }
+        return SenderRecord.create(new ProducerRecord<>(target, null, recordKey, value, headers), new Sent(key, reserved, 0));
+    }
+
+    @Override
+    public void destroy() {
+        sender.close();
+    }
+}
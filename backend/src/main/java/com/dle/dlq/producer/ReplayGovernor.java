@@ -0,0 +1,312 @@
+package com.dle.dlq.producer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shares one replay budget between all running replays, across replicas. Every replay holds a
+ * {@link Lease} per target topic; its pace is its weighted share of both the per-topic budget
+ * ({@code dle.replay.governor.topicPerSec}) and the cluster budget ({@code clusterPerSec}).
+ * Only busy leases count: one that has not paced a record for {@code idleAfterMs} gives its share
+ * to the others until it sends again. Replicas publish the weights of their busy leases as
+ * heartbeats on a compacted topic and count the heartbeats of the others received within
+ * {@code leaseTtlMs}, so N replicas together stay within the same budgets.
+ */
+@Slf4j
+@Component
+public class ReplayGovernor implements DisposableBean {
+
+    /** Priority class of a replay, derived from the caller's role. */
+    public enum Priority {
+        REPLAYER, TRIAGER;
+
+        /** {@code ROLE_replayer} wins over any other role; everyone else replays as triager. */
+        public static Priority of(Collection<String> authorities) {
+            return authorities != null && authorities.contains("ROLE_replayer") ? REPLAYER : TRIAGER;
+        }
+    }
+
+    /** A replica's busy lease weights; {@code at} is the sender's clock and is not compared with ours. */
+    record Heartbeat(long at, Map<String, Double> weights) {
+    }
+
+    /** Weights of a remote replica, stamped with our own clock when its heartbeat was read. */
+    private record Received(long at, Map<String, Double> weights) {
+    }
+
+    private final ConsumerFactory<byte[], byte[]> cf;
+    private final KafkaTemplate<byte[], byte[]> template;
+    private final String topic;
+    private final String replicaId = UUID.randomUUID().toString();
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Value("${dle.replay.governor.enabled:true}")
+    boolean enabled = true;
+
+    @Value("${dle.replay.governor.clusterPerSec:10000}")
+    double clusterPerSec = 10_000;
+
+    @Value("${dle.replay.governor.topicPerSec:5000}")
+    double topicPerSec = 5000;
+
+    @Value("${dle.replay.governor.replayerWeight:3}")
+    double replayerWeight = 3;
+
+    @Value("${dle.replay.governor.triagerWeight:1}")
+    double triagerWeight = 1;
+
+    @Value("${dle.replay.governor.heartbeatIntervalMs:2000}")
+    long heartbeatIntervalMs = 2000;
+
+    @Value("${dle.replay.governor.leaseTtlMs:10000}")
+    long leaseTtlMs = 10_000;
+
+    @Value("${dle.replay.governor.idleAfterMs:2000}")
+    long idleAfterMs = 2000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final Map<String, Received> remote = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private ScheduledExecutorService exchange;
+    private Consumer<byte[], byte[]> heartbeats;
+    private boolean publishedActive;
+
+    public ReplayGovernor(
+            ConsumerFactory<byte[], byte[]> cf,
+            KafkaTemplate<byte[], byte[]> template,
+            @Value("${dle.replay.governor.topic:dle-replay-governor}") String topic) {
+        this.cf = cf;
+        this.template = template;
+        this.topic = topic;
+        log.info("ReplayGovernor initialized with topic='{}', replicaId='{}'", topic, replicaId);
+    }
+
+    /**
+     * One replay's claim on a target topic's budget. Close it when the replay is done with the target.
+     */
+    public final class Lease implements AutoCloseable {
+        private final String target;
+        private final double weight;
+        private volatile long pacedAt;
+        private volatile long intervalMs;
+
+        private Lease(String target, double weight) {
+            this.target = target;
+            this.weight = weight;
+            this.pacedAt = clock.getAsLong();
+        }
+
+        /** Current share of the budgets, in records per second. */
+        public double ratePerSec() {
+            return share(this);
+        }
+
+        /**
+         * Spacing between two records sent under this lease, in nanoseconds; 0 when the governor is
+         * disabled. Called once per record, which also marks the lease busy.
+         */
+        public long intervalNanos() {
+            if (!enabled) return 0;
+            pacedAt = clock.getAsLong();
+            long nanos = (long) Math.ceil(1_000_000_000.0 / ratePerSec());
+            intervalMs = TimeUnit.NANOSECONDS.toMillis(nanos);
+            return nanos;
+        }
+
+        /** Paced a record recently enough, given its own spacing, to still be sending. */
+        private boolean busy(long now) {
+            return now - pacedAt <= Math.max(idleAfterMs, 2 * intervalMs);
+        }
+
+        @Override
+        public void close() {
+            if (leases.remove(this)) {
+                log.debug("Released replay lease on topic='{}'", target);
+                if (leases.isEmpty()) publishSoon();
+            }
+        }
+    }
+
+    public Lease acquire(String target, Priority priority) {
+        var lease = new Lease(target, priority == Priority.REPLAYER ? replayerWeight : triagerWeight);
+        if (!enabled) return lease;
+
+        leases.add(lease);
+        startExchange();
+        log.info("Acquired replay lease on topic='{}' as {} (share={}/s, leases here={}, replicas seen={})",
+                target, priority, String.format("%.1f", lease.ratePerSec()), leases.size(), liveRemotes(clock.getAsLong()).size());
+        return lease;
+    }
+
+    public int activeLeases() {
+        return leases.size();
+    }
+
+    private double share(Lease lease) {
+        long now = clock.getAsLong();
+        double topicWeight = lease.weight;
+        double totalWeight = lease.weight;
+        for (Lease l : leases) {
+            if (l == lease || !l.busy(now)) continue;
+            totalWeight += l.weight;
+            if (l.target.equals(lease.target)) topicWeight += l.weight;
+        }
+        for (Received hb : liveRemotes(now)) {
+            for (var e : hb.weights().entrySet()) {
+                totalWeight += e.getValue();
+                if (e.getKey().equals(lease.target)) topicWeight += e.getValue();
+            }
+        }
+        double rate = Math.min(topicPerSec * lease.weight / topicWeight, clusterPerSec * lease.weight / totalWeight);
+        return Math.max(1, rate);
+    }
+
+    private Collection<Received> liveRemotes(long now) {
+        remote.values().removeIf(hb -> now - hb.at() > leaseTtlMs);
+        return remote.values();
+    }
+
+    /**
+     * Publishes the weights of this replica's busy leases; once more with no weights after the last
+     * one closes or goes idle.
+     */
+    void publishHeartbeat() {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            var weights = new HashMap<String, Double>();
+            leases.stream().filter(l -> l.busy(now)).forEach(l -> weights.merge(l.target, l.weight, Double::sum));
+            if (weights.isEmpty() && !publishedActive) return;
+
+            byte[] value = json.writeValueAsBytes(new Heartbeat(now, weights));
+            template.send(new ProducerRecord<>(topic, replicaId.getBytes(StandardCharsets.UTF_8), value));
+            publishedActive = !weights.isEmpty();
+        } catch (Exception e) {
+            log.warn("Failed to publish replay governor heartbeat to topic='{}'", topic, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Applies one heartbeat record read from the governor topic, stamped with the time it was read. */
+    void onHeartbeat(byte[] key, byte[] value) {
+        if (key == null) return;
+        String id = new String(key, StandardCharsets.UTF_8);
+        if (id.equals(replicaId)) return;
+        if (value == null) {
+            remote.remove(id);
+            return;
+        }
+        try {
+            remote.put(id, new Received(clock.getAsLong(), json.readValue(value, Heartbeat.class).weights()));
+        } catch (Exception e) {
+            log.debug("Ignoring malformed replay governor heartbeat from replica '{}'", id, e);
+        }
+    }
+
+    private void pollHeartbeats() {
+        if (heartbeats == null) {
+            var c = cf.createConsumer("dle-governor-" + replicaId, null);
+            var partitions = c.partitionsFor(topic).stream()
+                    .map(i -> new TopicPartition(topic, i.partition()))
+                    .toList();
+            // Only heartbeats from now on: older ones cannot be aged without trusting the sender's clock,
+            // and active replicas publish again within heartbeatIntervalMs
+            c.assign(partitions);
+            c.seekToEnd(partitions);
+            heartbeats = c;
+        }
+        for (var rec : heartbeats.poll(Duration.ofMillis(100))) {
+            onHeartbeat(rec.key(), rec.value());
+        }
+    }
+
+    private void tick() {
+        publishHeartbeat();
+        try {
+            pollHeartbeats();
+        } catch (Exception e) {
+            log.warn("Could not read replay governor topic='{}'; sharing budgets with this replica's replays only",
+                    topic, e);
+            closeHeartbeats();
+        }
+    }
+
+    private void startExchange() {
+        lock.lock();
+        try {
+            if (exchange != null) return;
+            exchange = Executors.newSingleThreadScheduledExecutor(r -> {
+                var t = new Thread(r, "dle-replay-governor");
+                t.setDaemon(true);
+                return t;
+            });
+            exchange.scheduleWithFixedDelay(this::tick, 0, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Tells the other replicas right away that this one stopped replaying, instead of on the next tick. */
+    private void publishSoon() {
+        lock.lock();
+        try {
+            if (exchange != null && !exchange.isShutdown()) {
+                exchange.execute(this::publishHeartbeat);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeHeartbeats() {
+        if (heartbeats != null) {
+            heartbeats.close();
+            heartbeats = null;
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        ScheduledExecutorService running;
+        lock.lock();
+        try {
+            running = exchange;
+            if (running == null) return;
+            running.shutdownNow();
+        } finally {
+            lock.unlock();
+        }
+        // Await outside the lock: a pending heartbeat publish needs it to finish
+        if (running.awaitTermination(5, TimeUnit.SECONDS)) {
+            closeHeartbeats();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.dle.dlq.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.springframework.util.DigestUtils;
+
+import com.dle.dlq.dto.TopicOffsets;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * Strong entity tags for read endpoints. A topic's messages only change when a partition's begin
+ * or end offset moves, so the offsets stand in for the content and no records have to be read.
+ * That only holds for a complete read: callers leave the tag off a read cut short by its deadline.
+ */
+@NoArgsConstructor
+public final class ETags {
+
+    /** Tag for the last {@code limit} messages of a topic with the given offsets. */
+    public static String messages(TopicOffsets offsets, Integer limit) {
+        return quoted(messagesContent(offsets, limit).toString());
+    }
+
+    /** As {@link #messages(TopicOffsets, Integer)} for another representation of the same messages. */
+    public static String messages(TopicOffsets offsets, Integer limit, String representation) {
+        return quoted(messagesContent(offsets, limit).append('|').append(representation).toString());
+    }
+
+    private static StringBuilder messagesContent(TopicOffsets offsets, Integer limit) {
+        var sb = new StringBuilder(offsets.topic()).append('|').append(limit == null ? "default" : limit);
+        new TreeMap<>(offsets.end()).forEach((partition, end) ->
+                sb.append('|').append(partition).append(':').append(offsets.begin().get(partition)).append('-').append(end));
+        return sb;
+    }
+
+    /** Tag for a list of topic names, in the order given. */
+    public static String topics(List<String> topics) {
+        return quoted(String.join("\n", topics));
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header names the tag, compared weakly as RFC 9110 asks for
+     * that header: {@code W/} prefixes are ignored and {@code *} matches any tag.
+     */
+    public static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String t = candidate.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals("*") || t.equals(tag)) return true;
+        }
+        return false;
+    }
+
+    private static String quoted(String content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -1,5 +1,6 @@
 package com.dle.dlq.util;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.HashMap;
@@ -10,6 +11,7 @@ import java.util.Set;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
 
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +38,13 @@ public final class MessageMapper {
         );
     }
 
+    /** The record's bytes as they are; header values keep their order, a repeated name its last value. */
+    public static RawMessage toRaw(ConsumerRecord<byte[], byte[]> rec) {
+        Map<String, byte[]> hdrs = new LinkedHashMap<>();
+        rec.headers().forEach(h -> hdrs.put(h.key(), h.value()));
+        return new RawMessage(rec.topic(), rec.partition(), rec.offset(), rec.timestamp(), rec.key(), rec.value(), hdrs);
+    }
+
     public static Map<String, Object> filterAllowed(Map<String, String> base64, Set<String> allow) {
         var out = new HashMap<String, Object>();
         if (base64 == null) {
@@ -58,6 +67,33 @@ public final class MessageMapper {
         return out;
     }
 
+    /**
+     * Decodes a Base64 header value as UTF-8, or returns null if absent or not valid Base64.
+     */
+    public static String headerUtf8(Map<String, String> base64, String name) {
+        byte[] raw = headerBytes(base64, name);
+        return raw == null ? null : new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a Base64 header value as a 4-byte big-endian int (Kafka's DLT partition header),
+     * or returns null if absent or malformed.
+     */
+    public static Integer headerInt(Map<String, String> base64, String name) {
+        byte[] raw = headerBytes(base64, name);
+        return raw == null || raw.length != Integer.BYTES ? null : ByteBuffer.wrap(raw).getInt();
+    }
+
+    private static byte[] headerBytes(Map<String, String> base64, String name) {
+        if (base64 == null || base64.get(name) == null) return null;
+        try {
+            return Base64.getDecoder().decode(base64.get(name));
+        } catch (IllegalArgumentException e) {
+            log.debug("Header '{}' is not valid Base64", name);
+            return null;
+        }
+    }
+
     private static String tryUtf8(byte[] bytes) {
         if (bytes == null) return null;
 
@@ -0,0 +1,167 @@
+package com.dle.dlq.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Splits a stream of NDJSON bytes into its top-level values with Jackson's non-blocking parser:
+ * chunks are fed in as they arrive and each value is handed on, as a {@link TokenBuffer}, once its
+ * last token has been parsed. Only the value in progress and those completed by the current chunk
+ * are held, so memory follows the longest line rather than the stream. Values may be separated by
+ * any whitespace. Malformed or truncated input fails the flux with an {@link IllegalArgumentException}.
+ */
+public final class NdjsonDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private NdjsonDecoder() {
+    }
+
+    /** Copies each buffer's readable bytes and releases it. */
+    public static Flux<byte[]> bytes(Flux<DataBuffer> body) {
+        return body.map(buf -> {
+            try {
+                byte[] out = new byte[buf.readableByteCount()];
+                buf.read(out);
+                return out;
+            } finally {
+                DataBufferUtils.release(buf);
+            }
+        });
+    }
+
+    /** The top-level values of the stream, in order; each subscription parses afresh. */
+    public static Flux<TokenBuffer> values(Flux<byte[]> chunks) {
+        return Flux.defer(() -> {
+            var state = new State();
+            return chunks.concatMapIterable(state::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(state.end())));
+        });
+    }
+
+    /** The values read through {@code reader}; one that does not bind fails the flux. */
+    public static <T> Flux<T> decode(Flux<byte[]> chunks, ObjectReader reader) {
+        return values(chunks).index().map(v -> read(v.getT2(), reader, v.getT1() + 1));
+    }
+
+    /**
+     * Reads the first value with {@code headerReader} and hands it to {@code handler} together with
+     * the remaining values, read with {@code itemReader}, as soon as the first line is parsed. The
+     * handler must subscribe to the items at most once. A stream without values fails.
+     */
+    public static <H, T, R> Flux<R> withHeader(Flux<byte[]> chunks, ObjectReader headerReader, ObjectReader itemReader,
+                                              BiFunction<H, Flux<T>, ? extends Publisher<R>> handler) {
+        return values(chunks).index().switchOnFirst((first, all) -> {
+            if (first.isOnError()) {
+                return Flux.error(first.getThrowable());
+            }
+            if (!first.hasValue()) {
+                return Flux.error(new IllegalArgumentException("NDJSON stream has no header line"));
+            }
+            try {
+                H header = read(first.get().getT2(), headerReader, 1);
+                Flux<T> items = all.skip(1).map(v -> read(v.getT2(), itemReader, v.getT1() + 1));
+                return handler.apply(header, items);
+            } catch (IllegalArgumentException e) {
+                return Flux.error(e);
+            }
+        });
+    }
+
+    private static <T> T read(TokenBuffer value, ObjectReader reader, long n) {
+        try (var parser = value.asParser()) {
+            return reader.readValue(parser);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("NDJSON value " + n + " is invalid: " + e.getMessage());
+        }
+    }
+
+    /** Parser state of one subscription. */
+    private static final class State {
+        final JsonParser parser;
+        final ByteArrayFeeder feeder;
+        TokenBuffer current;
+        int depth;
+        long values;
+
+        State() {
+            try {
+                parser = JSON.createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        List<TokenBuffer> feed(byte[] chunk) {
+            try {
+                feeder.feedInput(chunk, 0, chunk.length);
+                return drain();
+            } catch (IOException e) {
+                throw malformed(e);
+            }
+        }
+
+        List<TokenBuffer> end() {
+            try {
+                feeder.endOfInput();
+                var out = drain();
+                if (current != null) {
+                    throw new IllegalArgumentException("NDJSON stream ends inside value " + (values + 1));
+                }
+                return out;
+            } catch (IOException e) {
+                throw malformed(e);
+            } finally {
+                try {
+                    parser.close();
+                } catch (IOException ignored) {
+                    // nothing left to release
+                }
+            }
+        }
+
+        /** Completes as many values as the input fed so far allows. */
+        private List<TokenBuffer> drain() throws IOException {
+            List<TokenBuffer> out = List.of();
+            JsonToken t;
+            while ((t = parser.nextToken()) != null && t != JsonToken.NOT_AVAILABLE) {
+                if (current == null) {
+                    current = new TokenBuffer(parser);
+                }
+                current.copyCurrentEvent(parser);
+                if (t.isStructStart()) {
+                    depth++;
+                } else if (t.isStructEnd()) {
+                    depth--;
+                }
+                if (depth == 0) {
+                    if (out.isEmpty()) out = new ArrayList<>();
+                    out.add(current);
+                    current = null;
+                    values++;
+                }
+            }
+            return out;
+        }
+
+        private IllegalArgumentException malformed(IOException e) {
+            return new IllegalArgumentException("Malformed NDJSON in value " + (values + 1) + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.dle.dlq.web;
+
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.BrowseSessionService;
+import com.dle.dlq.dto.BrowsePage;
+import com.dle.dlq.dto.BrowseSession;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * Snapshot-pinned browsing: open a session on a topic, then page through it without the pages
+ * shifting as new records arrive.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dlq/sessions")
+@RequiredArgsConstructor
+public class BrowseSessionController {
+
+    private final BrowseSessionService sessions;
+    private final BlockingSchedulers schedulers;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BrowseSession> open(@RequestParam String topic, @RequestParam(required = false) Integer pageSize) {
+        log.info("POST /api/dlq/sessions called for topic='{}', pageSize={}", topic, pageSize);
+        return Mono.fromCallable(() -> sessions.open(topic, pageSize))
+                .subscribeOn(schedulers.io());
+    }
+
+    @GetMapping("/{sessionId}")
+    public Mono<BrowseSession> get(@PathVariable String sessionId) {
+        return Mono.fromCallable(() -> sessions.get(sessionId));
+    }
+
+    @GetMapping("/{sessionId}/pages/{page}")
+    public Mono<BrowsePage> page(@PathVariable String sessionId, @PathVariable int page) {
+        log.info("GET /api/dlq/sessions/{}/pages/{} called", sessionId, page);
+        return Mono.fromCallable(() -> sessions.page(sessionId, page))
+                .subscribeOn(schedulers.io())
+                .doOnNext(p -> log.info("Returning {} messages for page {} of session '{}'", p.messages().size(), page, sessionId));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> close(@PathVariable String sessionId) {
+        return Mono.fromRunnable(() -> sessions.close(sessionId));
+    }
+}
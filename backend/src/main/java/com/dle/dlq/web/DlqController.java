@@ -1,18 +1,51 @@
 package com.dle.dlq.web;
 
 import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
 import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.FetchCoalescer;
+import com.dle.dlq.consumer.ReactiveDlqConsumerService;
+import com.dle.dlq.dto.MessageDelta;
 import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RangeReplayJob;
+import com.dle.dlq.dto.RangeReplayRequest;
+import com.dle.dlq.dto.RawMessage;
+import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayReport;
 import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.export.ExportReader;
 import com.dle.dlq.producer.DlqProducerService;
+import com.dle.dlq.producer.RangeReplayService;
+import com.dle.dlq.producer.ReactiveDlqProducerService;
+import com.dle.dlq.producer.ReplayGovernor;
+import com.dle.dlq.util.ETags;
+import com.dle.dlq.util.NdjsonDecoder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 @Slf4j
 @RestController
@@ -20,34 +53,302 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DlqController {
 
+    /** Parsed items of a streamed replay buffered ahead of the producer. */
+    static final int STREAM_PREFETCH = 256;
+
+    private static final ObjectReader REPLAY_SETTINGS = new ObjectMapper().readerFor(ReplayRequest.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final ObjectReader REPLAY_ITEM = new ObjectMapper().readerFor(ReplayItem.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
     private final DlqAdminService admin;
+    private final FetchCoalescer fetcher;
     private final DlqConsumerService consumer;
     private final DlqProducerService producer;
+    private final RangeReplayService rangeReplay;
+    private final BlockingSchedulers schedulers;
+    private final ObjectProvider<ReactiveDlqConsumerService> reactiveConsumer;
+    private final ObjectProvider<ReactiveDlqProducerService> reactiveProducer;
+    private final ExportReader exportReader;
 
+    /**
+     * Lists DLQ topics with an ETag over the names; a matching {@code If-None-Match} gets 304.
+     */
     @GetMapping("/topics")
-    public List<String> topics() throws Exception {
+    public Mono<ResponseEntity<List<String>>> topics() {
         log.info("GET /api/dlq/topics called");
-        List<String> topics = admin.listDlqTopics();
-        log.info("Returning {} DLQ topics", topics.size());
-        return topics;
+        return Mono.fromCallable(admin::listDlqTopics)
+                .subscribeOn(schedulers.io())
+                .doOnNext(topics -> log.info("Returning {} DLQ topics", topics.size()))
+                .map(topics -> ResponseEntity.ok().eTag(ETags.topics(topics)).body(topics));
     }
 
-    @GetMapping(value = "/messages", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<MessageDto> messages(@RequestParam String topic, @RequestParam(required = false) Integer limit) {
+    /**
+     * Returns the last messages of a topic with an ETag over its partitions' begin and end
+     * offsets. A matching {@code If-None-Match} gets 304 after that offsets lookup alone. A read
+     * cut short by its deadline is sent without a tag, so a partial list is never revalidated.
+     */
+    public Mono<ResponseEntity<Flux<MessageDto>>> messages(@RequestParam String topic,
+                                                           @RequestParam(required = false) Integer limit,
+                                                           String ifNoneMatch) {
         log.info("GET /api/dlq/messages called for topic='{}', limit={}", topic, limit);
-        List<MessageDto> msgs = consumer.fetchLastN(topic, limit);
-        log.info("Returning {} messages for topic='{}'", msgs.size(), topic);
-        return msgs;
+        if (topic == null || topic.isBlank()) {
+            return Mono.error(new IllegalArgumentException("topic must not be null/blank"));
+        }
+        return Mono.fromCallable(() -> admin.offsets(topic))
+                .subscribeOn(schedulers.io())
+                .flatMap(offsets -> {
+                    String tag = ETags.messages(offsets, limit);
+                    if (ETags.matches(ifNoneMatch, tag)) {
+                        return Mono.just(ResponseEntity.ok().eTag(tag).varyBy(HttpHeaders.ACCEPT).body(Flux.<MessageDto>empty()));
+                    }
+                    return Mono.fromCallable(() -> fetcher.readLastN(topic, limit, offsets))
+                            .subscribeOn(schedulers.io())
+                            .doOnNext(read -> log.info("Returning {} messages for topic='{}' (complete={})",
+                                    read.messages().size(), topic, read.complete()))
+                            .map(read -> tagged(read.complete(), tag).body(Flux.fromIterable(read.messages())));
+                });
+    }
+
+    /** A 200 response that varies by {@code Accept}, tagged only if its content is complete. */
+    private static ResponseEntity.BodyBuilder tagged(boolean complete, String tag) {
+        var ok = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        return complete ? ok.eTag(tag) : ok;
+    }
+
+    /**
+     * {@code GET /messages} in the representation the client asks for: JSON unless its
+     * {@code Accept} header prefers {@code application/cbor}. A wildcard or missing header keeps
+     * JSON.
+     */
+    @GetMapping(value = "/messages", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE })
+    public Mono<? extends ResponseEntity<?>> messages(@RequestParam String topic,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return prefersCbor(accept) ? messagesCbor(topic, limit, ifNoneMatch) : messages(topic, limit, ifNoneMatch);
+    }
+
+    /** Whether the best-ranked {@code Accept} entry that names either format names CBOR exactly. */
+    static boolean prefersCbor(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        MimeTypeUtils.sortBySpecificity(types);
+        types.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : types) {
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+            if (type.includes(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * {@code application/cbor} representation of {@link #messages}: the same records with key,
+     * value and header values as CBOR byte strings instead of Base64, and no UTF-8 copy of the
+     * value. The list is written as one CBOR array once read, as Spring's CBOR encoder does not
+     * stream. Conditional requests work as for JSON, with a tag of its own.
+     */
+    public Mono<ResponseEntity<Mono<List<RawMessage>>>> messagesCbor(@RequestParam String topic,
+                                                                     @RequestParam(required = false) Integer limit,
+                                                                     String ifNoneMatch) {
+        log.info("GET /api/dlq/messages (CBOR) called for topic='{}', limit={}", topic, limit);
+        if (topic == null || topic.isBlank()) {
+            return Mono.error(new IllegalArgumentException("topic must not be null/blank"));
+        }
+        return Mono.fromCallable(() -> admin.offsets(topic))
+                .subscribeOn(schedulers.io())
+                .flatMap(offsets -> {
+                    String tag = ETags.messages(offsets, limit, "cbor");
+                    if (ETags.matches(ifNoneMatch, tag)) {
+                        return Mono.just(ResponseEntity.ok().eTag(tag).varyBy(HttpHeaders.ACCEPT).body(Mono.<List<RawMessage>>empty()));
+                    }
+                    return Mono.fromCallable(() -> fetcher.readLastNRaw(topic, limit, offsets))
+                            .subscribeOn(schedulers.io())
+                            .doOnNext(read -> log.info("Returning {} raw messages for topic='{}' (complete={})",
+                                    read.messages().size(), topic, read.complete()))
+                            .map(read -> tagged(read.complete(), tag).body(Mono.just(read.messages())));
+                });
+    }
+
+    /**
+     * Returns only the records after the client's last-seen offsets, given as
+     * {@code since=partition:offset,...}, together with the positions to send next time.
+     */
+    @GetMapping(value = "/messages/delta", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<MessageDelta> messagesDelta(@RequestParam String topic,
+                                            @RequestParam(required = false) String since,
+                                            @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/dlq/messages/delta called for topic='{}', since={}, limit={}", topic, since, limit);
+        return Mono.fromCallable(() -> consumer.fetchSince(topic, parseSince(since), limit))
+                .subscribeOn(schedulers.io())
+                .doOnNext(delta -> log.info("Returning {} new messages for topic='{}'", delta.messages().size(), topic));
+    }
+
+    /**
+     * Returns the messages with timestamps in {@code [from, to)}, given as epoch milliseconds or
+     * ISO-8601 instants; {@code to} defaults to now. {@code limit} caps each partition.
+     */
+    @GetMapping(value = "/messages/window", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<MessageDto> messagesWindow(@RequestParam String topic,
+                                           @RequestParam String from,
+                                           @RequestParam(required = false) String to,
+                                           @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/dlq/messages/window called for topic='{}', from={}, to={}, limit={}", topic, from, to, limit);
+        return Mono.fromCallable(() -> consumer.fetchWindow(topic, parseTime("from", from),
+                        to == null || to.isBlank() ? System.currentTimeMillis() : parseTime("to", to), limit))
+                .subscribeOn(schedulers.io())
+                .doOnNext(msgs -> log.info("Returning {} messages in window for topic='{}'", msgs.size(), topic))
+                .flatMapIterable(msgs -> msgs);
+    }
+
+    /**
+     * Streams messages as newline-delimited JSON while they are read. Uses reactor-kafka when
+     * {@code dle.reactive.enabled=true}, otherwise the regular fetch.
+     */
+    @GetMapping(value = "/messages/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MessageDto> streamMessages(@RequestParam String topic, @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/dlq/messages/stream called for topic='{}', limit={}", topic, limit);
+        var reactive = reactiveConsumer.getIfAvailable();
+        return reactive != null
+                ? reactive.streamLastN(topic, limit)
+                : fetch(() -> fetcher.fetchLastN(topic, limit), topic);
+    }
+
+    private Flux<MessageDto> fetch(Callable<List<MessageDto>> read, String topic) {
+        return Mono.fromCallable(read)
+                .subscribeOn(schedulers.io())
+                .doOnNext(msgs -> log.info("Returning {} messages for topic='{}'", msgs.size(), topic))
+                .flatMapIterable(msgs -> msgs);
     }
 
     @PostMapping("/replay")
-    public int replay(@RequestBody ReplayRequest req) throws Exception {
+    public Mono<Integer> replay(@RequestBody ReplayRequest req, Authentication auth) {
         log.info("POST /api/dlq/replay called: targetTopic='{}', items={}, throttlePerSec={}",
                 req.targetTopic(),
                 req.items() != null ? req.items().size() : 0,
                 req.throttlePerSec());
-        int sent = producer.replay(req);
-        log.info("Replay finished: sent {} messages to targetTopic='{}'", sent, req.targetTopic());
-        return sent;
+        var reactive = reactiveProducer.getIfAvailable();
+        Mono<Integer> replay = reactive != null && ReactiveDlqProducerService.supports(req)
+                ? reactive.replay(req, priority(auth)).map(ReplayReport::sent)
+                : Mono.fromCallable(() -> producer.replay(req, priority(auth))).subscribeOn(schedulers.replay());
+        return replay
+                .doOnNext(sent -> log.info("Replay finished: sent {} messages to targetTopic='{}'", sent, req.targetTopic()));
+    }
+
+    /**
+     * NDJSON form of {@link #replay}: a header line with the {@link ReplayRequest} settings and no
+     * items, then one {@link ReplayItem} per line. Items are decoded and sent as they arrive, so
+     * memory stays bounded however many there are and the first record goes out right after its
+     * line has been read. Always takes the blocking producer's streamed path.
+     */
+    @PostMapping(value = "/replay", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Integer> replayNdjson(@RequestBody Flux<DataBuffer> body, Authentication auth) {
+        log.info("POST /api/dlq/replay called with an NDJSON body");
+        return NdjsonDecoder.<ReplayRequest, ReplayItem, ReplayReport>withHeader(NdjsonDecoder.bytes(body),
+                        REPLAY_SETTINGS, REPLAY_ITEM, (settings, items) -> {
+                            if (settings.items() != null && !settings.items().isEmpty()) {
+                                return Mono.error(new IllegalArgumentException(
+                                        "The NDJSON header line must not carry items; send one item per line after it"));
+                            }
+                            log.info("NDJSON replay: sourceTopic='{}', targetTopic='{}', throttlePerSec={}",
+                                    settings.sourceTopic(), settings.targetTopic(), settings.throttlePerSec());
+                            return Mono.fromCallable(() -> producer.replayStream(settings,
+                                            items.toIterable(STREAM_PREFETCH), priority(auth)))
+                                    .subscribeOn(schedulers.replay());
+                        })
+                .single()
+                .map(ReplayReport::sent)
+                .doOnNext(sent -> log.info("NDJSON replay finished: sent {} messages", sent));
+    }
+
+    @PostMapping("/replay/report")
+    public Mono<ReplayReport> replayWithReport(@RequestBody ReplayRequest req, Authentication auth) {
+        log.info("POST /api/dlq/replay/report called: targetTopic='{}', toOriginalTopic={}, items={}",
+                req.targetTopic(), req.toOriginalTopic(), req.items() != null ? req.items().size() : 0);
+        return replayReport(req, auth)
+                .doOnNext(report -> log.info("Replay finished: sent={}, failed={}, unroutable={} across {} targets",
+                        report.sent(), report.failed(), report.unroutable(), report.targets().size()));
+    }
+
+    @PostMapping("/replay/range")
+    public Mono<RangeReplayJob> replayRange(@RequestBody RangeReplayRequest req, Authentication auth) {
+        log.info("POST /api/dlq/replay/range called: sourceTopic='{}', targetTopic='{}', partitions={}, offsets=[{}, {}]",
+                req.sourceTopic(), req.targetTopic(), req.partitions(), req.fromOffset(), req.toOffset());
+        return Mono.fromCallable(() -> rangeReplay.submit(req, priority(auth)))
+                .subscribeOn(schedulers.io())
+                .doOnNext(job -> log.info("Range replay job '{}' submitted with {} work items", job.jobId(), job.workItems()));
+    }
+
+    /**
+     * Replays an export file sent as the request body (NDJSON, plain or gzip/zstd) while it is
+     * being uploaded: lines are parsed as the body arrives and the producer pulls the next item
+     * when it is ready to send it, so the file is never held in memory. Settings are query parameters
+     * with the meaning they have in {@link ReplayRequest}; transactional replay is not available.
+     */
+    @PostMapping("/replay/upload")
+    public Mono<ReplayReport> replayUpload(@RequestParam(required = false) String sourceTopic,
+                                           @RequestParam(required = false) String targetTopic,
+                                           @RequestParam(required = false) Integer throttlePerSec,
+                                           @RequestParam(required = false) Boolean force,
+                                           @RequestParam(required = false) Boolean adaptive,
+                                           @RequestParam(required = false) String lagGroup,
+                                           @RequestParam(required = false) String producerProfile,
+                                           @RequestParam(required = false) Boolean toOriginalTopic,
+                                           @RequestParam(required = false) Boolean preservePartition,
+                                           @RequestBody Flux<DataBuffer> body,
+                                           Authentication auth) {
+        log.info("POST /api/dlq/replay/upload called: sourceTopic='{}', targetTopic='{}', toOriginalTopic={}, throttlePerSec={}",
+                sourceTopic, targetTopic, toOriginalTopic, throttlePerSec);
+        var settings = new ReplayRequest(sourceTopic, targetTopic, null, throttlePerSec, null, force, null, null,
+                adaptive, lagGroup, producerProfile, toOriginalTopic, preservePartition);
+        var items = exportReader.items(body);
+        return Mono.fromCallable(() -> producer.replayStream(settings, items.toIterable(STREAM_PREFETCH), priority(auth)))
+                .subscribeOn(schedulers.replay())
+                .doOnNext(report -> log.info("Upload replay finished: sent={}, skipped={}, failed={}, unroutable={} across {} targets",
+                        report.sent(), report.skipped(), report.failed(), report.unroutable(), report.targets().size()));
+    }
+
+    /** Plain replays go through reactor-kafka when enabled; everything else through the blocking producer. */
+    private Mono<ReplayReport> replayReport(ReplayRequest req, Authentication auth) {
+        var reactive = reactiveProducer.getIfAvailable();
+        if (reactive != null && ReactiveDlqProducerService.supports(req)) {
+            return reactive.replay(req, priority(auth));
+        }
+        return Mono.fromCallable(() -> producer.replayWithReport(req, priority(auth)))
+                .subscribeOn(schedulers.replay());
+    }
+
+    static Map<Integer, Long> parseSince(String since) {
+        if (since == null || since.isBlank()) return Map.of();
+        var out = new HashMap<Integer, Long>();
+        for (String entry : since.split(",")) {
+            String[] parts = entry.trim().split(":");
+            try {
+                if (parts.length != 2) throw new NumberFormatException();
+                out.put(Integer.parseInt(parts[0].trim()), Long.parseLong(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("since must look like 'partition:offset,...' but was '" + since + "'");
+            }
+        }
+        return out;
+    }
+
+    static long parseTime(String name, String value) {
+        try {
+            return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(name + " must be epoch millis or an ISO-8601 instant but was '" + value + "'");
+        }
+    }
+
+    private static ReplayGovernor.Priority priority(Authentication auth) {
+        return ReplayGovernor.Priority.of(auth == null ? null
+                : AuthorityUtils.authorityListToSet(auth.getAuthorities()));
     }
 }
@@ -0,0 +1,71 @@
+package com.dle.dlq.web;
+
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.dto.ExportJob;
+import com.dle.dlq.dto.ExportRequest;
+import com.dle.dlq.export.Compression;
+import com.dle.dlq.export.ExportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Bulk export of DLQ records as compressed NDJSON, either streamed as a download or written to a
+ * file on the server by a background job.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dlq/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService exports;
+    private final BlockingSchedulers schedulers;
+
+    /** {@code from} and {@code to} are epoch millis or ISO-8601 instants; offsets are inclusive. */
+    @GetMapping
+    public ResponseEntity<Flux<DataBuffer>> download(@RequestParam String topic,
+                                                     @RequestParam(required = false) List<Integer> partitions,
+                                                     @RequestParam(required = false) Long fromOffset,
+                                                     @RequestParam(required = false) Long toOffset,
+                                                     @RequestParam(required = false) String from,
+                                                     @RequestParam(required = false) String to,
+                                                     @RequestParam(required = false) String compression) {
+        log.info("GET /api/dlq/export called for topic='{}', partitions={}, offsets=[{}, {}], from={}, to={}, compression={}",
+                topic, partitions, fromOffset, toOffset, from, to, compression);
+        var format = Compression.of(compression);
+        var req = new ExportRequest(topic, partitions, fromOffset, toOffset,
+                from == null || from.isBlank() ? null : DlqController.parseTime("from", from),
+                to == null || to.isBlank() ? null : DlqController.parseTime("to", to), compression);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(topic + format.extension()).build().toString())
+                .body(exports.stream(req));
+    }
+
+    @PostMapping("/jobs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<ExportJob> start(@RequestBody ExportRequest req) {
+        log.info("POST /api/dlq/export/jobs called for topic='{}'", req.topic());
+        return Mono.fromCallable(() -> exports.start(req))
+                .subscribeOn(schedulers.io());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public Mono<ExportJob> job(@PathVariable String jobId) {
+        return Mono.fromCallable(() -> exports.job(jobId));
+    }
+}
@@ -0,0 +1,106 @@
+package com.dle.dlq.web;
+
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.SamplingService;
+import com.dle.dlq.dto.ArrivalHistogram;
+import com.dle.dlq.dto.ErrorClusters;
+import com.dle.dlq.dto.MessageSample;
+import com.dle.dlq.dto.TopicIndex;
+import com.dle.dlq.dto.TopicStats;
+import com.dle.dlq.exception.NotFoundException;
+import com.dle.dlq.insights.ArrivalHistogramService;
+import com.dle.dlq.insights.ClusteringService;
+import com.dle.dlq.insights.DlqIndexer;
+import com.dle.dlq.insights.TopicStatsService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Read-only views that summarize a whole topic rather than its newest records.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dlq")
+@RequiredArgsConstructor
+public class InsightsController {
+
+    private final SamplingService sampling;
+    private final ClusteringService clustering;
+    private final TopicStatsService stats;
+    private final ArrivalHistogramService histograms;
+    private final ObjectProvider<DlqIndexer> indexer;
+    private final BlockingSchedulers schedulers;
+
+    /**
+     * Returns a uniform random sample of {@code size} records drawn from the topic's entire
+     * retained range.
+     */
+    @GetMapping("/messages/sample")
+    public Mono<MessageSample> sample(@RequestParam String topic, @RequestParam(required = false) Integer size) {
+        log.info("GET /api/dlq/messages/sample called for topic='{}', size={}", topic, size);
+        return Mono.fromCallable(() -> sampling.sample(topic, size))
+                .subscribeOn(schedulers.io())
+                .doOnNext(s -> log.info("Returning {} sampled messages of {} retained for topic='{}'",
+                        s.messages().size(), s.retained(), topic));
+    }
+
+    /**
+     * Scans the whole topic and returns its largest failure clusters with approximate counts,
+     * first/last seen timestamps and example positions.
+     */
+    @GetMapping("/topics/{topic}/clusters")
+    public Mono<ErrorClusters> clusters(@PathVariable String topic, @RequestParam(required = false) Integer top) {
+        log.info("GET /api/dlq/topics/{}/clusters called, top={}", topic, top);
+        return clustering.cluster(topic, top)
+                .doOnNext(c -> log.info("Returning {} clusters over {} records for topic='{}'",
+                        c.clusters().size(), c.scanned(), topic));
+    }
+
+    /**
+     * Approximate distinct keys, payload-size and age percentiles and header cardinalities. Only
+     * records appended since the previous call are read.
+     */
+    @GetMapping("/topics/{topic}/stats")
+    public Mono<TopicStats> stats(@PathVariable String topic) {
+        log.info("GET /api/dlq/topics/{}/stats called", topic);
+        return stats.stats(topic);
+    }
+
+    /**
+     * Arrival counts per {@code bucket} over the last {@code window} (e.g. {@code 1m} and
+     * {@code 24h}, or ISO-8601 durations), computed from offsets without reading records.
+     */
+    @GetMapping("/topics/{topic}/histogram")
+    public Mono<ArrivalHistogram> histogram(@PathVariable String topic,
+                                            @RequestParam(defaultValue = "1m") String bucket,
+                                            @RequestParam(defaultValue = "24h") String window,
+                                            @RequestParam(defaultValue = "false") boolean byPartition) {
+        log.info("GET /api/dlq/topics/{}/histogram called, bucket={}, window={}, byPartition={}", topic, bucket, window, byPartition);
+        return Mono.fromCallable(() -> histograms.histogram(topic,
+                        DurationStyle.detectAndParse(bucket), DurationStyle.detectAndParse(window), byPartition))
+                .subscribeOn(schedulers.io())
+                .doOnNext(h -> log.info("Returning {} buckets with {} records for topic='{}'", h.buckets().size(), h.total(), topic));
+    }
+
+    /**
+     * What the background indexer holds for a topic, per partition; 404 while the indexer is disabled.
+     */
+    @GetMapping("/topics/{topic}/index")
+    public Mono<TopicIndex> index(@PathVariable String topic, @RequestParam(defaultValue = "10") int topValues) {
+        log.info("GET /api/dlq/topics/{}/index called", topic);
+        return Mono.fromCallable(() -> {
+            var index = indexer.getIfAvailable();
+            if (index == null) {
+                throw new NotFoundException("The background indexer is disabled (dle.indexer.enabled=false)");
+            }
+            return index.index(topic, topValues);
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.dle.dlq.web;
+
+import com.dle.dlq.consumer.DlqSearchService;
+import com.dle.dlq.consumer.DlqSearchService.Query;
+import com.dle.dlq.dto.MessageDto;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * Incident search across every DLQ topic, streamed as newline-delimited JSON while it runs.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/dlq")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final DlqSearchService search;
+
+    /**
+     * {@code header} is a header name, optionally followed by {@code :value} to match values
+     * containing it; {@code from} and {@code to} are epoch millis or ISO-8601 instants.
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MessageDto> search(@RequestParam(required = false) String header,
+                                   @RequestParam(required = false) String key,
+                                   @RequestParam(required = false) String contains,
+                                   @RequestParam(required = false) String from,
+                                   @RequestParam(required = false) String to,
+                                   @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/dlq/search called: header={}, key={}, contains={}, from={}, to={}, limit={}",
+                header, key, contains, from, to, limit);
+        String headerName = header;
+        String headerValue = null;
+        if (header != null && header.indexOf(':') > 0) {
+            headerName = header.substring(0, header.indexOf(':'));
+            headerValue = header.substring(header.indexOf(':') + 1);
+        }
+        var query = new Query(headerName, headerValue, key, contains,
+                from == null || from.isBlank() ? null : DlqController.parseTime("from", from),
+                to == null || to.isBlank() ? null : DlqController.parseTime("to", to));
+        return search.search(query, limit);
+    }
+}
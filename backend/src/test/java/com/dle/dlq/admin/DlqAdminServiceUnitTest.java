@@ -1,9 +1,17 @@
 package com.dle.dlq.admin;
 
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
 import org.apache.kafka.clients.admin.ListTopicsOptions;
 import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
@@ -13,6 +21,8 @@ import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 class DlqAdminServiceUnitTest {
@@ -35,8 +45,111 @@ class DlqAdminServiceUnitTest {
             List<String> topics = svc.listDlqTopics();
 
             assertThat(topics).containsExactly("orders-DLQ", "payments-DLQ");
+            verify(admin, never()).close();
+
+            svc.destroy();
         }
 
         verify(admin).close();
     }
+
+    @Test
+    void consumerGroupLag_sumsEndMinusCommitted_forTopicPartitionsOnly() throws Exception {
+        AdminClient admin = mock(AdminClient.class);
+        var tp0 = new TopicPartition("orders", 0);
+        var tp1 = new TopicPartition("orders", 1);
+        var other = new TopicPartition("payments", 0);
+
+        ListConsumerGroupOffsetsResult committed = mock(ListConsumerGroupOffsetsResult.class);
+        when(committed.partitionsToOffsetAndMetadata()).thenReturn(KafkaFuture.completedFuture(Map.of(
+                tp0, new OffsetAndMetadata(90), tp1, new OffsetAndMetadata(10), other, new OffsetAndMetadata(0))));
+        when(admin.listConsumerGroupOffsets("orders-svc")).thenReturn(committed);
+
+        ListOffsetsResult latest = mock(ListOffsetsResult.class);
+        when(latest.all()).thenReturn(KafkaFuture.completedFuture(Map.of(
+                tp0, new ListOffsetsResult.ListOffsetsResultInfo(100, 0L, java.util.Optional.empty()),
+                tp1, new ListOffsetsResult.ListOffsetsResultInfo(15, 0L, java.util.Optional.empty()))));
+        when(admin.listOffsets(anyMap())).thenReturn(latest);
+
+        try (MockedStatic<AdminClient> st = mockStatic(AdminClient.class)) {
+            st.when(() -> AdminClient.create(eq(Map.of("bootstrap.servers", "dummy:9092")))).thenReturn(admin);
+
+            var svc = new DlqAdminService("dummy:9092", ".*-DLQ$");
+            assertThat(svc.consumerGroupLag("orders-svc", "orders")).isEqualTo(15L);
+            assertThat(svc.consumerGroupLag("orders-svc", "orders")).isEqualTo(15L);
+
+            st.verify(() -> AdminClient.create(anyMap()), times(1));
+            verify(admin, never()).close();
+        }
+    }
+
+    @Test
+    void offsets_returnsBeginAndEndPerPartition_onOneSharedClient() throws Exception {
+        AdminClient admin = mock(AdminClient.class);
+        DescribeTopicsResult described = mock(DescribeTopicsResult.class);
+        when(described.allTopicNames()).thenReturn(KafkaFuture.completedFuture(Map.of("orders-DLQ",
+                new TopicDescription("orders-DLQ", false, List.of(
+                        new TopicPartitionInfo(0, null, List.of(), List.of()),
+                        new TopicPartitionInfo(1, null, List.of(), List.of()))))));
+        when(admin.describeTopics(List.of("orders-DLQ"))).thenReturn(described);
+
+        var tp0 = new TopicPartition("orders-DLQ", 0);
+        var tp1 = new TopicPartition("orders-DLQ", 1);
+        ListOffsetsResult earliest = mock(ListOffsetsResult.class);
+        when(earliest.all()).thenReturn(KafkaFuture.completedFuture(Map.of(
+                tp0, new ListOffsetsResult.ListOffsetsResultInfo(0, 0L, java.util.Optional.empty()),
+                tp1, new ListOffsetsResult.ListOffsetsResultInfo(5, 0L, java.util.Optional.empty()))));
+        ListOffsetsResult latest = mock(ListOffsetsResult.class);
+        when(latest.all()).thenReturn(KafkaFuture.completedFuture(Map.of(
+                tp0, new ListOffsetsResult.ListOffsetsResultInfo(10, 0L, java.util.Optional.empty()),
+                tp1, new ListOffsetsResult.ListOffsetsResultInfo(7, 0L, java.util.Optional.empty()))));
+        when(admin.listOffsets(argThat(m -> m != null && m.values().stream().allMatch(s -> s instanceof OffsetSpec.EarliestSpec))))
+                .thenReturn(earliest);
+        when(admin.listOffsets(argThat(m -> m != null && m.values().stream().allMatch(s -> s instanceof OffsetSpec.LatestSpec))))
+                .thenReturn(latest);
+
+        try (MockedStatic<AdminClient> st = mockStatic(AdminClient.class)) {
+            st.when(() -> AdminClient.create(eq(Map.of("bootstrap.servers", "dummy:9092")))).thenReturn(admin);
+
+            var svc = new DlqAdminService("dummy:9092", ".*-DLQ$");
+            var offsets = svc.offsets("orders-DLQ");
+            svc.offsets("orders-DLQ");
+
+            assertThat(offsets.begin()).isEqualTo(Map.of(0, 0L, 1, 5L));
+            assertThat(offsets.end()).isEqualTo(Map.of(0, 10L, 1, 7L));
+            st.verify(() -> AdminClient.create(anyMap()), times(1));
+
+            svc.destroy();
+        }
+
+        verify(admin).close();
+    }
+
+    @Test
+    void offsetsForTimes_sendsEveryLookupBeforeWaiting_andUsesEndOffsetsWhenNothingIsLater() throws Exception {
+        AdminClient admin = mock(AdminClient.class);
+        var tp0 = new TopicPartition("orders-DLQ", 0);
+        ListOffsetsResult at100 = mock(ListOffsetsResult.class);
+        when(at100.all()).thenReturn(KafkaFuture.completedFuture(Map.of(
+                tp0, new ListOffsetsResult.ListOffsetsResultInfo(4, 100L, java.util.Optional.empty()))));
+        ListOffsetsResult at200 = mock(ListOffsetsResult.class);
+        when(at200.all()).thenReturn(KafkaFuture.completedFuture(Map.of(
+                tp0, new ListOffsetsResult.ListOffsetsResultInfo(-1, -1L, java.util.Optional.empty()))));
+        when(admin.listOffsets(argThat(m -> m != null && m.get(tp0) instanceof OffsetSpec.TimestampSpec)))
+                .thenReturn(at100, at200);
+
+        try (MockedStatic<AdminClient> st = mockStatic(AdminClient.class)) {
+            st.when(() -> AdminClient.create(eq(Map.of("bootstrap.servers", "dummy:9092")))).thenReturn(admin);
+
+            var svc = new DlqAdminService("dummy:9092", ".*-DLQ$");
+            var out = svc.offsetsForTimes(
+                    new com.dle.dlq.dto.TopicOffsets("orders-DLQ", Map.of(0, 0L), Map.of(0, 9L)), List.of(100L, 200L));
+
+            assertThat(out).isEqualTo(Map.of(100L, Map.of(0, 4L), 200L, Map.of(0, 9L)));
+            var order = inOrder(admin, at100);
+            order.verify(admin, times(2)).listOffsets(anyMap());
+            order.verify(at100).all();
+            svc.destroy();
+        }
+    }
 }
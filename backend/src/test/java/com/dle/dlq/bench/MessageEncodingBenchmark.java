@@ -0,0 +1,105 @@
+package com.dle.dlq.bench;
+
+import com.dle.dlq.util.MessageMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost and size of a {@code GET /messages} body as JSON ({@code MessageDto}: Base64 value and
+ * headers plus the UTF-8 copy) against CBOR ({@code RawMessage}: byte strings), mapping included.
+ * The batch is the default page of 200 records, each with a 16-byte key, five headers and a
+ * value of {@code valueBytes} that is either JSON text or random bytes. Body sizes are printed
+ * once per trial. Run after {@code mvn test-compile}:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) org.openjdk.jmh.Main MessageEncoding
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageEncodingBenchmark {
+
+    private static final int RECORDS = 200;
+
+    @Param({ "json", "binary" })
+    String payload;
+
+    @Param({ "1024" })
+    int valueBytes;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final CBORMapper cbor = new CBORMapper();
+    private List<ConsumerRecord<byte[], byte[]>> records;
+
+    @Setup
+    public void setUp() throws Exception {
+        var random = new Random(42);
+        records = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            var headers = new RecordHeaders()
+                    .add("kafka_dlt-exception-fqcn", bytes("java.lang.IllegalStateException"))
+                    .add("kafka_dlt-exception-message", bytes("Validation failed for order " + i))
+                    .add("kafka_dlt-original-topic", bytes("orders"))
+                    .add("kafka_dlt-original-offset", new byte[] { 0, 0, 0, 0, 0, 0, 1, (byte) i })
+                    .add("correlation-id", bytes("c0ffee-" + i));
+            records.add(new ConsumerRecord<>("orders-DLQ", i % 3, 1_000L + i, 1_700_000_000_000L + i,
+                    TimestampType.CREATE_TIME, 16, valueBytes, bytes(String.format("order-%010d", i)),
+                    value(random, i), headers, Optional.empty()));
+        }
+        System.out.printf("%n%s/%d bytes per %d records: json=%d cbor=%d%n", payload, valueBytes, RECORDS,
+                json().length, cbor().length);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return json.writeValueAsBytes(records.stream().map(MessageMapper::toDto).toList());
+    }
+
+    @Benchmark
+    public byte[] cbor() throws Exception {
+        return cbor.writeValueAsBytes(records.stream().map(MessageMapper::toRaw).toList());
+    }
+
+    private byte[] value(Random random, int i) {
+        if (payload.equals("binary")) {
+            byte[] out = new byte[valueBytes];
+            random.nextBytes(out);
+            return out;
+        }
+        var sb = new StringBuilder("{\"orderId\":").append(i).append(",\"lines\":[");
+        while (sb.length() < valueBytes - 64) {
+            sb.append("{\"sku\":\"SKU-").append(random.nextInt(100_000)).append("\",\"qty\":").append(random.nextInt(9) + 1).append("},");
+        }
+        sb.setLength(sb.length() - 1);
+        return bytes(sb.append("],\"status\":\"REJECTED\"}").toString());
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
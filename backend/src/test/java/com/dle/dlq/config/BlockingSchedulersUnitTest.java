@@ -0,0 +1,84 @@
+package com.dle.dlq.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BlockingSchedulersUnitTest {
+
+    @Test
+    void virtual_runsThousandsOfSlowCallsConcurrently_onVirtualThreads() {
+        var registry = new SimpleMeterRegistry();
+        var schedulers = BlockingSchedulers.virtual(registry, 5000, 10, 10, 10);
+        try {
+            long start = System.nanoTime();
+            var virtual = Flux.range(0, 2000)
+                    .flatMap(i -> Mono.fromCallable(() -> {
+                        Thread.sleep(200); // a slow fetch
+                        return Thread.currentThread().isVirtual();
+                    }).subscribeOn(schedulers.io()), 2000)
+                    .all(v -> v)
+                    .block(Duration.ofSeconds(10));
+
+            assertThat(virtual).isTrue();
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+            assertThat(registry.find("executor.execution").tag("name", "dle.io").timer()).isNotNull();
+        } finally {
+            schedulers.destroy();
+        }
+    }
+
+    @Test
+    void virtual_rejectsBeyondPermits_andReadmitsOnceTasksFinish() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var schedulers = BlockingSchedulers.virtual(registry, 10, 2, 2, 2);
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                Mono.fromCallable(() -> {
+                    started.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                }).subscribeOn(schedulers.replay()).subscribe();
+            }
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+            assertThat(registry.get("dle.execution.inflight").tag("name", "dle.replay").gauge().value()).isEqualTo(2);
+
+            assertThatThrownBy(() -> Mono.just(1).subscribeOn(schedulers.replay()).block(Duration.ofSeconds(1)))
+                    .hasRootCauseInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+            assertThat(Mono.just(1).subscribeOn(schedulers.replay())
+                    .retryWhen(reactor.util.retry.Retry.fixedDelay(20, Duration.ofMillis(50)))
+                    .block(Duration.ofSeconds(2))).isEqualTo(1);
+        } finally {
+            release.countDown();
+            schedulers.destroy();
+        }
+    }
+
+    @Test
+    void executionConfig_selectsVirtualThreadsOnlyWhenAskedFor() {
+        var cfg = new ExecutionConfig();
+        var virtual = cfg.blockingSchedulers(new SimpleMeterRegistry(), "virtual-threads", 1, 1, 1, 1, 1, 1, 1, 1, 10, 10, 10, 10);
+        var platform = cfg.blockingSchedulers(new SimpleMeterRegistry(), "platform", 1, 1, 1, 1, 1, 1, 1, 1, 10, 10, 10, 10);
+        try {
+            assertThat(Mono.fromCallable(() -> Thread.currentThread().isVirtual())
+                    .subscribeOn(virtual.io()).block()).isTrue();
+            assertThat(Mono.fromCallable(() -> Thread.currentThread().isVirtual())
+                    .subscribeOn(platform.io()).block()).isFalse();
+        } finally {
+            virtual.destroy();
+            platform.destroy();
+        }
+    }
+}
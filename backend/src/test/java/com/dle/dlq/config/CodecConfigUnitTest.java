@@ -0,0 +1,50 @@
+package com.dle.dlq.config;
+
+import com.dle.dlq.dto.RawMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CodecConfigUnitTest {
+
+    private static final ResolvableType LIST = ResolvableType.forClassWithGenerics(List.class, RawMessage.class);
+
+    @Test
+    void cborEncoder_onlyAnswersExplicitCborRequests() {
+        var encoder = new CodecConfig.ExplicitCborEncoder(new CBORMapper());
+
+        assertThat(encoder.canEncode(LIST, MediaType.APPLICATION_CBOR)).isTrue();
+        assertThat(encoder.canEncode(LIST, null)).isFalse();
+        assertThat(encoder.canEncode(LIST, MediaType.ALL)).isFalse();
+        assertThat(encoder.canEncode(LIST, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    @Test
+    void cborEncoder_writesAMonosValue_withBinaryFieldsAsByteStrings() throws Exception {
+        var encoder = new CodecConfig.ExplicitCborEncoder(new CBORMapper());
+        var msg = new RawMessage("t", 0, 1L, 2L, null, new byte[] { (byte) 0xff }, Map.of("h", new byte[] { 7 }));
+
+        byte[] out = DataBufferUtils.join(encoder.encode(Mono.just(List.of(msg)), DefaultDataBufferFactory.sharedInstance,
+                        LIST, MediaType.APPLICATION_CBOR, Map.of()))
+                .map(buf -> {
+                    byte[] bytes = new byte[buf.readableByteCount()];
+                    buf.read(bytes);
+                    return bytes;
+                })
+                .block();
+
+        JsonNode tree = new CBORMapper().readTree(out);
+        assertThat(tree.get(0).get("value").binaryValue()).containsExactly(0xff);
+        assertThat(tree.get(0).get("headers").get("h").binaryValue()).containsExactly(7);
+    }
+}
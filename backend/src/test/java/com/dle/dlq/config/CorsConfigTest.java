@@ -80,7 +80,7 @@ class CorsConfigTest {
                     List<String> headers = Arrays.stream(value.split(","))
                             .map(String::trim)
                             .toList();
-                    assertThat(headers).contains("Location", "Content-Disposition", "X-Request-Id");
+                    assertThat(headers).contains("Location", "Content-Disposition", "X-Request-Id", "ETag");
                 })
                 .expectBody(String.class).isEqualTo("ok");
     }
@@ -50,6 +50,74 @@ class KafkaConfigUnitTest {
         assertThat(props.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)).isEqualTo("brokerA:19092");
         assertThat(props.get(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG)).isEqualTo(ByteArraySerializer.class);
         assertThat(props.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG)).isEqualTo(ByteArraySerializer.class);
+        assertThat(props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)).isEqualTo(true);
+        assertThat(props.get(ProducerConfig.ACKS_CONFIG)).isEqualTo("all");
+    }
+
+    @Test
+    void transactionalProducerFactory_isTransactional_withInstanceScopedPrefix() {
+        var cfg = new KafkaConfig();
+        cfg.bootstrap = "brokerA:19092";
+        cfg.transactionIdPrefix = "tx-";
+
+        ProducerFactory<byte[], byte[]> pf = cfg.transactionalProducerFactory();
+        ProducerFactory<byte[], byte[]> other = cfg.transactionalProducerFactory();
+
+        assertThat(pf.transactionCapable()).isTrue();
+        assertThat(pf.getTransactionIdPrefix()).startsWith("tx-");
+        assertThat(pf.getTransactionIdPrefix()).isNotEqualTo(other.getTransactionIdPrefix());
+        assertThat(pf.getConfigurationProperties().get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)).isEqualTo(true);
+    }
+
+    @Test
+    void replayLedgerTopic_isCompacted() {
+        var cfg = new KafkaConfig();
+        cfg.ledgerTopic = "ledger-x";
+
+        var topic = cfg.replayLedgerTopic();
+        assertThat(topic.name()).isEqualTo("ledger-x");
+        assertThat(topic.configs()).containsEntry("cleanup.policy", "compact");
+    }
+
+    @Test
+    void replayGovernorTopic_isCompacted() {
+        var cfg = new KafkaConfig();
+        cfg.governorTopic = "governor-x";
+
+        var topic = cfg.replayGovernorTopic();
+        assertThat(topic.name()).isEqualTo("governor-x");
+        assertThat(topic.configs()).containsEntry("cleanup.policy", "compact");
+    }
+
+    @Test
+    void topicStatsTopic_isCompacted() {
+        var cfg = new KafkaConfig();
+        cfg.statsTopic = "stats-x";
+
+        var topic = cfg.topicStatsTopic();
+        assertThat(topic.name()).isEqualTo("stats-x");
+        assertThat(topic.configs()).containsEntry("cleanup.policy", "compact");
+    }
+
+    @Test
+    void timeIndexTopic_isCompacted() {
+        var cfg = new KafkaConfig();
+        cfg.timeIndexTopic = "index-x";
+
+        var topic = cfg.timeIndexTopic();
+        assertThat(topic.name()).isEqualTo("index-x");
+        assertThat(topic.configs()).containsEntry("cleanup.policy", "compact");
+    }
+
+    @Test
+    void replayJobsTopic_usesConfiguredPartitions() {
+        var cfg = new KafkaConfig();
+        cfg.jobsTopic = "jobs-x";
+        cfg.jobsPartitions = 6;
+
+        var topic = cfg.replayJobsTopic();
+        assertThat(topic.name()).isEqualTo("jobs-x");
+        assertThat(topic.numPartitions()).isEqualTo(6);
     }
 
     @Test
@@ -1,12 +1,30 @@
 package com.dle.dlq.config;
 
 import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.BrowseSessionService;
 import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.consumer.DlqSearchService;
+import com.dle.dlq.consumer.FetchCoalescer;
+import com.dle.dlq.dto.BrowseSession;
+import com.dle.dlq.dto.ExportJob;
+import com.dle.dlq.dto.ExportRequest;
 import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RangeReplayJob;
+import com.dle.dlq.dto.ReplayReport;
 import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.dto.TopicOffsets;
 import com.dle.dlq.producer.DlqProducerService;
+import com.dle.dlq.producer.RangeReplayService;
+import com.dle.dlq.producer.ReplayGovernor;
+import com.dle.dlq.web.BrowseSessionController;
+import com.dle.dlq.export.ExportReader;
+import com.dle.dlq.export.ExportService;
 import com.dle.dlq.web.DlqController;
+import com.dle.dlq.web.ExportController;
+import com.dle.dlq.web.SearchController;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +36,8 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Map;
@@ -25,15 +45,28 @@ import java.util.Map;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
 
-@WebFluxTest(controllers = { DlqController.class, SecurityConfigTest.HealthProbe.class })
+@WebFluxTest(controllers = { DlqController.class, BrowseSessionController.class, SearchController.class, ExportController.class, SecurityConfigTest.HealthProbe.class })
 @Import(SecurityConfig.class)
 class SecurityConfigTest {
 
     @Autowired WebTestClient web;
 
     @MockBean DlqAdminService admin;
-    @MockBean DlqConsumerService consumer;
+    @MockBean FetchCoalescer consumer;
+    @MockBean DlqConsumerService reader;
+    @MockBean BrowseSessionService sessions;
+    @MockBean DlqSearchService search;
+    @MockBean ExportService exports;
+    @MockBean ExportReader exportReader;
     @MockBean DlqProducerService producer;
+    @MockBean RangeReplayService rangeReplay;
+    @MockBean BlockingSchedulers schedulers;
+
+    @BeforeEach
+    void inlineSchedulers() {
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.replay()).thenReturn(Schedulers.immediate());
+    }
 
     @RestController
     static class HealthProbe {
@@ -44,11 +77,12 @@ class SecurityConfigTest {
 
 
     @Test
-    void dlq_get_allows_roles() {
-        when(consumer.fetchLastN("orders-DLQ", 3)).thenReturn(List.of(
+    void dlq_get_allows_roles() throws Exception {
+        when(admin.offsets("orders-DLQ")).thenReturn(new TopicOffsets("orders-DLQ", Map.of(0, 0L), Map.of(0, 3L)));
+        when(consumer.readLastN(eq("orders-DLQ"), eq(3), any())).thenReturn(new Fetched<>(List.of(
                 new MessageDto("orders-DLQ", 0, 1L, 1000L, "k1", "v1", "dm1=", Map.of("h1","v")),
                 new MessageDto("orders-DLQ", 0, 2L, 2000L, "k2", "v2", "dm2=", Map.of())
-        ));
+        ), true));
 
         // no JWT -> 401
         web.get().uri("/api/dlq/messages?topic=orders-DLQ&limit=3")
@@ -75,12 +109,87 @@ class SecurityConfigTest {
                 .exchange()
                 .expectStatus().isOk();
 
-        verify(consumer, times(3)).fetchLastN("orders-DLQ", 3);
+        verify(consumer, times(3)).readLastN(eq("orders-DLQ"), eq(3), any());
+    }
+
+    @Test
+    void browse_sessions_open_to_viewers() throws Exception {
+        when(sessions.open("orders-DLQ", 50)).thenReturn(
+                new BrowseSession("s-1", "orders-DLQ", Map.of(0, 0L), Map.of(0, 10L), 10, 50, 1, 600_000));
+
+        web.post().uri("/api/dlq/sessions?topic=orders-DLQ&pageSize=50")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .post().uri("/api/dlq/sessions?topic=orders-DLQ&pageSize=50")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.sessionId").isEqualTo("s-1");
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .delete().uri("/api/dlq/sessions/s-1")
+                .exchange()
+                .expectStatus().isNoContent();
+        verify(sessions).close("s-1");
+    }
+
+    @Test
+    void search_streamsNdjson_toViewers() {
+        var query = new DlqSearchService.Query("kafka_dlt-exception-fqcn", "Timeout", null, null, 1_700_000_000_000L, null);
+        when(search.search(query, 5)).thenReturn(Flux.just(
+                new MessageDto("a-DLQ", 0, 7L, 1_700_000_000_001L, "k", "v", "dg==", Map.of())));
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .get().uri("/api/dlq/search?header=kafka_dlt-exception-fqcn:Timeout&from=2023-11-14T22:13:20Z&limit=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(MessageDto.class).hasSize(1);
+        verify(search).search(query, 5);
+    }
+
+    @Test
+    void export_jobs_require_triager() throws Exception {
+        var req = new ExportRequest("orders-DLQ", null, null, null, null, null, "zstd");
+        when(exports.start(req)).thenReturn(new ExportJob("j-1", "orders-DLQ", "RUNNING", "/tmp/x.ndjson.zst", 0, 0, null, 1L, null));
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .post().uri("/api/dlq/export/jobs").contentType(MediaType.APPLICATION_JSON).bodyValue(req)
+                .exchange()
+                .expectStatus().isForbidden();
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_triager")))
+                .post().uri("/api/dlq/export/jobs").contentType(MediaType.APPLICATION_JSON).bodyValue(req)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody().jsonPath("$.jobId").isEqualTo("j-1");
+        verify(exports, times(1)).start(req);
+    }
+
+    @Test
+    void replay_upload_requires_triager() throws Exception {
+        when(exportReader.items(any())).thenReturn(Flux.empty());
+        when(producer.replayStream(any(ReplayRequest.class), any(), any())).thenReturn(ReplayReport.EMPTY);
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .post().uri("/api/dlq/replay/upload?targetTopic=orders").contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"partition\":0,\"offset\":1}\n")
+                .exchange()
+                .expectStatus().isForbidden();
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_replayer")))
+                .post().uri("/api/dlq/replay/upload?targetTopic=orders").contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"partition\":0,\"offset\":1}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.sent").isEqualTo(0);
+        verify(producer, times(1)).replayStream(any(ReplayRequest.class), any(), eq(ReplayGovernor.Priority.REPLAYER));
     }
 
     @Test
     void dlq_post_requires_stronger_role() throws Exception {
-        when(producer.replay(any(ReplayRequest.class))).thenReturn(5);
+        when(producer.replay(any(ReplayRequest.class), any())).thenReturn(5);
 
         String body = """
             {
@@ -97,6 +206,12 @@ class SecurityConfigTest {
                 .bodyValue(body)
                 .exchange()
                 .expectStatus().isForbidden();
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .post().uri("/api/dlq/replay")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"targetTopic\":\"orders\"}\n")
+                .exchange()
+                .expectStatus().isForbidden();
 
         // triager -> 200
         web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_triager")))
@@ -115,6 +230,33 @@ class SecurityConfigTest {
                 .exchange()
                 .expectStatus().isOk();
 
-        verify(producer, times(2)).replay(ArgumentMatchers.any(ReplayRequest.class));
+        verify(producer).replay(ArgumentMatchers.any(ReplayRequest.class), eq(ReplayGovernor.Priority.TRIAGER));
+        verify(producer).replay(ArgumentMatchers.any(ReplayRequest.class), eq(ReplayGovernor.Priority.REPLAYER));
+    }
+
+    @Test
+    void dlq_rangeReplay_requires_stronger_role() throws Exception {
+        when(rangeReplay.submit(any(), any())).thenReturn(new RangeReplayJob("job-1", 2, 10));
+
+        String body = """
+            { "sourceTopic": "orders-DLQ", "targetTopic": "orders" }
+            """;
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_viewer")))
+                .post().uri("/api/dlq/replay/range")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isForbidden();
+
+        web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_replayer")))
+                .post().uri("/api/dlq/replay/range")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(RangeReplayJob.class).isEqualTo(new RangeReplayJob("job-1", 2, 10));
+
+        verify(rangeReplay).submit(any(), eq(ReplayGovernor.Priority.REPLAYER));
     }
 }
@@ -0,0 +1,96 @@
+package com.dle.dlq.consumer;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.dto.TopicOffsets;
+import com.dle.dlq.exception.NotFoundException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BrowseSessionServiceUnitTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void open_pinsOffsets_andPagesStayOnTheSnapshot_whileTheTopicGrows() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenReturn(
+                new TopicOffsets("orders-DLQ", Map.of(0, 0L, 1, 90L), Map.of(0, 25L, 1, 100L)),
+                new TopicOffsets("orders-DLQ", Map.of(0, 0L, 1, 90L), Map.of(0, 5000L, 1, 7000L)));
+        DlqConsumerService consumer = consumer();
+        var svc = new BrowseSessionService(admin, consumer, now::get);
+
+        var session = svc.open("orders-DLQ", 10);
+        assertThat(session.total()).isEqualTo(35);
+        assertThat(session.pages()).isEqualTo(3); // p0: 25 records in slabs of 10
+
+        when(consumer.fetchRanges("orders-DLQ", List.of(new OffsetRange(0, 0, 5)))).thenReturn(new Fetched<>(List.of(), false));
+        assertThat(svc.page(session.sessionId(), 0).complete()).isTrue();
+        assertThat(svc.page(session.sessionId(), 2).complete()).isFalse();   // timed out: the client retries
+        svc.page(session.sessionId(), 0);
+
+        verify(admin, times(1)).offsets("orders-DLQ"); // paging never looks at the live end again
+        verify(consumer, times(2)).fetchRanges("orders-DLQ", List.of(new OffsetRange(0, 15, 25), new OffsetRange(1, 90, 100)));
+        verify(consumer).fetchRanges("orders-DLQ", List.of(new OffsetRange(0, 0, 5)));
+        assertThatThrownBy(() -> svc.page(session.sessionId(), 3)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void plan_isComputedOncePerPage() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets(anyString())).thenReturn(new TopicOffsets("t", Map.of(0, 0L), Map.of(0, 50L)));
+        DlqConsumerService consumer = consumer();
+        var svc = new BrowseSessionService(admin, consumer, now::get);
+        var id = svc.open("t", 10).sessionId();
+
+        svc.page(id, 1);
+        svc.page(id, 1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OffsetRange>> captor = ArgumentCaptor.forClass(List.class);
+        verify(consumer, times(2)).fetchRanges(eq("t"), captor.capture());
+        assertThat(captor.getAllValues().get(0)).isSameAs(captor.getAllValues().get(1));
+    }
+
+    @Test
+    void sessions_expireAfterIdleTtl_andAreCappedLeastRecentlyUsedFirst() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets(anyString())).thenReturn(new TopicOffsets("t", Map.of(0, 0L), Map.of(0, 10L)));
+        var svc = new BrowseSessionService(admin, consumer(), now::get);
+        svc.sessionTtlMs = 1_000;
+        svc.maxSessions = 2;
+
+        var a = svc.open("t", 5).sessionId();
+        now.addAndGet(900);
+        svc.get(a);                         // still alive; idle clock restarts
+        now.addAndGet(900);
+        assertThat(svc.get(a).sessionId()).isEqualTo(a);
+        now.addAndGet(1_001);
+        assertThatThrownBy(() -> svc.get(a)).isInstanceOf(NotFoundException.class);
+
+        var b = svc.open("t", 5).sessionId();
+        now.addAndGet(1);
+        var c = svc.open("t", 5).sessionId();
+        now.addAndGet(1);
+        svc.open("t", 5);
+        assertThat(svc.size()).isEqualTo(2);
+        assertThatThrownBy(() -> svc.get(b)).isInstanceOf(NotFoundException.class);
+        assertThat(svc.get(c).sessionId()).isEqualTo(c);
+    }
+
+    private static DlqConsumerService consumer() {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.effectiveLimit(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(consumer.fetchRanges(anyString(), anyList())).thenReturn(new Fetched<>(List.of(), true));
+        return consumer;
+    }
+}
@@ -5,8 +5,11 @@ import com.dle.dlq.util.MessageMapper;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.springframework.kafka.core.ConsumerFactory;
@@ -89,6 +92,62 @@ class DlqConsumerServiceUnitTest {
         }
     }
 
+    @Test
+    void fetchLastNRaw_readsTheSameWindow_asRawRecords() {
+        String topic = "deadletters";
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+        when(consumer.partitionsFor(topic)).thenReturn(List.of(
+                new PartitionInfo(topic, 0, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0])));
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        when(consumer.beginningOffsets(anyCollection())).thenReturn(Map.of(tp0, 0L));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp0, 10L));
+        var last = new ConsumerRecord<>(topic, 0, 9L, new byte[] { 1 }, new byte[] { (byte) 0xff });
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(tp0, List.of(rec(topic, 0, 8), last))))
+                .thenReturn(ConsumerRecords.empty());
+
+        DlqConsumerService svc = new DlqConsumerService(cf);
+        svc.fetchDefault = 200;
+
+        var out = svc.fetchLastNRaw(topic, 2);
+
+        verify(consumer).seek(tp0, 8L);
+        assertThat(out).extracting(r -> r.offset()).containsExactly(9L, 8L);
+        assertThat(out.get(0).value()).containsExactly(0xff);
+        verify(consumer).close();
+    }
+
+    @Test
+    void readLastN_isComplete_onceEveryPartitionReachesItsEnd_andPartialAtTheDeadline() {
+        String topic = "deadletters";
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+        when(consumer.partitionsFor(topic)).thenReturn(List.of(
+                new PartitionInfo(topic, 0, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0])));
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        when(consumer.beginningOffsets(anyCollection())).thenReturn(Map.of(tp0, 0L));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp0, 10L));
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(tp0, List.of(rec(topic, 0, 8), rec(topic, 0, 9)))))
+                .thenReturn(ConsumerRecords.empty());
+        DlqConsumerService svc = new DlqConsumerService(cf);
+
+        when(consumer.position(tp0)).thenReturn(10L);
+        var complete = svc.readLastN(topic, 50);   // fewer records than the limit, but all there are
+        assertThat(complete.complete()).isTrue();
+        assertThat(complete.messages()).hasSize(2);
+
+        when(consumer.position(tp0)).thenReturn(8L);
+        assertThat(svc.readLastN(topic, 50).complete()).isFalse();
+    }
+
     @Test
     void fetchLastN_nullLimit_usesFetchDefault_andSeeksFromEndOrBegin() {
         String topic = "deadletters";
@@ -273,10 +332,216 @@ class DlqConsumerServiceUnitTest {
     }
 
 
+    @Test
+    void fetchSince_readsOnlyPastLastSeen_cappedAtLimit_andReportsPositions() {
+        String topic = "deadletters";
+
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        when(consumer.partitionsFor(topic)).thenReturn(List.of(
+                new PartitionInfo(topic, 0, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0]),
+                new PartitionInfo(topic, 1, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0]),
+                new PartitionInfo(topic, 2, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0])
+        ));
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        TopicPartition tp1 = new TopicPartition(topic, 1);
+        TopicPartition tp2 = new TopicPartition(topic, 2);
+        when(consumer.beginningOffsets(anyCollection())).thenReturn(Map.of(tp0, 0L, tp1, 0L, tp2, 0L));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp0, 12L, tp1, 100L, tp2, 7L));
+
+        when(consumer.poll(any(Duration.class))).thenReturn(records(Map.of(
+                tp0, List.of(rec(topic, 0, 10), rec(topic, 0, 11)),
+                tp1, List.of(rec(topic, 1, 97), rec(topic, 1, 98), rec(topic, 1, 99)))));
+        when(consumer.position(tp0)).thenReturn(12L);
+        when(consumer.position(tp1)).thenReturn(100L);
+
+        DlqConsumerService svc = new DlqConsumerService(cf);
+        svc.fetchDefault = 200;
+
+        // p0 saw up to 9; p1 is far behind (more than the limit); p2 is up to date
+        var delta = svc.fetchSince(topic, Map.of(0, 9L, 1, 40L, 2, 6L), 3);
+
+        verify(consumer).assign(argThat(ps -> ps.size() == 2 && ps.containsAll(List.of(tp0, tp1))));
+        verify(consumer).seek(tp0, 10L);
+        verify(consumer).seek(tp1, 97L); // only the newest 3
+        assertThat(delta.messages()).extracting(MessageDto::offset).containsExactly(99L, 98L, 97L, 11L, 10L);
+        assertThat(delta.positions()).isEqualTo(Map.of(0, 11L, 1, 99L, 2, 6L));
+        assertThat(delta.truncated()).isTrue();
+        verify(consumer).close();
+    }
+
+    @Test
+    void fetchRanges_readsOnlyPlannedOffsets_andPausesFinishedPartitions() {
+        String topic = "deadletters";
+
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        TopicPartition tp1 = new TopicPartition(topic, 1);
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(
+                        tp0, List.of(rec(topic, 0, 20), rec(topic, 0, 21), rec(topic, 0, 22)),
+                        tp1, List.of(rec(topic, 1, 5)))))
+                .thenReturn(records(Map.of(tp1, List.of(rec(topic, 1, 6)))));
+        when(consumer.position(tp0)).thenReturn(23L);
+        when(consumer.position(tp1)).thenReturn(6L, 7L);
+
+        var svc = new DlqConsumerService(cf);
+        var out = svc.fetchRanges(topic, List.of(
+                new DlqConsumerService.OffsetRange(0, 20, 22),
+                new DlqConsumerService.OffsetRange(1, 5, 7),
+                new DlqConsumerService.OffsetRange(2, 9, 9)));
+
+        verify(consumer).assign(argThat(ps -> ps.size() == 2 && ps.containsAll(List.of(tp0, tp1))));
+        verify(consumer).seek(tp0, 20L);
+        verify(consumer).seek(tp1, 5L);
+        verify(consumer).pause(List.of(tp0));
+        assertThat(out.messages()).extracting(MessageDto::offset).containsExactly(21L, 20L, 6L, 5L); // 22 is past the range
+        assertThat(out.complete()).isTrue();
+        verify(consumer).close();
+    }
+
+    @Test
+    void fetchOffsets_seeksToEachWantedOffset_andTakesTheNextRecordOverGaps() {
+        String topic = "deadletters";
+
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp0, 1000L));
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(tp0, List.of(rec(topic, 0, 10), rec(topic, 0, 11), rec(topic, 0, 12)))))
+                .thenReturn(records(Map.of(tp0, List.of(rec(topic, 0, 501)))));   // 500 was compacted away
+        when(consumer.position(tp0)).thenReturn(13L);
+
+        var svc = new DlqConsumerService(cf);
+        var out = svc.fetchOffsets(topic, Map.of(0, List.of(500L, 10L), 1, List.of()));
+
+        verify(consumer).assign(Set.of(tp0));
+        verify(consumer).seek(tp0, 10L);
+        verify(consumer).seek(tp0, 500L);
+        verify(consumer).pause(List.of(tp0));
+        assertThat(out.messages()).extracting(MessageDto::offset).containsExactly(501L, 10L);
+        assertThat(out.complete()).isTrue();
+        verify(consumer).close();
+    }
+
+    @Test
+    void fetchWindow_startsFromTheLocalIndex_andAsksTheBrokerOnlyForTheRest() {
+        String topic = "deadletters";
+
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        TopicPartition tp1 = new TopicPartition(topic, 1);
+        when(consumer.partitionsFor(topic)).thenReturn(List.of(
+                new PartitionInfo(topic, 0, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0]),
+                new PartitionInfo(topic, 1, null, new org.apache.kafka.common.Node[0], new org.apache.kafka.common.Node[0])));
+        when(consumer.beginningOffsets(anyCollection())).thenReturn(Map.of(tp0, 0L, tp1, 0L));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp0, 100L, tp1, 50L));
+        when(consumer.offsetsForTimes(Map.of(tp1, 1_015L))).thenReturn(Map.of(tp1, new OffsetAndTimestamp(7, 1_016)));
+        var tp0Records = LongStream.range(10, 27).mapToObj(o -> rec(topic, 0, o, 1_000 + o)).toList();
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(tp0, tp0Records,
+                        tp1, List.of(rec(topic, 1, 7, 1_016), rec(topic, 1, 8, 1_030)))));
+        when(consumer.position(tp0)).thenReturn(27L);
+        when(consumer.position(tp1)).thenReturn(9L);
+
+        var timeIndex = new TimeIndexRegistry();
+        timeIndex.every = 10;
+        for (long o = 0; o < 40; o += 10) timeIndex.observe(tp0, 1_000 + o, o);
+        var out = new DlqConsumerService(cf, timeIndex).fetchWindow(topic, 1_015, 1_025, 100);
+
+        verify(consumer).seek(tp0, 10L);
+        verify(consumer).seek(tp1, 7L);
+        verify(consumer).offsetsForTimes(Map.of(tp1, 1_015L));
+        assertThat(out).extracting(MessageDto::offset)
+                .containsExactly(24L, 23L, 22L, 21L, 20L, 19L, 18L, 17L, 16L, 15L, 7L);
+        assertThat(timeIndex.size(tp1)).isEqualTo(1);   // the broker's answer is remembered
+        assertThatThrownBy(() -> new DlqConsumerService(cf, timeIndex).fetchWindow(topic, 5, 5, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(consumer).close();
+    }
+
+    @Test
+    void scan_handsRawRecordsToTheSink_untilTheEndOffset() {
+        String topic = "deadletters";
+
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        TopicPartition tp1 = new TopicPartition(topic, 1);
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(tp1, List.of(rec(topic, 1, 40), rec(topic, 1, 41)))))
+                .thenReturn(records(Map.of(tp1, List.of(rec(topic, 1, 42), rec(topic, 1, 43)))));
+        when(consumer.position(tp1)).thenReturn(42L, 44L);
+
+        var seen = new ArrayList<Long>();
+        long reached = new DlqConsumerService(cf).scan(topic, 1, 40, 43, Long.MAX_VALUE, rec -> seen.add(rec.offset()));
+
+        verify(consumer).assign(List.of(tp1));
+        verify(consumer).seek(tp1, 40L);
+        assertThat(seen).containsExactly(40L, 41L, 42L);
+        assertThat(reached).isEqualTo(43);
+        verify(consumer).close();
+    }
+
+    @Test
+    void scanWhile_stopsAtTheFirstRecordTheSinkRefuses() {
+        String topic = "deadletters";
+
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        TopicPartition tp0 = new TopicPartition(topic, 0);
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(records(Map.of(tp0, List.of(rec(topic, 0, 0), rec(topic, 0, 1), rec(topic, 0, 2)))));
+        when(consumer.position(tp0)).thenReturn(3L);
+
+        var seen = new ArrayList<Long>();
+        long reached = new DlqConsumerService(cf).scanWhile(topic, 0, 0, 100, Long.MAX_VALUE, rec -> {
+            if (rec.offset() == 2) return false;
+            seen.add(rec.offset());
+            return true;
+        });
+
+        assertThat(seen).containsExactly(0L, 1L);
+        assertThat(reached).isEqualTo(2);
+        verify(consumer, times(1)).poll(any(Duration.class));
+        verify(consumer).close();
+    }
+
     private static ConsumerRecord<byte[], byte[]> rec(String topic, int partition, long offset) {
         return new ConsumerRecord<>(topic, partition, offset, null, null);
     }
 
+    private static ConsumerRecord<byte[], byte[]> rec(String topic, int partition, long offset, long timestamp) {
+        return new ConsumerRecord<>(topic, partition, offset, timestamp, TimestampType.CREATE_TIME, 0, 0,
+                null, null, new RecordHeaders(), Optional.empty());
+    }
+
     private static ConsumerRecords<byte[], byte[]> records(Map<TopicPartition, List<ConsumerRecord<byte[], byte[]>>> map) {
         return new ConsumerRecords<>(map);
     }
@@ -0,0 +1,138 @@
+package com.dle.dlq.consumer;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqSearchService.Query;
+import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.TopicOffsets;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DlqSearchServiceUnitTest {
+
+    @Test
+    void search_fansOutOverEveryDlq_newestSlabFirst_andFiltersRawRecords() throws Exception {
+        var admin = admin(Map.of("a-DLQ", 25L, "b-DLQ", 5L));
+        var consumer = consumer();
+        var svc = service(admin, consumer);
+        svc.chunkRecords = 10;
+
+        var hits = svc.search(new Query("kafka_dlt-exception-fqcn", "Timeout", null, "order-1", null, null), null)
+                .collectList().block();
+
+        // a-DLQ holds order-1 at offsets 1, 11 and 21; b-DLQ at 1
+        assertThat(hits).extracting(MessageDto::topic, MessageDto::offset).containsExactlyInAnyOrder(
+                tuple("a-DLQ", 21L), tuple("a-DLQ", 11L),
+                tuple("a-DLQ", 1L), tuple("b-DLQ", 1L));
+        var inOrder = inOrder(consumer);
+        inOrder.verify(consumer).scanWhile(eq("a-DLQ"), eq(0), eq(15L), eq(25L), anyLong(), any());
+        inOrder.verify(consumer).scanWhile(eq("a-DLQ"), eq(0), eq(5L), eq(15L), anyLong(), any());
+        inOrder.verify(consumer).scanWhile(eq("a-DLQ"), eq(0), eq(0L), eq(5L), anyLong(), any());
+    }
+
+    @Test
+    void topicBudget_stopsItsScans_withoutStoppingOtherTopics() throws Exception {
+        var consumer = consumer();
+        var svc = service(admin(Map.of("a-DLQ", 100L, "b-DLQ", 10L)), consumer);
+        svc.chunkRecords = 10;
+        svc.topicBudgetBytes = 25 * 10;   // 25 records of 10 bytes
+
+        var hits = svc.search(new Query(null, null, null, "order", null, null), null).collectList().block();
+
+        assertThat(hits.stream().filter(m -> m.topic().equals("a-DLQ"))).hasSize(25);
+        assertThat(hits.stream().filter(m -> m.topic().equals("b-DLQ"))).hasSize(10);
+        verify(consumer, times(3)).scanWhile(eq("a-DLQ"), anyInt(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void reachingTheLimit_cancelsEveryScan() throws Exception {
+        var consumer = consumer();
+        var svc = service(admin(Map.of("a-DLQ", 1000L)), consumer);
+        svc.chunkRecords = 10;
+
+        var hits = svc.search(new Query(null, null, "k", null, null, null), 3).collectList().block();
+
+        assertThat(hits).hasSize(3);
+        verify(consumer, atMost(2)).scanWhile(anyString(), anyInt(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void plan_takesTheWindowStartFromTheTimeIndex_andTheRestFromTheBroker() throws Exception {
+        var admin = admin(Map.of("a-DLQ", 100L));
+        when(admin.offsets("a-DLQ")).thenReturn(new TopicOffsets("a-DLQ", Map.of(0, 0L, 1, 0L), Map.of(0, 100L, 1, 100L)));
+        when(admin.offsetsForTimes(any(), eq(List.of(1_050L, 1_080L))))
+                .thenReturn(Map.of(1_050L, Map.of(0, 50L, 1, 40L), 1_080L, Map.of(0, 80L, 1, 70L)));
+        var timeIndex = new TimeIndexRegistry();
+        timeIndex.every = 10;
+        for (long o = 0; o < 100; o += 10) timeIndex.observe(new TopicPartition("a-DLQ", 0), 1_000 + o, o);
+        var svc = new DlqSearchService(admin, consumer(), timeIndex, schedulers());
+
+        var slices = svc.plan("a-DLQ", new Query(null, null, "k", null, 1_050L, 1_080L));
+
+        assertThat(slices).extracting(s -> s.partition(), s -> s.from(), s -> s.to()).containsExactly(
+                tuple(0, 40L, 80L),    // 40 from the index
+                tuple(1, 40L, 70L));
+        assertThatThrownBy(() -> svc.search(new Query(null, null, null, null, null, null), 10).blockLast())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static DlqSearchService service(DlqAdminService admin, DlqConsumerService consumer) {
+        return new DlqSearchService(admin, consumer, new TimeIndexRegistry(), schedulers());
+    }
+
+    private static BlockingSchedulers schedulers() {
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.scan()).thenReturn(Schedulers.immediate());
+        return schedulers;
+    }
+
+    private static DlqAdminService admin(Map<String, Long> ends) throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.listDlqTopics()).thenReturn(ends.keySet().stream().sorted().toList());
+        for (var e : ends.entrySet()) {
+            when(admin.offsets(e.getKey())).thenReturn(new TopicOffsets(e.getKey(), Map.of(0, 0L), Map.of(0, e.getValue())));
+        }
+        return admin;
+    }
+
+    /** Partition 0 of every topic: record o has key "k", 10 bytes, and the value "order-(o % 10)". */
+    private static DlqConsumerService consumer() {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.scanWhile(anyString(), anyInt(), anyLong(), anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            String topic = inv.getArgument(0);
+            long from = inv.getArgument(2);
+            long to = inv.getArgument(3);
+            Predicate<ConsumerRecord<byte[], byte[]>> sink = inv.getArgument(5);
+            for (long o = from; o < to; o++) {
+                if (!sink.test(rec(topic, o))) return o;
+            }
+            return to;
+        });
+        return consumer;
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(String topic, long offset) {
+        var headers = new RecordHeaders();
+        headers.add("kafka_dlt-exception-fqcn", "java.util.concurrent.TimeoutException".getBytes(StandardCharsets.UTF_8));
+        byte[] value = ("order-" + offset % 10 + "___").getBytes(StandardCharsets.UTF_8);
+        return new ConsumerRecord<>(topic, 0, offset, 1_000 + offset, TimestampType.CREATE_TIME, 1, value.length - 1,
+                "k".getBytes(StandardCharsets.UTF_8), value, headers, Optional.empty());
+    }
+}
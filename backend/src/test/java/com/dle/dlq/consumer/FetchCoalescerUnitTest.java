@@ -0,0 +1,150 @@
+package com.dle.dlq.consumer;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
+import com.dle.dlq.dto.TopicOffsets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FetchCoalescerUnitTest {
+
+    private static final MessageDto DTO = new MessageDto("orders-DLQ", 0, 9L, 1L, "k", "v", "dg==", Map.of());
+
+    @Test
+    void concurrentIdenticalFetches_shareOneRead() throws Exception {
+        DlqConsumerService consumer = consumer();
+        var release = new CountDownLatch(1);
+        when(consumer.readLastN("orders-DLQ", 50)).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new Fetched<>(List.of(DTO), true);
+        });
+        var registry = new SimpleMeterRegistry();
+        var coalescer = new FetchCoalescer(consumer, admin(Map.of(0, 10L)), registry);
+
+        var pool = Executors.newFixedThreadPool(12);
+        try {
+            var results = new ArrayList<Future<List<MessageDto>>>();
+            for (int i = 0; i < 12; i++) {
+                results.add(pool.submit(() -> coalescer.fetchLastN("orders-DLQ", 50)));
+            }
+            // Let every caller reach the coalescer before the single read completes
+            while (registry.get("dle.fetch.requests").tag("outcome", "shared").counter().count() < 11) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (var r : results) {
+                assertThat(r.get(5, TimeUnit.SECONDS)).containsExactly(DTO);
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        verify(consumer, times(1)).readLastN("orders-DLQ", 50);
+        assertThat(registry.get("dle.fetch.requests").tag("outcome", "read").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void completedRead_isReusedWithinWindow_untilEndOffsetsMoveOrItExpires() throws Exception {
+        DlqConsumerService consumer = consumer();
+        when(consumer.readLastN(eq("orders-DLQ"), any())).thenReturn(new Fetched<>(List.of(DTO), true));
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenReturn(
+                offsets(Map.of(0, 10L)), offsets(Map.of(0, 10L)), offsets(Map.of(0, 11L)), offsets(Map.of(0, 11L)));
+        var now = new AtomicLong(1_000);
+        var coalescer = new FetchCoalescer(consumer, admin, new SimpleMeterRegistry(), now::get);
+        coalescer.reuseMs = 2000;
+
+        coalescer.fetchLastN("orders-DLQ", 50);
+        now.addAndGet(500);
+        coalescer.fetchLastN("orders-DLQ", 50);   // reused
+        verify(consumer, times(1)).readLastN("orders-DLQ", 50);
+
+        coalescer.fetchLastN("orders-DLQ", 50);   // a new record arrived
+        verify(consumer, times(2)).readLastN("orders-DLQ", 50);
+
+        now.addAndGet(3000);
+        coalescer.fetchLastN("orders-DLQ", 50);   // window passed
+        verify(consumer, times(3)).readLastN("orders-DLQ", 50);
+        assertThat(coalescer.inFlightOrCached()).isEqualTo(1);
+    }
+
+    @Test
+    void failedRead_isNotReused() throws Exception {
+        DlqConsumerService consumer = consumer();
+        when(consumer.readLastN("orders-DLQ", 50))
+                .thenThrow(new IllegalStateException("broker down"))
+                .thenReturn(new Fetched<>(List.of(DTO), true));
+        var coalescer = new FetchCoalescer(consumer, admin(Map.of(0, 10L)), new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> coalescer.fetchLastN("orders-DLQ", 50)).hasMessage("broker down");
+        assertThat(coalescer.fetchLastN("orders-DLQ", 50)).containsExactly(DTO);
+        verify(consumer, times(2)).readLastN("orders-DLQ", 50);
+    }
+
+    @Test
+    void readCutShortByItsDeadline_isNotReused() throws Exception {
+        DlqConsumerService consumer = consumer();
+        when(consumer.readLastN("orders-DLQ", 50))
+                .thenReturn(new Fetched<>(List.of(DTO), false))
+                .thenReturn(new Fetched<>(List.of(DTO, DTO), true));
+        var coalescer = new FetchCoalescer(consumer, admin(Map.of(0, 10L)), new SimpleMeterRegistry());
+        var offsets = offsets(Map.of(0, 10L));
+
+        assertThat(coalescer.readLastN("orders-DLQ", 50, offsets).complete()).isFalse();
+        assertThat(coalescer.inFlightOrCached()).isZero();
+        assertThat(coalescer.readLastN("orders-DLQ", 50, offsets).complete()).isTrue();
+        assertThat(coalescer.readLastN("orders-DLQ", 50, offsets).messages()).hasSize(2);
+        verify(consumer, times(2)).readLastN("orders-DLQ", 50);
+    }
+
+    @Test
+    void rawAndDtoFetches_ofTheSameRecords_areCoalescedApart() throws Exception {
+        DlqConsumerService consumer = consumer();
+        var raw = new RawMessage("orders-DLQ", 0, 9L, 1L, null, new byte[] { 1 }, Map.of());
+        when(consumer.readLastN("orders-DLQ", 50)).thenReturn(new Fetched<>(List.of(DTO), true));
+        when(consumer.readLastNRaw("orders-DLQ", 50)).thenReturn(new Fetched<>(List.of(raw), true));
+        var coalescer = new FetchCoalescer(consumer, admin(Map.of(0, 10L)), new SimpleMeterRegistry());
+        var offsets = offsets(Map.of(0, 10L));
+
+        assertThat(coalescer.readLastN("orders-DLQ", 50, offsets).messages()).containsExactly(DTO);
+        assertThat(coalescer.readLastNRaw("orders-DLQ", 50, offsets).messages()).containsExactly(raw);
+        assertThat(coalescer.readLastNRaw("orders-DLQ", 50, offsets).messages()).containsExactly(raw);
+
+        verify(consumer, times(1)).readLastN("orders-DLQ", 50);
+        verify(consumer, times(1)).readLastNRaw("orders-DLQ", 50);
+        assertThat(coalescer.inFlightOrCached()).isEqualTo(2);
+    }
+
+    private static DlqConsumerService consumer() {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.effectiveLimit(anyInt())).thenAnswer(inv -> inv.getArgument(0));
+        return consumer;
+    }
+
+    private static DlqAdminService admin(Map<Integer, Long> end) throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets(anyString())).thenReturn(offsets(end));
+        return admin;
+    }
+
+    private static TopicOffsets offsets(Map<Integer, Long> end) {
+        return new TopicOffsets("orders-DLQ", Map.of(0, 0L), end);
+    }
+}
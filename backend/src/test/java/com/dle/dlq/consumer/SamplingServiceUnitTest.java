@@ -0,0 +1,94 @@
+package com.dle.dlq.consumer;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.dto.TopicOffsets;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SamplingServiceUnitTest {
+
+    @Test
+    void sample_picksDistinctOffsets_weightedByPartitionDepth() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenReturn(new TopicOffsets("orders-DLQ",
+                Map.of(0, 1_000L, 1, 0L, 2, 50L), Map.of(0, 901_000L, 1, 100_000L, 2, 50L)));
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.fetchOffsets(anyString(), anyMap())).thenReturn(new Fetched<>(List.of(), false));
+        var svc = new SamplingService(admin, consumer, new SplittableRandom(42));
+
+        var sample = svc.sample("orders-DLQ", 1000);
+
+        assertThat(sample.retained()).isEqualTo(1_000_000);
+        assertThat(sample.complete()).isFalse();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Integer, List<Long>>> picks = ArgumentCaptor.forClass(Map.class);
+        verify(consumer).fetchOffsets(eq("orders-DLQ"), picks.capture());
+        var byPartition = picks.getValue();
+        assertThat(byPartition).doesNotContainKey(2);   // empty partition
+        assertThat(byPartition.get(0)).allMatch(o -> o >= 1_000 && o < 901_000).doesNotHaveDuplicates();
+        assertThat(byPartition.get(1)).allMatch(o -> o >= 0 && o < 100_000).doesNotHaveDuplicates();
+        assertThat(byPartition.get(0).size() + byPartition.get(1).size()).isEqualTo(1000);
+        assertThat(byPartition.get(0).size()).isBetween(850, 950);   // 90% of the records live in p0
+    }
+
+    @Test
+    void sample_ofASmallTopic_returnsEverything() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("t")).thenReturn(new TopicOffsets("t", Map.of(0, 5L, 1, 0L), Map.of(0, 8L, 1, 2L)));
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.fetchRanges(anyString(), anyList())).thenReturn(new Fetched<>(List.of(), true));
+        var svc = new SamplingService(admin, consumer);
+
+        var sample = svc.sample("t", null);
+
+        assertThat(sample.requested()).isEqualTo(100);
+        assertThat(sample.complete()).isTrue();
+        verify(consumer).fetchRanges("t", List.of(new OffsetRange(0, 5, 8), new OffsetRange(1, 0, 2)));
+        verify(consumer, never()).fetchOffsets(anyString(), anyMap());
+    }
+
+    @Test
+    void pick_fromConcurrentRequests_drawsKDistinctPositionsEach() throws Exception {
+        var svc = new SamplingService(mock(DlqAdminService.class), mock(DlqConsumerService.class));
+        var pool = Executors.newFixedThreadPool(8);
+        try {
+            var picks = new ArrayList<Future<Set<Long>>>();
+            for (int i = 0; i < 64; i++) {
+                picks.add(pool.submit(() -> svc.pick(1_000_000, 500)));
+            }
+            for (var f : picks) {
+                assertThat(f.get(5, TimeUnit.SECONDS)).hasSize(500).allMatch(p -> p >= 0 && p < 1_000_000);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void locate_mapsPositionsAcrossPartitionsLaidEndToEnd() {
+        var offsets = new TopicOffsets("t", Map.of(0, 100L, 1, 0L, 2, 7L), Map.of(0, 110L, 1, 0L, 2, 12L));
+        var depths = new TreeMap<>(Map.of(0, 10L, 1, 0L, 2, 5L));
+
+        var out = SamplingService.locate(offsets, depths, Set.of(0L, 9L, 10L, 14L));
+
+        assertThat(out).containsOnlyKeys(0, 2);
+        assertThat(out.get(0)).containsExactlyInAnyOrder(100L, 109L);
+        assertThat(out.get(2)).containsExactlyInAnyOrder(7L, 11L);
+    }
+}
@@ -0,0 +1,78 @@
+package com.dle.dlq.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SparseTimeIndexUnitTest {
+
+    @Test
+    void observe_keepsEntriesAtLeastEveryApart_inAnyOrder() {
+        var index = new SparseTimeIndex(10);
+        for (long o = 100; o < 150; o++) index.observe(1_000 + o, o);   // 100, 110, ..., 140
+        for (long o = 0; o < 30; o++) index.observe(1_000 + o, o);      // 0, 10, 20, observed later
+        assertThat(index.size()).isEqualTo(8);
+        assertThat(index.observe(1_105, 105)).isFalse();
+        assertThat(index.observe(1_090, 90)).isTrue();
+
+        assertThat(index.floorOffset(1_000)).isEqualTo(-1);
+        assertThat(index.floorOffset(1_001)).isEqualTo(0);
+        assertThat(index.floorOffset(1_125)).isEqualTo(120);
+        assertThat(index.floorOffset(Long.MAX_VALUE)).isEqualTo(140);
+    }
+
+    @Test
+    void timestampsStaySorted_whenProducersClocksDisagree() {
+        var index = new SparseTimeIndex(1);
+        index.observe(5_000, 0);
+        index.observe(4_000, 1);   // raised to 5_000
+        index.observe(6_000, 2);
+
+        assertThat(index.floorOffset(5_000)).isEqualTo(-1);
+        assertThat(index.floorOffset(5_001)).isEqualTo(1);
+    }
+
+    @Test
+    void boundedFloor_requiresACloseNextEntry() {
+        var index = new SparseTimeIndex(10);
+        index.observe(1_000, 0);
+        index.observe(1_010, 10);
+        index.observe(9_000, 5_000);
+
+        assertThat(index.floorOffset(1_005, 20)).isEqualTo(0);
+        assertThat(index.floorOffset(2_000, 20)).isEqualTo(-1);   // the next entry is 4990 offsets away
+        assertThat(index.floorOffset(10_000, 20)).isEqualTo(-1);  // nothing indexed after the floor
+        assertThat(index.floorOffset(2_000)).isEqualTo(10);
+    }
+
+    @Test
+    void encode_isDeltaCompact_andRoundTrips() {
+        var index = new SparseTimeIndex(1000);
+        for (long o = 0; o < 1_000_000; o += 1000) index.observe(1_700_000_000_000L + o / 10, o);
+
+        byte[] bytes = index.encode();
+        var copy = SparseTimeIndex.decode(bytes);
+
+        assertThat(bytes.length).isLessThan(index.size() * 4);   // vs 16 bytes per raw entry
+        assertThat(copy.size()).isEqualTo(1000);
+        assertThat(copy.floorOffset(1_700_000_050_001L)).isEqualTo(index.floorOffset(1_700_000_050_001L)).isEqualTo(500_000L);
+        copy.observe(1_700_000_200_000L, 2_000_000);
+        assertThat(copy.size()).isEqualTo(1001);
+    }
+
+    @Test
+    void truncateAndMerge() {
+        var a = new SparseTimeIndex(10);
+        for (long o = 0; o < 50; o += 10) a.observe(o, o);
+        a.truncateBefore(25);
+        assertThat(a.size()).isEqualTo(2);
+        assertThat(a.floorOffset(35)).isEqualTo(30);
+
+        var b = new SparseTimeIndex(10);
+        b.observe(100, 100);
+        b.observe(45, 45);   // too close to 40
+        a.merge(b);
+        assertThat(a.size()).isEqualTo(3);
+        assertThat(a.floorOffset(101)).isEqualTo(100);
+    }
+}
@@ -0,0 +1,88 @@
+package com.dle.dlq.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TimeIndexRegistryUnitTest {
+
+    private static final TopicPartition TP = new TopicPartition("orders-DLQ", 3);
+
+    @Test
+    void startOffset_isLocalOnlyWhenTheIndexBoundsTheRead() {
+        var registry = new TimeIndexRegistry();
+        registry.every = 10;
+        for (long o = 0; o < 100; o++) registry.observe(TP, 1_000 + o, o);
+        registry.observe(TP, 1_000_000, 10_000);
+
+        assertThat(registry.startOffset(TP, 1_055)).isEqualTo(50);
+        assertThat(registry.startOffset(TP, 5_000)).isEqualTo(-1);   // 90 is far from the next entry
+        assertThat(registry.startOffset(new TopicPartition("other-DLQ", 0), 1_055)).isEqualTo(-1);
+        assertThat(registry.floorOffset(TP, 5_000)).isEqualTo(90);
+
+        registry.truncateBefore(TP, 60);
+        assertThat(registry.startOffset(TP, 1_055)).isEqualTo(-1);
+        assertThat(registry.size(TP)).isEqualTo(5);
+        registry.observe(TP, -1, 20_000);   // records without a timestamp are not indexed
+        assertThat(registry.size(TP)).isEqualTo(5);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void changedIndexes_arePersistedOnSchedule_andMergedByTheNextReplica() {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        var now = new AtomicLong(100_000);
+        var writer = new TimeIndexRegistry(mock(ConsumerFactory.class), template, "idx");
+        writer.every = 10;
+        writer.persistIntervalMs = 60_000;
+        writer.clock = now::get;
+
+        for (long o = 0; o < 50; o++) writer.observe(TP, 1_000 + o, o);
+        writer.persistIfDue();
+        writer.persistIfDue();                              // not due again yet
+        now.addAndGet(60_000);
+        writer.persistIfDue();                              // due, but nothing changed
+        ArgumentCaptor<ProducerRecord<byte[], byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template, times(1)).send(sent.capture());
+        var persisted = sent.getValue();
+        assertThat(persisted.topic()).isEqualTo("idx");
+        assertThat(new String(persisted.key())).isEqualTo("orders-DLQ/3");
+
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+        var idx0 = new TopicPartition("idx", 0);
+        when(consumer.partitionsFor("idx")).thenReturn(List.of(new PartitionInfo("idx", 0, null, new Node[0], new Node[0])));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(idx0, 1L));
+        when(consumer.position(idx0)).thenReturn(0L, 1L);
+        when(consumer.poll(any(Duration.class))).thenReturn(new ConsumerRecords<>(Map.of(idx0,
+                List.of(new ConsumerRecord<>("idx", 0, 0, persisted.key(), persisted.value())))));
+        var reader = new TimeIndexRegistry(cf, template, "idx");
+        reader.every = 10;
+        reader.observe(TP, 1_200, 200);                     // its own entry is kept alongside the loaded ones
+
+        assertThat(reader.startOffset(TP, 1_025)).isEqualTo(20);
+        assertThat(reader.size(TP)).isEqualTo(6);
+        reader.startOffset(TP, 1_025);
+        verify(cf, times(1)).createConsumer(anyString(), isNull());
+    }
+}
@@ -0,0 +1,128 @@
+package com.dle.dlq.container;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.ReactiveDlqConsumerService;
+import com.dle.dlq.consumer.TimeIndexRegistry;
+import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.ledger.ReplayLedger;
+import com.dle.dlq.producer.DlqProducerService;
+import com.dle.dlq.producer.ProducerPool;
+import com.dle.dlq.producer.ReactiveDlqProducerService;
+import com.dle.dlq.producer.ReplayGovernor;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the classic (blocking) and reactor-kafka paths for fetching and replaying the same
+ * records against a real broker, printing records/s for each. Not a strict benchmark: run it
+ * with {@code mvn verify -Dit.test=ReplayPathsBenchmarkIT} and compare the numbers by eye.
+ */
+class ReplayPathsBenchmarkIT extends TestContainersBase {
+
+    private static final int RECORDS = 5000;
+
+    @Test
+    void classicVsReactive_fetchAndReplayThroughput() throws Exception {
+        String dlq = "bench-DLQ-" + UUID.randomUUID().toString().substring(0, 8);
+        try (var admin = AdminClient.create(Map.of("bootstrap.servers", KAFKA.getBootstrapServers()))) {
+            admin.createTopics(List.of(new NewTopic(dlq, 3, (short) 1),
+                    new NewTopic(dlq + "-classic", 3, (short) 1),
+                    new NewTopic(dlq + "-reactive", 3, (short) 1))).all().get();
+        }
+
+        var pf = new DefaultKafkaProducerFactory<byte[], byte[]>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+        var cf = new DefaultKafkaConsumerFactory<byte[], byte[]>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class,
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false));
+        var template = new KafkaTemplate<>(pf);
+
+        byte[] payload = "{\"order\":42,\"reason\":\"boom\"}".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < RECORDS; i++) {
+            template.send(dlq, payload);
+        }
+        template.flush();
+
+        var governor = new ReplayGovernor(cf, template, "bench-governor");
+        var ledger = mock(ReplayLedger.class);
+        when(ledger.reserve(any())).thenReturn(true);
+
+        // Fetch
+        var classicConsumer = new DlqConsumerService(cf, new TimeIndexRegistry());
+        var reactiveConsumer = new ReactiveDlqConsumerService(cf);
+        long t0 = System.nanoTime();
+        int classicFetched = classicConsumer.fetchLastN(dlq, RECORDS).size();
+        long classicFetchNs = System.nanoTime() - t0;
+        t0 = System.nanoTime();
+        long reactiveFetched = reactiveConsumer.streamLastN(dlq, RECORDS).count().block(Duration.ofSeconds(30));
+        long reactiveFetchNs = System.nanoTime() - t0;
+
+        // Replay, at the highest rate both paths allow
+        var items = new ArrayList<ReplayItem>(RECORDS);
+        String b64 = Base64.getEncoder().encodeToString(payload);
+        for (int i = 0; i < RECORDS; i++) items.add(new ReplayItem(i % 3, i, b64, Map.of()));
+
+        var classic = new DlqProducerService("", template, ledger, template, mock(DlqAdminService.class),
+                mock(ProducerPool.class), governor);
+        var reactive = new ReactiveDlqProducerService("", 256, pf, ledger, governor);
+        try {
+            t0 = System.nanoTime();
+            int classicSent = classic.replay(request(dlq + "-classic", items));
+            long classicReplayNs = System.nanoTime() - t0;
+            t0 = System.nanoTime();
+            int reactiveSent = reactive.replay(request(dlq + "-reactive", items), ReplayGovernor.Priority.REPLAYER)
+                    .block(Duration.ofMinutes(2)).sent();
+            long reactiveReplayNs = System.nanoTime() - t0;
+
+            System.out.printf("%n%-8s %-8s %8s %10s%n", "path", "op", "records", "records/s");
+            print("classic", "fetch", classicFetched, classicFetchNs);
+            print("reactive", "fetch", reactiveFetched, reactiveFetchNs);
+            print("classic", "replay", classicSent, classicReplayNs);
+            print("reactive", "replay", reactiveSent, reactiveReplayNs);
+
+            assertThat(classicFetched).isEqualTo(RECORDS);
+            assertThat(reactiveFetched).isEqualTo(RECORDS);
+            assertThat(classicSent).isEqualTo(RECORDS);
+            assertThat(reactiveSent).isEqualTo(RECORDS);
+        } finally {
+            reactive.destroy();
+            governor.destroy();
+            pf.destroy();
+        }
+    }
+
+    private static ReplayRequest request(String target, List<ReplayItem> items) {
+        return new ReplayRequest(null, target, items, 10_000, null, false, null, null, null, null, null, null, null);
+    }
+
+    private static void print(String path, String op, long records, long nanos) {
+        System.out.printf("%-8s %-8s %8d %10.0f%n", path, op, records, records / (nanos / 1e9));
+    }
+}
@@ -3,6 +3,9 @@ package com.dle.dlq.exception;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
 
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class GlobalExceptionHandlerUnitTest {
@@ -16,4 +19,24 @@ class GlobalExceptionHandlerUnitTest {
         assertThat(resp.getStatusCodeValue()).isEqualTo(500);
         assertThat(resp.getBody()).isEqualTo("Unexpected error");
     }
+
+    @Test
+    void busy_returns503_whenBlockingPoolRejects() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+        ResponseEntity<String> resp = handler.busy(new RejectedExecutionException("queue full"));
+
+        assertThat(resp.getStatusCode().value()).isEqualTo(503);
+    }
+
+    @Test
+    void notFound_returns404_withTheMessage_onlyForNotFoundException() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+        ResponseEntity<String> resp = handler.notFound(new NotFoundException("Export job 'x' does not exist on this replica"));
+
+        assertThat(resp.getStatusCode().value()).isEqualTo(404);
+        assertThat(resp.getBody()).contains("Export job 'x'");
+        assertThat(handler.handle(new NoSuchElementException("No value present")).getStatusCode().value()).isEqualTo(500);
+    }
 }
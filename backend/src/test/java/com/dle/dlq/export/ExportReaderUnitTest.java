@@ -0,0 +1,132 @@
+package com.dle.dlq.export;
+
+import com.dle.dlq.dto.ReplayItem;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExportReaderUnitTest {
+
+    @Test
+    void items_readBackAnExport_plainGzipOrZstd_withRawKeyValueAndHeaders() throws Exception {
+        var reader = new ExportReader();
+
+        for (Compression compression : Compression.values()) {
+            byte[] file = export(compression, 300);
+            assertThat(Compression.detect(file)).isEqualTo(compression);
+
+            List<ReplayItem> items = reader.items(body(file, 1000)).collectList().block();
+
+            assertThat(items).as(compression.name()).hasSize(300);
+            ReplayItem first = items.get(0);
+            assertThat(first.partition()).isEqualTo(2);
+            assertThat(first.offset()).isEqualTo(100);
+            assertThat(Base64.getDecoder().decode(first.keyBase64())).isEqualTo(bytes("k0"));
+            assertThat(Base64.getDecoder().decode(first.valueBase64())).isEqualTo(bytes("value-0"));
+            assertThat(first.headersBase64()).containsEntry("trace", Base64.getEncoder().encodeToString(bytes("t0")));
+            assertThat(items.get(299).offset()).isEqualTo(399);
+        }
+    }
+
+    @Test
+    void items_failOnCorruptCompressedInput_andAcceptAnEmptyBody() throws Exception {
+        var reader = new ExportReader();
+        byte[] file = export(Compression.GZIP, 50);
+        byte[] corrupt = Arrays.copyOf(file, file.length / 2);
+
+        assertThatThrownBy(() -> reader.items(body(corrupt, 64)).blockLast())
+                .isInstanceOf(IllegalArgumentException.class);
+        byte[] badCrc = file.clone();
+        badCrc[badCrc.length - 8] ^= 1;
+        assertThatThrownBy(() -> reader.items(body(badCrc, 64)).blockLast())
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("trailer");
+        byte[] zstd = export(Compression.ZSTD, 50);
+        assertThatThrownBy(() -> reader.items(body(Arrays.copyOf(zstd, zstd.length - 3), 64)).blockLast())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(reader.items(Flux.empty()).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void compressedInput_isOnlyReadAFewBuffersAheadOfTheDecoder() throws Exception {
+        var reader = new ExportReader();
+        reader.chunkBytes = 256;
+        byte[] file = export(Compression.ZSTD, 5000);
+        var requested = new ArrayList<Long>();
+
+        reader.items(body(file, 128).doOnRequest(requested::add)).take(3).blockLast();
+
+        long buffers = (file.length + 127) / 128;
+        assertThat(requested.stream().mapToLong(Long::longValue).sum()).isLessThan(buffers);
+    }
+
+    @Test
+    void compressedInput_isInflatedAsEachBufferArrives_onTheThreadDeliveringIt() throws Exception {
+        var reader = new ExportReader();
+        for (Compression compression : List.of(Compression.GZIP, Compression.ZSTD)) {
+            // two members/frames back to back, as concatenated files are
+            byte[] first = export(compression, 1000);
+            byte[] second = export(compression, 1000);
+            byte[] file = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, file, first.length, second.length);
+            Sinks.Many<DataBuffer> upload = Sinks.many().unicast().onBackpressureBuffer();
+            var items = new ArrayList<ReplayItem>();
+            var done = new AtomicBoolean();
+
+            reader.items(upload.asFlux()).subscribe(items::add, e -> { throw new AssertionError(e); }, () -> done.set(true));
+            List<DataBuffer> chunks = body(file, 97).collectList().block();
+            chunks.subList(0, chunks.size() / 2).forEach(upload::tryEmitNext);
+
+            assertThat(items).as(compression.name()).isNotEmpty().hasSizeLessThan(2000);
+            chunks.subList(chunks.size() / 2, chunks.size()).forEach(upload::tryEmitNext);
+            upload.tryEmitComplete();
+            assertThat(items).as(compression.name()).hasSize(2000);
+            assertThat(items.get(1999).offset()).isEqualTo(1099);
+            assertThat(done).isTrue();
+        }
+    }
+
+    private static byte[] export(Compression compression, int records) throws Exception {
+        var out = new ByteArrayOutputStream();
+        try (var compressed = compression.wrap(out);
+             var gen = new JsonFactory().createGenerator(compressed)) {
+            gen.setRootValueSeparator(null);
+            for (int i = 0; i < records; i++) {
+                var headers = new RecordHeaders().add("trace", bytes("t" + i));
+                var rec = new ConsumerRecord<>("orders-DLQ", 2, 100L + i, 1_000L + i, TimestampType.CREATE_TIME,
+                        -1, -1, bytes("k" + i), bytes("value-" + i), headers, Optional.empty());
+                ExportService.writeLine(gen, rec);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Flux<DataBuffer> body(byte[] file, int chunk) {
+        var out = new ArrayList<DataBuffer>();
+        for (int i = 0; i < file.length; i += chunk) {
+            out.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(file, i, Math.min(file.length, i + chunk))));
+        }
+        return Flux.fromIterable(out);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
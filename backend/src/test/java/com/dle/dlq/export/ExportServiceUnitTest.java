@@ -0,0 +1,214 @@
+package com.dle.dlq.export;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.DlqConsumerService.OffsetRange;
+import com.dle.dlq.consumer.TimeIndexRegistry;
+import com.dle.dlq.dto.ExportRequest;
+import com.dle.dlq.dto.TopicOffsets;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExportServiceUnitTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Test
+    void plan_appliesPartitions_inclusiveOffsets_andTheTimeWindow() throws Exception {
+        DlqAdminService admin = admin();
+        when(admin.offsetsForTimes(any(), eq(List.of(1_020L, 1_090L))))
+                .thenReturn(Map.of(1_020L, Map.of(0, 20L, 1, 20L, 2, 20L), 1_090L, Map.of(0, 45L, 1, 40L, 2, 90L)));
+        var svc = service(admin, consumer());
+
+        assertThat(svc.plan(new ExportRequest("orders-DLQ", List.of(0, 2), 5L, 49L, null, null, null)))
+                .containsExactly(new OffsetRange(0, 5, 50), new OffsetRange(2, 10, 50));
+        assertThat(svc.plan(new ExportRequest("orders-DLQ", null, 30L, null, 1_020L, 1_090L, null)))
+                .containsExactly(new OffsetRange(0, 30, 45), new OffsetRange(1, 30, 40), new OffsetRange(2, 30, 50));
+        assertThatThrownBy(() -> svc.plan(new ExportRequest(" ", null, null, null, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Compression.of("brotli")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void write_emitsOneLinePerRecord_withRawBytesInBase64_andSkipsRecordsOutsideTheWindow() throws Exception {
+        var svc = service(admin(), consumer());
+        var out = new ByteArrayOutputStream();
+
+        long n = svc.write(new ExportRequest("orders-DLQ", null, null, null, 1_001L, null, null),
+                List.of(new OffsetRange(0, 0, 3)), out, new AtomicLong());
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(n).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        JsonNode first = JSON.readTree(lines[0]);
+        assertThat(first.get("offset").asLong()).isEqualTo(1);
+        assertThat(first.get("keyBase64").isNull()).isTrue();
+        assertThat(Base64.getDecoder().decode(first.get("valueBase64").asText())).containsExactly(0, (byte) 0xFF, 1);
+        assertThat(new String(Base64.getDecoder().decode(first.get("headersBase64").get("kafka_dlt-exception-fqcn").asText())))
+                .isEqualTo("java.lang.IllegalStateException");
+    }
+
+    @Test
+    void job_writesACompressedFile_andReportsProgress(@TempDir Path dir) throws Exception {
+        var svc = service(admin(), consumer());
+        svc.dir = dir.toString();
+
+        var started = svc.start(new ExportRequest("orders-DLQ", List.of(1), null, null, null, null, "zstd"));
+        var job = svc.job(started.jobId());
+
+        assertThat(job.status()).isEqualTo("DONE");
+        assertThat(job.records()).isEqualTo(40);   // partition 1 holds offsets 10..49
+        assertThat(job.file()).endsWith(".ndjson.zst");
+        assertThat(job.bytes()).isEqualTo(Files.size(Path.of(job.file())));
+        assertThat(lines(new ZstdInputStream(Files.newInputStream(Path.of(job.file()))))).hasSize(40);
+        assertThatThrownBy(() -> svc.job("nope")).isInstanceOf(com.dle.dlq.exception.NotFoundException.class);
+    }
+
+    @Test
+    void job_fails_whenAPartitionCannotBeReadToTheEnd(@TempDir Path dir) throws Exception {
+        DlqConsumerService consumer = consumer();
+        when(consumer.scanWhile(eq("orders-DLQ"), eq(2), anyLong(), anyLong(), anyLong(), any())).thenReturn(12L);
+        var svc = service(admin(), consumer);
+        svc.dir = dir.toString();
+
+        var job = svc.job(svc.start(new ExportRequest("orders-DLQ", null, null, null, null, null, null)).jobId());
+
+        assertThat(job.status()).isEqualTo("FAILED");
+        assertThat(job.error()).contains("partition 2 stopped at offset 12");
+    }
+
+    @Test
+    void job_rejectedByTheExportPool_isNotLeftRunning(@TempDir Path dir) throws Exception {
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.export()).thenReturn(Schedulers.fromExecutor(r -> {
+            throw new RejectedExecutionException("dle.export is at its limit");
+        }));
+        var svc = new ExportService(admin(), consumer(), new TimeIndexRegistry(), schedulers);
+        svc.dir = dir.toString();
+
+        assertThatThrownBy(() -> svc.start(new ExportRequest("orders-DLQ", null, null, null, null, null, null)))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(svc.jobs).isEmpty();
+    }
+
+    @Test
+    void job_isForgottenOnceFinishedLongerThanItsTtl(@TempDir Path dir) throws Exception {
+        var svc = service(admin(), consumer());
+        svc.dir = dir.toString();
+        var now = new AtomicLong(1_000);
+        svc.clock = now::get;
+        svc.jobTtlMs = 60_000;
+
+        var started = svc.start(new ExportRequest("orders-DLQ", List.of(1), null, null, null, null, null));
+        var id = started.jobId();
+        now.addAndGet(60_000);
+        assertThat(svc.job(id).status()).isEqualTo("DONE");
+
+        now.addAndGet(1);
+        assertThatThrownBy(() -> svc.job(id)).isInstanceOf(com.dle.dlq.exception.NotFoundException.class);
+        assertThat(Path.of(started.file())).exists();   // only the job's tracking expires
+    }
+
+    @Test
+    void stream_producesGzipNdjson() throws Exception {
+        var svc = service(admin(), consumer());
+
+        var buffer = DataBufferUtils.join(svc.stream(new ExportRequest("orders-DLQ", List.of(0), null, null, null, null, "gzip"))).block();
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+
+        assertThat(lines(new GZIPInputStream(new ByteArrayInputStream(bytes)))).hasSize(50);
+    }
+
+    @Test
+    void stream_errors_withoutFinishingTheFrame_whenAPartitionCannotBeReadToTheEnd() throws Exception {
+        DlqConsumerService consumer = consumer();
+        when(consumer.scanWhile(eq("orders-DLQ"), eq(2), anyLong(), anyLong(), anyLong(), any())).thenReturn(12L);
+        var svc = service(admin(), consumer);
+        var sent = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> svc.stream(new ExportRequest("orders-DLQ", null, null, null, null, null, "gzip"))
+                .doOnNext(b -> {
+                    byte[] bytes = new byte[b.readableByteCount()];
+                    b.read(bytes);
+                    sent.writeBytes(bytes);
+                })
+                .blockLast())
+                .hasMessageContaining("partition 2 stopped at offset 12");
+        assertThatThrownBy(() -> lines(new GZIPInputStream(new ByteArrayInputStream(sent.toByteArray()))))
+                .isInstanceOf(java.io.IOException.class);
+    }
+
+    private static List<String> lines(InputStream in) throws Exception {
+        try (in) {
+            var text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return text.isEmpty() ? List.of() : List.of(text.split("\n"));
+        }
+    }
+
+    private static ExportService service(DlqAdminService admin, DlqConsumerService consumer) {
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.export()).thenReturn(Schedulers.immediate());
+        return new ExportService(admin, consumer, new TimeIndexRegistry(), schedulers);
+    }
+
+    /** orders-DLQ: partition p holds offsets [p * 10, 50). */
+    private static DlqAdminService admin() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenReturn(new TopicOffsets("orders-DLQ",
+                Map.of(0, 0L, 1, 10L, 2, 10L), Map.of(0, 50L, 1, 50L, 2, 50L)));
+        return admin;
+    }
+
+    private static DlqConsumerService consumer() {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.scanWhile(anyString(), anyInt(), anyLong(), anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            int partition = inv.getArgument(1);
+            long from = inv.getArgument(2);
+            long to = inv.getArgument(3);
+            Predicate<ConsumerRecord<byte[], byte[]>> sink = inv.getArgument(5);
+            for (long o = from; o < to; o++) {
+                if (!sink.test(rec(partition, o))) return o;
+            }
+            return to;
+        });
+        return consumer;
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(int partition, long offset) {
+        var headers = new RecordHeaders();
+        headers.add("kafka_dlt-exception-fqcn", "java.lang.IllegalStateException".getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders-DLQ", partition, offset, 1_000 + offset, TimestampType.CREATE_TIME, 0, 3,
+                null, new byte[] { 0, (byte) 0xFF, (byte) offset }, headers, Optional.empty());
+    }
+}
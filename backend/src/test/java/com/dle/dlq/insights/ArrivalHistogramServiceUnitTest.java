@@ -0,0 +1,83 @@
+package com.dle.dlq.insights;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.dto.ArrivalHistogram.Bucket;
+import com.dle.dlq.dto.TopicOffsets;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ArrivalHistogramServiceUnitTest {
+
+    private static final long MINUTE = 60_000;
+
+    /**
+     * Partition 0 receives 10 records per minute from minute 0, partition 1 receives 1 per minute;
+     * the broker answers timestamp lookups from that arithmetic.
+     */
+    private static DlqAdminService admin(AtomicLong now) throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenAnswer(inv -> {
+            long minutes = now.get() / MINUTE;
+            long partial = now.get() % MINUTE > 0 ? 1 : 0;
+            return new TopicOffsets("orders-DLQ", Map.of(0, 0L, 1, 0L), Map.of(0, (minutes + partial) * 10, 1, minutes + partial));
+        });
+        when(admin.offsetsForTimes(any(), anyCollection())).thenAnswer(inv -> {
+            Collection<Long> timestamps = inv.getArgument(1);
+            var out = new HashMap<Long, Map<Integer, Long>>();
+            timestamps.forEach(ts -> out.put(ts, Map.of(0, ts / MINUTE * 10, 1, ts / MINUTE)));
+            return out;
+        });
+        return admin;
+    }
+
+    @Test
+    void histogram_countsFromOffsetDifferences_andCachesClosedBuckets() throws Exception {
+        var now = new AtomicLong(100 * MINUTE + 30_000);
+        DlqAdminService admin = admin(now);
+        var svc = new ArrivalHistogramService(admin);
+        svc.clock = now::get;
+
+        var first = svc.histogram("orders-DLQ", Duration.ofMinutes(1), Duration.ofMinutes(10), true);
+
+        assertThat(first.buckets()).hasSize(10);
+        assertThat(first.from()).isEqualTo(91 * MINUTE);
+        assertThat(first.to()).isEqualTo(101 * MINUTE);
+        assertThat(first.buckets()).extracting(Bucket::count).containsOnly(11L);
+        assertThat(first.buckets().get(0).partitions()).isEqualTo(Map.of(0, 10L, 1, 1L));
+        assertThat(first.total()).isEqualTo(110);
+
+        now.addAndGet(MINUTE);
+        var second = svc.histogram("orders-DLQ", Duration.ofMinutes(1), Duration.ofMinutes(10), false);
+
+        assertThat(second.from()).isEqualTo(92 * MINUTE);
+        assertThat(second.buckets().get(0).partitions()).isNull();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> lookups = ArgumentCaptor.forClass(Collection.class);
+        verify(admin, times(2)).offsetsForTimes(any(), lookups.capture());
+        assertThat(lookups.getAllValues().get(0)).hasSize(10);     // 91..100: every boundary once
+        assertThat(lookups.getAllValues().get(1))
+                .containsExactlyInAnyOrder(100 * MINUTE, 101 * MINUTE);   // the newly closed bucket and the open one
+    }
+
+    @Test
+    void histogram_rejectsTooManyOrTooSmallBuckets() {
+        var svc = new ArrivalHistogramService(mock(DlqAdminService.class));
+        svc.maxBuckets = 100;
+
+        assertThatThrownBy(() -> svc.histogram("t", Duration.ofMinutes(1), Duration.ofHours(24), false))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("1440 buckets");
+        assertThatThrownBy(() -> svc.histogram("t", Duration.ofMillis(10), Duration.ofSeconds(1), false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package com.dle.dlq.insights;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.dto.TopicOffsets;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ClusteringServiceUnitTest {
+
+    @Test
+    void cluster_scansEveryPartition_andMergesTheirClusters() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenReturn(new TopicOffsets("orders-DLQ",
+                Map.of(0, 0L, 1, 100L), Map.of(0, 30L, 1, 110L)));
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.scan(eq("orders-DLQ"), anyInt(), anyLong(), anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            int partition = inv.getArgument(1);
+            long from = inv.getArgument(2);
+            long to = inv.getArgument(3);
+            Consumer<ConsumerRecord<byte[], byte[]>> sink = inv.getArgument(5);
+            for (long o = from; o < to; o++) {
+                String cause = partition == 0 && o % 3 == 0 ? "Schema id " + o + " unknown" : "Timeout after " + o + "ms";
+                sink.accept(rec(partition, o, cause));
+            }
+            return partition == 1 ? to - 1 : to;   // partition 1 hit the deadline one record short
+        });
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.scan()).thenReturn(Schedulers.parallel());
+        var svc = new ClusteringService(admin, consumer, new Fingerprinter(), schedulers);
+
+        var out = svc.cluster("orders-DLQ", null).block();
+
+        assertThat(out.scanned()).isEqualTo(40);
+        assertThat(out.complete()).isFalse();
+        assertThat(out.clusters()).extracting(c -> c.label())
+                .containsExactly("java.lang.RuntimeException: Timeout after #ms", "java.lang.RuntimeException: Schema id # unknown");
+        var timeouts = out.clusters().get(0);
+        assertThat(timeouts.count()).isEqualTo(30);
+        assertThat(timeouts.maxOverestimate()).isZero();
+        assertThat(timeouts.firstSeen()).isEqualTo(1_001);   // offset 0 was a schema error
+        assertThat(timeouts.lastSeen()).isEqualTo(1_109);
+        assertThat(timeouts.examples()).hasSize(3);
+        verify(consumer).scan(eq("orders-DLQ"), eq(0), eq(0L), eq(30L), anyLong(), any());
+        verify(consumer).scan(eq("orders-DLQ"), eq(1), eq(100L), eq(110L), anyLong(), any());
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(int partition, long offset, String message) {
+        var headers = new RecordHeaders();
+        headers.add("kafka_dlt-exception-fqcn", "java.lang.RuntimeException".getBytes(StandardCharsets.UTF_8));
+        headers.add("kafka_dlt-exception-message", message.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders-DLQ", partition, offset, 1_000 + offset, TimestampType.CREATE_TIME, 0, 0,
+                null, new byte[0], headers, Optional.empty());
+    }
+}
@@ -0,0 +1,146 @@
+package com.dle.dlq.insights;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import com.dle.dlq.consumer.TimeIndexRegistry;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class DlqIndexerUnitTest {
+
+    @SuppressWarnings("unchecked")
+    private final Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void container_subscribesToTheDlqPattern_onTheSharedFactory_withAUniqueGroup() {
+        var factory = new ConcurrentKafkaListenerContainerFactory<byte[], byte[]>();
+        factory.setConsumerFactory(mock(ConsumerFactory.class));
+        var indexer = new DlqIndexer(factory, new TimeIndexRegistry(), new SimpleMeterRegistry(), ".*-DLQ$", "");
+        indexer.concurrency = 3;
+        indexer.topicRefreshMs = 5000;
+
+        var container = indexer.container();
+
+        var props = container.getContainerProperties();
+        assertThat(props.getTopicPattern().pattern()).isEqualTo(".*-DLQ$");
+        assertThat(props.getGroupId()).startsWith("dle-indexer-");
+        assertThat(props.getAckMode()).isEqualTo(ContainerProperties.AckMode.MANUAL);
+        assertThat(props.getKafkaConsumerProperties())
+                .containsEntry(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false")
+                .containsEntry(ConsumerConfig.METADATA_MAX_AGE_CONFIG, "5000")
+                .containsEntry(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, "false");
+        assertThat(container.getConcurrency()).isEqualTo(3);
+        assertThat(new DlqIndexer(factory, new TimeIndexRegistry(), new SimpleMeterRegistry(), ".*-DLQ$", "").container()
+                .getContainerProperties().getGroupId()).isNotEqualTo(props.getGroupId());
+    }
+
+    @Test
+    void onRecord_buildsPerPartitionState_andIgnoresRedeliveries() {
+        var timeIndex = new TimeIndexRegistry();   // one entry every 1000 offsets
+        var indexer = indexer(timeIndex);
+        for (long o = 100; o < 150; o++) indexer.onRecord(rec(0, o, o % 5 == 0 ? "Timeout" : "NPE"), consumer);
+        for (long o = 120; o < 130; o++) indexer.onRecord(rec(0, o, "NPE"), consumer);   // redelivered after a rebalance
+        indexer.onRecord(rec(1, 7, "NPE"), consumer);
+
+        var index = indexer.index("orders-DLQ", 5);
+
+        assertThat(index.partitions()).extracting(p -> p.partition()).containsExactly(0, 1);
+        var p0 = index.partitions().get(0);
+        assertThat(p0.firstOffset()).isEqualTo(100);
+        assertThat(p0.nextOffset()).isEqualTo(150);
+        assertThat(p0.records()).isEqualTo(50);
+        assertThat(p0.timeIndexEntries()).isEqualTo(1);
+        assertThat(p0.firstTimestamp()).isEqualTo(10_100);
+        assertThat(p0.headerValues().get("kafka_dlt-exception-fqcn")).isEqualTo(Map.of("NPE", 40L, "Timeout", 10L));
+        assertThat(indexer.stats("orders-DLQ", 0).records).isEqualTo(50);
+        assertThat(timeIndex.floorOffset(new TopicPartition("orders-DLQ", 0), 10_125)).isEqualTo(100);
+        assertThat(timeIndex.floorOffset(new TopicPartition("orders-DLQ", 2), 10_125)).isEqualTo(-1);
+    }
+
+    @Test
+    void rebalance_resumesKnownPartitions_andDropsDeletedTopics() {
+        var indexer = indexer();
+        indexer.onRecord(rec(0, 41, "NPE"), consumer);
+        var tp0 = new TopicPartition("orders-DLQ", 0);
+        var tp1 = new TopicPartition("orders-DLQ", 1);
+
+        indexer.onAssigned(consumer, List.of(tp0, tp1));
+        verify(consumer).seek(tp0, 42L);
+        verify(consumer).seekToBeginning(List.of(tp1));
+
+        when(consumer.listTopics()).thenReturn(Map.of("orders-DLQ", List.<PartitionInfo>of()));
+        indexer.onRevoked(consumer, List.of(tp0));
+        assertThat(indexer.index("orders-DLQ", 5).partitions()).hasSize(1);
+
+        when(consumer.listTopics()).thenReturn(Map.of());
+        indexer.onRevoked(consumer, List.of(tp0));
+        assertThat(indexer.index("orders-DLQ", 5).partitions()).isEmpty();
+    }
+
+    @Test
+    void onRecord_rebuildsAPartition_onceRetentionExpiresTooMuchOfIt() {
+        var indexer = indexer();
+        long[] now = {0};
+        indexer.clock = () -> now[0];
+        var tp0 = new TopicPartition("orders-DLQ", 0);
+        for (long o = 100; o < 150; o++) indexer.onRecord(rec(0, o, "NPE"), consumer);
+
+        // Within the threshold: nothing happens
+        now[0] = 60_000;
+        when(consumer.beginningOffsets(List.of(tp0))).thenReturn(Map.of(tp0, 105L));
+        indexer.onRecord(rec(0, 150, "NPE"), consumer);
+        assertThat(indexer.stats("orders-DLQ", 0).records).isEqualTo(51);
+
+        // Checked again only once the interval has passed
+        when(consumer.beginningOffsets(List.of(tp0))).thenReturn(Map.of(tp0, 120L));
+        indexer.onRecord(rec(0, 151, "NPE"), consumer);
+        now[0] = 120_000;
+        indexer.onRecord(rec(0, 152, "NPE"), consumer);
+        verify(consumer).seek(tp0, 120L);
+        assertThat(indexer.stats("orders-DLQ", 0).records).isZero();
+
+        // The rest of the batch fetched before the seek is skipped; the rewound records are indexed
+        when(consumer.position(tp0)).thenReturn(120L);
+        indexer.onRecord(rec(0, 153, "NPE"), consumer);
+        when(consumer.position(tp0)).thenReturn(130L);
+        for (long o = 120; o < 154; o++) indexer.onRecord(rec(0, o, "NPE"), consumer);
+
+        var p0 = indexer.index("orders-DLQ", 5).partitions().get(0);
+        assertThat(p0.firstOffset()).isEqualTo(120);
+        assertThat(p0.nextOffset()).isEqualTo(154);
+        assertThat(p0.records()).isEqualTo(34);
+    }
+
+    private static DlqIndexer indexer() {
+        return indexer(new TimeIndexRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DlqIndexer indexer(TimeIndexRegistry timeIndex) {
+        return new DlqIndexer(mock(ConcurrentKafkaListenerContainerFactory.class), timeIndex, new SimpleMeterRegistry(), ".*-DLQ$", "g");
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(int partition, long offset, String fqcn) {
+        var headers = new RecordHeaders();
+        headers.add("kafka_dlt-exception-fqcn", fqcn.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders-DLQ", partition, offset, 10_000 + offset, TimestampType.CREATE_TIME, 0, 0,
+                null, new byte[10], headers, Optional.empty());
+    }
+}
@@ -0,0 +1,49 @@
+package com.dle.dlq.insights;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FingerprinterUnitTest {
+
+    private final Fingerprinter fingerprinter = new Fingerprinter();
+
+    @Test
+    void label_fromExceptionHeaders_masksIdsAndNumbers() {
+        var a = rec("{}", "java.lang.IllegalStateException", "Order 123 for 3f2b8c1e-4a5d-4e6f-8a9b-0c1d2e3f4a5b not found after 2.5s");
+        var b = rec("{}", "java.lang.IllegalStateException", "Order 98 for 00000000-1111-2222-3333-444444444444 not found after 10s");
+
+        assertThat(fingerprinter.label(a))
+                .isEqualTo("java.lang.IllegalStateException: Order # for <uuid> not found after #s")
+                .isEqualTo(fingerprinter.label(b));
+        assertThat(Fingerprinter.fingerprint(fingerprinter.label(a))).hasSize(16)
+                .isEqualTo(Fingerprinter.fingerprint(fingerprinter.label(b)));
+    }
+
+    @Test
+    void label_withoutHeaders_isThePayloadShape() {
+        var a = rec("{\"id\":1,\"items\":[{\"sku\":\"A\",\"qty\":2}],\"note\":null}", null, null);
+        var b = rec("{\"note\":\"x\",\"items\":[],\"id\":7}", null, null);
+        var c = rec("{\"items\":[{\"qty\":5,\"sku\":\"B\"}],\"id\":2,\"note\":null}", null, null);
+
+        assertThat(fingerprinter.label(a)).isEqualTo("payload {id:number,items:[{qty:number,sku:string}],note:null}")
+                .isEqualTo(fingerprinter.label(c));
+        assertThat(fingerprinter.label(b)).isNotEqualTo(fingerprinter.label(a));
+        assertThat(fingerprinter.label(rec("not json", null, null))).isEqualTo("payload text");
+        assertThat(fingerprinter.label(rec("", null, null))).isEqualTo("payload empty");
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(String value, String fqcn, String message) {
+        var headers = new RecordHeaders();
+        if (fqcn != null) headers.add("kafka_dlt-exception-fqcn", fqcn.getBytes(StandardCharsets.UTF_8));
+        if (message != null) headers.add("kafka_dlt-exception-message", message.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders-DLQ", 0, 0L, 0L, TimestampType.CREATE_TIME, 0, 0,
+                null, value.getBytes(StandardCharsets.UTF_8), headers, Optional.empty());
+    }
+}
@@ -0,0 +1,43 @@
+package com.dle.dlq.insights;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogUnitTest {
+
+    @Test
+    void estimate_isWithinAFewPercent_acrossSmallAndLargeCardinalities() {
+        for (int n : new int[] { 10, 1_000, 200_000 }) {
+            var hll = new HyperLogLog(12);
+            for (int i = 0; i < n; i++) {
+                hll.add(("order-" + i).getBytes(StandardCharsets.UTF_8));
+                hll.add(("order-" + i).getBytes(StandardCharsets.UTF_8));   // duplicates do not count
+            }
+            assertThat((double) hll.estimate()).isCloseTo(n, within(n * 0.05 + 1));
+        }
+    }
+
+    @Test
+    void merge_countsTheUnion_andSurvivesSerialization() throws Exception {
+        var a = new HyperLogLog(12);
+        var b = new HyperLogLog(12);
+        for (int i = 0; i < 30_000; i++) a.add(("k" + i).getBytes(StandardCharsets.UTF_8));
+        for (int i = 20_000; i < 50_000; i++) b.add(("k" + i).getBytes(StandardCharsets.UTF_8));
+
+        var bytes = new ByteArrayOutputStream();
+        b.write(new DataOutputStream(bytes));
+        a.merge(HyperLogLog.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+
+        assertThat((double) a.estimate()).isCloseTo(50_000, within(2_500.0));
+        assertThatThrownBy(() -> a.merge(new HyperLogLog(10))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.dle.dlq.insights;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingUnitTest {
+
+    @Test
+    void keepsHeavyHitters_withinBoundedCounters_andBoundsTheirCounts() {
+        var sketch = new SpaceSaving(20);
+        var random = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            // 3 frequent causes (60%, 20%, 10%) plus 10% of one-off noise
+            double r = random.nextDouble();
+            String key = r < 0.6 ? "timeout" : r < 0.8 ? "npe" : r < 0.9 ? "schema" : "noise-" + i;
+            sketch.offer(key, key, i, "0:" + i);
+        }
+
+        var top = sketch.top(3);
+        assertThat(top).extracting(c -> c.key).containsExactly("timeout", "npe", "schema");
+        assertThat(sketch.top(100)).hasSize(20);
+        assertThat(sketch.total()).isEqualTo(100_000);
+        for (var c : top) {
+            long lower = c.count - c.error;
+            assertThat(lower).isLessThanOrEqualTo(c.count);
+            assertThat(c.error).isLessThanOrEqualTo(100_000 / 20);
+            assertThat(c.examples).hasSize(SpaceSaving.EXAMPLES);
+        }
+        assertThat(top.get(0).firstSeen).isLessThan(top.get(0).lastSeen);
+    }
+
+    @Test
+    void merge_addsCounts_andTimeRanges_acrossPartitions() {
+        var a = new SpaceSaving(4);
+        var b = new SpaceSaving(4);
+        for (int i = 0; i < 30; i++) a.offer("timeout", "timeout", 100 + i, "0:" + i);
+        for (int i = 0; i < 5; i++) a.offer("npe", "npe", 50, "0:" + (100 + i));
+        for (int i = 0; i < 20; i++) b.offer("timeout", "timeout", 10 + i, "1:" + i);
+
+        var merged = SpaceSaving.merge(a, b);
+
+        var top = merged.top(10);
+        assertThat(top).extracting(c -> c.key).containsExactly("timeout", "npe");
+        assertThat(top.get(0).count).isEqualTo(50);
+        assertThat(top.get(0).error).isZero();            // neither summary was full
+        assertThat(top.get(0).firstSeen).isEqualTo(10);
+        assertThat(top.get(0).lastSeen).isEqualTo(129);
+        assertThat(top.get(0).examples).containsExactly("0:0", "0:1", "0:2");
+        assertThat(merged.total()).isEqualTo(55);
+    }
+
+    @Test
+    void merge_ofAFullSummary_chargesKeysAbsentFromItItsMinimum() {
+        var full = new SpaceSaving(2);
+        var partial = new SpaceSaving(3);
+        for (int i = 0; i < 10; i++) full.offer("x", "x", i, "0:" + i);
+        for (int i = 0; i < 4; i++) full.offer("y", "y", i, "0:" + i);
+        for (int i = 0; i < 8; i++) partial.offer("x", "x", i, "1:" + i);
+        for (int i = 0; i < 6; i++) partial.offer("z", "z", i, "1:" + i);
+
+        var top = SpaceSaving.merge(full, partial).top(3);
+
+        assertThat(top).extracting(c -> c.key).containsExactly("x", "z", "y");
+        assertThat(top.get(0).count).isEqualTo(18);
+        assertThat(top.get(1).count).isEqualTo(6 + 4);   // z may have occurred up to 4 times in the full summary
+        assertThat(top.get(1).error).isEqualTo(4);
+        assertThat(top.get(2).count).isEqualTo(4);       // the partial summary saw every key it was offered
+        assertThat(top.get(2).error).isZero();
+    }
+}
@@ -0,0 +1,49 @@
+package com.dle.dlq.insights;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TDigestUnitTest {
+
+    @Test
+    void quantiles_ofAUniformStream_areClose_especiallyInTheTail() {
+        var digest = new TDigest(100);
+        var random = new SplittableRandom(3);
+        for (int i = 0; i < 100_000; i++) {
+            digest.add(random.nextInt(10_000));
+        }
+
+        assertThat(digest.count()).isEqualTo(100_000);
+        assertThat(digest.quantile(0.5)).isCloseTo(5_000, within(150.0));
+        assertThat(digest.quantile(0.9)).isCloseTo(9_000, within(100.0));
+        assertThat(digest.quantile(0.99)).isCloseTo(9_900, within(30.0));
+        assertThat(digest.quantile(1)).isEqualTo(9_999);
+        assertThat(digest.quantile(0)).isEqualTo(0);
+    }
+
+    @Test
+    void merge_ofPartitions_matchesOneDigestOverEverything_andSurvivesSerialization() throws Exception {
+        var small = new TDigest(100);
+        var large = new TDigest(100);
+        for (int i = 0; i < 50_000; i++) small.add(i % 100);            // sizes 0..99
+        for (int i = 0; i < 50_000; i++) large.add(1_000 + i % 1_000);  // sizes 1000..1999
+
+        var bytes = new ByteArrayOutputStream();
+        large.write(new DataOutputStream(bytes));
+        small.merge(TDigest.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+
+        assertThat(small.count()).isEqualTo(100_000);
+        assertThat(small.quantile(0.25)).isCloseTo(50, within(10.0));
+        assertThat(small.quantile(0.99)).isCloseTo(1_980, within(15.0));
+        assertThat(small.quantile(1)).isEqualTo(1_999);
+        assertThat(new TDigest(100).quantile(0.5)).isNaN();
+    }
+}
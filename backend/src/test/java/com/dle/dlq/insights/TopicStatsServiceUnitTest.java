@@ -0,0 +1,128 @@
+package com.dle.dlq.insights;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.dto.TopicOffsets;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TopicStatsServiceUnitTest {
+
+    private static final long NOW = 1_000_000;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stats_foldOnlyNewRecords_andMergePartitions() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("orders-DLQ")).thenReturn(
+                new TopicOffsets("orders-DLQ", Map.of(0, 0L, 1, 0L), Map.of(0, 100L, 1, 50L)),
+                new TopicOffsets("orders-DLQ", Map.of(0, 0L, 1, 0L), Map.of(0, 110L, 1, 50L)));
+        DlqConsumerService consumer = scanning();
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(org.apache.kafka.clients.producer.ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        var svc = service(admin, consumer, template);
+
+        var first = svc.stats("orders-DLQ").block();
+        var second = svc.stats("orders-DLQ").block();
+
+        assertThat(first.records()).isEqualTo(150);
+        assertThat(first.distinctKeys()).isBetween(48L, 52L);        // keys repeat every 50 offsets
+        assertThat(first.payloadBytes().max()).isEqualTo(99);
+        assertThat(first.ageMs().max()).isEqualTo(NOW);               // offset 0 has timestamp 0
+        assertThat(first.headers()).containsOnlyKeys("kafka_dlt-exception-fqcn");
+        assertThat(first.headers().get("kafka_dlt-exception-fqcn").records()).isEqualTo(150);
+        assertThat(first.headers().get("kafka_dlt-exception-fqcn").distinctValues()).isEqualTo(2);
+
+        assertThat(second.records()).isEqualTo(160);
+        assertThat(second.payloadBytes().max()).isEqualTo(109);
+        verify(consumer).scan(eq("orders-DLQ"), eq(0), eq(0L), eq(100L), anyLong(), any());
+        verify(consumer).scan(eq("orders-DLQ"), eq(1), eq(0L), eq(50L), anyLong(), any());
+        verify(consumer).scan(eq("orders-DLQ"), eq(0), eq(100L), eq(110L), anyLong(), any());
+        verifyNoMoreInteractions(consumer);
+        verify(template, times(3)).send(any(org.apache.kafka.clients.producer.ProducerRecord.class));
+    }
+
+    @Test
+    void partitionSketches_areRebuiltOnceRetentionExpiredTooMuchOfThem() throws Exception {
+        DlqConsumerService consumer = scanning();
+        var svc = service(mock(DlqAdminService.class), consumer, null);
+        svc.share = false;
+
+        svc.current("t", 0, 0, 100, Long.MAX_VALUE);
+        svc.current("t", 0, 10, 100, Long.MAX_VALUE);   // 10% expired: kept
+        var rebuilt = svc.current("t", 0, 30, 120, Long.MAX_VALUE);
+
+        verify(consumer).scan(eq("t"), eq(0), eq(0L), eq(100L), anyLong(), any());
+        verify(consumer).scan(eq("t"), eq(0), eq(30L), eq(120L), anyLong(), any());
+        assertThat(rebuilt.from).isEqualTo(30);
+        assertThat(rebuilt.records).isEqualTo(90);
+    }
+
+    @Test
+    void partitionStats_roundTripThroughTheirSharedForm() {
+        var stats = new PartitionStats(5, 2);
+        for (long o = 5; o < 25; o++) stats.fold(rec(0, o));
+
+        var copy = PartitionStats.fromBytes(stats.toBytes());
+
+        assertThat(copy.from).isEqualTo(5);
+        assertThat(copy.next).isEqualTo(25);
+        assertThat(copy.records).isEqualTo(20);
+        assertThat(copy.keys.estimate()).isEqualTo(stats.keys.estimate());
+        assertThat(copy.sizes.quantile(0.5)).isEqualTo(stats.sizes.quantile(0.5));
+        assertThat(copy.headerRecords).isEqualTo(stats.headerRecords);
+    }
+
+    private static TopicStatsService service(DlqAdminService admin, DlqConsumerService consumer,
+                                             KafkaTemplate<byte[], byte[]> template) {
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.scan()).thenReturn(Schedulers.immediate());
+        @SuppressWarnings("unchecked")
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        @SuppressWarnings("unchecked")
+        ObjectProvider<DlqIndexer> indexer = mock(ObjectProvider.class);
+        var svc = new TopicStatsService(admin, consumer, cf, template, schedulers, indexer, "stats");
+        svc.clock = () -> NOW;
+        svc.shareRefreshMs = Long.MAX_VALUE;   // no shared topic in these tests
+        return svc;
+    }
+
+    /** A consumer whose partitions hold a record at every offset. */
+    private static DlqConsumerService scanning() {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.scan(anyString(), anyInt(), anyLong(), anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            int partition = inv.getArgument(1);
+            long from = inv.getArgument(2);
+            long to = inv.getArgument(3);
+            Consumer<ConsumerRecord<byte[], byte[]>> sink = inv.getArgument(5);
+            for (long o = from; o < to; o++) sink.accept(rec(partition, o));
+            return to;
+        });
+        return consumer;
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(int partition, long offset) {
+        var headers = new RecordHeaders();
+        headers.add("kafka_dlt-exception-fqcn", (offset % 2 == 0 ? "A" : "B").getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>("orders-DLQ", partition, offset, offset, TimestampType.CREATE_TIME, 0, 0,
+                ("key-" + offset % 50).getBytes(StandardCharsets.UTF_8), new byte[(int) offset], headers, Optional.empty());
+    }
+}
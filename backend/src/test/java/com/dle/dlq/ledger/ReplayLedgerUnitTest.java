@@ -0,0 +1,205 @@
+package com.dle.dlq.ledger;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jdk.jfr.consumer.RecordingStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReplayLedgerUnitTest {
+
+    @Test
+    void key_idempotencyKey_isDeterministic_andTargetSpecific() {
+        var a = new ReplayLedger.Key("orders-DLQ", 1, 42L, "orders");
+        var b = new ReplayLedger.Key("orders-DLQ", 1, 42L, "orders");
+        var c = new ReplayLedger.Key("orders-DLQ", 1, 42L, "orders-retry");
+
+        assertThat(a.idempotencyKey()).isEqualTo(b.idempotencyKey());
+        assertThat(a.idempotencyKey()).isNotEqualTo(c.idempotencyKey());
+        assertThat(a.id()).isEqualTo("orders-DLQ/1/42->orders");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_sendsToLedgerTopic_andRemembersLocally() {
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        var ledger = new ReplayLedger(cf, template, "ledger");
+        var key = new ReplayLedger.Key("a-DLQ", 0, 1L, "a");
+
+        assertThat(ledger.isReplayed(key)).isFalse();
+        ledger.record(key);
+        assertThat(ledger.isReplayed(key)).isTrue();
+
+        ArgumentCaptor<ProducerRecord<byte[], byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template).send(captor.capture());
+        assertThat(captor.getValue().topic()).isEqualTo("ledger");
+        assertThat(new String(captor.getValue().key(), StandardCharsets.UTF_8)).isEqualTo(key.id());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ensureLoaded_rebuildsViewFromTopic_honouringTombstones_onlyOnce() throws Exception {
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        TopicPartition tp = new TopicPartition("ledger", 0);
+        when(consumer.partitionsFor("ledger"))
+                .thenReturn(List.of(new PartitionInfo("ledger", 0, null, new Node[0], new Node[0])));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp, 3L));
+        when(consumer.position(tp)).thenReturn(0L, 3L);
+        when(consumer.poll(any(Duration.class))).thenReturn(new ConsumerRecords<>(Map.of(tp, List.of(
+                rec(0, "x-DLQ/0/1->x", "t"),
+                rec(1, "x-DLQ/0/2->x", "t"),
+                rec(2, "x-DLQ/0/2->x", null)))));
+
+        var ledger = new ReplayLedger(cf, mock(KafkaTemplate.class), "ledger");
+        ledger.ensureLoaded();
+        ledger.ensureLoaded();
+
+        assertThat(ledger.isReplayed(new ReplayLedger.Key("x-DLQ", 0, 1L, "x"))).isTrue();
+        assertThat(ledger.isReplayed(new ReplayLedger.Key("x-DLQ", 0, 2L, "x"))).isFalse();
+        verify(consumer).seekToBeginning(List.of(tp));
+        verify(cf, times(1)).createConsumer(anyString(), isNull());
+        verify(consumer, never()).close(); // kept to tail the topic
+        ledger.destroy();
+        verify(consumer).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void afterLoading_theTopicIsTailed_soOtherReplicasReplaysShowUp() throws Exception {
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+        TopicPartition tp = new TopicPartition("ledger", 0);
+        when(consumer.partitionsFor("ledger"))
+                .thenReturn(List.of(new PartitionInfo("ledger", 0, null, new Node[0], new Node[0])));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp, 0L));
+        when(consumer.position(tp)).thenReturn(0L);
+        when(consumer.poll(any(Duration.class)))
+                .thenReturn(new ConsumerRecords<>(Map.of(tp, List.of(rec(0, "x-DLQ/0/5->x", "t")))))
+                .thenReturn(ConsumerRecords.empty());
+
+        var ledger = new ReplayLedger(cf, mock(KafkaTemplate.class), "ledger");
+        ledger.tailIntervalMs = 60_000; // polled by hand below
+        ledger.ensureLoaded();
+        var key = new ReplayLedger.Key("x-DLQ", 0, 5L, "x");
+        assertThat(ledger.isReplayed(key)).isFalse();
+
+        ledger.pollTail();
+
+        assertThat(ledger.isReplayed(key)).isTrue();
+        assertThat(ledger.reserve(key)).isFalse();
+        ledger.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reserve_grantsEachKeyOnce_untilReleased() throws Exception {
+        var ledger = new ReplayLedger(mock(ConsumerFactory.class), mock(KafkaTemplate.class), "ledger");
+        var key = new ReplayLedger.Key("a-DLQ", 0, 1L, "a");
+
+        var granted = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                if (ledger.reserve(key)) granted.incrementAndGet();
+            }));
+        }
+        for (var t : threads) t.join();
+
+        assertThat(granted).hasValue(1);
+        assertThat(ledger.isReplayed(key)).isTrue();
+        ledger.release(key);
+        assertThat(ledger.isReplayed(key)).isFalse();
+        assertThat(ledger.reserve(key)).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void inMemoryView_forgetsTheOldestKeys_beyondMaxEntries() {
+        var ledger = new ReplayLedger(mock(ConsumerFactory.class), mock(KafkaTemplate.class), "ledger");
+        ledger.maxEntries = 3;
+
+        for (long offset = 0; offset < 5; offset++) {
+            ledger.remember(new ReplayLedger.Key("a-DLQ", 0, offset, "a"));
+        }
+        ledger.release(new ReplayLedger.Key("a-DLQ", 0, 4L, "a"));
+        ledger.remember(new ReplayLedger.Key("a-DLQ", 0, 5L, "a"));
+
+        assertThat(ledger.size()).isEqualTo(3);
+        assertThat(ledger.isReplayed(new ReplayLedger.Key("a-DLQ", 0, 1L, "a"))).isFalse();
+        assertThat(ledger.isReplayed(new ReplayLedger.Key("a-DLQ", 0, 2L, "a"))).isTrue();
+        assertThat(ledger.isReplayed(new ReplayLedger.Key("a-DLQ", 0, 5L, "a"))).isTrue();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ensureLoaded_swallowsFailures_andRetriesLater() {
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        when(cf.createConsumer(anyString(), isNull())).thenThrow(new IllegalStateException("broker down"));
+
+        var ledger = new ReplayLedger(cf, mock(KafkaTemplate.class), "ledger");
+        ledger.ensureLoaded();
+        ledger.ensureLoaded();
+
+        verify(cf, times(2)).createConsumer(anyString(), isNull());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ensureLoaded_blockingOnKafka_doesNotPinVirtualThreadCarrier() throws Exception {
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        when(cf.createConsumer(anyString(), isNull())).thenAnswer(inv -> {
+            Thread.sleep(50); // slow broker round-trip while the load lock is held
+            throw new IllegalStateException("broker down");
+        });
+        var ledger = new ReplayLedger(cf, mock(KafkaTemplate.class), "ledger");
+
+        var pinned = new AtomicInteger();
+        try (var events = new RecordingStream()) {
+            events.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            events.onEvent("jdk.VirtualThreadPinned", e -> pinned.incrementAndGet());
+            events.startAsync();
+
+            var threads = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(Thread.ofVirtual().start(ledger::ensureLoaded));
+            }
+            for (var t : threads) t.join();
+            events.stop();
+        }
+
+        assertThat(pinned).hasValue(0);
+    }
+
+    private static ConsumerRecord<byte[], byte[]> rec(long offset, String key, String value) {
+        return new ConsumerRecord<>("ledger", 0, offset,
+                key.getBytes(StandardCharsets.UTF_8),
+                value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package com.dle.dlq.producer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveThrottleUnitTest {
+
+    private static final AdaptiveThrottle.Settings SETTINGS =
+            new AdaptiveThrottle.Settings(10, 1000, 50, 0.5, 1_000, 5, 1_000);
+
+    @Test
+    void increasesAdditively_whileConsumersKeepUp_upToCeiling() {
+        var now = new AtomicLong(0);
+        var throttle = new AdaptiveThrottle(900, SETTINGS, signals(new AtomicLong(0), new AtomicLong(0)), now::get);
+
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(950);
+
+        now.addAndGet(1_000);
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(1000);
+
+        now.addAndGet(1_000);
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(1000);
+    }
+
+    @Test
+    void decreasesMultiplicatively_whenLagExceedsThreshold_downToFloor() {
+        var now = new AtomicLong(0);
+        var lag = new AtomicLong(5_000);
+        var throttle = new AdaptiveThrottle(40, SETTINGS, signals(lag, new AtomicLong(0)), now::get);
+
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(20);
+
+        now.addAndGet(1_000);
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(10);
+
+        now.addAndGet(1_000);
+        assertThat(throttle.intervalNanos()).isEqualTo(100_000_000L);
+        assertThat(throttle.ratePerSec()).isEqualTo(10);
+    }
+
+    @Test
+    void backsOff_whenDlqReentryRateClimbs() {
+        var now = new AtomicLong(0);
+        var dlqEnd = new AtomicLong(1_000);
+        var throttle = new AdaptiveThrottle(400, SETTINGS, signals(new AtomicLong(0), dlqEnd), now::get);
+
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(450);
+
+        // 20 records re-entered the DLQ in 2s -> 10/s > 5/s threshold
+        now.addAndGet(2_000);
+        dlqEnd.addAndGet(20);
+        throttle.intervalNanos();
+        assertThat(throttle.ratePerSec()).isEqualTo(225);
+    }
+
+    @Test
+    void samplesAtMostOncePerInterval_andHoldsRateOnSamplingFailure() {
+        var now = new AtomicLong(0);
+        var calls = new AtomicLong();
+        AdaptiveThrottle.Signals failing = new AdaptiveThrottle.Signals() {
+            @Override
+            public long targetLag() {
+                calls.incrementAndGet();
+                throw new IllegalStateException("admin down");
+            }
+
+            @Override
+            public long dlqEndOffset() {
+                return 0;
+            }
+        };
+        var throttle = new AdaptiveThrottle(100, SETTINGS, failing, now::get);
+
+        throttle.intervalNanos();
+        throttle.intervalNanos();
+        now.addAndGet(500);
+        throttle.intervalNanos();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(throttle.ratePerSec()).isEqualTo(100);
+    }
+
+    private static AdaptiveThrottle.Signals signals(AtomicLong lag, AtomicLong dlqEnd) {
+        return new AdaptiveThrottle.Signals() {
+            @Override
+            public long targetLag() {
+                return lag.get();
+            }
+
+            @Override
+            public long dlqEndOffset() {
+                return dlqEnd.get();
+            }
+        };
+    }
+}
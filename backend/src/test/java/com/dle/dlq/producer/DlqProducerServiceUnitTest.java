@@ -1,16 +1,26 @@
 package com.dle.dlq.producer;
 
+import com.dle.dlq.admin.DlqAdminService;
 import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayReport;
 import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.ledger.ReplayLedger;
 import com.dle.dlq.util.MessageMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -18,7 +28,10 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -53,7 +66,7 @@ class DlqProducerServiceUnitTest {
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(filteredHeaders);
 
-            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
             svc.throttlePerSec = 5000;
 
             int sent = svc.replay(req);
@@ -97,7 +110,7 @@ class DlqProducerServiceUnitTest {
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(Map.of());
 
-            DlqProducerService svc = new DlqProducerService("content-type, correlation-id", template);
+            DlqProducerService svc = new DlqProducerService("content-type, correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
             svc.throttlePerSec = 10_000;
 
             int sent = svc.replay(req);
@@ -121,7 +134,7 @@ class DlqProducerServiceUnitTest {
         when(req.throttlePerSec()).thenReturn(1000);
         when(req.items()).thenReturn(List.of(it));
 
-        DlqProducerService svc = new DlqProducerService("  content-type , , correlation-id , ", template);
+        DlqProducerService svc = new DlqProducerService("  content-type , , correlation-id , ", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
 
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet()))
@@ -147,7 +160,7 @@ class DlqProducerServiceUnitTest {
         ReplayRequest req = mock(ReplayRequest.class);
         when(req.targetTopic()).thenReturn(null);
 
-        DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+        DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
 
         assertThatThrownBy(() -> svc.replay(req))
                 .isInstanceOf(NullPointerException.class)
@@ -166,7 +179,7 @@ class DlqProducerServiceUnitTest {
         when(reqNull.targetTopic()).thenReturn("t");
         when(reqNull.items()).thenReturn(null);
 
-        DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+        DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
         assertThat(svc.replay(reqNull)).isEqualTo(0);
         verifyNoInteractions(template);
 
@@ -202,7 +215,7 @@ class DlqProducerServiceUnitTest {
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(Map.of());
 
-            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
             int sent = svc.replay(req);
 
             assertThat(sent).isEqualTo(1);             // bad skipped, good sent
@@ -238,7 +251,7 @@ class DlqProducerServiceUnitTest {
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(Map.of());
 
-            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
             int sent = svc.replay(req);
 
             assertThat(sent).isEqualTo(1);
@@ -267,13 +280,13 @@ class DlqProducerServiceUnitTest {
 
         ReplayRequest req = mock(ReplayRequest.class);
         when(req.targetTopic()).thenReturn("t");
-        when(req.throttlePerSec()).thenReturn(1); // intervalMs ~= 1000ms
+        when(req.throttlePerSec()).thenReturn(1); // one record per second
         when(req.items()).thenReturn(List.of(it1, it2));
 
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(Map.of());
 
-            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
 
             // Run replay on a worker thread so we can interrupt during sleep
             var error = new AtomicReference<Throwable>();
@@ -301,32 +314,40 @@ class DlqProducerServiceUnitTest {
         }
     }
 
-
     @Test
-    void replay_withNullPayload_throwsFromMessageBuilder() throws Exception {
-        @SuppressWarnings("unchecked")
-        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
-
-        ReplayItem it = mock(ReplayItem.class);
-        when(it.valueBase64()).thenReturn(null);
-        when(it.headersBase64()).thenReturn(Map.of());
-
-        ReplayRequest req = mock(ReplayRequest.class);
-        when(req.targetTopic()).thenReturn("t");
-        when(req.throttlePerSec()).thenReturn(10_000);
-        when(req.items()).thenReturn(List.of(it));
+    void spacing_holdsRatesAboveOneThousandPerSecond_insteadOfOneMillisecondPerRecord() throws Exception {
+        var spacing = new DlqProducerService.Spacing();
+        long start = System.nanoTime();
+        for (int i = 0; i < 2_000; i++) {
+            spacing.await(1_000_000_000L / 10_000, i);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
 
-        try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
-            mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(Map.of());
+        // 2000 records at 10k/s owe 200ms; a 1ms-per-record floor would take 2s
+        assertThat(elapsedMs).isBetween(190L, 1_000L);
+    }
 
-            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
 
-            assertThatThrownBy(() -> svc.replay(req))
-                    .isInstanceOf(IllegalArgumentException.class)
-                    .hasMessageContaining("Payload must not be null");
-        }
+    @Test
+    void replay_withNullPayload_countsItFailed_andContinuesWithNext() throws Exception {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayLedger ledger = ledger();
 
-        verifyNoInteractions(template);
+        String b64 = Base64.getEncoder().encodeToString("ok".getBytes(StandardCharsets.UTF_8));
+        var req = new ReplayRequest("orders-DLQ", "orders", List.of(
+                new ReplayItem(0, 1L, null, Map.of()),
+                new ReplayItem(0, 2L, b64, Map.of())),
+                10_000, null, null, null, null, null, null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+        ReplayReport report = svc.replayWithReport(req, ReplayGovernor.Priority.TRIAGER);
+
+        assertThat(report.sent()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(1);
+        verify(template, times(1)).send(any(Message.class));
+        verify(ledger).release(new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders"));
     }
 
     @Test
@@ -350,7 +371,7 @@ class DlqProducerServiceUnitTest {
         try (MockedStatic<MessageMapper> mm = mockStatic(MessageMapper.class)) {
             mm.when(() -> MessageMapper.filterAllowed(any(), anySet())).thenReturn(Map.of());
 
-            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template);
+            DlqProducerService svc = new DlqProducerService("content-type,correlation-id", template, ledger(), mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
 
             var thrown = new AtomicReference<Throwable>();
             Thread worker = new Thread(() -> {
@@ -373,4 +394,418 @@ class DlqProducerServiceUnitTest {
         }
     }
 
+
+    @Test
+    void replay_skipsItemsAlreadyInLedger_andStampsIdempotencyKeyOnOthers() throws Exception {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayLedger ledger = ledger();
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        ReplayItem done = new ReplayItem(0, 7L, b64, Map.of());
+        ReplayItem fresh = new ReplayItem(0, 8L, b64, Map.of());
+        var doneKey = new ReplayLedger.Key("orders-DLQ", 0, 7L, "orders");
+        var freshKey = new ReplayLedger.Key("orders-DLQ", 0, 8L, "orders");
+        when(ledger.reserve(doneKey)).thenReturn(false);
+
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders", List.of(done, fresh), 10_000, null, null, null, null, null, null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+        int sent = svc.replay(req);
+
+        assertThat(sent).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(template, times(1)).send(captor.capture());
+        assertThat(captor.getValue().getHeaders().get(ReplayLedger.IDEMPOTENCY_HEADER))
+                .isEqualTo(freshKey.idempotencyKey().getBytes(StandardCharsets.UTF_8));
+        verify(ledger).ensureLoaded();
+        verify(ledger).record(freshKey);
+        verify(ledger, never()).record(doneKey);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_interruptedWhilePaced_recordsAcknowledgedSends_andGivesTheOtherClaimsBack() throws Exception {
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        var acked = new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders");
+        var unacked = new ReplayLedger.Key("orders-DLQ", 0, 2L, "orders");
+        var items = List.of(new ReplayItem(0, 1L, b64, Map.of()), new ReplayItem(0, 2L, b64, Map.of()),
+                new ReplayItem(0, 3L, b64, Map.of()));
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders", items, 1, null, null, null, null, null, null, null, null, null);
+
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        CountDownLatch secondSend = new CountDownLatch(1);
+        when(template.send(any(Message.class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenAnswer(inv -> {
+                    secondSend.countDown();
+                    return new CompletableFuture<>();   // never acknowledged
+                });
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        var ledger = new ReplayLedger(mock(ConsumerFactory.class), template, "ledger");
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+        svc.throttlePerSec = 1;
+
+        var error = new AtomicReference<Throwable>();
+        Thread worker = new Thread(() -> {
+            try {
+                svc.replay(req);
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        worker.start();
+        assertThat(secondSend.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.interrupt();   // while spacing after the second send
+        worker.join(5_000);
+
+        assertThat(error.get()).isInstanceOf(InterruptedException.class);
+        assertThat(ledger.reserve(acked)).isFalse();
+        assertThat(ledger.reserve(unacked)).isTrue();
+        verify(template, times(2)).send(any(Message.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_claimsEachKeyBeforeSending_soDuplicatesAndConcurrentReplaysSendOnce() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        var unacked = new CompletableFuture<SendResult<byte[], byte[]>>();
+        when(template.send(any(Message.class))).thenReturn(unacked);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        var ledger = new ReplayLedger(mock(ConsumerFactory.class), template, "ledger");
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        var item = new ReplayItem(0, 7L, b64, Map.of());
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders", List.of(item, item), 10_000, null, null, null, null, null, null, null, null, null);
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+
+        var first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return svc.replayWithReport(req);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(template, timeout(5000)).send(any(Message.class)); // first replay waits on its ack
+        ReplayReport second = svc.replayWithReport(req);
+        unacked.complete(null);
+
+        assertThat(first.get(5, TimeUnit.SECONDS).sent()).isEqualTo(1);
+        assertThat(first.get().skipped()).isEqualTo(1);
+        assertThat(second.sent()).isZero();
+        assertThat(second.skipped()).isEqualTo(2);
+        verify(template, times(1)).send(any(Message.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_failedSend_givesItsClaimBack() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.failedFuture(new KafkaException("boom")));
+        ReplayLedger ledger = ledger();
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders", List.of(new ReplayItem(0, 7L, b64, Map.of())),
+                10_000, null, null, null, null, null, null, null, null, null);
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+
+        assertThat(svc.replayWithReport(req).failed()).isEqualTo(1);
+        verify(ledger).release(new ReplayLedger.Key("orders-DLQ", 0, 7L, "orders"));
+        verify(ledger, never()).record(any());
+    }
+
+    @Test
+    void replay_force_resendsItemsAlreadyInLedger() throws Exception {
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayLedger ledger = ledger();
+        when(ledger.reserve(any())).thenReturn(false);
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders",
+                List.of(new ReplayItem(0, 7L, b64, Map.of())), 10_000, null, true, null, null, null, null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+
+        assertThat(svc.replay(req)).isEqualTo(1);
+        verify(template).send(any(Message.class));
+        verify(ledger).record(new ReplayLedger.Key("orders-DLQ", 0, 7L, "orders"));
+        verify(ledger, never()).release(any());
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_transactional_commitsInBatches_withLedgerEntriesInSameTransaction() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        KafkaTemplate<byte[], byte[]> txTemplate = mock(KafkaTemplate.class);
+        KafkaOperations<byte[], byte[]> ops = mock(KafkaOperations.class);
+        when(txTemplate.executeInTransaction(any())).thenAnswer(inv ->
+                ((KafkaOperations.OperationsCallback<byte[], byte[], Object>) inv.getArgument(0)).doInOperations(ops));
+        ReplayLedger ledger = ledger();
+        when(ledger.ledgerRecord(any())).thenReturn(new ProducerRecord<>("ledger", new byte[0], new byte[0]));
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        var items = List.of(
+                new ReplayItem(0, 1L, b64, Map.of()),
+                new ReplayItem(0, 2L, b64, Map.of()),
+                new ReplayItem(0, 3L, b64, Map.of()));
+        ReplayRequest req = new ReplayRequest("pay-DLQ", "pay", items, 10_000, null, null, true, 2, null, null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, txTemplate, mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+
+        assertThat(svc.replay(req)).isEqualTo(3);
+        verify(txTemplate, times(2)).executeInTransaction(any());
+        verify(ops, times(3)).send(any(Message.class));
+        verify(ops, times(3)).send(any(ProducerRecord.class));
+        verify(ledger, times(3)).remember(any());
+        verify(ledger, never()).record(any());
+        verifyNoInteractions(template);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_transactional_stopsOnAbortedBatch_withoutRememberingIt() throws Exception {
+        KafkaTemplate<byte[], byte[]> txTemplate = mock(KafkaTemplate.class);
+        when(txTemplate.executeInTransaction(any()))
+                .thenReturn(1)
+                .thenThrow(new KafkaException("commit failed"));
+        ReplayLedger ledger = ledger();
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        var items = List.of(
+                new ReplayItem(0, 1L, b64, Map.of()),
+                new ReplayItem(0, 2L, b64, Map.of()),
+                new ReplayItem(0, 3L, b64, Map.of()));
+        ReplayRequest req = new ReplayRequest("pay-DLQ", "pay", items, 10_000, null, null, true, 1, null, null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", mock(KafkaTemplate.class), ledger, txTemplate, mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+
+        assertThat(svc.replay(req)).isEqualTo(1);
+        verify(txTemplate, times(2)).executeInTransaction(any());
+        verify(ledger, times(1)).remember(new ReplayLedger.Key("pay-DLQ", 0, 1L, "pay"));
+        verify(ledger).release(new ReplayLedger.Key("pay-DLQ", 0, 2L, "pay"));
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_adaptive_samplesTargetGroupLag_andSourceDlqGrowth() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.consumerGroupLag("orders-svc", "orders")).thenReturn(0L);
+        when(admin.endOffsetTotal("orders-DLQ")).thenReturn(100L);
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders",
+                List.of(new ReplayItem(0, 1L, b64, Map.of()), new ReplayItem(0, 2L, b64, Map.of())),
+                1000, null, null, null, null, true, "orders-svc", null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger(),
+                mock(KafkaTemplate.class), admin, mock(ProducerPool.class), ungoverned());
+
+        assertThat(svc.replay(req)).isEqualTo(2);
+        verify(admin, atLeastOnce()).consumerGroupLag("orders-svc", "orders");
+        verify(admin, atLeastOnce()).endOffsetTotal("orders-DLQ");
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_withProducerProfile_sendsThroughPooledTemplate_andMetersPerProfile() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        KafkaTemplate<byte[], byte[]> bulk = mock(KafkaTemplate.class);
+        when(bulk.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ProducerPool pool = mock(ProducerPool.class);
+        when(pool.acquire(ProducerProfile.BULK)).thenReturn(bulk);
+
+        String b64 = Base64.getEncoder().encodeToString("xyz".getBytes(StandardCharsets.UTF_8));
+        ReplayRequest req = new ReplayRequest("orders-DLQ", "orders",
+                List.of(new ReplayItem(0, 1L, b64, Map.of())),
+                10_000, null, null, null, null, null, null, "bulk", null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger(),
+                mock(KafkaTemplate.class), mock(DlqAdminService.class), pool, ungoverned());
+
+        assertThat(svc.replay(req)).isEqualTo(1);
+        verify(bulk).send(any(Message.class));
+        verifyNoInteractions(template);
+        verify(pool).recordSend(eq("bulk"), eq(3), anyLong());
+        verify(pool).release(bulk);
+    }
+
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayWithReport_toOriginalTopic_routesByDltHeaders_andReportsPerTarget() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayLedger ledger = ledger();
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        var toOrders = new ReplayItem(0, 1L, b64, dltHeaders("orders", 2));
+        var toPayments = new ReplayItem(0, 2L, b64, dltHeaders("payments", 0));
+        var toOrdersAgain = new ReplayItem(1, 3L, b64, dltHeaders("orders", 1));
+        var noHeaders = new ReplayItem(1, 4L, b64, Map.of());
+        ReplayRequest req = new ReplayRequest("mixed-DLQ", null, List.of(toOrders, toPayments, toOrdersAgain, noHeaders),
+                10_000, null, null, null, null, null, null, null, true, true);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger,
+                mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+        var report = svc.replayWithReport(req);
+
+        assertThat(report.sent()).isEqualTo(3);
+        assertThat(report.unroutable()).isEqualTo(1);
+        assertThat(report.targets()).containsOnlyKeys("orders", "payments");
+        assertThat(report.targets().get("orders").sent()).isEqualTo(2);
+        assertThat(report.targets().get("payments").sent()).isEqualTo(1);
+
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(template, times(3)).send(captor.capture());
+        // grouped by target: both "orders" records go out before "payments"
+        assertThat(captor.getAllValues()).extracting(m -> m.getHeaders().get(KafkaHeaders.TOPIC))
+                .containsExactly("orders", "orders", "payments");
+        assertThat(captor.getAllValues()).extracting(m -> m.getHeaders().get(KafkaHeaders.PARTITION))
+                .containsExactly(2, 1, 0);
+        verify(ledger).record(new ReplayLedger.Key("mixed-DLQ", 0, 1L, "orders"));
+        verify(ledger).record(new ReplayLedger.Key("mixed-DLQ", 0, 2L, "payments"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayWithReport_toOriginalTopic_fallsBackToTargetTopic_withoutPinningPartition() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        ReplayRequest req = new ReplayRequest(null, "fallback",
+                List.of(new ReplayItem(0, 1L, b64, Map.of()), new ReplayItem(0, 2L, b64, dltHeaders("orders", 4))),
+                10_000, null, null, null, null, null, null, null, true, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger(),
+                mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+        var report = svc.replayWithReport(req);
+
+        assertThat(report.sent()).isEqualTo(2);
+        assertThat(report.unroutable()).isZero();
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(template, times(2)).send(captor.capture());
+        assertThat(captor.getAllValues()).extracting(m -> m.getHeaders().get(KafkaHeaders.TOPIC))
+                .containsExactly("fallback", "orders");
+        assertThat(captor.getAllValues()).allMatch(m -> !m.getHeaders().containsKey(KafkaHeaders.PARTITION));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_holdsGovernorLeasePerTarget_andReleasesItAfterwards() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayGovernor governor = mock(ReplayGovernor.class);
+        ReplayGovernor.Lease lease = ungoverned().acquire("orders", ReplayGovernor.Priority.REPLAYER);
+        when(governor.acquire("orders", ReplayGovernor.Priority.REPLAYER)).thenReturn(lease);
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        ReplayRequest req = new ReplayRequest(null, "orders",
+                List.of(new ReplayItem(0, 1L, b64, Map.of()), new ReplayItem(0, 2L, b64, Map.of())),
+                10_000, null, null, null, null, null, null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger(),
+                mock(KafkaTemplate.class), mock(DlqAdminService.class), mock(ProducerPool.class), governor);
+
+        assertThat(svc.replay(req, ReplayGovernor.Priority.REPLAYER)).isEqualTo(2);
+        verify(governor, times(1)).acquire("orders", ReplayGovernor.Priority.REPLAYER);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayStream_sendsItemsAsTheyArePulled_withTheirKeys_andLeasesEachTargetOnce() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayGovernor governor = spy(ungoverned());
+        ReplayLedger ledger = ledger();
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        String key = Base64.getEncoder().encodeToString("k".getBytes(StandardCharsets.UTF_8));
+        var pulled = new AtomicInteger();
+        Iterable<ReplayItem> items = () -> IntStream.range(0, 4)
+                .mapToObj(i -> {
+                    pulled.incrementAndGet();
+                    return new ReplayItem(i % 2, i, b64, i < 2 ? dltHeaders("orders", 0) : dltHeaders("payments", 0), key);
+                })
+                .iterator();
+        ReplayRequest settings = new ReplayRequest("mixed-DLQ", null, null, 10_000, null, null, null, null, null, null,
+                null, true, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class),
+                mock(DlqAdminService.class), mock(ProducerPool.class), governor);
+        var report = svc.replayStream(settings, items, ReplayGovernor.Priority.REPLAYER);
+
+        assertThat(pulled.get()).isEqualTo(4);
+        assertThat(report.sent()).isEqualTo(4);
+        assertThat(report.targets().keySet()).containsExactly("orders", "payments");
+        ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+        verify(template, times(4)).send(captor.capture());
+        assertThat(captor.getAllValues()).allMatch(m -> Arrays.equals((byte[]) m.getHeaders().get(KafkaHeaders.KEY),
+                "k".getBytes(StandardCharsets.UTF_8)));
+        verify(governor, times(1)).acquire("orders", ReplayGovernor.Priority.REPLAYER);
+        verify(governor, times(1)).acquire("payments", ReplayGovernor.Priority.REPLAYER);
+        verify(ledger).ensureLoaded();
+        verify(ledger).record(new ReplayLedger.Key("mixed-DLQ", 1, 3L, "payments"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayStream_recordsWhatWasSent_beforeRethrowingASourceFailure_andRejectsTransactional() throws Exception {
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(Message.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ReplayLedger ledger = ledger();
+
+        String b64 = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        Iterable<ReplayItem> items = () -> Stream.of(0, 1, 2)
+                .map(i -> {
+                    if (i == 2) throw new IllegalArgumentException("Malformed NDJSON in value 3");
+                    return new ReplayItem(0, i, b64, Map.of());
+                })
+                .iterator();
+        ReplayRequest settings = new ReplayRequest("orders-DLQ", "orders", null, 10_000, null, null, null, null, null,
+                null, null, null, null);
+
+        DlqProducerService svc = new DlqProducerService("content-type", template, ledger, mock(KafkaTemplate.class),
+                mock(DlqAdminService.class), mock(ProducerPool.class), ungoverned());
+
+        assertThatThrownBy(() -> svc.replayStream(settings, items, ReplayGovernor.Priority.TRIAGER))
+                .hasMessageContaining("value 3");
+        verify(ledger).record(new ReplayLedger.Key("orders-DLQ", 0, 0L, "orders"));
+        verify(ledger).record(new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders"));
+
+        ReplayRequest transactional = new ReplayRequest(null, "orders", null, null, null, null, true, null, null,
+                null, null, null, null);
+        assertThatThrownBy(() -> svc.replayStream(transactional, List.of(), ReplayGovernor.Priority.TRIAGER))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    /** A ledger that grants every claim, as an empty one would. */
+    private static ReplayLedger ledger() {
+        ReplayLedger ledger = mock(ReplayLedger.class);
+        when(ledger.reserve(any())).thenReturn(true);
+        return ledger;
+    }
+
+    private static ReplayGovernor ungoverned() {
+        var governor = new ReplayGovernor(mock(ConsumerFactory.class), mock(KafkaTemplate.class), "governor");
+        governor.enabled = false;
+        return governor;
+    }
+
+    private static Map<String, String> dltHeaders(String topic, int partition) {
+        return Map.of(
+                KafkaHeaders.DLT_ORIGINAL_TOPIC, Base64.getEncoder().encodeToString(topic.getBytes(StandardCharsets.UTF_8)),
+                KafkaHeaders.DLT_ORIGINAL_PARTITION, Base64.getEncoder().encodeToString(
+                        ByteBuffer.allocate(4).putInt(partition).array()));
+    }
 }
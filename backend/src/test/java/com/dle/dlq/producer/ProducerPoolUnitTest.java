@@ -0,0 +1,91 @@
+package com.dle.dlq.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProducerPoolUnitTest {
+
+    private static DefaultKafkaProducerFactory<byte[], byte[]> base() {
+        return new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true));
+    }
+
+    @Test
+    void template_appliesProfileOverrides_onTopOfBaseConfig_andIsReused() {
+        var pool = new ProducerPool(base(), new SimpleMeterRegistry(), 3);
+
+        var bulk = pool.acquire(ProducerProfile.BULK);
+        var props = bulk.getProducerFactory().getConfigurationProperties();
+
+        assertThat(props.get(ProducerConfig.COMPRESSION_TYPE_CONFIG)).isEqualTo("zstd");
+        assertThat(props.get(ProducerConfig.LINGER_MS_CONFIG)).isEqualTo(20);
+        assertThat(props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)).isEqualTo(true);
+        assertThat(pool.acquire(ProducerProfile.BULK)).isSameAs(bulk);
+        assertThat(pool.size()).isEqualTo(1);
+    }
+
+    @Test
+    void template_evictsLeastRecentlyUsed_whenFull() {
+        var pool = new ProducerPool(base(), new SimpleMeterRegistry(), 2);
+
+        var bulk = pool.acquire(ProducerProfile.BULK);
+        pool.acquire(ProducerProfile.SAFE);
+        pool.acquire(ProducerProfile.BULK);                 // BULK is now most recently used
+        pool.acquire(ProducerProfile.LOW_LATENCY);          // evicts SAFE
+
+        assertThat(pool.size()).isEqualTo(2);
+        assertThat(pool.acquire(ProducerProfile.BULK)).isSameAs(bulk);
+    }
+
+    @Test
+    void evictedProducer_staysOpenUntilItsLastUserReleasesIt() {
+        var pool = new ProducerPool(base(), new SimpleMeterRegistry(), 1);
+
+        var bulk = pool.acquire(ProducerProfile.BULK);
+        var factory = (DefaultKafkaProducerFactory<byte[], byte[]>) bulk.getProducerFactory();
+        var producer = factory.createProducer();     // stands in for a replay mid-send
+
+        var safe = pool.acquire(ProducerProfile.SAFE); // evicts BULK while it is checked out
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(factory.createProducer()).isSameAs(producer);
+
+        pool.release(bulk);
+        assertThat(factory.createProducer()).isNotSameAs(producer);
+
+        pool.release(safe);
+        pool.destroy();
+    }
+
+    @Test
+    void recordSend_metersRecordsBytesAndLatency_perProfile() {
+        var registry = new SimpleMeterRegistry();
+        var pool = new ProducerPool(base(), registry, 3);
+
+        pool.recordSend("bulk", 100, 1_000_000);
+        pool.recordSend("bulk", 50, 1_000_000);
+        pool.recordSend("safe", 7, 1_000_000);
+
+        assertThat(registry.get("dle.replay.records").tag("profile", "bulk").counter().count()).isEqualTo(2);
+        assertThat(registry.get("dle.replay.bytes").tag("profile", "bulk").counter().count()).isEqualTo(150);
+        assertThat(registry.get("dle.replay.send").tag("profile", "safe").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void profile_of_resolvesIdsCaseInsensitively_andRejectsUnknown() {
+        assertThat(ProducerProfile.of("Low-Latency")).isEqualTo(ProducerProfile.LOW_LATENCY);
+        assertThatThrownBy(() -> ProducerProfile.of("turbo"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("turbo");
+    }
+}
@@ -0,0 +1,141 @@
+package com.dle.dlq.producer;
+
+import com.dle.dlq.dto.RangeReplayRequest;
+import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.dto.ReplayWorkItem;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RangeReplayServiceUnitTest {
+
+    private final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submit_splitsRangePerPartitionIntoChunks_andPublishesKeyedBySourcePartition() throws Exception {
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+        var tp0 = new TopicPartition("orders-DLQ", 0);
+        var tp1 = new TopicPartition("orders-DLQ", 1);
+        var node = new Node(1, "localhost", 9092);
+        when(consumer.partitionsFor("orders-DLQ")).thenReturn(List.of(
+                new PartitionInfo("orders-DLQ", 0, node, null, null),
+                new PartitionInfo("orders-DLQ", 1, node, null, null)));
+        when(consumer.beginningOffsets(anyCollection())).thenReturn(Map.of(tp0, 0L, tp1, 40L));
+        when(consumer.endOffsets(anyCollection())).thenReturn(Map.of(tp0, 25L, tp1, 45L));
+
+        KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        var svc = new RangeReplayService(cf, template, mock(DlqProducerService.class), json, "jobs");
+        svc.chunkSize = 10;
+
+        var job = svc.submit(new RangeReplayRequest("orders-DLQ", "orders", null, 5L, null, null, null, null, null),
+                ReplayGovernor.Priority.TRIAGER);
+
+        // p0: [5,15) [15,25); p1: [40,45)
+        assertThat(job.workItems()).isEqualTo(3);
+        assertThat(job.records()).isEqualTo(25);
+
+        ArgumentCaptor<ProducerRecord<byte[], byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template, times(3)).send(captor.capture());
+        var items = new ArrayList<ReplayWorkItem>();
+        for (var rec : captor.getAllValues()) {
+            assertThat(rec.topic()).isEqualTo("jobs");
+            var item = json.readValue(rec.value(), ReplayWorkItem.class);
+            assertThat(new String(rec.key(), StandardCharsets.UTF_8)).isEqualTo("orders-DLQ/" + item.partition());
+            items.add(item);
+        }
+        assertThat(items).extracting(ReplayWorkItem::partition, ReplayWorkItem::fromOffset, ReplayWorkItem::toOffset)
+                .containsExactly(tuple(0, 5L, 15L), tuple(0, 15L, 25L), tuple(1, 40L, 45L));
+        assertThat(items).allMatch(i -> i.jobId().equals(job.jobId()) && i.priority().equals("TRIAGER"));
+    }
+
+    @Test
+    void chunkFor_shrinksItems_soOneReplaysWithinHalfTheMaxPollInterval() {
+        var svc = new RangeReplayService(mock(ConsumerFactory.class), mock(KafkaTemplate.class),
+                mock(DlqProducerService.class), json, "jobs");
+        svc.chunkSize = 5000;
+        svc.maxPollIntervalMs = 900_000;
+        svc.throttlePerSec = 50;
+
+        assertThat(svc.chunkFor(new RangeReplayRequest("orders-DLQ", "orders", null, null, null, null, null, null, null)))
+                .isEqualTo(5000);  // 50/s for 450s allows 22500
+        assertThat(svc.chunkFor(new RangeReplayRequest("orders-DLQ", "orders", null, null, null, 2, null, null, null)))
+                .isEqualTo(900);   // 2/s for 450s
+    }
+
+    @Test
+    void submit_rejectsMissingTarget_unlessRoutingToOriginalTopic() {
+        var svc = new RangeReplayService(mock(ConsumerFactory.class), mock(KafkaTemplate.class),
+                mock(DlqProducerService.class), json, "jobs");
+
+        assertThatThrownBy(() -> svc.submit(new RangeReplayRequest("orders-DLQ", null, null, null, null, null, null, null, null),
+                ReplayGovernor.Priority.TRIAGER))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("targetTopic");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_replaysRangeInBatches_trackedBySourceTopic_skippingTombstones() throws Exception {
+        var tp = new TopicPartition("orders-DLQ", 2);
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+
+        byte[] v = "x".getBytes(StandardCharsets.UTF_8);
+        var recs = List.of(
+                new ConsumerRecord<byte[], byte[]>("orders-DLQ", 2, 10L, "k".getBytes(StandardCharsets.UTF_8), v),
+                new ConsumerRecord<byte[], byte[]>("orders-DLQ", 2, 11L, null, null),
+                new ConsumerRecord<byte[], byte[]>("orders-DLQ", 2, 12L, null, v),
+                new ConsumerRecord<byte[], byte[]>("orders-DLQ", 2, 13L, null, v),
+                new ConsumerRecord<byte[], byte[]>("orders-DLQ", 2, 14L, null, v));
+        when(consumer.poll(any(Duration.class))).thenReturn(new ConsumerRecords<>(Map.of(tp, recs)));
+        when(consumer.position(tp)).thenReturn(10L, 15L);
+
+        DlqProducerService producer = mock(DlqProducerService.class);
+        when(producer.replay(any(), any())).thenAnswer(inv -> ((ReplayRequest) inv.getArgument(0)).items().size());
+
+        var svc = new RangeReplayService(cf, mock(KafkaTemplate.class), producer, json, "jobs");
+        svc.readBatchSize = 2;
+
+        var req = new RangeReplayRequest("orders-DLQ", "orders", null, null, null, 100, "bulk", null, null);
+        svc.execute(new ReplayWorkItem("job-1", req, 2, 10L, 14L, "REPLAYER"));
+
+        verify(consumer).assign(List.of(tp));
+        verify(consumer).seek(tp, 10L);
+        ArgumentCaptor<ReplayRequest> captor = ArgumentCaptor.forClass(ReplayRequest.class);
+        verify(producer, times(2)).replay(captor.capture(), eq(ReplayGovernor.Priority.REPLAYER));
+        assertThat(captor.getAllValues()).allMatch(r -> "orders-DLQ".equals(r.sourceTopic())
+                && "orders".equals(r.targetTopic()) && "bulk".equals(r.producerProfile()));
+        assertThat(captor.getAllValues().stream().flatMap(r -> r.items().stream()).map(i -> i.offset()))
+                .containsExactly(10L, 12L, 13L); // 11 is a tombstone, 14 is past the range
+        assertThat(captor.getAllValues().get(0).items().get(0).keyBase64())
+                .isEqualTo(Base64.getEncoder().encodeToString("k".getBytes(StandardCharsets.UTF_8)));
+        assertThat(captor.getAllValues().get(0).items().get(1).keyBase64()).isNull();
+    }
+}
@@ -0,0 +1,159 @@
+package com.dle.dlq.producer;
+
+import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.ledger.ReplayLedger;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveDlqProducerServiceUnitTest {
+
+    private static final String V = Base64.getEncoder().encodeToString("v".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_sendsThroughSender_skipsLedgerHits_recordsAcks_andCountsFailures() {
+        List<SenderRecord<byte[], byte[], ?>> seen = new ArrayList<>();
+        KafkaSender<byte[], byte[]> sender = mock(KafkaSender.class);
+        when(sender.send(any(Publisher.class))).thenAnswer(inv -> Flux.from((Publisher<SenderRecord<byte[], byte[], Object>>) inv.getArgument(0))
+                .doOnNext(seen::add)
+                .map(rec -> result(rec.correlationMetadata(), rec.value()[0] == 'x'
+                        ? new KafkaException("boom") : null)));
+
+        ReplayLedger ledger = mock(ReplayLedger.class);
+        when(ledger.reserve(argThat(k -> k != null && k.offset() != 2L))).thenReturn(true);
+
+        var svc = new ReactiveDlqProducerService(sender, "content-type", ledger, ungoverned());
+        String failing = Base64.getEncoder().encodeToString("x".getBytes(StandardCharsets.UTF_8));
+        var req = new ReplayRequest("orders-DLQ", "orders", List.of(
+                new ReplayItem(0, 1L, V, Map.of("content-type", V, "secret", V)),
+                new ReplayItem(0, 2L, V, Map.of()),
+                new ReplayItem(0, 3L, failing, Map.of())),
+                1000, null, false, null, null, null, null, null, null, null);
+
+        var report = svc.replay(req, ReplayGovernor.Priority.TRIAGER).block(Duration.ofSeconds(5));
+
+        assertThat(report).isNotNull();
+        assertThat(report.sent()).isEqualTo(1);
+        assertThat(report.skipped()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.targets()).containsOnlyKeys("orders");
+
+        assertThat(seen).hasSize(2);
+        var first = seen.get(0);
+        assertThat(first.topic()).isEqualTo("orders");
+        assertThat(first.headers().lastHeader("content-type")).isNotNull();
+        assertThat(first.headers().lastHeader("secret")).isNull();
+        assertThat(new String(first.headers().lastHeader(ReplayLedger.IDEMPOTENCY_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders").idempotencyKey());
+
+        verify(ledger).ensureLoaded();
+        verify(ledger).record(new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders"));
+        verify(ledger, never()).record(new ReplayLedger.Key("orders-DLQ", 0, 3L, "orders"));
+        verify(ledger).release(new ReplayLedger.Key("orders-DLQ", 0, 3L, "orders"));
+        verify(ledger, never()).release(new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_countsNullPayloadFailed_andSendsTheRest() {
+        KafkaSender<byte[], byte[]> sender = mock(KafkaSender.class);
+        when(sender.send(any(Publisher.class))).thenAnswer(inv -> Flux.from((Publisher<SenderRecord<byte[], byte[], Object>>) inv.getArgument(0))
+                .map(rec -> result(rec.correlationMetadata(), null)));
+        ReplayLedger ledger = mock(ReplayLedger.class);
+        when(ledger.reserve(any())).thenReturn(true);
+
+        var svc = new ReactiveDlqProducerService(sender, "", ledger, ungoverned());
+        var req = new ReplayRequest("orders-DLQ", "orders", List.of(
+                new ReplayItem(0, 1L, null, Map.of()),
+                new ReplayItem(0, 2L, V, Map.of())),
+                1000, null, false, null, null, null, null, null, null, null);
+
+        var report = svc.replay(req, ReplayGovernor.Priority.TRIAGER).block(Duration.ofSeconds(5));
+
+        assertThat(report.sent()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(1);
+        verify(ledger).release(new ReplayLedger.Key("orders-DLQ", 0, 1L, "orders"));
+        verify(ledger).record(new ReplayLedger.Key("orders-DLQ", 0, 2L, "orders"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_pacesRecordsOnTimers_atTheRequestedRate() {
+        KafkaSender<byte[], byte[]> sender = mock(KafkaSender.class);
+        when(sender.send(any(Publisher.class))).thenAnswer(inv -> Flux.from((Publisher<SenderRecord<byte[], byte[], Object>>) inv.getArgument(0))
+                .map(rec -> result(rec.correlationMetadata(), null)));
+
+        var svc = new ReactiveDlqProducerService(sender, "", mock(ReplayLedger.class), ungoverned());
+        var items = new ArrayList<ReplayItem>();
+        for (int i = 0; i < 10; i++) items.add(new ReplayItem(0, i, V, Map.of()));
+        var req = new ReplayRequest(null, "orders", items, 50, null, false, null, null, null, null, null, null, null);
+
+        long start = System.nanoTime();
+        var report = svc.replay(req, ReplayGovernor.Priority.TRIAGER).block(Duration.ofSeconds(5));
+
+        assertThat(report.sent()).isEqualTo(10);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(180)); // 10 x 20ms
+    }
+
+    @Test
+    void supports_onlyPlainSingleTargetRequests() {
+        var items = List.of(new ReplayItem(0, 1L, V, Map.of()));
+        assertThat(ReactiveDlqProducerService.supports(
+                new ReplayRequest("s", "t", items, null, null, null, null, null, null, null, null, null, null))).isTrue();
+        assertThat(ReactiveDlqProducerService.supports(
+                new ReplayRequest("s", "t", items, null, null, null, true, null, null, null, null, null, null))).isFalse();
+        assertThat(ReactiveDlqProducerService.supports(
+                new ReplayRequest("s", "t", items, null, null, null, null, null, true, null, null, null, null))).isFalse();
+        assertThat(ReactiveDlqProducerService.supports(
+                new ReplayRequest("s", "t", items, null, null, null, null, null, null, null, "bulk", null, null))).isFalse();
+        assertThat(ReactiveDlqProducerService.supports(
+                new ReplayRequest("s", "t", items, null, null, null, null, null, null, null, null, true, null))).isFalse();
+    }
+
+    private static <T> SenderResult<T> result(T meta, Exception error) {
+        return new SenderResult<>() {
+            @Override
+            public RecordMetadata recordMetadata() {
+                return error != null ? null : new RecordMetadata(new TopicPartition("orders", 0), 0, 0, 0, 1, 1);
+            }
+
+            @Override
+            public Exception exception() {
+                return error;
+            }
+
+            @Override
+            public T correlationMetadata() {
+                return meta;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReplayGovernor ungoverned() {
+        var governor = new ReplayGovernor(mock(ConsumerFactory.class), mock(KafkaTemplate.class), "governor");
+        governor.enabled = false;
+        return governor;
+    }
+}
@@ -0,0 +1,152 @@
+package com.dle.dlq.producer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReplayGovernorUnitTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<byte[], byte[]> template = mock(KafkaTemplate.class);
+
+    private ReplayGovernor governor;
+
+    @SuppressWarnings("unchecked")
+    private ReplayGovernor governor() {
+        Consumer<byte[], byte[]> consumer = mock(Consumer.class);
+        when(consumer.partitionsFor("governor")).thenReturn(List.of());
+        when(consumer.poll(any(Duration.class))).thenReturn(ConsumerRecords.empty());
+        ConsumerFactory<byte[], byte[]> cf = mock(ConsumerFactory.class);
+        when(cf.createConsumer(anyString(), isNull())).thenReturn(consumer);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        governor = new ReplayGovernor(cf, template, "governor");
+        governor.clusterPerSec = 1000;
+        governor.topicPerSec = 400;
+        governor.heartbeatIntervalMs = 60_000;
+        governor.clock = now::get;
+        return governor;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (governor != null) governor.destroy();
+    }
+
+    @Test
+    void leases_shareTopicBudget_andClusterBudget_byWeight() {
+        var g = governor();
+
+        var a = g.acquire("orders", ReplayGovernor.Priority.TRIAGER);
+        assertThat(a.ratePerSec()).isEqualTo(400);
+
+        var b = g.acquire("orders", ReplayGovernor.Priority.REPLAYER);
+        assertThat(a.ratePerSec()).isEqualTo(100);   // 400 * 1/4
+        assertThat(b.ratePerSec()).isEqualTo(300);   // 400 * 3/4
+        assertThat(b.intervalNanos()).isEqualTo(3_333_334L);
+
+        var c = g.acquire("payments", ReplayGovernor.Priority.REPLAYER);
+        assertThat(c.ratePerSec()).isEqualTo(400);   // alone on its topic
+        g.clusterPerSec = 350;
+        assertThat(c.ratePerSec()).isCloseTo(350 * 3 / 7.0, within(0.001)); // cluster-bound
+        g.clusterPerSec = 1000;
+
+        b.close();
+        c.close();
+        assertThat(g.activeLeases()).isEqualTo(1);
+        assertThat(a.ratePerSec()).isEqualTo(400);
+    }
+
+    @Test
+    void remoteHeartbeats_countUntilTheyGoStale() {
+        var g = governor();
+        g.onHeartbeat("other".getBytes(StandardCharsets.UTF_8),
+                ("{\"at\":" + now.get() + ",\"weights\":{\"orders\":3.0}}").getBytes(StandardCharsets.UTF_8));
+
+        var lease = g.acquire("orders", ReplayGovernor.Priority.TRIAGER);
+        assertThat(lease.ratePerSec()).isEqualTo(100);
+
+        now.addAndGet(g.leaseTtlMs + 1);
+        assertThat(lease.ratePerSec()).isEqualTo(400);
+    }
+
+    @Test
+    void remoteHeartbeats_ageByWhenTheyWereRead_notBySenderClock() {
+        var g = governor();
+        g.onHeartbeat("skewed".getBytes(StandardCharsets.UTF_8),
+                "{\"at\":1,\"weights\":{\"orders\":3.0}}".getBytes(StandardCharsets.UTF_8));
+
+        var lease = g.acquire("orders", ReplayGovernor.Priority.TRIAGER);
+        assertThat(lease.ratePerSec()).isEqualTo(100);
+    }
+
+    @Test
+    void idleLease_givesItsShareToBusyOnes_untilItPacesAgain() {
+        var g = governor();
+        var idle = g.acquire("orders", ReplayGovernor.Priority.REPLAYER);
+        var busy = g.acquire("orders", ReplayGovernor.Priority.TRIAGER);
+        assertThat(busy.ratePerSec()).isEqualTo(100);
+
+        now.addAndGet(g.idleAfterMs + 1);
+        busy.intervalNanos();
+        assertThat(busy.ratePerSec()).isEqualTo(400);
+
+        idle.intervalNanos();
+        assertThat(busy.ratePerSec()).isEqualTo(100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishHeartbeat_sendsLeaseWeights_thenOneEmptyBeat_thenNothing() {
+        var g = governor();
+        var lease = g.acquire("orders", ReplayGovernor.Priority.REPLAYER);
+        verify(template, timeout(2000)).send(any(ProducerRecord.class)); // first exchange tick
+        clearInvocations(template);
+
+        g.publishHeartbeat();
+        lease.close();
+        g.publishHeartbeat();
+        g.publishHeartbeat();
+
+        ArgumentCaptor<ProducerRecord<byte[], byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(template, times(2)).send(captor.capture());
+        assertThat(captor.getAllValues()).allMatch(r -> r.topic().equals("governor"));
+        assertThat(new String(captor.getAllValues().get(0).value(), StandardCharsets.UTF_8)).contains("\"orders\":3.0");
+        assertThat(new String(captor.getAllValues().get(1).value(), StandardCharsets.UTF_8)).contains("\"weights\":{}");
+    }
+
+    @Test
+    void disabled_governorDoesNotPace() {
+        var g = governor();
+        g.enabled = false;
+
+        var lease = g.acquire("orders", ReplayGovernor.Priority.TRIAGER);
+        assertThat(lease.intervalNanos()).isZero();
+        assertThat(g.activeLeases()).isZero();
+    }
+
+    @Test
+    void priority_followsReplayerRole() {
+        assertThat(ReplayGovernor.Priority.of(List.of("ROLE_triager", "ROLE_replayer"))).isEqualTo(ReplayGovernor.Priority.REPLAYER);
+        assertThat(ReplayGovernor.Priority.of(List.of("ROLE_triager"))).isEqualTo(ReplayGovernor.Priority.TRIAGER);
+        assertThat(ReplayGovernor.Priority.of(null)).isEqualTo(ReplayGovernor.Priority.TRIAGER);
+    }
+}
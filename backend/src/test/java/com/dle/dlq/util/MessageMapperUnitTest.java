@@ -1,6 +1,7 @@
 package com.dle.dlq.util;
 
 import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.junit.jupiter.api.Test;
@@ -64,6 +65,23 @@ class MessageMapperUnitTest {
         assertThat(dto.valueUtf8()).isNull();
     }
 
+    @Test
+    void toRaw_keepsKeyValueAndHeaderBytesAsTheyAre() {
+        byte[] v = new byte[] { (byte) 0xff, 0x00, 0x01 };
+        ConsumerRecord<byte[], byte[]> rec = new ConsumerRecord<>("topicA", 1, 42L, null, v);
+        rec.headers().add(new RecordHeader("h2", new byte[] { 0x01 }));
+        rec.headers().add(new RecordHeader("h1", new byte[] { 0x02 }));
+
+        RawMessage raw = MessageMapper.toRaw(rec);
+
+        assertThat(raw.topic()).isEqualTo("topicA");
+        assertThat(raw.offset()).isEqualTo(42L);
+        assertThat(raw.key()).isNull();
+        assertThat(raw.value()).isSameAs(v);
+        assertThat(raw.headers().keySet()).containsExactly("h2", "h1");
+        assertThat(raw.headers().get("h1")).containsExactly(0x02);
+    }
+
     @Test
     void filterAllowed_decodesOnlyAllowedHeaders() {
         Map<String, String> base64 = Map.of(
@@ -106,4 +124,20 @@ class MessageMapperUnitTest {
     }
 
 
+
+    @Test
+    void headerUtf8_andHeaderInt_decodeDltHeaders_andTolerateMissingOrMalformed() {
+        Map<String, String> base64 = Map.of(
+                "kafka_dlt-original-topic", Base64.getEncoder().encodeToString("orders".getBytes(StandardCharsets.UTF_8)),
+                "kafka_dlt-original-partition", Base64.getEncoder().encodeToString(new byte[]{0, 0, 0, 3}),
+                "short", Base64.getEncoder().encodeToString(new byte[]{1}),
+                "broken", "not-base64!!");
+
+        assertThat(MessageMapper.headerUtf8(base64, "kafka_dlt-original-topic")).isEqualTo("orders");
+        assertThat(MessageMapper.headerInt(base64, "kafka_dlt-original-partition")).isEqualTo(3);
+        assertThat(MessageMapper.headerInt(base64, "short")).isNull();
+        assertThat(MessageMapper.headerUtf8(base64, "broken")).isNull();
+        assertThat(MessageMapper.headerUtf8(base64, "missing")).isNull();
+        assertThat(MessageMapper.headerUtf8(null, "missing")).isNull();
+    }
 }
@@ -0,0 +1,102 @@
+package com.dle.dlq.util;
+
+import com.dle.dlq.dto.ReplayItem;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NdjsonDecoderUnitTest {
+
+    private static final ObjectReader ITEM = new ObjectMapper().readerFor(ReplayItem.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final String LINES = """
+            {"topic":"orders-DLQ","partition":0,"offset":7,"keyBase64":"azE=","valueBase64":"djE=","headersBase64":{"h":"eA=="}}
+            {"partition":1,"offset":8,"keyBase64":null,"valueBase64":"djI=","headersBase64":{}}
+
+              {"partition":2,"offset":9,"valueBase64":"djM=","nested":{"a":[1,{"b":2}]}}
+            """;
+
+    @Test
+    void decode_yieldsEachLine_whateverTheChunkBoundaries() {
+        byte[] bytes = LINES.getBytes(StandardCharsets.UTF_8);
+        var expected = List.of(
+                new ReplayItem(0, 7, "djE=", Map.of("h", "eA=="), "azE="),
+                new ReplayItem(1, 8, "djI=", Map.of(), null),
+                new ReplayItem(2, 9, "djM=", null, null));
+
+        for (int size : new int[] { 1, 3, 17, bytes.length }) {
+            List<ReplayItem> out = NdjsonDecoder.<ReplayItem>decode(chunks(bytes, size), ITEM).collectList().block();
+            assertThat(out).as("chunks of %d bytes", size).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void values_areEmittedAsTheyComplete_andTheSourceIsOnlyReadOnDemand() {
+        var served = new AtomicLong();
+        Flux<byte[]> endless = Flux.<byte[]>generate(sink -> sink.next(
+                        ("{\"partition\":0,\"offset\":" + served.getAndIncrement() + "}\n").getBytes(StandardCharsets.UTF_8)))
+                .limitRate(1);
+
+        List<ReplayItem> first = NdjsonDecoder.<ReplayItem>decode(endless, ITEM).take(5).collectList().block();
+
+        assertThat(first).extracting(ReplayItem::offset).containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(served.get()).isLessThan(10);
+    }
+
+    @Test
+    void malformed_truncated_andUnbindableInput_failTheFlux() {
+        assertThatThrownBy(() -> NdjsonDecoder.values(Flux.just(bytes("{\"a\":1}\n{\"a\":}\n"))).blockLast())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("value 2");
+        assertThatThrownBy(() -> NdjsonDecoder.values(Flux.just(bytes("{\"a\":1}\n{\"a\":[1,"))).blockLast())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("value 2");
+        assertThatThrownBy(() -> NdjsonDecoder.decode(Flux.just(bytes("{\"partition\":\"x\"}")), ITEM).blockLast())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("value 1 is invalid");
+        assertThat(NdjsonDecoder.values(Flux.just(bytes("  \n\n"))).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void withHeader_bindsTheFirstLineApart_andStreamsTheRest() {
+        ObjectReader header = new ObjectMapper().readerFor(Map.class);
+        byte[] bytes = bytes("{\"targetTopic\":\"orders\"}\n" + LINES);
+
+        List<String> out = NdjsonDecoder.<Map<String, Object>, ReplayItem, String>withHeader(chunks(bytes, 5), header, ITEM,
+                        (h, items) -> items.map(it -> h.get("targetTopic") + "@" + it.offset()))
+                .collectList().block();
+
+        assertThat(out).containsExactly("orders@7", "orders@8", "orders@9");
+        assertThatThrownBy(() -> NdjsonDecoder.withHeader(Flux.just(bytes("\n")), header, ITEM, (h, items) -> items).blockLast())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no header line");
+        assertThatThrownBy(() -> NdjsonDecoder.withHeader(Flux.just(bytes("[1]\n")), header, ITEM, (h, items) -> items).blockLast())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("value 1 is invalid");
+    }
+
+    private static Flux<byte[]> chunks(byte[] bytes, int size) {
+        var out = new ArrayList<byte[]>();
+        for (int i = 0; i < bytes.length; i += size) {
+            out.add(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size)));
+        }
+        return Flux.fromIterable(out);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,17 +1,51 @@
 package com.dle.dlq.web;
 
 import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
 import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.consumer.FetchCoalescer;
+import com.dle.dlq.consumer.ReactiveDlqConsumerService;
+import com.dle.dlq.dto.MessageDelta;
 import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
 import com.dle.dlq.dto.ReplayItem;
+import com.dle.dlq.dto.ReplayReport;
 import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.dto.TopicOffsets;
+import com.dle.dlq.export.ExportReader;
 import com.dle.dlq.producer.DlqProducerService;
+import com.dle.dlq.producer.RangeReplayService;
+import com.dle.dlq.producer.ReactiveDlqProducerService;
+import com.dle.dlq.producer.ReplayGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class DlqControllerUnitTest {
@@ -24,9 +58,9 @@ class DlqControllerUnitTest {
 
         when(admin.listDlqTopics()).thenReturn(List.of("a-DLQ", "b-DLQ"));
 
-        DlqController controller = new DlqController(admin, consumer, producer);
+        DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
 
-        List<String> out = controller.topics();
+        List<String> out = controller.topics().block().getBody();
 
         assertThat(out).containsExactly("a-DLQ", "b-DLQ");
         verify(admin, times(1)).listDlqTopics();
@@ -34,8 +68,8 @@ class DlqControllerUnitTest {
     }
 
     @Test
-    void messages_delegatesToConsumer_withTopicAndLimit() {
-        DlqAdminService admin = mock(DlqAdminService.class);
+    void messages_delegatesToConsumer_withTopicAndLimit() throws Exception {
+        DlqAdminService admin = admin();
         DlqConsumerService consumer = mock(DlqConsumerService.class);
         DlqProducerService producer = mock(DlqProducerService.class);
 
@@ -44,31 +78,31 @@ class DlqControllerUnitTest {
 
         when(consumer.fetchLastN("t", 5)).thenReturn(List.of(dto1, dto2));
 
-        DlqController controller = new DlqController(admin, consumer, producer);
+        DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
 
-        var out = controller.messages("t", 5);
+        var out = controller.messages("t", 5, null).block().getBody().collectList().block();
 
         assertThat(out).containsExactly(dto1, dto2);
         verify(consumer).fetchLastN("t", 5);
-        verifyNoInteractions(admin, producer);
+        verifyNoInteractions(producer);
     }
 
     @Test
-    void messages_withNullLimit_stillDelegates() {
-        DlqAdminService admin = mock(DlqAdminService.class);
+    void messages_withNullLimit_stillDelegates() throws Exception {
+        DlqAdminService admin = admin();
         DlqConsumerService consumer = mock(DlqConsumerService.class);
         DlqProducerService producer = mock(DlqProducerService.class);
 
         var dto = new MessageDto("topicX", 0, 1L, 123L, null, null, null, Map.of());
         when(consumer.fetchLastN("topicX", null)).thenReturn(List.of(dto));
 
-        DlqController controller = new DlqController(admin, consumer, producer);
+        DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
 
-        var out = controller.messages("topicX", null);
+        var out = controller.messages("topicX", null, null).block().getBody().collectList().block();
 
         assertThat(out).containsExactly(dto);
         verify(consumer).fetchLastN("topicX", null);
-        verifyNoInteractions(admin, producer);
+        verifyNoInteractions(producer);
     }
 
     @Test
@@ -78,14 +112,14 @@ class DlqControllerUnitTest {
         DlqProducerService producer = mock(DlqProducerService.class);
 
         ReplayRequest req = mock(ReplayRequest.class);
-        when(producer.replay(req)).thenReturn(3);
+        when(producer.replay(req, ReplayGovernor.Priority.TRIAGER)).thenReturn(3);
 
-        DlqController controller = new DlqController(admin, consumer, producer);
+        DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
 
-        int count = controller.replay(req);
+        int count = controller.replay(req, null).block();
 
         assertThat(count).isEqualTo(3);
-        verify(producer).replay(req);
+        verify(producer).replay(req, ReplayGovernor.Priority.TRIAGER);
         verifyNoInteractions(admin, consumer);
     }
 
@@ -99,14 +133,359 @@ class DlqControllerUnitTest {
         when(req.targetTopic()).thenReturn("targetTopic");
         when(req.items()).thenReturn(List.of(mock(ReplayItem.class), mock(ReplayItem.class)));
         when(req.throttlePerSec()).thenReturn(5);
-        when(producer.replay(req)).thenReturn(2);
+        when(producer.replay(req, ReplayGovernor.Priority.REPLAYER)).thenReturn(2);
 
-        DlqController controller = new DlqController(admin, consumer, producer);
+        DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
 
-        int count = controller.replay(req);
+        var auth = new TestingAuthenticationToken("bob", null, "ROLE_triager", "ROLE_replayer");
+        int count = controller.replay(req, auth).block();
 
         assertThat(count).isEqualTo(2);
-        verify(producer).replay(req);
+        verify(producer).replay(req, ReplayGovernor.Priority.REPLAYER);
+        verifyNoInteractions(admin, consumer);
+    }
+
+    @Test
+    void replayWithReport_delegatesToProducer_andReturnsReport() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        DlqProducerService producer = mock(DlqProducerService.class);
+
+        ReplayRequest req = mock(ReplayRequest.class);
+        var report = new ReplayReport(2, 0, 0, 1, 5L,
+                Map.of("orders", new ReplayReport.TargetStats(2, 0, 0, 5L, 1.5)));
+        when(producer.replayWithReport(req, ReplayGovernor.Priority.TRIAGER)).thenReturn(report);
+
+        DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+
+        var auth = new TestingAuthenticationToken("alice", null, "ROLE_triager");
+        assertThat(controller.replayWithReport(req, auth).block()).isEqualTo(report);
+        verify(producer).replayWithReport(req, ReplayGovernor.Priority.TRIAGER);
         verifyNoInteractions(admin, consumer);
     }
+
+    @Test
+    void topics_stayResponsive_whileReplaysSaturateTheReplayPool() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        DlqProducerService producer = mock(DlqProducerService.class);
+        when(admin.listDlqTopics()).thenReturn(List.of("a-DLQ"));
+
+        var release = new CountDownLatch(1);
+        var started = new CountDownLatch(2);
+        when(producer.replay(any(), any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return 1;
+        });
+
+        var schedulers = BlockingSchedulers.platform(new SimpleMeterRegistry(), 2, 4, 2, 4, 1, 1, 1, 1);
+        try {
+            DlqController controller = new DlqController(admin, direct(consumer), consumer, producer, mock(RangeReplayService.class), schedulers, none(), none(), mock(ExportReader.class));
+            var replays = List.of(
+                    controller.replay(mock(ReplayRequest.class), null).toFuture(),
+                    controller.replay(mock(ReplayRequest.class), null).toFuture());
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                assertThat(controller.topics().block(Duration.ofMillis(500)).getBody()).containsExactly("a-DLQ");
+            }
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+            // a third replay is queued behind the two running ones, not blocking anything else
+            var queued = controller.replay(mock(ReplayRequest.class), null).toFuture();
+            assertThat(queued).isNotDone();
+
+            release.countDown();
+            assertThat(queued.get(2, TimeUnit.SECONDS)).isEqualTo(1);
+            for (var r : replays) assertThat(r.get(2, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            release.countDown();
+            schedulers.destroy();
+        }
+    }
+
+    @Test
+    void replay_isRejected_whenReplayPoolAndQueueAreFull() throws Exception {
+        DlqProducerService producer = mock(DlqProducerService.class);
+        var release = new CountDownLatch(1);
+        when(producer.replay(any(), any())).thenAnswer(inv -> {
+            release.await();
+            return 1;
+        });
+
+        var schedulers = BlockingSchedulers.platform(new SimpleMeterRegistry(), 1, 1, 1, 1, 1, 1, 1, 1);
+        try {
+            DlqController controller = new DlqController(mock(DlqAdminService.class), mock(FetchCoalescer.class), mock(DlqConsumerService.class),
+                    producer, mock(RangeReplayService.class), schedulers, none(), none(), mock(ExportReader.class));
+            controller.replay(mock(ReplayRequest.class), null).subscribe();
+            controller.replay(mock(ReplayRequest.class), null).subscribe();
+
+            assertThatThrownBy(() -> controller.replay(mock(ReplayRequest.class), null).block(Duration.ofSeconds(1)))
+                    .hasRootCauseInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+            schedulers.destroy();
+        }
+    }
+
+    @Test
+    void replay_usesReactiveProducer_forPlainRequests_only() throws Exception {
+        DlqProducerService producer = mock(DlqProducerService.class);
+        when(producer.replay(any(), any())).thenReturn(1);
+        ReactiveDlqProducerService reactive = mock(ReactiveDlqProducerService.class);
+        when(reactive.replay(any(), any())).thenReturn(Mono.just(new ReplayReport(4, 0, 0, 0, 1, Map.of())));
+
+        DlqController controller = new DlqController(mock(DlqAdminService.class), mock(FetchCoalescer.class), mock(DlqConsumerService.class),
+                producer, mock(RangeReplayService.class), immediate(), none(), provider(reactive), mock(ExportReader.class));
+
+        var items = List.of(new ReplayItem(0, 1L, "dg==", Map.of()));
+        var plain = new ReplayRequest("t-DLQ", "t", items, 100, null, false, null, null, null, null, null, null, null);
+        var transactional = new ReplayRequest("t-DLQ", "t", items, 100, null, false, true, null, null, null, null, null, null);
+
+        assertThat(controller.replay(plain, null).block()).isEqualTo(4);
+        assertThat(controller.replay(transactional, null).block()).isEqualTo(1);
+
+        verify(reactive).replay(plain, ReplayGovernor.Priority.TRIAGER);
+        verify(producer).replay(transactional, ReplayGovernor.Priority.TRIAGER);
+        verifyNoMoreInteractions(reactive, producer);
+    }
+
+    @Test
+    void streamMessages_usesReactiveConsumer_whenEnabled_elseRegularFetch() throws Exception {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        var dto = new MessageDto("t", 0, 10L, 111L, "k", "v", "dmFsdWU=", Map.of());
+        when(consumer.fetchLastN("t", 5)).thenReturn(List.of(dto));
+        ReactiveDlqConsumerService reactive = mock(ReactiveDlqConsumerService.class);
+        when(reactive.streamLastN("t", 5)).thenReturn(Flux.just(dto, dto));
+
+        var classic = new DlqController(mock(DlqAdminService.class), direct(consumer), consumer, mock(DlqProducerService.class),
+                mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+        var streaming = new DlqController(mock(DlqAdminService.class), direct(consumer), consumer, mock(DlqProducerService.class),
+                mock(RangeReplayService.class), immediate(), provider(reactive), none(), mock(ExportReader.class));
+
+        assertThat(classic.streamMessages("t", 5).collectList().block()).hasSize(1);
+        assertThat(streaming.streamMessages("t", 5).collectList().block()).hasSize(2);
+        verify(consumer, times(1)).fetchLastN("t", 5);
+    }
+
+    @Test
+    void messages_carryAnETagOverOffsets_thatChangesWhenTheTopicMoves() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets("t")).thenReturn(
+                new TopicOffsets("t", Map.of(0, 0L), Map.of(0, 10L)),
+                new TopicOffsets("t", Map.of(0, 0L), Map.of(0, 10L)),
+                new TopicOffsets("t", Map.of(0, 0L), Map.of(0, 11L)));
+        FetchCoalescer fetcher = mock(FetchCoalescer.class);
+        when(fetcher.readLastN(eq("t"), eq(5), any())).thenReturn(new Fetched<>(List.of(), true));
+        DlqController controller = new DlqController(admin, fetcher, mock(DlqConsumerService.class), mock(DlqProducerService.class),
+                mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+
+        String first = controller.messages("t", 5, null).block().getHeaders().getETag();
+        String same = controller.messages("t", 5, null).block().getHeaders().getETag();
+        String moved = controller.messages("t", 5, null).block().getHeaders().getETag();
+
+        assertThat(first).startsWith("\"").isEqualTo(same).isNotEqualTo(moved);
+    }
+
+    @Test
+    void messages_cutShortByTheReadDeadline_goOutWithoutAnETag() throws Exception {
+        DlqAdminService admin = admin();
+        var dto = new MessageDto("t", 0, 9L, 1L, "k", "v", "dg==", Map.of());
+        FetchCoalescer fetcher = mock(FetchCoalescer.class);
+        when(fetcher.readLastN(eq("t"), eq(5), any())).thenReturn(new Fetched<>(List.of(dto), false));
+        when(fetcher.readLastNRaw(eq("t"), eq(5), any())).thenReturn(new Fetched<>(List.of(), false));
+        DlqController controller = new DlqController(admin, fetcher, mock(DlqConsumerService.class), mock(DlqProducerService.class),
+                mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+
+        var json = controller.messages("t", 5, null).block();
+        var cbor = controller.messagesCbor("t", 5, null).block();
+
+        assertThat(json.getHeaders().getETag()).isNull();
+        assertThat(json.getBody().collectList().block()).containsExactly(dto);
+        assertThat(cbor.getHeaders().getETag()).isNull();
+    }
+
+    @Test
+    void messages_answer304_onMatchingIfNoneMatch_withoutReadingMessages() throws Exception {
+        DlqAdminService admin = admin();
+        when(admin.listDlqTopics()).thenReturn(List.of("a-DLQ"));
+        FetchCoalescer fetcher = mock(FetchCoalescer.class);
+        when(fetcher.readLastN(eq("t"), eq(5), any())).thenReturn(new Fetched<>(List.of(), true));
+        var client = WebTestClient.bindToController(new DlqController(admin, fetcher, mock(DlqConsumerService.class), mock(DlqProducerService.class),
+                mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class))).build();
+
+        for (String uri : List.of("/api/dlq/messages?topic=t&limit=5", "/api/dlq/topics")) {
+            String etag = client.get().uri(uri).exchange()
+                    .expectStatus().isOk()
+                    .returnResult(String.class).getResponseHeaders().getETag();
+            client.get().uri(uri).header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                    .expectStatus().isNotModified()
+                    .expectBody().isEmpty();
+        }
+
+        verify(fetcher, times(1)).readLastN(eq("t"), eq(5), any());
+    }
+
+    @Test
+    void messagesCbor_readsRawRecords_underATagOfItsOwn() throws Exception {
+        DlqAdminService admin = admin();
+        FetchCoalescer fetcher = mock(FetchCoalescer.class);
+        var raw = new RawMessage("t", 0, 9L, 1L, null, new byte[] { 1 }, Map.of());
+        when(fetcher.readLastNRaw(eq("t"), eq(5), any())).thenReturn(new Fetched<>(List.of(raw), true));
+        when(fetcher.readLastN(eq("t"), eq(5), any())).thenReturn(new Fetched<>(List.of(), true));
+        DlqController controller = new DlqController(admin, fetcher, mock(DlqConsumerService.class), mock(DlqProducerService.class),
+                mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+
+        var cbor = controller.messagesCbor("t", 5, null).block();
+        String json = controller.messages("t", 5, null).block().getHeaders().getETag();
+
+        assertThat(cbor.getHeaders().getETag()).isNotEqualTo(json);
+        assertThat(cbor.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+        assertThat(cbor.getBody().block()).containsExactly(raw);
+        verify(fetcher, times(1)).readLastNRaw(eq("t"), eq(5), any());
+        verify(fetcher, times(1)).readLastN(eq("t"), eq(5), any());
+    }
+
+    @Test
+    void prefersCbor_onlyWhenCborOutranksJson() {
+        assertThat(DlqController.prefersCbor("application/cbor")).isTrue();
+        assertThat(DlqController.prefersCbor("*/*, application/cbor")).isTrue();
+        assertThat(DlqController.prefersCbor("application/json;q=0.5, application/cbor")).isTrue();
+
+        assertThat(DlqController.prefersCbor(null)).isFalse();
+        assertThat(DlqController.prefersCbor("*/*")).isFalse();
+        assertThat(DlqController.prefersCbor("application/json, application/cbor")).isFalse();
+        assertThat(DlqController.prefersCbor("application/cbor;q=0.2, application/*")).isFalse();
+    }
+
+    @Test
+    void messagesDelta_parsesSince_andDelegatesToConsumer() throws Exception {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        var delta = new MessageDelta(List.of(), Map.of(0, 41L, 1, 17L), false);
+        when(consumer.fetchSince("t", Map.of(0, 41L, 1, 17L), 50)).thenReturn(delta);
+        DlqController controller = new DlqController(mock(DlqAdminService.class), mock(FetchCoalescer.class), consumer,
+                mock(DlqProducerService.class), mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+
+        assertThat(controller.messagesDelta("t", "0:41, 1:17", 50).block()).isSameAs(delta);
+        assertThat(DlqController.parseSince(null)).isEmpty();
+        assertThatThrownBy(() -> DlqController.parseSince("0=41"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("partition:offset");
+    }
+
+    @Test
+    void messagesWindow_acceptsEpochMillisOrInstants() {
+        DlqConsumerService consumer = mock(DlqConsumerService.class);
+        when(consumer.fetchWindow("t", 1_700_000_000_000L, 1_700_000_060_000L, 20)).thenReturn(List.of());
+        DlqController controller = new DlqController(mock(DlqAdminService.class), mock(FetchCoalescer.class), consumer,
+                mock(DlqProducerService.class), mock(RangeReplayService.class), immediate(), none(), none(), mock(ExportReader.class));
+
+        assertThat(controller.messagesWindow("t", "1700000000000", "2023-11-14T22:14:20Z", 20).collectList().block()).isEmpty();
+        verify(consumer).fetchWindow("t", 1_700_000_000_000L, 1_700_000_060_000L, 20);
+        assertThatThrownBy(() -> DlqController.parseTime("from", "yesterday"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("from must be");
+    }
+
+    private static DlqAdminService admin() throws Exception {
+        DlqAdminService admin = mock(DlqAdminService.class);
+        when(admin.offsets(anyString())).thenAnswer(inv -> new TopicOffsets(inv.getArgument(0), Map.of(0, 0L), Map.of(0, 10L)));
+        return admin;
+    }
+
+    /** A coalescer that reads straight through to the consumer. */
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayUpload_streamsTheParsedBodyIntoTheProducer_withQuerySettings() throws Exception {
+        DlqProducerService producer = mock(DlqProducerService.class);
+        var seen = new ArrayList<ReplayItem>();
+        when(producer.replayStream(any(), any(), any())).thenAnswer(inv -> {
+            ((Iterable<ReplayItem>) inv.getArgument(1)).forEach(seen::add);
+            return new ReplayReport(seen.size(), 0, 0, 0, 1, Map.of());
+        });
+        DlqController controller = new DlqController(mock(DlqAdminService.class), mock(FetchCoalescer.class),
+                mock(DlqConsumerService.class), producer, mock(RangeReplayService.class), immediate(), none(), none(),
+                new ExportReader());
+        var body = Flux.just("{\"partition\":0,\"offset\":5,\"valueBase64\":\"eA==\"}\n{\"partition\":1,", "\"offset\":6}\n")
+                .map(s -> (DataBuffer) DefaultDataBufferFactory.sharedInstance.wrap(s.getBytes(StandardCharsets.UTF_8)));
+
+        var report = controller.replayUpload("orders-DLQ", "orders", 200, true, null, null, null, null, null, body, null).block();
+
+        assertThat(report.sent()).isEqualTo(2);
+        assertThat(seen).extracting(ReplayItem::offset).containsExactly(5L, 6L);
+        ArgumentCaptor<ReplayRequest> settings = ArgumentCaptor.forClass(ReplayRequest.class);
+        verify(producer).replayStream(settings.capture(), any(), eq(ReplayGovernor.Priority.TRIAGER));
+        assertThat(settings.getValue()).isEqualTo(new ReplayRequest("orders-DLQ", "orders", null, 200, null, true,
+                null, null, null, null, null, null, null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replayNdjson_sendsTheFirstItem_beforeTheBodyHasEnded() throws Exception {
+        DlqProducerService producer = mock(DlqProducerService.class);
+        var firstSent = new CountDownLatch(1);
+        when(producer.replayStream(any(), any(), any())).thenAnswer(inv -> {
+            int n = 0;
+            for (ReplayItem ignored : (Iterable<ReplayItem>) inv.getArgument(1)) {
+                n++;
+                firstSent.countDown();
+            }
+            return new ReplayReport(n, 0, 0, 0, 1, Map.of());
+        });
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.replay()).thenReturn(Schedulers.boundedElastic());
+        DlqController controller = new DlqController(mock(DlqAdminService.class), mock(FetchCoalescer.class),
+                mock(DlqConsumerService.class), producer, mock(RangeReplayService.class), schedulers, none(), none(),
+                mock(ExportReader.class));
+        var body = Sinks.many().unicast().<DataBuffer>onBackpressureBuffer();
+
+        var sent = controller.replayNdjson(body.asFlux(), null).toFuture();
+        body.tryEmitNext(buffer("{\"targetTopic\":\"orders\",\"throttlePerSec\":100}\n{\"partition\":0,\"offset\":1,\"valueBase64\":\"eA==\"}\n"));
+
+        assertThat(firstSent.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sent).isNotDone();
+        body.tryEmitNext(buffer("{\"partition\":0,\"offset\":2,\"valueBase64\":\"eA==\"}\n"));
+        body.tryEmitComplete();
+
+        assertThat(sent.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        ArgumentCaptor<ReplayRequest> settings = ArgumentCaptor.forClass(ReplayRequest.class);
+        verify(producer).replayStream(settings.capture(), any(), eq(ReplayGovernor.Priority.TRIAGER));
+        assertThat(settings.getValue().targetTopic()).isEqualTo("orders");
+        assertThat(settings.getValue().throttlePerSec()).isEqualTo(100);
+
+        var withItems = Flux.just(buffer("{\"targetTopic\":\"orders\",\"items\":[{\"partition\":0,\"offset\":1}]}\n"));
+        assertThatThrownBy(() -> controller.replayNdjson(withItems, null).block())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static DataBuffer buffer(String s) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FetchCoalescer direct(DlqConsumerService consumer) throws Exception {
+        FetchCoalescer fetcher = mock(FetchCoalescer.class);
+        when(fetcher.fetchLastN(any(), any())).thenAnswer(inv -> consumer.fetchLastN(inv.getArgument(0), inv.getArgument(1)));
+        when(fetcher.readLastN(any(), any(), any())).thenAnswer(inv -> new Fetched<>(consumer.fetchLastN(inv.getArgument(0), inv.getArgument(1)), true));
+        return fetcher;
+    }
+
+    private static <T> ObjectProvider<T> none() {
+        return provider(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(T bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(bean);
+        return provider;
+    }
+
+    private static BlockingSchedulers immediate() {
+        BlockingSchedulers schedulers = mock(BlockingSchedulers.class);
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.replay()).thenReturn(Schedulers.immediate());
+        return schedulers;
+    }
 }
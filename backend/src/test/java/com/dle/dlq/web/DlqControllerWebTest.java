@@ -0,0 +1,115 @@
+package com.dle.dlq.web;
+
+import com.dle.dlq.admin.DlqAdminService;
+import com.dle.dlq.config.BlockingSchedulers;
+import com.dle.dlq.config.CodecConfig;
+import com.dle.dlq.consumer.DlqConsumerService;
+import com.dle.dlq.consumer.DlqConsumerService.Fetched;
+import com.dle.dlq.consumer.FetchCoalescer;
+import com.dle.dlq.dto.MessageDto;
+import com.dle.dlq.dto.RawMessage;
+import com.dle.dlq.dto.ReplayReport;
+import com.dle.dlq.dto.ReplayRequest;
+import com.dle.dlq.dto.TopicOffsets;
+import com.dle.dlq.export.ExportReader;
+import com.dle.dlq.producer.DlqProducerService;
+import com.dle.dlq.producer.RangeReplayService;
+import com.dle.dlq.producer.ReplayGovernor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+
+/**
+ * {@link DlqController} behind the real WebFlux codecs: content negotiation and request body
+ * decoding. Access rules are covered by {@code SecurityConfigTest}; here every request comes
+ * from one authenticated triager.
+ */
+@WebFluxTest(controllers = DlqController.class)
+@Import(CodecConfig.class)
+class DlqControllerWebTest {
+
+    @Autowired WebTestClient web;
+
+    @MockBean DlqAdminService admin;
+    @MockBean FetchCoalescer consumer;
+    @MockBean DlqConsumerService reader;
+    @MockBean ExportReader exportReader;
+    @MockBean DlqProducerService producer;
+    @MockBean RangeReplayService rangeReplay;
+    @MockBean BlockingSchedulers schedulers;
+
+    private WebTestClient triager;
+
+    @BeforeEach
+    void setUp() {
+        when(schedulers.io()).thenReturn(Schedulers.immediate());
+        when(schedulers.replay()).thenReturn(Schedulers.immediate());
+        triager = web.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority("ROLE_triager"))).mutateWith(csrf());
+    }
+
+    @Test
+    void messages_negotiate_cbor_and_default_to_json() throws Exception {
+        var offsets = new TopicOffsets("orders-DLQ", Map.of(0, 0L), Map.of(0, 3L));
+        when(admin.offsets("orders-DLQ")).thenReturn(offsets);
+        when(consumer.readLastNRaw(eq("orders-DLQ"), eq(3), any())).thenReturn(new Fetched<>(List.of(
+                new RawMessage("orders-DLQ", 0, 2L, 2000L, new byte[] { 1, 2 }, new byte[] { (byte) 0xff, 0 },
+                        Map.of("h1", new byte[] { 9 }))), true));
+        when(consumer.readLastN(eq("orders-DLQ"), eq(3), any())).thenReturn(new Fetched<>(List.of(
+                new MessageDto("orders-DLQ", 0, 2L, 2000L, null, null, "/wA=", Map.of("h1", "CQ=="))), true));
+
+        byte[] cbor = triager.get().uri("/api/dlq/messages?topic=orders-DLQ&limit=3")
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().returnResult().getResponseBody();
+        JsonNode decoded = new CBORMapper().readTree(cbor);
+        assertThat(decoded).hasSize(1);
+        assertThat(decoded.get(0).get("value").isBinary()).isTrue();
+        assertThat(decoded.get(0).get("value").binaryValue()).containsExactly(0xff, 0);
+        assertThat(decoded.get(0).get("headers").get("h1").binaryValue()).containsExactly(9);
+        assertThat(decoded.get(0).has("valueUtf8")).isFalse();
+
+        for (String accept : new String[] { "*/*", null }) {
+            var request = triager.get().uri("/api/dlq/messages?topic=orders-DLQ&limit=3");
+            if (accept != null) request = request.header(HttpHeaders.ACCEPT, accept);
+            request.exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                    .expectBodyList(MessageDto.class).hasSize(1);
+        }
+    }
+
+    @Test
+    void replay_with_ndjson_body_takes_the_streamed_path() throws Exception {
+        when(producer.replayStream(any(ReplayRequest.class), any(), any())).thenReturn(ReplayReport.EMPTY);
+
+        triager.post().uri("/api/dlq/replay").contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"targetTopic\":\"orders\"}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Integer.class).isEqualTo(0);
+        verify(producer, times(1)).replayStream(any(ReplayRequest.class), any(), eq(ReplayGovernor.Priority.TRIAGER));
+        verify(producer, never()).replay(any(ReplayRequest.class), any());
+    }
+}
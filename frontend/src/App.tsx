@@ -14,7 +14,7 @@ export default function App() {
   const [status, setStatus] = useState<string>('');
 
   const { topics, error: topicsError } = useTopics();
-  const { messages, loading } = useMessages(selectedTopic, 200);
+  const { messages, loading, refresh } = useMessages(selectedTopic, 200);
 
   if (topicsError && !status) setStatus(String(topicsError));
 
@@ -77,7 +77,18 @@ export default function App() {
             <h2 className="font-medium">
               Messages {selectedTopic ? `in ${selectedTopic}` : ""}
             </h2>
-            {loading && <span className="text-sm text-gray-500">Loading…</span>}
+            <div className="flex items-center gap-3">
+              {loading && <span className="text-sm text-gray-500">Loading…</span>}
+              {selectedTopic && (
+                <button
+                  className="text-sm px-3 py-1 border rounded hover:bg-gray-100"
+                  onClick={refresh}
+                  disabled={loading}
+                >
+                  Refresh
+                </button>
+              )}
+            </div>
           </div>
 
           <div className="flex-1 overflow-auto">
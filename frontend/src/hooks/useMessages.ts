@@ -1,10 +1,20 @@
-import { useEffect, useState } from 'react';
-import { getMessages } from '../services/api';
+import { useCallback, useEffect, useRef, useState } from 'react';
+import { getMessages, getMessagesSince } from '../services/api';
 import { MessageDto } from '../types/types';
 
+// Highest offset seen per partition, the `since` of the next delta refresh
+function positionsOf(messages: MessageDto[]): Record<string, number> {
+  const out: Record<string, number> = {};
+  for (const m of messages) {
+    out[m.partition] = Math.max(out[m.partition] ?? -1, m.offset);
+  }
+  return out;
+}
+
 export function useMessages(topic: string | null, limit = 200) {
   const [messages, setMessages] = useState<MessageDto[]>([]);
   const [loading, setLoading] = useState(false);
+  const positions = useRef<Record<string, number>>({});
 
   useEffect(() => {
     if (!topic) { setMessages([]); return; }
@@ -13,7 +23,10 @@ export function useMessages(topic: string | null, limit = 200) {
     setLoading(true);
 
     getMessages(topic, limit, { signal: controller.signal })
-      .then(setMessages)
+      .then(msgs => {
+        positions.current = positionsOf(msgs);
+        setMessages(msgs);
+      })
       .catch(err => {
         // Ignore aborts; you can surface others with a global notifier if you prefer
         if ((err as any)?.name !== 'AbortError') console.error(err);
@@ -23,5 +36,30 @@ export function useMessages(topic: string | null, limit = 200) {
     return () => controller.abort();
   }, [topic, limit]);
 
-  return { messages, loading };
+  // Fetches only records newer than what is shown and merges them in
+  const refresh = useCallback(async () => {
+    if (!topic) return;
+    setLoading(true);
+    try {
+      const delta = await getMessagesSince(topic, positions.current, limit);
+      if (delta.truncated) {
+        const msgs = await getMessages(topic, limit);
+        positions.current = positionsOf(msgs);
+        setMessages(msgs);
+        return;
+      }
+      positions.current = { ...positions.current, ...delta.positions };
+      if (delta.messages.length > 0) {
+        setMessages(prev => [...delta.messages, ...prev]
+          .sort((a, b) => b.offset - a.offset)
+          .slice(0, limit * Math.max(1, Object.keys(positions.current).length)));
+      }
+    } catch (err) {
+      console.error(err);
+    } finally {
+      setLoading(false);
+    }
+  }, [topic, limit]);
+
+  return { messages, loading, refresh };
 }
@@ -1,12 +1,30 @@
 import { authFetch } from '../auth/httpAuth';
-import { MessageDto, ReplayItemDto } from '../types/types';
+import { MessageDelta, MessageDto, ReplayItemDto } from '../types/types';
 
 type FetchOpts = { signal?: AbortSignal };
 
+// Last body and ETag per URL; the server answers 304 when nothing changed
+const etagCache = new Map<string, { etag: string; body: unknown }>();
+
+async function getCached<T>(url: string, init: RequestInit, error: string): Promise<T> {
+  const cached = etagCache.get(url);
+  const r = await authFetch(url, {
+    ...init,
+    // The browser's HTTP cache would answer 304s on its own; keep revalidation explicit
+    cache: 'no-store',
+    headers: cached ? { 'If-None-Match': cached.etag } : undefined,
+  });
+  if (r.status === 304 && cached) return cached.body as T;
+  if (!r.ok) throw new Error(error);
+  const body = await r.json();
+  const etag = r.headers.get('ETag');
+  if (etag) etagCache.set(url, { etag, body });
+  else etagCache.delete(url);
+  return body;
+}
+
 export async function getTopics(): Promise<string[]> {
-  const r = await authFetch('/api/dlq/topics');
-  if (!r.ok) throw new Error('Failed to load topics');
-  return r.json();
+  return getCached('/api/dlq/topics', {}, 'Failed to load topics');
 }
 
 export async function getMessages(
@@ -14,11 +32,25 @@ export async function getMessages(
   limit = 200,
   opts: FetchOpts = {}
 ): Promise<MessageDto[]> {
-  const r = await authFetch(
+  return getCached(
     `/api/dlq/messages?topic=${encodeURIComponent(topic)}&limit=${limit}`,
+    { signal: opts.signal },
+    'Failed to load messages'
+  );
+}
+
+export async function getMessagesSince(
+  topic: string,
+  since: Record<string, number>,
+  limit = 200,
+  opts: FetchOpts = {}
+): Promise<MessageDelta> {
+  const sinceParam = Object.entries(since).map(([p, o]) => `${p}:${o}`).join(',');
+  const r = await authFetch(
+    `/api/dlq/messages/delta?topic=${encodeURIComponent(topic)}&since=${sinceParam}&limit=${limit}`,
     { signal: opts.signal }
   );
-  if (!r.ok) throw new Error('Failed to load messages');
+  if (!r.ok) throw new Error('Failed to load new messages');
   return r.json();
 }
 
@@ -16,3 +16,9 @@ export type ReplayItemDto = {
   headersBase64?: Record<string, string>;
   topic?: string; // allow if caller provides it
 };
+
+export type MessageDelta = {
+  messages: MessageDto[];
+  positions: Record<string, number>; // partition -> last offset covered
+  truncated: boolean;
+};